@@ -0,0 +1,103 @@
+/*
+ * M68kBenchmark
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.benchmark;
+
+import m68k.cpu.MC68000;
+import m68k.memory.AddressSpace;
+import m68k.memory.MemorySpace;
+import omegadrive.m68k.MC68000Wrapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 68k core in isolation: MC68000Wrapper over a flat ram AddressSpace, no GenesisBus.
+ * Reports instructions per second for each opcode class, use "-bm avgt -tu ns" to get ns per instruction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class M68kBenchmark {
+
+    private static final int INSTRUCTIONS = 10_000;
+    private static final int RAM_SIZE_KB = 64;
+    private static final int CODE_START = 0x1000;
+    private static final int CODE_END = 0x7000;
+    private static final int DATA_ADDRESS = 0x8000;
+
+    public enum OpcodeClass {
+        NOP(0x4E71), //nop
+        MOVE(0x2200), //move.l d0,d1
+        ALU(0xD280), //add.l d0,d1
+        MEMORY(0x3210), //move.w (a0),d1
+        MULTIPLY(0xC2C0), //mulu.w d0,d1
+        BRANCH(0x6000, 2); //bra.w next instruction
+
+        final int[] words;
+
+        OpcodeClass(int... words) {
+            this.words = words;
+        }
+    }
+
+    @Param
+    public OpcodeClass opcodeClass;
+
+    private MC68000Wrapper cpu;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MemorySpace ram = new MemorySpace(RAM_SIZE_KB);
+        cpu = new MC68000Wrapper(null) {
+            @Override
+            protected AddressSpace createAddressSpace() {
+                return ram;
+            }
+        };
+        int pc = CODE_START;
+        int len = opcodeClass.words.length << 1;
+        while (pc + len < CODE_END) {
+            for (int w : opcodeClass.words) {
+                ram.writeWord(pc, w);
+                pc += 2;
+            }
+        }
+        ram.writeWord(pc, 0x6000); //bra.w CODE_START
+        ram.writeWord(pc + 2, CODE_START - (pc + 2));
+        MC68000 m68k = cpu.getM68k();
+        m68k.setSR(0x2700);
+        m68k.setPC(CODE_START);
+        m68k.setAddrRegisterLong(0, DATA_ADDRESS);
+        m68k.setAddrRegisterLong(7, RAM_SIZE_KB * 1024);
+        m68k.setDataRegisterLong(0, 0x1234);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTRUCTIONS)
+    public int runInstructions() {
+        int cycles = 0;
+        for (int i = 0; i < INSTRUCTIONS; i++) {
+            cycles += cpu.runInstruction();
+        }
+        return cycles;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Ssp16Benchmark
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.benchmark;
+
+import omegadrive.memory.IMemoryProvider;
+import omegadrive.memory.MemoryProvider;
+import omegadrive.ssp16.Ssp16;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSP1601 core in isolation: Ssp16Impl.ssp1601_run over a synthetic program made of a block of the same
+ * instruction, no Genesis bus access.
+ * The block runs from IRAM, like the games do: the rom only jumps there after reset.
+ * Reports instructions per second for each opcode class, use "-bm avgt -tu ns" to get ns per instruction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Ssp16Benchmark {
+
+    private static final int INSTRUCTIONS = 10_000;
+    private static final int CODE_START = 0;
+    private static final int CODE_END = Ssp16.IRAM_SIZE_WORDS;
+
+    public enum OpcodeClass {
+        NOP(0x0000), //nop
+        LD(0x0012), //ld x, y
+        ALU(0x8001), //add a, x
+        ALU_IMM(0x8800, 0x0101), //add a, imm
+        MULTIPLY(0x9600), //mpya (r4), (r0), b
+        BRANCH(0x4C00, -1); //bra always, next instruction
+
+        final int[] words;
+
+        OpcodeClass(int... words) {
+            this.words = words;
+        }
+    }
+
+    @Param
+    public OpcodeClass opcodeClass;
+
+    private Ssp16 ssp16;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        //the ssp starts at the beginning of the rom after reset
+        int[] rom = new int[Ssp16.SVP_ROM_START_ADDRESS_BYTE << 1];
+        putWord(rom, Ssp16.SVP_ROM_START_ADDRESS_WORD, 0x4C00); //bra always, CODE_START
+        putWord(rom, Ssp16.SVP_ROM_START_ADDRESS_WORD + 1, CODE_START);
+        IMemoryProvider memoryProvider = MemoryProvider.createGenesisInstance();
+        memoryProvider.setRomData(rom);
+        ssp16 = Ssp16.createSvp(memoryProvider);
+
+        int[] iram = ssp16.getSvpContext().iram_rom;
+        int pc = CODE_START;
+        int len = opcodeClass.words.length;
+        while (pc + len < CODE_END - 2) {
+            for (int i = 0; i < len; i++) {
+                //-1: address of the next instruction
+                iram[pc + i] = opcodeClass.words[i] < 0 ? pc + len : opcodeClass.words[i];
+            }
+            pc += len;
+        }
+        iram[pc] = 0x4C00; //bra always, CODE_START
+        iram[pc + 1] = CODE_START;
+    }
+
+    private static void putWord(int[] rom, int wordAddress, int value) {
+        rom[wordAddress << 1] = (value >> 8) & 0xFF;
+        rom[(wordAddress << 1) + 1] = value & 0xFF;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTRUCTIONS)
+    public void runInstructions() {
+        ssp16.ssp1601_run(INSTRUCTIONS);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * SystemFrameBenchmark
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.benchmark;
+
+import omegadrive.SystemLoader.SystemType;
+import omegadrive.system.FrameStepper;
+import omegadrive.util.TestRomUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Whole system throughput, ns per emulated frame. The roms are generated by {@link TestRomUtil} and keep
+ * the cpu, vdp and sound devices busy.
+ * Use -prof gc to get the allocation rate per frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dsms.enable.fm=true"})
+public class SystemFrameBenchmark {
+
+    private static final int FRAMES = 10;
+
+    @Param({"GENESIS", "SMS", "MSX"})
+    public SystemType systemType;
+
+    private Path folder;
+    private FrameStepper stepper;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        folder = Files.createTempDirectory("helios-jmh");
+        Path rom = TestRomUtil.writeRom(systemType, folder);
+        stepper = FrameStepper.start(rom);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        stepper.close();
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int runFrames() {
+        stepper.runFrames(FRAMES);
+        return stepper.getFrameCount();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Z80Benchmark
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.benchmark;
+
+import omegadrive.bus.DeviceAwareBus;
+import omegadrive.util.Size;
+import omegadrive.vdp.Tms9918aVdp;
+import omegadrive.z80.Z80CoreWrapper;
+import omegadrive.z80.Z80Provider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Z80 core in isolation: Z80CoreWrapper over a flat 64k ram bus.
+ * ZEXDOC runs the Z80Exerciser test program (CP/M calls are ignored), the other classes run a block of
+ * the same instruction.
+ * Reports instructions per second for each opcode class, use "-bm avgt -tu ns" to get ns per instruction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Z80Benchmark {
+
+    private static final int INSTRUCTIONS = 10_000;
+    private static final int MEMORY_SIZE = 0x10000;
+    private static final int CODE_END = 0x8000;
+    private static final int CPM_START = 0x100;
+    private static final int CPM_BDOS = 5;
+    private static final String ZEXDOC_FILE = "./src/test/java/omegadrive/z80/zexdoc.bin";
+
+    public enum OpcodeClass {
+        ZEXDOC,
+        NOP(0x00), //nop
+        LD_MEM(0x7E), //ld a,(hl)
+        ALU(0x80), //add a,b
+        JUMP(0xC3); //jp next instruction
+
+        final int[] bytes;
+
+        OpcodeClass(int... bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    @Param
+    public OpcodeClass opcodeClass;
+
+    private final int[] ram = new int[MEMORY_SIZE];
+    private Z80Provider z80;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        DeviceAwareBus<Tms9918aVdp> bus = new DeviceAwareBus<Tms9918aVdp>() {
+            @Override
+            public long read(long address, Size size) {
+                return ram[(int) address & 0xFFFF];
+            }
+
+            @Override
+            public void write(long address, long data, Size size) {
+                ram[(int) address & 0xFFFF] = (int) data & 0xFF;
+            }
+
+            @Override
+            public void writeIoPort(int port, int value) {
+            }
+
+            @Override
+            public int readIoPort(int port) {
+                return 0xFF;
+            }
+        };
+        z80 = Z80CoreWrapper.createInstance(bus);
+        if (opcodeClass == OpcodeClass.ZEXDOC) {
+            loadZexdoc();
+        } else {
+            loadBlock();
+        }
+        z80.reset();
+    }
+
+    //restarts when done, see Z80Exerciser
+    private void loadZexdoc() throws IOException {
+        byte[] data = Files.readAllBytes(Paths.get(ZEXDOC_FILE));
+        for (int i = 0; i < data.length && CPM_START + i < MEMORY_SIZE; i++) {
+            ram[CPM_START + i] = data[i] & 0xFF;
+        }
+        putJump(0, CPM_START);
+        ram[CPM_BDOS] = 0xC9; //ret
+    }
+
+    private void loadBlock() {
+        int pc = 0;
+        int len = opcodeClass == OpcodeClass.JUMP ? 3 : 1;
+        while (pc + len < CODE_END) {
+            if (opcodeClass == OpcodeClass.JUMP) {
+                putJump(pc, pc + len);
+            } else {
+                ram[pc] = opcodeClass.bytes[0];
+            }
+            pc += len;
+        }
+        putJump(pc, 0);
+    }
+
+    private void putJump(int pc, int address) {
+        ram[pc] = 0xC3;
+        ram[pc + 1] = address & 0xFF;
+        ram[pc + 2] = address >> 8;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTRUCTIONS)
+    public int runInstructions() {
+        int tstates = 0;
+        for (int i = 0; i < INSTRUCTIONS; i++) {
+            tstates += z80.executeInstruction();
+        }
+        return tstates;
+    }
+}
@@ -0,0 +1,117 @@
+package omegadrive;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multiple producers, single consumer ring of preallocated events: the calling thread only copies
+ * references into a slot, a background thread formats and prints.
+ * <p>
+ * When the ring is full the message is dropped and counted, errors excepted: those are printed on the calling thread.
+ */
+final class AsyncLogAppender implements LogAppender, Runnable {
+
+    private static final int SIZE = 1 << 12;
+    private static final int MASK = SIZE - 1;
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FLUSH_TIMEOUT_NS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LogEvent[] ring = new LogEvent[SIZE];
+    //sequence published in each slot
+    private final AtomicLongArray published = new AtomicLongArray(SIZE);
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long consumed;
+    private volatile boolean sleeping;
+    private final Thread thread;
+    private final StringBuilder sb = new StringBuilder();
+
+    AsyncLogAppender() {
+        for (int i = 0; i < SIZE; i++) {
+            ring[i] = new LogEvent();
+            published.set(i, -1);
+        }
+        thread = new Thread(this, "helios-log");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "helios-log-flush"));
+    }
+
+    @Override
+    public void append(int level, int kind, String name, String message, int argCount,
+                       Object arg0, Object arg1, Object arg2, Object[] args, Throwable throwable) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= SIZE) {
+                if (level >= Level.ERROR) {
+                    SYNC.append(level, kind, name, message, argCount, arg0, arg1, arg2, args, throwable);
+                } else {
+                    dropped.incrementAndGet();
+                }
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        int slot = (int) seq & MASK;
+        ring[slot].set(level, kind, name, message, argCount, arg0, arg1, arg2, args, throwable);
+        published.lazySet(slot, seq);
+        if (sleeping) {
+            sleeping = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        do {
+            if (!drain()) {
+                sleeping = true;
+                //re-check after publishing the flag, a producer might have missed it
+                if (!drain()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NS);
+                }
+                sleeping = false;
+            }
+        } while (true);
+    }
+
+    //false when there was nothing to print
+    private synchronized boolean drain() {
+        long next = consumed;
+        int count = 0;
+        while (published.get((int) next & MASK) == next) {
+            LogEvent e = ring[(int) next & MASK];
+            try {
+                e.print(sb);
+            } catch (RuntimeException ex) {
+                System.err.println("[" + e.name + "] unable to format: " + e.message + ", " + ex);
+            }
+            e.clear();
+            consumed = ++next;
+            count++;
+        }
+        long d = dropped.get();
+        if (d > 0) {
+            dropped.addAndGet(-d);
+            System.err.println("[" + AsyncLogAppender.class.getSimpleName() + "] log ring full, messages dropped: " + d);
+        }
+        return count > 0;
+    }
+
+    /**
+     * Prints the pending messages on the calling thread.
+     */
+    @Override
+    public void flush() {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NS;
+        //a producer might still be filling a claimed slot
+        while (consumed < target && System.nanoTime() < deadline) {
+            if (!drain()) {
+                Thread.yield();
+            }
+        }
+    }
+}
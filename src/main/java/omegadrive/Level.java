@@ -1,7 +1,45 @@
 package omegadrive;
 
+/**
+ * Ordered by severity, a logger prints the levels >= the configured one.
+ */
 public interface Level {
-    int INFO = 1;
-    int DEBUG = 2;
+    int DEBUG = 1;
+    int INFO = 2;
     int WARNING = 3;
+    int ERROR = 4;
+    int OFF = 5;
+
+    static int parse(String name, int defaultLevel) {
+        switch (String.valueOf(name).trim().toUpperCase()) {
+            case "DEBUG":
+            case "TRACE":
+            case "ALL":
+                return DEBUG;
+            case "INFO":
+                return INFO;
+            case "WARN":
+            case "WARNING":
+                return WARNING;
+            case "ERROR":
+                return ERROR;
+            case "OFF":
+                return OFF;
+            default:
+                return defaultLevel;
+        }
+    }
+
+    static String name(int level) {
+        switch (level) {
+            case DEBUG:
+                return "DEBUG";
+            case INFO:
+                return "INFO";
+            case WARNING:
+                return "WARN";
+            default:
+                return "ERROR";
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package omegadrive;
+
+/**
+ * Receives the log calls that pass the level check.
+ */
+interface LogAppender {
+
+    void append(int level, int kind, String name, String message, int argCount,
+                Object arg0, Object arg1, Object arg2, Object[] args, Throwable throwable);
+
+    default void flush() {
+        //DO NOTHING
+    }
+
+    /**
+     * Formats and prints on the calling thread.
+     */
+    LogAppender SYNC = new LogAppender() {
+
+        private final LogEvent event = new LogEvent();
+        private final StringBuilder sb = new StringBuilder();
+
+        @Override
+        public synchronized void append(int level, int kind, String name, String message, int argCount,
+                                        Object arg0, Object arg1, Object arg2, Object[] args, Throwable throwable) {
+            event.set(level, kind, name, message, argCount, arg0, arg1, arg2, args, throwable);
+            event.print(sb);
+            event.clear();
+        }
+    };
+}
@@ -0,0 +1,101 @@
+package omegadrive;
+
+import java.io.PrintStream;
+
+/**
+ * A log call: the message and its arguments, formatted only when printed.
+ * <p>
+ * The async appender reuses the instances, arguments are kept by reference so they should not be mutated
+ * after the call; primitives, strings and enums (ie. the vast majority) are fine.
+ */
+final class LogEvent {
+
+    static final int PARAM = 0; //"{}" placeholders
+    static final int PRINTF = 1; //String.format
+    static final int CONCAT = 2; //message and arguments concatenated
+
+    int level;
+    int kind;
+    String name;
+    String message;
+    Object arg0, arg1, arg2;
+    //varargs call, otherwise null
+    Object[] args;
+    int argCount;
+    Throwable throwable;
+
+    void set(int level, int kind, String name, String message, int argCount, Object arg0, Object arg1,
+             Object arg2, Object[] args, Throwable throwable) {
+        this.level = level;
+        this.kind = kind;
+        this.name = name;
+        this.message = message;
+        this.argCount = argCount;
+        this.arg0 = arg0;
+        this.arg1 = arg1;
+        this.arg2 = arg2;
+        this.args = args;
+        this.throwable = throwable;
+    }
+
+    //drops the references, lets the arguments be collected
+    void clear() {
+        name = message = null;
+        arg0 = arg1 = arg2 = null;
+        args = null;
+        throwable = null;
+    }
+
+    void print(StringBuilder sb) {
+        sb.setLength(0);
+        sb.append('[').append(name).append(']');
+        Throwable t = throwable;
+        switch (kind) {
+            case PRINTF:
+                sb.append(String.format(message, args != null ? args : new Object[]{arg0, arg1, arg2}));
+                break;
+            case CONCAT:
+                for (int i = 0; i < argCount; i++) {
+                    sb.append(arg(i));
+                }
+                break;
+            default:
+                t = formatParams(sb);
+                break;
+        }
+        PrintStream out = level >= Level.ERROR ? System.err : System.out;
+        out.println(sb);
+        if (t != null) {
+            t.printStackTrace(out);
+        }
+    }
+
+    //"{}" placeholders, a trailing Throwable not consumed by a placeholder is printed with its stack trace
+    private Throwable formatParams(StringBuilder sb) {
+        final String m = message;
+        int argIndex = 0;
+        int start = 0;
+        if (m != null) {
+            int idx;
+            while (argIndex < argCount && (idx = m.indexOf("{}", start)) >= 0) {
+                sb.append(m, start, idx).append(arg(argIndex++));
+                start = idx + 2;
+            }
+            sb.append(m, start, m.length());
+        } else {
+            sb.append("null");
+        }
+        Throwable t = throwable;
+        if (t == null && argIndex == argCount - 1 && arg(argIndex) instanceof Throwable) {
+            t = (Throwable) arg(argIndex);
+        }
+        return t;
+    }
+
+    private Object arg(int i) {
+        if (args != null) {
+            return args[i];
+        }
+        return i == 0 ? arg0 : (i == 1 ? arg1 : arg2);
+    }
+}
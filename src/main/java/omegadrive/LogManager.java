@@ -1,6 +1,21 @@
 package omegadrive;
 
+/**
+ * Configuration, from system properties:
+ * <p>
+ * helios.log.level: debug, info (default), warn, error, off
+ * <p>
+ * helios.log.async: true (default), the messages are formatted and printed by a background thread
+ */
 public class LogManager {
+
+    static volatile int level = Level.INFO;
+    private static volatile LogAppender appender = LogAppender.SYNC;
+
+    static {
+        configure();
+    }
+
     public static Logger getLogger(String simpleName) {
         return new Logger(simpleName);
     }
@@ -8,4 +23,37 @@ public class LogManager {
     public static Logger getLogger(Class<?> clazz) {
         return new Logger(clazz.getSimpleName());
     }
+
+    /**
+     * (Re)reads the configuration, ie. once the properties file has been loaded.
+     */
+    public static synchronized void configure() {
+        level = Level.parse(System.getProperty("helios.log.level"), Level.INFO);
+        boolean async = Boolean.parseBoolean(System.getProperty("helios.log.async", "true"));
+        if (async && appender == LogAppender.SYNC) {
+            appender = new AsyncLogAppender();
+        } else if (!async && appender != LogAppender.SYNC) {
+            appender.flush();
+            appender = LogAppender.SYNC;
+        }
+    }
+
+    public static void setLevel(int level) {
+        LogManager.level = level;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    /**
+     * Waits until the pending messages have been printed.
+     */
+    public static void flush() {
+        appender.flush();
+    }
+
+    static LogAppender getAppender() {
+        return appender;
+    }
 }
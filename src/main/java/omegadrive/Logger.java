@@ -1,98 +1,187 @@
 package omegadrive;
 
-
+/**
+ * Minimal logger, "{}" placeholders.
+ * <p>
+ * The level check comes first and exits before any allocation, use the fixed arity methods
+ * (up to 3 arguments) on hot paths: the varargs ones allocate the array at the call site.
+ * Formatting and printing happen on the appender, see {@link LogManager}.
+ */
 public class Logger {
     private final String name;
 
     public Logger(String simpleName) {
-        this.name=simpleName;
+        this.name = simpleName;
     }
 
-    public void error(String s) {
-        System.err.print("[");
-        System.err.print(name);
-        System.err.print("]");
-        System.err.println(s);
+    public void debug(String s) {
+        if (Level.DEBUG >= LogManager.level) {
+            append(Level.DEBUG, LogEvent.PARAM, s, 0, null, null, null, null, null);
+        }
+    }
+
+    public void debug(String s, Object arg0) {
+        if (Level.DEBUG >= LogManager.level) {
+            append(Level.DEBUG, LogEvent.PARAM, s, 1, arg0, null, null, null, null);
+        }
+    }
+
+    public void debug(String s, Object arg0, Object arg1) {
+        if (Level.DEBUG >= LogManager.level) {
+            append(Level.DEBUG, LogEvent.PARAM, s, 2, arg0, arg1, null, null, null);
+        }
+    }
+
+    public void debug(String s, Object arg0, Object arg1, Object arg2) {
+        if (Level.DEBUG >= LogManager.level) {
+            append(Level.DEBUG, LogEvent.PARAM, s, 3, arg0, arg1, arg2, null, null);
+        }
+    }
+
+    public void debug(String s, Object... objects) {
+        if (Level.DEBUG >= LogManager.level) {
+            append(Level.DEBUG, LogEvent.PARAM, s, objects.length, null, null, null, objects, null);
+        }
     }
 
     public void info(String s) {
-        System.out.print("[");
-        System.out.print(name);
-        System.out.print("]");
-        System.out.println(s);
+        if (Level.INFO >= LogManager.level) {
+            append(Level.INFO, LogEvent.PARAM, s, 0, null, null, null, null, null);
+        }
+    }
+
+    public void info(String s, Object arg0) {
+        if (Level.INFO >= LogManager.level) {
+            append(Level.INFO, LogEvent.PARAM, s, 1, arg0, null, null, null, null);
+        }
+    }
+
+    public void info(String s, Object arg0, Object arg1) {
+        if (Level.INFO >= LogManager.level) {
+            append(Level.INFO, LogEvent.PARAM, s, 2, arg0, arg1, null, null, null);
+        }
+    }
+
+    public void info(String s, Object arg0, Object arg1, Object arg2) {
+        if (Level.INFO >= LogManager.level) {
+            append(Level.INFO, LogEvent.PARAM, s, 3, arg0, arg1, arg2, null, null);
+        }
+    }
+
+    public void info(String s, Object... objects) {
+        if (Level.INFO >= LogManager.level) {
+            append(Level.INFO, LogEvent.PARAM, s, objects.length, null, null, null, objects, null);
+        }
+    }
+
+    public void warn(String s) {
+        if (Level.WARNING >= LogManager.level) {
+            append(Level.WARNING, LogEvent.PARAM, s, 0, null, null, null, null, null);
+        }
+    }
+
+    public void warn(String s, Object arg0) {
+        if (Level.WARNING >= LogManager.level) {
+            append(Level.WARNING, LogEvent.PARAM, s, 1, arg0, null, null, null, null);
+        }
+    }
+
+    public void warn(String s, Object arg0, Object arg1) {
+        if (Level.WARNING >= LogManager.level) {
+            append(Level.WARNING, LogEvent.PARAM, s, 2, arg0, arg1, null, null, null);
+        }
+    }
+
+    public void warn(String s, Object arg0, Object arg1, Object arg2) {
+        if (Level.WARNING >= LogManager.level) {
+            append(Level.WARNING, LogEvent.PARAM, s, 3, arg0, arg1, arg2, null, null);
+        }
+    }
+
+    public void warn(String s, Object... objects) {
+        if (Level.WARNING >= LogManager.level) {
+            append(Level.WARNING, LogEvent.PARAM, s, objects.length, null, null, null, objects, null);
+        }
+    }
+
+    public void error(String s) {
+        if (Level.ERROR >= LogManager.level) {
+            append(Level.ERROR, LogEvent.PARAM, s, 0, null, null, null, null, null);
+        }
+    }
+
+    public void error(String s, Object arg0) {
+        if (Level.ERROR >= LogManager.level) {
+            append(Level.ERROR, LogEvent.PARAM, s, 1, arg0, null, null, null, null);
+        }
+    }
+
+    public void error(String s, Object arg0, Object arg1) {
+        if (Level.ERROR >= LogManager.level) {
+            append(Level.ERROR, LogEvent.PARAM, s, 2, arg0, arg1, null, null, null);
+        }
+    }
+
+    public void error(String s, Object arg0, Object arg1, Object arg2) {
+        if (Level.ERROR >= LogManager.level) {
+            append(Level.ERROR, LogEvent.PARAM, s, 3, arg0, arg1, arg2, null, null);
+        }
+    }
+
+    public void error(String s, Object... objects) {
+        if (Level.ERROR >= LogManager.level) {
+            append(Level.ERROR, LogEvent.PARAM, s, objects.length, null, null, null, objects, null);
+        }
     }
 
     public void error(String s, Throwable e) {
-        System.out.print("[");
-        System.out.print(name);
-        System.out.print("]");
-        System.out.println(s);
-    }
-    public void error(String s, Object ... objects) {
-        System.err.print("[");
-        System.err.print(name);
-        System.err.print("]");
-        System.err.print(s);
-        for(Object o:objects)
-            System.err.print(o);
-        System.err.println();
-    }
-
-    public void info(String s, Object ... objects) {
-        System.out.print("[");
-        System.out.print(name);
-        System.out.print("]");
-        System.out.print(s);
-        for(Object o:objects)
-            System.out.print(o);
-        System.out.println();
-    }
-
-    public void warn(String s, Object ... objects) {
-        System.out.print("[");
-        System.out.print(name);
-        System.out.print("]");
-        System.out.print(s);
-        for(Object o:objects)
-            System.out.print(o);
-        System.out.println();
-    }
-
-
-    public void debug(String s, Object ... objects) {
-        System.out.print("[");
-        System.out.print(name);
-        System.out.print("]");
-        System.out.print(s);
-        for(Object o:objects)
-            System.out.print(o);
-        System.out.println();
-    }
-
-    public void printf(int level, String s, Object ... objects) {
-        System.out.print("[");
-        System.out.print(name);
-        System.out.print("]");
-        System.out.print(s);
-        for(Object o:objects)
-            System.out.print(o);
-        System.out.println();
-    }
-
-    public void log(int level, Object ... objects) {
-        System.out.print("[");
-        System.out.print(name);
-        System.out.print("]");
-        for(Object o:objects)
-            System.out.print(o);
-        System.out.println();
+        if (Level.ERROR >= LogManager.level) {
+            append(Level.ERROR, LogEvent.PARAM, s, 0, null, null, null, null, e);
+        }
     }
 
     public void error(Throwable e) {
-        System.out.println(e);
+        if (Level.ERROR >= LogManager.level) {
+            append(Level.ERROR, LogEvent.CONCAT, null, 1, e, null, null, null, null);
+        }
+    }
+
+    /**
+     * String.format style
+     */
+    public void printf(int level, String s, Object... objects) {
+        if (level >= LogManager.level) {
+            append(level, LogEvent.PRINTF, s, objects.length, null, null, null, objects, null);
+        }
+    }
+
+    /**
+     * The objects are concatenated
+     */
+    public void log(int level, Object... objects) {
+        if (level >= LogManager.level) {
+            append(level, LogEvent.CONCAT, null, objects.length, null, null, null, objects, null);
+        }
     }
 
     public boolean isEnabled(int level) {
-        return true;
+        return level >= LogManager.level;
+    }
+
+    public boolean isDebugEnabled() {
+        return Level.DEBUG >= LogManager.level;
+    }
+
+    public boolean isInfoEnabled() {
+        return Level.INFO >= LogManager.level;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void append(int level, int kind, String s, int argCount, Object arg0, Object arg1, Object arg2,
+                        Object[] args, Throwable t) {
+        LogManager.getAppender().append(level, kind, name, s, argCount, arg0, arg1, arg2, args, t);
     }
 }
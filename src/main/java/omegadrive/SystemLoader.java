@@ -93,6 +93,7 @@ public class SystemLoader {
         }
         System.getProperties().list(System.out);
         System.out.println("-- done listing properties --");
+        LogManager.configure();
         debugPerf = Boolean.valueOf(java.lang.System.getProperty("helios.debug", "false"));
         showFps = Boolean.valueOf(java.lang.System.getProperty("helios.fps", "false"));
         headless = Boolean.valueOf(java.lang.System.getProperty("helios.headless", "false"));
@@ -264,10 +265,19 @@ public class SystemLoader {
     }
 
     public SystemProvider createSystemProvider(Path file, boolean debugPerf) {
+        systemProvider = createSystemProvider(file, emuFrame, debugPerf);
+        return systemProvider;
+    }
+
+    /**
+     * Creates the system matching the file type, rendering to the given window.
+     */
+    public static SystemProvider createSystemProvider(Path file, DisplayWindow emuFrame, boolean debugPerf) {
         String lowerCaseName = handleCompressedFiles(file, file.toString().toLowerCase());
         if (lowerCaseName == null) {
             return null;
         }
+        SystemProvider systemProvider = null;
         boolean isGen = Arrays.stream(mdBinaryTypes).anyMatch(lowerCaseName::endsWith);
         boolean isSg = Arrays.stream(sgBinaryTypes).anyMatch(lowerCaseName::endsWith);
         boolean isCv = Arrays.stream(cvBinaryTypes).anyMatch(lowerCaseName::endsWith);
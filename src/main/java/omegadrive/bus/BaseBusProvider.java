@@ -30,6 +30,34 @@ public interface BaseBusProvider extends Device {
 
     void write(long address, long data, Size size);
 
+    /**
+     * Width specialised accessors, the defaults bridge to {@link #read(long, Size)} and
+     * {@link #write(long, long, Size)}. Buses on the cpu hot path override them to avoid passing the size around.
+     */
+    default int read8(int address) {
+        return (int) read(address, Size.BYTE);
+    }
+
+    default int read16(int address) {
+        return (int) read(address, Size.WORD);
+    }
+
+    default int read32(int address) {
+        return (int) read(address, Size.LONG);
+    }
+
+    default void write8(int address, int data) {
+        write(address, data, Size.BYTE);
+    }
+
+    default void write16(int address, int data) {
+        write(address, data, Size.WORD);
+    }
+
+    default void write32(int address, int data) {
+        write(address, data, Size.LONG);
+    }
+
     void writeIoPort(int port, int value);
 
     int readIoPort(int port);
@@ -38,6 +66,15 @@ public interface BaseBusProvider extends Device {
         //do nothing
     }
 
+    /**
+     * A cpu can run ahead of the other devices, see {@link omegadrive.m68k.M68kProvider#runCycles(int)}
+     * and {@link omegadrive.z80.Z80Provider#run(int)}.
+     * The handler is invoked before a device (ie. VDP, FM, IO) is accessed and lets the other devices catch up.
+     */
+    default void setDeviceSyncHandler(Runnable handler) {
+        //DO NOTHING
+    }
+
     BaseBusProvider attachDevice(Device device);
 
     <T extends Device> Optional<T> getDeviceIfAny(Class<T> clazz);
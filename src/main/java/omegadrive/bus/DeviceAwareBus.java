@@ -43,6 +43,13 @@ public abstract class DeviceAwareBus<V extends BaseVdpProvider> implements BaseB
     protected V vdpProvider;
     protected Z80Provider z80Provider;
     protected M68kProvider m68kProvider;
+    protected Runnable deviceSyncHandler = () -> {
+    };
+
+    @Override
+    public void setDeviceSyncHandler(Runnable handler) {
+        this.deviceSyncHandler = handler;
+    }
 
     @Override
     public BaseBusProvider attachDevice(Device device) {
@@ -77,6 +77,9 @@ public class BusArbiter implements Device, BaseVdpProvider.VdpEventListener {
                     ? CpuState.HALTED : CpuState.RUNNING;
             logInfo("Vdp State {} -> {} , 68k {}", vdpBusyState, state, state68k);
             vdpBusyState = state;
+            if (vdpBusyState != VdpBusyState.NOT_BUSY) {
+                yield68k();
+            }
             if (state68k == CpuState.RUNNING && vdpBusyState == VdpBusyState.NOT_BUSY
                     && runLater != null) {
                 Runnable runnable = runLater;
@@ -135,6 +138,14 @@ public class BusArbiter implements Device, BaseVdpProvider.VdpEventListener {
         return state68k == CpuState.RUNNING;
     }
 
+    /**
+     * @return true when no 68k interrupt is being processed or pending and the vdp is not busy,
+     * ie. only a vdp event can change the 68k state
+     */
+    public boolean is68kStateStable() {
+        return int68k == IntState.NONE && vdpBusyState == VdpBusyState.NOT_BUSY && !isVdpVInt() && !isVdpHInt();
+    }
+
 
     protected BusArbiter() {
     }
@@ -198,6 +209,21 @@ public class BusArbiter implements Device, BaseVdpProvider.VdpEventListener {
         runLater = r;
         state68k = CpuState.HALTED;
         logInfo("68k State {} , vdp {}", state68k, vdpBusyState);
+        yield68k();
+    }
+
+    //the 68k might be running a batch of instructions, stop it
+    void yield68k() {
+        if (m68k != null) {
+            m68k.requestYield();
+        }
+    }
+
+    //the z80 might be running a batch of instructions, stop it
+    void yieldZ80() {
+        if (z80 != null) {
+            z80.requestYield();
+        }
     }
 
     enum IntState {NONE, PENDING, ASSERTED, ACKED}
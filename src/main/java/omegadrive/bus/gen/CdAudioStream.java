@@ -0,0 +1,228 @@
+/*
+ * CdAudioStream
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.bus.gen;
+
+import com.google.common.io.ByteStreams;
+import omegadrive.LogManager;
+import omegadrive.Logger;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+import static omegadrive.bus.gen.MsuMdHandler.CDDA_FORMAT;
+
+/**
+ * 16 bit stereo CDDA track streamed from a memory mapped file, ie. a slice of the .bin or the data chunk of a .wav:
+ * nothing is copied up front, the audio thread reads fixed size blocks on demand.
+ * Loop, volume and fade are applied while streaming.
+ * <p>
+ * Not thread safe, the owner serializes access.
+ */
+class CdAudioStream {
+
+    private static final Logger LOG = LogManager.getLogger(CdAudioStream.class.getSimpleName());
+
+    private static final int BLOCK_FRAMES = 1024;
+    //gain, fixed point
+    private static final int GAIN_BITS = 16;
+    private static final int UNITY_GAIN = 1 << GAIN_BITS;
+    private static final int MAX_VOLUME = 0xFF;
+
+    private final ShortBuffer samples;
+    private final int frames;
+    private final short[] block = new short[BLOCK_FRAMES << 1];
+    private int position;
+    private boolean loop;
+    private int loopStart;
+    private boolean playing;
+    private int volumeGain = UNITY_GAIN;
+    //fade, the gain moves by fadeStep per frame until it reaches fadeTarget
+    private int fadeGain = UNITY_GAIN;
+    private int fadeTarget = UNITY_GAIN;
+    private int fadeStep;
+    private boolean pauseOnFadeOut;
+
+    CdAudioStream(ByteBuffer pcm) {
+        this.samples = pcm.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        this.frames = samples.remaining() >> 1;
+    }
+
+    /**
+     * Maps len bytes of the file from offset, ie. a BINARY track.
+     */
+    static CdAudioStream map(RandomAccessFile file, long offset, long len) throws IOException {
+        return new CdAudioStream(file.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, len));
+    }
+
+    /**
+     * Maps the data chunk of a 16 bit stereo 44.1khz PCM wav, any other format is decoded to memory.
+     */
+    static CdAudioStream open(File file) throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer b = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            ByteBuffer data = findCddaChunk(b.order(ByteOrder.LITTLE_ENDIAN));
+            if (data != null) {
+                return new CdAudioStream(data);
+            }
+        }
+        LOG.info("Not CDDA PCM, decoding: {}", file.getName());
+        AudioInputStream ais = AudioSystem.getAudioInputStream(file);
+        try (AudioInputStream dataIn = AudioSystem.getAudioInputStream(CDDA_FORMAT, ais)) {
+            return new CdAudioStream(ByteBuffer.wrap(ByteStreams.toByteArray(dataIn)));
+        }
+    }
+
+    //RIFF/WAVE: returns the data chunk if the fmt chunk matches CDDA, null otherwise
+    private static ByteBuffer findCddaChunk(ByteBuffer b) {
+        if (b.limit() < 12 || b.getInt(0) != 0x46464952 || b.getInt(8) != 0x45564157) { //RIFF, WAVE
+            return null;
+        }
+        boolean cdda = false;
+        int pos = 12;
+        while (pos + 8 <= b.limit()) {
+            int id = b.getInt(pos);
+            int len = b.getInt(pos + 4);
+            int start = pos + 8;
+            if (len < 0 || start + len > b.limit()) {
+                len = b.limit() - start;
+            }
+            if (id == 0x20746D66) { //fmt
+                cdda = len >= 16 && b.getShort(start) == 1 && b.getShort(start + 2) == CDDA_FORMAT.getChannels() &&
+                        b.getInt(start + 4) == (int) CDDA_FORMAT.getSampleRate() &&
+                        b.getShort(start + 14) == CDDA_FORMAT.getSampleSizeInBits();
+            } else if (id == 0x61746164) { //data
+                if (!cdda) {
+                    return null;
+                }
+                ByteBuffer d = b.duplicate();
+                //Buffer casts: java 8 binary compatibility
+                ((Buffer) d).position(start).limit(start + len);
+                return d.slice();
+            }
+            pos = start + len + (len & 1);
+        }
+        return null;
+    }
+
+    void play(boolean loop, int loopStart) {
+        this.loop = loop;
+        this.loopStart = Math.max(0, Math.min(loopStart, frames - 1));
+        this.playing = frames > 0;
+        this.pauseOnFadeOut = false;
+    }
+
+    void pause() {
+        playing = false;
+    }
+
+    void resume() {
+        fadeGain = fadeTarget = UNITY_GAIN;
+        pauseOnFadeOut = false;
+        playing = frames > 0;
+    }
+
+    /**
+     * @param volume 0 - 255
+     */
+    void setVolume(int volume) {
+        volumeGain = (Math.max(0, Math.min(volume, MAX_VOLUME)) * UNITY_GAIN) / MAX_VOLUME;
+    }
+
+    /**
+     * Fades out over fadeFrames and then pauses, pauses immediately when fadeFrames is 0.
+     */
+    void fadeOutAndPause(int fadeFrames) {
+        if (fadeFrames <= 0 || !playing) {
+            pause();
+            return;
+        }
+        fadeTarget = 0;
+        fadeStep = -Math.max(1, fadeGain / fadeFrames);
+        pauseOnFadeOut = true;
+    }
+
+    boolean isPlaying() {
+        return playing;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Writes up to count 16 bit stereo frames to buf[offset << 1...].
+     *
+     * @return the frames written, less than count when the track ends or pauses
+     */
+    int read(int[] buf, int offset, int count) {
+        int k = offset << 1;
+        int n = 0;
+        while (n < count && playing) {
+            if (position >= frames) {
+                if (!loop) {
+                    playing = false;
+                    break;
+                }
+                position = loopStart;
+            }
+            int len = Math.min(BLOCK_FRAMES, Math.min(count - n, frames - position));
+            ((Buffer) samples).position(position << 1);
+            samples.get(block, 0, len << 1);
+            k = fadeGain == fadeTarget ? copy(buf, k, len) : copyFading(buf, k, len);
+            position += len;
+            n += len;
+        }
+        return n;
+    }
+
+    private int copy(int[] buf, int k, int len) {
+        final long gain = ((long) volumeGain * fadeGain) >> GAIN_BITS;
+        for (int i = 0; i < len << 1; i++) {
+            buf[k++] = (int) ((block[i] * gain) >> GAIN_BITS);
+        }
+        return k;
+    }
+
+    private int copyFading(int[] buf, int k, int len) {
+        for (int i = 0; i < len << 1; i += 2) {
+            final long gain = ((long) volumeGain * fadeGain) >> GAIN_BITS;
+            buf[k++] = (int) ((block[i] * gain) >> GAIN_BITS);
+            buf[k++] = (int) ((block[i + 1] * gain) >> GAIN_BITS);
+            fadeGain = fadeStep < 0 ? Math.max(fadeTarget, fadeGain + fadeStep) : Math.min(fadeTarget, fadeGain + fadeStep);
+        }
+        if (fadeGain == fadeTarget && pauseOnFadeOut) {
+            //the rest of the block is silent, pause at the next read
+            playing = false;
+            pauseOnFadeOut = false;
+        }
+        return k;
+    }
+}
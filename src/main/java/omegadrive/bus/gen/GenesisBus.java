@@ -27,6 +27,7 @@ import omegadrive.cart.loader.MdRomDbModel;
 import omegadrive.cart.mapper.RomMapper;
 import omegadrive.cart.mapper.md.MdBackupMemoryMapper;
 import omegadrive.cart.mapper.md.Ssf2Mapper;
+import omegadrive.sound.AudioMixer;
 import omegadrive.sound.fm.FmProvider;
 import omegadrive.sound.psg.PsgProvider;
 import omegadrive.system.SystemProvider;
@@ -49,6 +50,11 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
     public static boolean verbose = false;
     public static final int M68K_CYCLE_PENALTY = 3;
 
+    //64Kb pages
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    private static final int NUM_PAGES = 1 << (24 - PAGE_SHIFT);
+
     private MdCartInfoProvider cartridgeInfoProvider;
     private RomMapper mapper;
     private RomMapper ssf2Mapper = RomMapper.NO_OP_MAPPER;
@@ -59,6 +65,11 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
 
     private BusArbiter busArbiter = BusArbiter.NO_OP;
 
+    //ROM and RAM pages point to the backing array, null pages are decoded via the mapper
+    private final int[][] readPages = new int[NUM_PAGES][];
+    private final int[][] writePages = new int[NUM_PAGES][];
+    private final int[] pageBase = new int[NUM_PAGES];
+
     GenesisBus.VdpRunnable vdpRunnable = new GenesisBus.VdpRunnable() {
         @Override
         public void run() {
@@ -91,7 +102,8 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         if (ROM_END_ADDRESS > DEFAULT_ROM_END_ADDRESS) {
             LOG.warn("Assuming flat ROM mapper up to address: {}", ROM_END_ADDRESS);
         }
-        msuMdHandler = MsuMdHandlerImpl.createInstance(systemProvider.getRomPath());
+        msuMdHandler = MsuMdHandlerImpl.createInstance(systemProvider.getRomPath(),
+                soundProvider != null ? soundProvider.getMixer() : AudioMixer.NO_MIXER);
     }
 
     @Override
@@ -103,6 +115,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         this.z80BusRequested = false;
         this.z80ResetState = true;
         detectState();
+        updatePageTable();
         LOG.info("Bus state: " + busState);
     }
 
@@ -118,6 +131,11 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         return busArbiter.is68kRunning();
     }
 
+    @Override
+    public boolean is68kStateStable() {
+        return busArbiter.is68kStateStable();
+    }
+
     @Override
     public void setVdpBusyState(VdpBusyState state) {
         busArbiter.setVdpBusyState(state);
@@ -143,21 +161,194 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
     @Override
     public long read(long address, Size size) {
         if (verbose) {
-            long res = mapper.readData(address, size);
-            logInfo("Read address: {}, size: {}, result: {}",
-                    Long.toHexString(address), size, Long.toHexString(res));
-            return res;
+            return readMapper((int) address, size);
+        }
+        switch (size) {
+            case BYTE:
+                return read8((int) address);
+            case WORD:
+                return read16((int) address);
+            default:
+                return read32((int) address);
         }
-        return mapper.readData(address, size);
     }
 
     @Override
     public void write(long address, long data, Size size) {
+        if (verbose) {
+            writeMapper((int) address, (int) data, size);
+            return;
+        }
+        switch (size) {
+            case BYTE:
+                write8((int) address, (int) data);
+                break;
+            case WORD:
+                write16((int) address, (int) data);
+                break;
+            default:
+                write32((int) address, (int) data);
+                break;
+        }
+    }
+
+    @Override
+    public int read8(int address) {
+        int addr = address & 0xFF_FFFF;
+        int page = addr >> PAGE_SHIFT;
+        int[] data = readPages[page];
+        if (data != null) {
+            return data[pageBase[page] + (addr & PAGE_MASK)];
+        }
+        return (int) readMapper(address, Size.BYTE);
+    }
+
+    @Override
+    public int read16(int address) {
+        int addr = address & 0xFF_FFFF;
+        int page = addr >> PAGE_SHIFT;
+        int[] data = readPages[page];
+        int offset = addr & PAGE_MASK;
+        if (data != null && offset < PAGE_MASK) {
+            int i = pageBase[page] + offset;
+            return data[i] << 8 | data[i + 1];
+        }
+        return (int) readMapper(address, Size.WORD);
+    }
+
+    @Override
+    public int read32(int address) {
+        int addr = address & 0xFF_FFFF;
+        int page = addr >> PAGE_SHIFT;
+        int[] data = readPages[page];
+        int offset = addr & PAGE_MASK;
+        if (data != null && offset < PAGE_MASK - 2) {
+            int i = pageBase[page] + offset;
+            return data[i] << 24 | data[i + 1] << 16 | data[i + 2] << 8 | data[i + 3];
+        }
+        return (int) readMapper(address, Size.LONG);
+    }
+
+    @Override
+    public void write8(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        int page = addr >> PAGE_SHIFT;
+        int[] mem = writePages[page];
+        if (mem != null) {
+            mem[pageBase[page] + (addr & PAGE_MASK)] = data & 0xFF;
+            return;
+        }
+        writeMapper(addr, data, Size.BYTE);
+    }
+
+    @Override
+    public void write16(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        int page = addr >> PAGE_SHIFT;
+        int[] mem = writePages[page];
+        int offset = addr & PAGE_MASK;
+        if (mem != null && offset < PAGE_MASK) {
+            int i = pageBase[page] + offset;
+            mem[i] = (data >> 8) & 0xFF;
+            mem[i + 1] = data & 0xFF;
+            return;
+        }
+        writeMapper(addr, data, Size.WORD);
+    }
+
+    @Override
+    public void write32(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        int page = addr >> PAGE_SHIFT;
+        int[] mem = writePages[page];
+        int offset = addr & PAGE_MASK;
+        if (mem != null && offset < PAGE_MASK - 2) {
+            int i = pageBase[page] + offset;
+            mem[i] = (data >> 24) & 0xFF;
+            mem[i + 1] = (data >> 16) & 0xFF;
+            mem[i + 2] = (data >> 8) & 0xFF;
+            mem[i + 3] = data & 0xFF;
+            return;
+        }
+        writeMapper(addr, data, Size.LONG);
+    }
+
+    //page table misses and verbose mode
+    private long readMapper(int address, Size size) {
+        long res = mapper.readData(address, size);
+        if (verbose) {
+            logInfo("Read address: {}, size: {}, result: {}",
+                    Long.toHexString(address), size, Long.toHexString(res));
+        }
+        return res;
+    }
+
+    private void writeMapper(int address, int data, Size size) {
         if (verbose) {
             logInfo("Write address: {}, data: {}, size: {}", Long.toHexString(address),
                     Long.toHexString(data), size);
         }
         mapper.writeData(address, data, size);
+        //Ssf2Mapper handles the bank registers without going through the bus
+        if (address >= Ssf2Mapper.BANK_SET_START_ADDRESS && address <= Ssf2Mapper.BANK_SET_END_ADDRESS) {
+            updatePageTable();
+        }
+    }
+
+    /**
+     * Rebuilds the page table, needs to happen every time the mapping changes: rom load, mapper changes,
+     * Ssf2 bank switching, SRAM enable/disable.
+     */
+    private void updatePageTable() {
+        if (cartridgeInfoProvider == null) { //not initialized
+            return;
+        }
+        int[] rom = memoryProvider.getRomData();
+        int[] ram = memoryProvider.getRamData();
+        for (int page = 0; page < NUM_PAGES; page++) {
+            int start = page << PAGE_SHIFT;
+            readPages[page] = null;
+            writePages[page] = null;
+            pageBase[page] = 0;
+            if (start >= ADDRESS_RAM_MAP_START) { //RAM (64K mirrored)
+                boolean fullPage = ram.length == PAGE_MASK + 1;
+                readPages[page] = fullPage ? ram : null;
+                writePages[page] = fullPage ? ram : null;
+            } else if (start + PAGE_MASK <= ROM_END_ADDRESS && !isMapperPage(page)) {
+                int base = getRomPageBase(page);
+                //partial and mirrored pages are handled by the mapper
+                boolean fullPage = base >= 0 && base + PAGE_MASK < rom.length;
+                readPages[page] = fullPage ? rom : null;
+                pageBase[page] = fullPage ? base : 0;
+            }
+        }
+    }
+
+    private int getRomPageBase(int page) {
+        int start = page << PAGE_SHIFT;
+        if (mapper == ssf2Mapper && start >= Ssf2Mapper.BANKABLE_START_ADDRESS && start <= DEFAULT_ROM_END_ADDRESS) {
+            int[] banks = ((Ssf2Mapper) ssf2Mapper).getState();
+            int bankSelector = start / Ssf2Mapper.BANK_SIZE;
+            return banks[bankSelector] * Ssf2Mapper.BANK_SIZE + (start - bankSelector * Ssf2Mapper.BANK_SIZE);
+        }
+        return start;
+    }
+
+    //true if the page might be handled by the current mapper
+    private boolean isMapperPage(int page) {
+        int start = page << PAGE_SHIFT;
+        if (cartridgeInfoProvider.isSramUsedWithBrokenHeader(start)) { // Buck Rogers
+            return true;
+        }
+        if (mapper == this || mapper == ssf2Mapper) {
+            return false;
+        } else if (mapper instanceof MdBackupMemoryMapper) {
+            return start >= MdCartInfoProvider.DEFAULT_SRAM_START_ADDRESS &&
+                    start <= MdCartInfoProvider.DEFAULT_SRAM_END_ADDRESS;
+        } else if (mapper == svpMapper) {
+            return start >= SvpBus.SVP_MAP_DRAM_START_ADDR_BYTE && start < SvpBus.SVP_MAP_DRAM_CELL_2_END_BYTE;
+        }
+        return true;
     }
 
     @Override
@@ -178,12 +369,16 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
             }
             return size.getMax();
         } else if (address >= Z80_ADDRESS_SPACE_START && address <= Z80_ADDRESS_SPACE_END) {    //	Z80 addressing space
+            deviceSyncHandler.run();
             return z80MemoryRead(address, size);
         } else if (address >= IO_ADDRESS_SPACE_START && address <= IO_ADDRESS_SPACE_END) {    //IO Addressing space
+            deviceSyncHandler.run();
             return ioRead(address, size);
         } else if (address >= INTERNAL_REG_ADDRESS_SPACE_START && address <= INTERNAL_REG_ADDRESS_SPACE_END) {
+            deviceSyncHandler.run();
             return internalRegRead(address, size);
         } else if (address >= VDP_ADDRESS_SPACE_START && address <= VDP_ADDRESS_SPACE_END) { // VDP
+            deviceSyncHandler.run();
             return vdpRead(address, size);
         } else {
             LOG.error("Unexpected bus read: {}, 68k PC: {}",
@@ -199,12 +394,16 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         if (address >= ADDRESS_RAM_MAP_START && address <= ADDRESS_UPPER_LIMIT) {  //RAM (64K mirrored)
             Util.writeRam(memoryProvider, size, address & M68K_RAM_MASK, data);
         } else if (address >= Z80_ADDRESS_SPACE_START && address <= Z80_ADDRESS_SPACE_END) {    //	Z80 addressing space
+            deviceSyncHandler.run();
             z80MemoryWrite(address, size, data);
         } else if (address >= IO_ADDRESS_SPACE_START && address <= IO_ADDRESS_SPACE_END) {    //	IO addressing space
+            deviceSyncHandler.run();
             ioWrite(address, size, data);
         } else if (address >= INTERNAL_REG_ADDRESS_SPACE_START && address <= INTERNAL_REG_ADDRESS_SPACE_END) {
+            deviceSyncHandler.run();
             internalRegWrite(address, size, data);
         } else if (address >= VDP_ADDRESS_SPACE_START && address < VDP_ADDRESS_SPACE_END) {  //VDP
+            deviceSyncHandler.run();
             vdpWrite(address, size, data);
         } else if (address <= ROM_END_ADDRESS) {
             cartWrite(address, data, size);
@@ -341,6 +540,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
             checkSsf2Mapper();
             ROM_END_ADDRESS = DEFAULT_ROM_END_ADDRESS;
             mapper.writeBankData(addressL, data);
+            updatePageTable();
         } else if (addressL == 0xA130F1) {
             boolean rom = (data & 1) == 0;
             if (rom) {
@@ -358,6 +558,8 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
     }
 
     private void z80ResetControlWrite(long data) {
+        busArbiter.yield68k();
+        busArbiter.yieldZ80();
         //	if the Z80 is required to be reset (for example, to load a new program to it's memory)
         //	this may be done by writing #$0000 to $A11200, but only when the Z80 bus is requested
         if (data == 0x0000) {
@@ -382,6 +584,8 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
 
     private void z80BusReqWrite(int addressL, long data, Size size) {
         LOG.debug("Write Z80 busReq: {} {}", size, data);
+        busArbiter.yield68k();
+        busArbiter.yieldZ80();
         //	To stop the Z80 and send a bus request, #$0100 must be written to $A11100.
         if (size == Size.WORD) {
             // Street Fighter 2 sends 0xFFFF, Monster World 0xFEFF, Slap Fight 0xFF
@@ -710,6 +914,10 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
                 data = data << 8 | data;
             }
             vdpProvider.writeVdpPortWord(portType, (int) data);
+            //register writes can enable interrupts or start a DMA
+            if (portType == VdpPortType.CONTROL) {
+                busArbiter.yield68k();
+            }
         } else if (address < 0x0F) {   //HV Counter
             LOG.warn("HV counter write");
         }
@@ -749,6 +957,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
             this.ssf2Mapper = Ssf2Mapper.createInstance(this, memoryProvider);
         }
         mapper = ssf2Mapper;
+        updatePageTable();
     }
 
     private void checkSvpMapper() {
@@ -756,6 +965,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
             this.svpMapper = SvpMapper.createInstance(this, memoryProvider);
             mapper = svpMapper;
             LOG.info("Enabling mapper: {}", mapper.getClass().getSimpleName());
+            updatePageTable();
         }
     }
 
@@ -770,6 +980,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         }
         backupMemMapper.setSramMode(sramMode);
         this.mapper = backupMemMapper;
+        updatePageTable();
     }
 
     @Override
@@ -844,6 +1055,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
     public void setMapperData(int[] data) {
         if (ssf2Mapper instanceof Ssf2Mapper) {
             ((Ssf2Mapper) ssf2Mapper).setState(data);
+            updatePageTable();
         }
     }
 
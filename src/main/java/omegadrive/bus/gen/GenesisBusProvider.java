@@ -94,6 +94,11 @@ public interface GenesisBusProvider extends BaseBusProvider {
 
     boolean is68kRunning();
 
+    /**
+     * @return true when only a vdp event can change the 68k state, ie. raise an interrupt or halt the 68k
+     */
+    boolean is68kStateStable();
+
     void setVdpBusyState(GenesisVdpProvider.VdpBusyState state);
 
     boolean isZ80Running();
@@ -65,7 +65,16 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
 
     @Override
     public long read(long addressL, Size size) {
-        int address = (int) addressL;
+        return read8((int) addressL);
+    }
+
+    @Override
+    public void write(long addressL, long data, Size size) {
+        write8((int) addressL, (int) data);
+    }
+
+    @Override
+    public int read8(int address) {
         if (address <= END_RAM) {
             address &= (ram.length - 1);
             return ram[address];
@@ -74,6 +83,7 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
                 LOG.warn("FM read while Z80 reset");
                 return 1;
             }
+            deviceSyncHandler.run();
             return getFm().read();
         } else if (address >= START_ROM_BANK_ADDRESS && address <= END_UNUSED) {
             LOG.warn("Z80 read bank switching/unused: " + Integer.toHexString(address));
@@ -81,7 +91,7 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
         } else if (address >= START_VDP && address <= END_VDP_VALID) {
             int vdpAddress = (VDP_BASE_ADDRESS + address);
             //   LOG.info("Z80 read VDP memory , address {}",Integer.toHexString(address));
-            return (int) mainBusProvider.read(vdpAddress, Size.BYTE);
+            return mainBusProvider.read8(vdpAddress);
         } else if (address >= START_68K_BANK && address <= END_68K_BANK) {
             busArbiter.addCyclePenalty(BusArbiter.CpuType.Z80, Z80_CYCLE_PENALTY);
             busArbiter.addCyclePenalty(BusArbiter.CpuType.M68K, M68K_CYCLE_PENALTY);
@@ -91,7 +101,7 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
                 LOG.warn("Z80 reading from 68k RAM");
                 return 0xFF;
             }
-            return (int) mainBusProvider.read(address, Size.BYTE);
+            return mainBusProvider.read8(address);
         } else {
             LOG.error("Illegal Z80 memory read: " + Integer.toHexString(address));
         }
@@ -99,9 +109,7 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
     }
 
     @Override
-    public void write(long addressL, long data, Size size) {
-        int dataInt = (int) data;
-        int address = (int) addressL;
+    public void write8(int address, int dataInt) {
         if (address <= END_RAM) {
             address &= (ram.length - 1);
             ram[address] = dataInt & 0xFF;
@@ -111,6 +119,7 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
                 LOG.warn("Illegal write to FM while Z80 reset");
                 return;
             }
+            deviceSyncHandler.run();
             getFm().write(address, dataInt);
         } else if (address >= START_ROM_BANK_ADDRESS && address <= END_ROM_BANK_ADDRESS) {
             romBanking(dataInt);
@@ -118,7 +127,7 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
             LOG.warn("Write to unused memory: " + Integer.toHexString(address));
         } else if (address >= START_VDP && address <= END_VDP_VALID) {
             int vdpAddress = VDP_BASE_ADDRESS + address;
-            mainBusProvider.write(vdpAddress, dataInt, Size.BYTE);
+            mainBusProvider.write8(vdpAddress, dataInt);
         } else if (address > END_VDP_VALID && address <= END_VDP) {
             //Rambo III (W) (REV01) [h1C]
             //TODO should lock the machine
@@ -127,7 +136,7 @@ public class GenesisZ80BusProviderImpl extends DeviceAwareBus implements Genesis
             busArbiter.addCyclePenalty(BusArbiter.CpuType.M68K, M68K_CYCLE_PENALTY);
             address = romBank68kSerial | (address & M68K_BANK_MASK);
             //NOTE: Z80 write to 68k RAM - this seems to be allowed (Mamono)
-            mainBusProvider.write(address, dataInt, Size.BYTE);
+            mainBusProvider.write8(address, dataInt);
         } else {
             LOG.error("Illegal Z80 memory write:  " + Integer.toHexString(address) + ", " + dataInt);
         }
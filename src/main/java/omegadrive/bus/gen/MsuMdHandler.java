@@ -20,6 +20,8 @@ public interface MsuMdHandler {
     int CLOCK_ADDR = 0xa1201f;
     int CMD_ADDR = 0xa12010;
     int CMD_ARG_ADDR = CMD_ADDR + 1;
+    //PLAY_OFFSET loop offset in sectors, word
+    int CMD_ARG_EXT_ADDR = CMD_ADDR + 2;
     int MCD_STATUS_ADDR = 0xA12020;
 
     int MCD_GATE_ARRAY_START = 0xa12001;
@@ -27,6 +29,9 @@ public interface MsuMdHandler {
     AudioFormat CDDA_FORMAT = new AudioFormat(44100f,
             16, 2, true, false);
 
+    //stereo frames in a CD sector, 1/75th of a second
+    int FRAMES_PER_SECTOR = 588;
+
     MsuMdHandler NO_OP_HANDLER = new MsuMdHandler() {
         @Override
         public int handleMsuMdRead(int address, Size size) {
@@ -52,7 +57,8 @@ public interface MsuMdHandler {
         PLAY_LOOP(0x12),
         PAUSE(0x13),
         RESUME(0x14),
-        VOL(0x15);
+        VOL(0x15),
+        PLAY_OFFSET(0x1A);
 
         private int val;
 
@@ -89,6 +95,7 @@ public interface MsuMdHandler {
     class MsuCommandArg {
         MsuCommand command;
         int arg;
+        int loopOffset;
     }
 
     class TrackDataHolder {
@@ -1,18 +1,13 @@
 package omegadrive.bus.gen;
 
 import com.google.common.io.Files;
+import omegadrive.sound.AudioMixer;
 import omegadrive.util.Size;
-import omegadrive.util.SoundUtil;
 import org.digitalmediaserver.cuelib.CueSheet;
 import org.digitalmediaserver.cuelib.TrackData;
 
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.file.Path;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import omegadrive.LogManager;
@@ -20,7 +15,9 @@ import omegadrive.Logger;
 
 /**
  * MsuMdHandlerImpl
- * TODO fadeOut, volume
+ * <p>
+ * The CD audio is a source of the sound mixer, rendered by the audio thread:
+ * tracks are streamed from memory mapped files, see {@link CdAudioStream}.
  * <p>
  * Federico Berti
  * <p>
@@ -33,19 +30,23 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
     private MsuCommandArg commandArg = new MsuCommandArg();
     private int clock = 0;
     private boolean init;
-    private volatile Clip clip;
-    private volatile long clipPosition;
-    private volatile byte[] buffer = new byte[0];
     private RandomAccessFile binFile;
     private TrackDataHolder[] trackDataHolders = new TrackDataHolder[CueFileParser.MAX_TRACKS];
+    private final AudioMixer mixer;
+    private final AudioMixer.Channel channel;
 
+    //track being played, guarded by this
+    private CdAudioStream stream;
+    private int volume = 0xFF;
 
-    private MsuMdHandlerImpl(Path romPath, CueSheet cueSheet, RandomAccessFile binFile) {
+    private MsuMdHandlerImpl(Path romPath, CueSheet cueSheet, RandomAccessFile binFile, AudioMixer mixer) {
         this.binFile = binFile;
+        this.mixer = mixer;
+        this.channel = mixer.register("MSU-MD", this::render, CDDA_FORMAT.getSampleRate(), true);
         LOG.info("Enabling MSU-MD handling, using cue sheet: {}", cueSheet.getFile().toAbsolutePath());
     }
 
-    public static MsuMdHandler createInstance(Path romPath) {
+    public static MsuMdHandler createInstance(Path romPath, AudioMixer mixer) {
         if (romPath == null) {
             return NO_OP_HANDLER;
         }
@@ -68,7 +69,7 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
             LOG.error("Disabling MSU-MD handling, unable to find BIN file");
             return NO_OP_HANDLER;
         }
-        MsuMdHandlerImpl h = new MsuMdHandlerImpl(romPath, cueSheet, binFile);
+        MsuMdHandlerImpl h = new MsuMdHandlerImpl(romPath, cueSheet, binFile, mixer);
         h.initTrackData(cueSheet, binLen);
         return h;
     }
@@ -171,6 +172,12 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
                 commandArg.arg = data;
                 LOG.debug("Cmd: {}, arg {}", commandArg.command, commandArg.arg);
                 break;
+            case CMD_ARG_EXT_ADDR:
+                commandArg.loopOffset = (commandArg.loopOffset & 0xFF) | (data & 0xFF) << 8;
+                break;
+            case CMD_ARG_EXT_ADDR + 1:
+                commandArg.loopOffset = (commandArg.loopOffset & 0xFF00) | (data & 0xFF);
+                break;
         }
     }
 
@@ -182,15 +189,19 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
         switch (commandArg.command) {
             case PLAY:
                 LOG.info("Play track: {}", arg);
-                r = playTrack(arg, false);
+                r = playTrack(arg, false, 0);
                 break;
             case PLAY_LOOP:
                 LOG.info("PlayLoop track: {}", arg);
-                r = playTrack(arg, true);
+                r = playTrack(arg, true, 0);
+                break;
+            case PLAY_OFFSET:
+                LOG.info("PlayLoop track: {}, loop offset sectors: {}", arg, commandArg.loopOffset);
+                r = playTrack(arg, true, commandArg.loopOffset * FRAMES_PER_SECTOR);
                 break;
             case PAUSE:
                 LOG.info("Pause: {}", arg);
-                r = pauseTrack(arg / 75d);
+                r = pauseTrack(arg);
                 break;
             case RESUME:
                 LOG.info("Resume: {}", arg);
@@ -198,6 +209,7 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
                 break;
             case VOL:
                 LOG.info("Volume: {}", arg);
+                r = setVolume(arg);
                 break;
         }
         if (r != null) {
@@ -206,11 +218,13 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
         }
     }
 
-    private Runnable pauseTrack(final double fadeMs) {
+    //fade out time in 1/75th of a second, ie. CD sectors
+    private Runnable pauseTrack(final int fadeSectors) {
         return () -> {
-            if (clip != null) {
-                clipPosition = clip.getMicrosecondPosition();
-                clip.stop();
+            synchronized (this) {
+                if (stream != null) {
+                    stream.fadeOutAndPause(fadeSectors * FRAMES_PER_SECTOR);
+                }
             }
             paused = true;
         };
@@ -218,49 +232,58 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
 
     private Runnable resumeTrack() {
         return () -> {
-            startClipInternal(clip);
+            synchronized (this) {
+                if (stream != null) {
+                    stream.resume();
+                }
+            }
             paused = false;
         };
     }
 
-    private void stopTrackInternal() {
-        SoundUtil.close(clip);
-        clipPosition = 0;
+    private Runnable setVolume(final int volume) {
+        return () -> {
+            synchronized (this) {
+                this.volume = volume;
+                if (stream != null) {
+                    stream.setVolume(volume);
+                }
+            }
+        };
+    }
+
+    private synchronized void stopTrackInternal() {
+        stream = null;
         LOG.info("Track stopped");
     }
 
     @Override
     public void close() {
         stopTrackInternal();
+        mixer.unregister(channel);
         LOG.info("Closing");
     }
 
-    private Runnable playTrack(final int track, boolean loop) {
+    private Runnable playTrack(final int track, boolean loop, int loopStart) {
         return () -> {
             try {
                 TrackDataHolder h = trackDataHolders[track];
                 stopTrackInternal();
-                clip = AudioSystem.getClip();
+                CdAudioStream s = null;
                 switch (h.type) {
                     case WAVE:
                     case OGG:
-                        AudioInputStream ais = AudioSystem.getAudioInputStream(h.waveFile.get());
-                        AudioInputStream dataIn = AudioSystem.getAudioInputStream(CDDA_FORMAT, ais);
-                        clip.open(dataIn);
+                        s = CdAudioStream.open(h.waveFile.get());
                         break;
                     case BINARY:
-                        prepareBuffer(h);
-                        clip.open(CDDA_FORMAT, buffer, 0, h.numBytes.get());
+                        s = CdAudioStream.map(binFile, (long) h.startFrame.get() * CueFileParser.SECTOR_SIZE_BYTES,
+                                h.numBytes.get());
                         break;
                     default:
                         LOG.error("Unable to parse track type: {}", h.type);
+                        return;
                 }
-                clip.loop(loop ? Clip.LOOP_CONTINUOUSLY : 0);
-                if (!paused) {
-                    startClipInternal(clip);
-                } else {
-                    clipPosition = 0;
-                }
+                startTrackInternal(s, loop, loopStart);
                 LOG.info("Track started: {}", track);
             } catch (Exception e) {
                 LOG.error(e);
@@ -269,27 +292,19 @@ public class MsuMdHandlerImpl implements MsuMdHandler {
         };
     }
 
-    private void startClipInternal(Clip clip) {
-        if (clip == null) {
-            return;
-        }
-        if (clipPosition > 0) {
-            clip.setMicrosecondPosition(clipPosition);
+    private synchronized void startTrackInternal(CdAudioStream s, boolean loop, int loopStart) {
+        s.setVolume(volume);
+        s.play(loop, loopStart);
+        if (paused) {
+            s.pause();
         }
-        clip.start();
+        stream = s;
     }
 
-    private void prepareBuffer(TrackDataHolder h) {
-        int numBytes = h.numBytes.get();
-        if (buffer.length < numBytes) {
-            buffer = new byte[numBytes];
-        }
-        Arrays.fill(buffer, (byte) 0);
-        try {
-            binFile.seek(h.startFrame.get() * CueFileParser.SECTOR_SIZE_BYTES);
-            binFile.readFully(buffer, 0, numBytes);
-        } catch (IOException e) {
-            LOG.error(e);
-        }
+    /**
+     * Audio thread, renders 16 bit stereo frames at the CDDA rate.
+     */
+    private synchronized int render(int[] buf, int offset, int count) {
+        return stream == null ? 0 : stream.read(buf, offset, count);
     }
-}
\ No newline at end of file
+}
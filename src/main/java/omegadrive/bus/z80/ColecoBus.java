@@ -59,12 +59,23 @@ public class ColecoBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
 
     private boolean isNmiSet = false;
 
+    private final Z80PageTable pageTable = new Z80PageTable();
+
     public ColecoBus() {
         Path p = Paths.get(SystemLoader.biosFolder, SystemLoader.biosNameColeco);
         bios = Util.toUnsignedIntArray(FileLoader.loadBiosFile(p));
         LOG.info("Loading Coleco bios from: " + p.toAbsolutePath().toString());
     }
 
+    @Override
+    public void init() {
+        pageTable.reset();
+        pageTable.mapRead(BIOS_START, BIOS_END, bios, 0);
+        pageTable.mapReadMirror(RAM_START, RAM_END, memoryProvider.getRamData(), RAM_SIZE - 1);
+        pageTable.mapRead(ROM_START, ROM_END, memoryProvider.getRomData(), 0);
+        pageTable.mapWriteMirror(0, ROM_END, memoryProvider.getRamData(), RAM_SIZE - 1);
+    }
+
     @Override
     public long read(long addressL, Size size) {
         int address = (int) addressL;
@@ -72,6 +83,16 @@ public class ColecoBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
             LOG.error("Unexpected read, addr : {} , size: {}", address, size);
             return 0xFF;
         }
+        return read8(address);
+    }
+
+    @Override
+    public int read8(int address) {
+        int res = pageTable.read(address);
+        return res != Z80PageTable.UNMAPPED ? res : readSlow(address);
+    }
+
+    private int readSlow(int address) {
         if (address <= BIOS_END) {
             return bios[address];
         } else if (address >= RAM_START && address <= RAM_END) {
@@ -87,13 +108,20 @@ public class ColecoBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
 
     @Override
     public void write(long address, long data, Size size) {
-        address &= RAM_SIZE - 1;
-        memoryProvider.writeRamByte((int) address, (int) (data & 0xFF));
+        write8((int) address, (int) data);
+    }
+
+    @Override
+    public void write8(int address, int data) {
+        if (!pageTable.write(address, data)) {
+            memoryProvider.writeRamByte(address & (RAM_SIZE - 1), data & 0xFF);
+        }
     }
 
     @Override
     public void writeIoPort(int port, int value) {
         port &= 0xFF;
+        deviceSyncHandler.run();
         byte byteVal = (byte) (value & 0XFF);
         //LogHelper.printLevel(LOG, Level.INFO, "Write port: {}, value: {}", port, value, verbose);
         switch (port & 0xE1) {
@@ -122,6 +150,7 @@ public class ColecoBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
     @Override
     public int readIoPort(int port) {
         port &= 0xFF;
+        deviceSyncHandler.run();
         //LogHelper.printLevel(LOG, Level.INFO, "Read port: {}", port, verbose);
         switch (port & 0xE1) {
             case 0xA0:
@@ -78,6 +78,7 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
 
     private RomMapper mapper;
     private CartridgeInfoProvider cartridgeInfoProvider;
+    private final Z80PageTable pageTable = new Z80PageTable();
 
     public MsxBus() {
         Path p = Paths.get(SystemLoader.biosFolder, SystemLoader.biosNameMsx1);
@@ -99,24 +100,40 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
         if(device instanceof IMemoryProvider){
             secondarySlot[3] = this.memoryProvider.getRamData();
             secondarySlotWritable[3] = true;
+            updatePageTable();
         }
         return this;
     }
 
     @Override
     public long read(long addressL, Size size) {
-        int addressI = (int) (addressL & 0xFFFF);
+        return read8((int) addressL);
+    }
+
+    @Override
+    public void write(long addressL, long data, Size size) {
+        write8((int) addressL, (int) data);
+    }
+
+    @Override
+    public int read8(int addr) {
+        int res = pageTable.read(addr);
+        return res != Z80PageTable.UNMAPPED ? res : readSlow(addr);
+    }
+
+    private int readSlow(int addr) {
+        int addressI = addr & 0xFFFF;
         int page = addressI >> 14;
         int secSlotNumber = pageSlotMapper[page];
         int res = 0xFF;
         int address = (addressI & PAGE_MASK) + pageStartAddress[page];
 
         if(mapper != RomMapper.NO_OP_MAPPER && secSlotNumber > 0 && secSlotNumber < 3){
-            res = (int) mapper.readData(addressL, Size.BYTE);
+            res = (int) mapper.readData(addressI, Size.BYTE);
         } else if(address < secondarySlot[secSlotNumber].length) {
             res = secondarySlot[secSlotNumber][address];
         } else {
-            LOG.error("Unexpected read: {}, slot: {}", Long.toHexString(addressL), secSlotNumber);
+            LOG.error("Unexpected read: {}, slot: {}", Integer.toHexString(addressI), secSlotNumber);
         }
         return res;
     }
@@ -128,24 +145,32 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
     }
 
     @Override
-    public void write(long addressL, long data, Size size) {
-        int addressI = (int) (addressL & 0xFFFF);
+    public void write8(int addr, int data) {
+        if (!pageTable.write(addr, data)) {
+            writeSlow(addr, data);
+        }
+    }
+
+    private void writeSlow(int addr, int data) {
+        int addressI = addr & 0xFFFF;
         int page = addressI >> 14;
         int secSlotNumber = pageSlotMapper[page];
         if(secondarySlotWritable[secSlotNumber]){
             int address = (addressI & PAGE_MASK) + pageStartAddress[page];
-            writeSlot(secondarySlot[secSlotNumber], address, (int) data);
+            writeSlot(secondarySlot[secSlotNumber], address, data);
         } else if(mapper != RomMapper.NO_OP_MAPPER && secSlotNumber > 0 && secSlotNumber < 3) {
-            mapper.writeData(addressL, data, size);
+            mapper.writeData(addressI, data, Size.BYTE);
+            updatePageTable();
         } else {
-            LOG.error("Unexpected write: {}, data: {}, slot: {}", Long.toHexString(addressL),
-                    Long.toHexString(data), secSlotNumber);
+            LOG.error("Unexpected write: {}, data: {}, slot: {}", Integer.toHexString(addressI),
+                    Integer.toHexString(data), secSlotNumber);
         }
     }
 
     @Override
     public void writeIoPort(int port, int value) {
         port &= 0xFF;
+        deviceSyncHandler.run();
         byte byteVal = (byte) (value & 0XFF);
         //LogHelper.printLevel(LOG, Level.INFO, "Write IO port: {}, value: {}", port, value, verbose);
         switch (port) {
@@ -195,6 +220,7 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
     @Override
     public int readIoPort(int port) {
         port &= 0xFF;
+        deviceSyncHandler.run();
         int res = 0xFF;
 
         switch (port) {
@@ -245,6 +271,33 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
         pageSlotMapper[1] = (slotSelect & 0xC) >> 2;
         pageSlotMapper[2] = (slotSelect & 0x30) >> 4;
         pageSlotMapper[3] = (slotSelect & 0xC0) >> 6;
+        updatePageTable();
+    }
+
+    /**
+     * Maps the slots selected for each 16kb page, the mapper banks are mapped via {@link RomMapper#getRomIndex}.
+     * Anything else (mapper writes, out of range accesses) goes via the slow path.
+     */
+    private void updatePageTable() {
+        pageTable.reset();
+        for (int page = 0; page < pageSlotMapper.length; page++) {
+            int secSlotNumber = pageSlotMapper[page];
+            int start = page * PAGE_SIZE;
+            if (mapper != RomMapper.NO_OP_MAPPER && secSlotNumber > 0 && secSlotNumber < 3) {
+                int[] rom = memoryProvider.getRomData();
+                for (int address = start; address < start + PAGE_SIZE; address += Z80PageTable.PAGE_SIZE) {
+                    int index = mapper.getRomIndex(address);
+                    if (index >= 0) {
+                        pageTable.mapRead(address, address + Z80PageTable.PAGE_MASK, rom, index);
+                    }
+                }
+            } else {
+                pageTable.mapRead(start, start + PAGE_MASK, secondarySlot[secSlotNumber], pageStartAddress[page]);
+            }
+            if (secondarySlotWritable[secSlotNumber]) {
+                pageTable.mapWrite(start, start + PAGE_MASK, secondarySlot[secSlotNumber], pageStartAddress[page]);
+            }
+        }
     }
 
     private int readJoyData(){
@@ -270,6 +323,7 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
             secondarySlot[2] = memoryProvider.getRomData();
             pageStartAddress[2] = PAGE_SIZE;
         }
+        updatePageTable();
     }
 
     private void setupCartHw(){
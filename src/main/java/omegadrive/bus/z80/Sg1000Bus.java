@@ -40,6 +40,16 @@ public class Sg1000Bus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
 
     private int lastDE;
 
+    private final Z80PageTable pageTable = new Z80PageTable();
+
+    @Override
+    public void init() {
+        pageTable.reset();
+        pageTable.mapRead(ROM_START, ROM_END, memoryProvider.getRomData(), 0);
+        pageTable.mapReadMirror(RAM_START, RAM_END, memoryProvider.getRamData(), RAM_SIZE - 1);
+        pageTable.mapWriteMirror(0, RAM_END, memoryProvider.getRamData(), RAM_SIZE - 1);
+    }
+
     @Override
     public long read(long addressL, Size size) {
         int address = (int) addressL;
@@ -47,6 +57,16 @@ public class Sg1000Bus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
             LOG.error("Unexpected read, addr : {} , size: {}", address, size);
             return 0xFF;
         }
+        return read8(address);
+    }
+
+    @Override
+    public int read8(int address) {
+        int res = pageTable.read(address);
+        return res != Z80PageTable.UNMAPPED ? res : readSlow(address);
+    }
+
+    private int readSlow(int address) {
         if (address <= ROM_END) {
             return memoryProvider.readRomByte(address);
         } else if (address >= RAM_START && address <= RAM_END) {
@@ -59,8 +79,14 @@ public class Sg1000Bus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
 
     @Override
     public void write(long address, long data, Size size) {
-        address &= RAM_SIZE - 1;
-        memoryProvider.writeRamByte((int) address, (int) (data & 0xFF));
+        write8((int) address, (int) data);
+    }
+
+    @Override
+    public void write8(int address, int data) {
+        if (!pageTable.write(address, data)) {
+            memoryProvider.writeRamByte(address & (RAM_SIZE - 1), data & 0xFF);
+        }
     }
 
     /**
@@ -90,6 +116,7 @@ public class Sg1000Bus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
     @Override
     public void writeIoPort(int port, int value) {
         port &= 0xFF;
+        deviceSyncHandler.run();
         byte byteVal = (byte) (value & 0XFF);
 //        LOG.info("Write port: {}, value: {}", Integer.toHexString(port), Integer.toHexString(value));
         switch (port & 0xC1) {
@@ -125,6 +152,7 @@ public class Sg1000Bus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
     @Override
     public int readIoPort(int port) {
         port &= 0xFF;
+        deviceSyncHandler.run();
 //        LOG.info("Read port: {}", Integer.toHexString(port));
         switch (port & 0xC1) {
             case 0x40:
@@ -62,6 +62,7 @@ public class SmsBus extends DeviceAwareBus<SmsVdp> implements Z80BusProvider, Ro
     private CartridgeInfoProvider cartridgeInfoProvider;
     private RomMapper mapper;
     private SmsMapper smsMapper;
+    private final Z80PageTable pageTable = new Z80PageTable();
 
     //0 - domestic (J)
     //0x40 - overseas (U/E)
@@ -80,6 +81,7 @@ public class SmsBus extends DeviceAwareBus<SmsVdp> implements Z80BusProvider, Ro
         countryValue = RegionDetector.Region.JAPAN != systemProvider.getRegion() ? OVERSEAS : DOMESTIC;
         isGG = systemProvider.getSystemType() == SystemLoader.SystemType.GG;
         mapper = RomMapper.NO_OP_MAPPER;
+        pageTable.reset();
 
         setupCartHw();
     }
@@ -96,18 +98,31 @@ public class SmsBus extends DeviceAwareBus<SmsVdp> implements Z80BusProvider, Ro
         } else {
             LOG.info("Unknown rom, assuming {} mapper, crc32: {}", mapperName, cartridgeInfoProvider.getCrc32());
         }
-        smsMapper = SmsMapper.createInstance(cartridgeInfoProvider.getRomName(), memoryProvider);
+        smsMapper = SmsMapper.createInstance(cartridgeInfoProvider.getRomName(), memoryProvider, pageTable);
         mapper = smsMapper.setupRomMapper(mapperName, mapper);
     }
 
     @Override
     public long read(long addressL, Size size) {
-        return mapper.readData(addressL, size);
+        return read8((int) addressL);
     }
 
     @Override
     public void write(long addressL, long dataL, Size size) {
-        mapper.writeData(addressL, dataL, size);
+        write8((int) addressL, (int) dataL);
+    }
+
+    @Override
+    public int read8(int address) {
+        int res = pageTable.read(address);
+        return res != Z80PageTable.UNMAPPED ? res : (int) mapper.readData(address, Size.BYTE);
+    }
+
+    @Override
+    public void write8(int address, int data) {
+        if (!pageTable.write(address, data)) {
+            mapper.writeData(address, data, Size.BYTE);
+        }
     }
 
     @Override
@@ -126,6 +141,7 @@ public class SmsBus extends DeviceAwareBus<SmsVdp> implements Z80BusProvider, Ro
     @Override
     public void writeIoPort(int port, int value) {
         port &= 0xFF;
+        deviceSyncHandler.run();
         // Game Gear Serial Ports (do nothing for now)
         if (isGG && port < 0x07){
             return;
@@ -178,6 +194,7 @@ public class SmsBus extends DeviceAwareBus<SmsVdp> implements Z80BusProvider, Ro
     public int readIoPort(int port)
     {
         port &= 0xFF;
+        deviceSyncHandler.run();
         // Game Gear Serial Ports (not fully emulated)
         if (isGG && port < 0x07) {
             return handleGGSerialRead(port);
@@ -0,0 +1,118 @@
+/*
+ * Z80PageTable
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.bus.z80;
+
+/**
+ * Z80 address space split in 1Kb pages, each page points to a backing array (rom, ram, bios)
+ * or is unmapped.
+ * <p>
+ * The buses check the table first and fall back to the full address decoding
+ * for unmapped pages: mapper registers, sram, io, etc.
+ * The mappers update the table when the banking changes.
+ */
+public class Z80PageTable {
+
+    public static final int PAGE_SHIFT = 10;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    public static final int PAGE_MASK = PAGE_SIZE - 1;
+    public static final int NUM_PAGES = 0x10000 >> PAGE_SHIFT;
+
+    public static final int UNMAPPED = -1;
+
+    private final int[][] readPages = new int[NUM_PAGES][];
+    private final int[] readBase = new int[NUM_PAGES];
+    private final int[][] writePages = new int[NUM_PAGES][];
+    private final int[] writeBase = new int[NUM_PAGES];
+
+    /**
+     * @return the byte at address or UNMAPPED
+     */
+    public final int read(int address) {
+        int page = (address >> PAGE_SHIFT) & (NUM_PAGES - 1);
+        int[] data = readPages[page];
+        if (data == null) {
+            return UNMAPPED;
+        }
+        return data[readBase[page] + (address & PAGE_MASK)];
+    }
+
+    /**
+     * @return false when the page is unmapped, nothing has been written
+     */
+    public final boolean write(int address, int value) {
+        int page = (address >> PAGE_SHIFT) & (NUM_PAGES - 1);
+        int[] data = writePages[page];
+        if (data == null) {
+            return false;
+        }
+        data[writeBase[page] + (address & PAGE_MASK)] = value & 0xFF;
+        return true;
+    }
+
+    /**
+     * Maps [startAddress, endAddress] to data[offset...], pages that do not fit in data are left unmapped.
+     */
+    public void mapRead(int startAddress, int endAddress, int[] data, int offset) {
+        map(readPages, readBase, startAddress, endAddress, data, offset, -1);
+    }
+
+    public void mapWrite(int startAddress, int endAddress, int[] data, int offset) {
+        map(writePages, writeBase, startAddress, endAddress, data, offset, -1);
+    }
+
+    /**
+     * Maps [startAddress, endAddress] to data, mirrored every dataMask + 1 bytes.
+     */
+    public void mapReadMirror(int startAddress, int endAddress, int[] data, int dataMask) {
+        map(readPages, readBase, startAddress, endAddress, data, 0, dataMask);
+    }
+
+    public void mapWriteMirror(int startAddress, int endAddress, int[] data, int dataMask) {
+        map(writePages, writeBase, startAddress, endAddress, data, 0, dataMask);
+    }
+
+    public void unmapRead(int startAddress, int endAddress) {
+        map(readPages, readBase, startAddress, endAddress, null, 0, -1);
+    }
+
+    public void unmapWrite(int startAddress, int endAddress) {
+        map(writePages, writeBase, startAddress, endAddress, null, 0, -1);
+    }
+
+    public void reset() {
+        unmapRead(0, 0xFFFF);
+        unmapWrite(0, 0xFFFF);
+    }
+
+    private static void map(int[][] pages, int[] base, int startAddress, int endAddress, int[] data,
+                            int offset, int dataMask) {
+        for (int page = startAddress >> PAGE_SHIFT; page <= endAddress >> PAGE_SHIFT; page++) {
+            int pageBase = offset + (page << PAGE_SHIFT) - startAddress;
+            boolean mirror = dataMask >= 0;
+            if (mirror) {
+                pageBase &= dataMask;
+            }
+            //a mirror smaller than a page needs the slow path
+            boolean fits = data != null && (!mirror || dataMask >= PAGE_MASK) &&
+                    pageBase >= 0 && pageBase + PAGE_SIZE <= data.length;
+            pages[page] = fits ? data : null;
+            base[page] = fits ? pageBase : 0;
+        }
+    }
+}
@@ -43,6 +43,14 @@ public interface RomMapper {
 
     void writeData(long address, long data, Size size);
 
+    /**
+     * Rom index of the byte read at address, -1 if the read is not a plain rom access.
+     * Used to map the rom banks in a {@link omegadrive.bus.z80.Z80PageTable}.
+     */
+    default int getRomIndex(int address) {
+        return -1;
+    }
+
     default void writeBankData(long addressL, long data) {
         //DO NOTHING
     }
@@ -98,8 +98,16 @@ class KonamiMapperImpl implements RomMapper {
 
     @Override
     public long readData(long addressL, Size size) {
-        int res = 0xFF;
         int address = (int) (addressL & 0xFFFF);
+        if (address < MAPPER_START_ADDRESS || address > MAPPER_END_ADDRESS) {
+            return -1;
+        }
+        int index = getRomIndex(address);
+        return index >= 0 ? rom[index] : 0xFF;
+    }
+
+    @Override
+    public int getRomIndex(int address) {
         if (address < MAPPER_START_ADDRESS || address > MAPPER_END_ADDRESS) {
             return -1;
         }
@@ -107,10 +115,9 @@ class KonamiMapperImpl implements RomMapper {
         if (pagePointer >= 0 && pagePointer < pageNum) {
             int shift = address & readShiftMask;
             int blockPointer = pageBlockMapper[pagePointer];
-            int index = (address - shift) + blockPointer * pageSize;
-            res = rom[index];
+            return (address - shift) + blockPointer * pageSize;
         }
-        return res;
+        return -1;
     }
 
     @Override
@@ -21,6 +21,7 @@ package omegadrive.cart.mapper.sms;
 
 import omegadrive.SystemLoader;
 import omegadrive.bus.z80.SmsBus;
+import omegadrive.bus.z80.Z80PageTable;
 import omegadrive.cart.mapper.BackupMemoryMapper;
 import omegadrive.cart.mapper.RomMapper;
 import omegadrive.memory.IMemoryProvider;
@@ -50,6 +51,7 @@ public class SmsMapper {
     private static final int[] bankShiftMap = {0, 24, 16, 8};
 
     private IMemoryProvider memoryProvider;
+    private Z80PageTable pageTable;
     private int mappingControl = 0;
     private int numPages = 2; //32kb default
     private int[] frameReg = new int[FRAME_REG_DEFAULT.length];
@@ -59,9 +61,10 @@ public class SmsMapper {
     private static String sramFileType = "srm";
     private String smsRomName;
 
-    public static SmsMapper createInstance(String romName, IMemoryProvider memoryProvider) {
+    public static SmsMapper createInstance(String romName, IMemoryProvider memoryProvider, Z80PageTable pageTable) {
         SmsMapper s = new SmsMapper();
         s.memoryProvider = memoryProvider;
+        s.pageTable = pageTable;
         s.smsRomName = romName;
         s.init();
         return s;
@@ -99,9 +102,46 @@ public class SmsMapper {
                 LOG.error("Invalid mapper type: {}", type);
         }
         LOG.info("Mapper set to: {}", currentType);
+        updatePageTable();
         return activeMapper;
     }
 
+    /**
+     * Rom frames and ram are mapped directly, mapping registers and sram go via the active mapper.
+     */
+    private void updatePageTable() {
+        pageTable.reset();
+        if (activeMapper == RomMapper.NO_OP_MAPPER) {
+            return;
+        }
+        int[] rom = memoryProvider.getRomData();
+        int[] ram = memoryProvider.getRamData();
+        for (int i = 0; i < frameReg.length; i++) {
+            int start = i << 14;
+            pageTable.mapRead(start, start + 0x3FFF, rom, frameReg[i] << 14);
+        }
+        pageTable.mapReadMirror(SmsBus.RAM_START, SmsBus.RAM_END, ram, SmsBus.RAM_MASK);
+        pageTable.mapWriteMirror(0, SmsBus.RAM_END, ram, SmsBus.RAM_MASK);
+        switch (currentType) {
+            case SEGA:
+                pageTable.unmapWrite(SmsBus.SEGA_MAPPING_CONTROL_ADDRESS, SmsBus.RAM_END);
+                if (((SegaMapper) activeMapper).sramSlot2Enable) {
+                    pageTable.unmapRead(0x8000, 0xBFFF);
+                    pageTable.unmapWrite(0x8000, 0xBFFF);
+                }
+                break;
+            case CODEM:
+                for (int i = 0; i < frameReg.length; i++) {
+                    int address = i * SmsBus.CODEM_MAPPING_BASE_ADDRESS;
+                    pageTable.unmapWrite(address, address);
+                }
+                break;
+            case KOREA:
+                pageTable.unmapWrite(SmsBus.KOREA_MAPPING_CONTROL_ADDRESS, SmsBus.KOREA_MAPPING_CONTROL_ADDRESS);
+                break;
+        }
+    }
+
     public int getMapperControl() {
         return mappingControl;
     }
@@ -233,6 +273,7 @@ public class SmsMapper {
                     frameReg[frameRegNum] = data;
                     break;
             }
+            updatePageTable();
             //LogHelper.printLevel(LOG, Level.INFO,"writeMappingReg: {} , data: {}", addressL, data, verbose);
         }
 
@@ -273,6 +314,7 @@ public class SmsMapper {
         @Override
         public void writeBankData(long page, long data) {
             frameReg[(int) page] = (int) (data & 0xFF);
+            updatePageTable();
         }
     }
 
@@ -297,6 +339,7 @@ public class SmsMapper {
         @Override
         public void writeBankData(long addressL, long dataL) {
             frameReg[2] = (int) (dataL & 0xFF);
+            updatePageTable();
         }
     }
 }
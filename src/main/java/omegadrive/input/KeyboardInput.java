@@ -50,6 +50,10 @@ public class KeyboardInput extends KeyAdapter {
         keyHandler(provider, e, false);
     }
 
+    public JoypadProvider getJoypadProvider() {
+        return provider;
+    }
+
     public static KeyAdapter createKeyAdapter(SystemLoader.SystemType systemType, JoypadProvider provider) {
         Objects.requireNonNull(provider);
         Objects.requireNonNull(systemType);
@@ -40,6 +40,24 @@ public interface M68kProvider extends Device {
 
     int runInstruction();
 
+    /**
+     * Runs instructions until the budget (in 68k cycles) has been consumed, a yield has been
+     * requested or the cpu executes a STOP.
+     *
+     * @return the cycles consumed, can exceed the budget
+     */
+    int runCycles(int budget);
+
+    /**
+     * Ends the current runCycles batch after the current instruction.
+     */
+    void requestYield();
+
+    /**
+     * @return the cycles consumed by the current runCycles batch, the current instruction is not included
+     */
+    int getBatchCycles();
+
     void addCyclePenalty(int value);
 
     void softReset();
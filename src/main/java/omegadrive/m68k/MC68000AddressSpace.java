@@ -22,7 +22,6 @@ package omegadrive.m68k;
 import m68k.memory.AddressSpace;
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.memory.MemoryProvider;
-import omegadrive.util.Size;
 
 public class MC68000AddressSpace implements AddressSpace {
 
@@ -51,32 +50,32 @@ public class MC68000AddressSpace implements AddressSpace {
 
     @Override
     public int readByte(int addr) {
-        return (int) busProvider.read(addr, Size.BYTE);
+        return busProvider.read8(addr);
     }
 
     @Override
     public int readWord(int addr) {
-        return (int) busProvider.read(addr, Size.WORD);
+        return busProvider.read16(addr);
     }
 
     @Override
     public int readLong(int addr) {
-        return (int) busProvider.read(addr, Size.LONG);
+        return busProvider.read32(addr);
     }
 
     @Override
     public void writeByte(int addr, int value) {
-        busProvider.write(addr, value, Size.BYTE);
+        busProvider.write8(addr, value);
     }
 
     @Override
     public void writeWord(int addr, int value) {
-        busProvider.write(addr, value, Size.WORD);
+        busProvider.write16(addr, value);
     }
 
     @Override
     public void writeLong(int addr, int value) {
-        busProvider.write(addr, value, Size.LONG);
+        busProvider.write32(addr, value);
     }
 
     @Override
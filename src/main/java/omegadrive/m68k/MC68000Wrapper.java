@@ -63,8 +63,10 @@ public class MC68000Wrapper implements M68kProvider {
     protected AddressSpace addressSpace;
     protected GenesisBusProvider busProvider;
     private boolean stop;
+    private boolean yieldRequested;
     protected int currentPC;
     protected int instCycles = 0;
+    private int batchCycles = 0;
 
     public MC68000Wrapper(GenesisBusProvider busProvider) {
         this.m68k = createCpu();
@@ -96,6 +98,26 @@ public class MC68000Wrapper implements M68kProvider {
         return res;
     }
 
+    @Override
+    public int runCycles(int budget) {
+        yieldRequested = false;
+        batchCycles = 0;
+        do {
+            batchCycles += Math.max(1, runInstruction());
+        } while (batchCycles < budget && !yieldRequested && !stop);
+        return batchCycles;
+    }
+
+    @Override
+    public void requestYield() {
+        yieldRequested = true;
+    }
+
+    @Override
+    public int getBatchCycles() {
+        return batchCycles;
+    }
+
     protected AddressSpace createAddressSpace() {
         return MC68000AddressSpace.createInstance(busProvider);
     }
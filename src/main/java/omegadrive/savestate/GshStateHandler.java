@@ -23,6 +23,7 @@ import com.google.common.io.Files;
 import com.google.common.primitives.Bytes;
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.bus.gen.SvpMapper;
+import omegadrive.sound.fm.AsyncFmProvider;
 import omegadrive.sound.fm.FmProvider;
 import omegadrive.sound.fm.ym2612.nukeykt.Ym2612Nuke;
 import omegadrive.ssp16.Ssp16;
@@ -101,10 +102,12 @@ public class GshStateHandler extends GstStateHandler {
     public void loadFmState(FmProvider fm) {
         byte[] ba = buffer.array();
         int fmNukeStart = Bytes.indexOf(ba, FM_MAGIC_WORD_NUKE.getBytes());
-        if (fmNukeStart > -1 && fm instanceof Ym2612Nuke) {
-            Ym2612Nuke nukeFm = (Ym2612Nuke) fm;
+        FmProvider chip = AsyncFmProvider.unwrap(fm);
+        if (fmNukeStart > -1 && chip instanceof Ym2612Nuke) {
+            Ym2612Nuke nukeFm = (Ym2612Nuke) chip;
             Optional<Serializable> res = loadSerializedData(FM_MAGIC_WORD_NUKE, fmNukeStart, ba);
             res.ifPresent(ser -> nukeFm.setState((Ym2612Nuke.Ym3438Context) ser));
+            AsyncFmProvider.onStateLoaded(fm);
         } else {
             super.loadFmState(fm); //load FM registers
         }
@@ -143,10 +146,11 @@ public class GshStateHandler extends GstStateHandler {
 
     @Override
     public void saveFm(FmProvider fm) {
-        super.saveFm(fm); //save FM registers
-        if (fm instanceof Ym2612Nuke) {
-            Ym2612Nuke.Ym3438Context chip = ((Ym2612Nuke) fm).getState();
-            storeSerializedData(FM_MAGIC_WORD_NUKE, chip, buffer.position());
+        FmProvider chip = AsyncFmProvider.unwrap(fm);
+        super.saveFm(chip); //save FM registers
+        if (chip instanceof Ym2612Nuke) {
+            Ym2612Nuke.Ym3438Context context = ((Ym2612Nuke) chip).getState();
+            storeSerializedData(FM_MAGIC_WORD_NUKE, context, buffer.position());
         }
     }
 
@@ -140,10 +140,9 @@ public class GstStateHandler implements GenesisStateHandler {
             vdpMemoryInterface.writeVramByte(i + 1, buffer.get(i + VRAM_DATA_OFFSET + 1) & 0xFF);
         }
         //cram is swapped
-        int[] cram = vdpMemoryInterface.getCram();
         for (int i = 0; i < GenesisVdpProvider.VDP_CRAM_SIZE; i += 2) {
-            cram[i] = buffer.get(i + CRAM_DATA_OFFSET + 1) & 0xFF;
-            cram[i + 1] = buffer.get(i + CRAM_DATA_OFFSET) & 0xFF;
+            vdpMemoryInterface.writeCramByte(i, buffer.get(i + CRAM_DATA_OFFSET + 1) & 0xFF);
+            vdpMemoryInterface.writeCramByte(i + 1, buffer.get(i + CRAM_DATA_OFFSET) & 0xFF);
         }
 
         int[] vsram = vdpMemoryInterface.getVsram();
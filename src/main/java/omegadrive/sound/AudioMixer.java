@@ -0,0 +1,317 @@
+/*
+ * AudioMixer
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound;
+
+import omegadrive.LogManager;
+import omegadrive.Logger;
+import omegadrive.util.IntRingBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Sums any number of sources into 16 bit stereo output blocks.
+ * <p>
+ * Each source is registered with its native sample rate, gain and pan; sources that do not run at
+ * the output rate are resampled in bulk by the mixer.
+ * The leading source, if any, decides how many frames a block holds (ie. the fm, which is rate controlled),
+ * the other sources follow it and are padded with silence when they run short.
+ * <p>
+ * Registration and reset are thread safe, mix() is meant to be called by the audio thread only.
+ */
+public class AudioMixer {
+
+    private static final Logger LOG = LogManager.getLogger(AudioMixer.class.getSimpleName());
+
+    public static final AudioMixer NO_MIXER = new AudioMixer(SoundProvider.SAMPLE_RATE_HZ) {
+        @Override
+        public Channel register(String name, Source source, double sampleRate, boolean stereo) {
+            return new Channel(name, source, sampleRate, stereo, sampleRate);
+        }
+    };
+
+    //gain, fixed point
+    private static final int GAIN_BITS = 12;
+    private static final int UNITY_GAIN = 1 << GAIN_BITS;
+    //native frames rendered at once when resampling
+    private static final int RENDER_FRAMES = 512;
+
+    public interface Source {
+        /**
+         * Writes up to count frames at the native rate, 16 bit, interleaved when stereo.
+         *
+         * @return the number of frames written
+         */
+        int render(int[] buf, int offset, int count);
+
+        /**
+         * Frames ready at the output rate, sources that generate the samples on demand are never short of frames.
+         */
+        default int availableFrames() {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    public static final class Channel {
+        private final String name;
+        private final Source source;
+        private final double sampleRate;
+        private final boolean stereo;
+        //null when the source runs at the output rate
+        private final SincResampler resampler;
+        private final IntRingBuffer queue;
+        private volatile int gainL = UNITY_GAIN, gainR = UNITY_GAIN;
+        private double gain = 1, pan = 0;
+
+        private Channel(String name, Source source, double sampleRate, boolean stereo, double outputRate) {
+            this.name = name;
+            this.source = source;
+            this.sampleRate = sampleRate;
+            this.stereo = stereo;
+            boolean resample = sampleRate != outputRate;
+            this.resampler = resample ? new SincResampler(sampleRate, outputRate) : null;
+            this.queue = resample ? new IntRingBuffer(RENDER_FRAMES << 2) : null;
+        }
+
+        public Channel setGain(double gain) {
+            this.gain = gain;
+            updateGain();
+            return this;
+        }
+
+        /**
+         * @param pan -1 left, 0 center, 1 right
+         */
+        public Channel setPan(double pan) {
+            this.pan = Math.max(-1, Math.min(1, pan));
+            updateGain();
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        private void updateGain() {
+            gainL = (int) Math.round(gain * Math.min(1, 1 - pan) * UNITY_GAIN);
+            gainR = (int) Math.round(gain * Math.min(1, 1 + pan) * UNITY_GAIN);
+        }
+
+        @Override
+        public String toString() {
+            return name + ", rate: " + sampleRate + (stereo ? ", stereo" : ", mono") + ", gain: " + gain + ", pan: " + pan;
+        }
+    }
+
+    private final double outputRate;
+    private volatile Channel[] channels = new Channel[0];
+    private volatile Channel leader;
+    private int[] mixBuf = new int[0];
+    private int[] channelBuf = new int[0];
+    private int[] renderBuf = new int[RENDER_FRAMES << 1];
+    private volatile boolean resetRequested;
+
+    public AudioMixer(double outputRate) {
+        this.outputRate = outputRate;
+    }
+
+    public Channel register(String name, Source source, double sampleRate, boolean stereo) {
+        Channel c = new Channel(name, source, sampleRate, stereo, outputRate);
+        synchronized (this) {
+            Channel[] cs = Arrays.copyOf(channels, channels.length + 1);
+            cs[cs.length - 1] = c;
+            channels = cs;
+        }
+        LOG.info("Registered: {}", c);
+        return c;
+    }
+
+    public synchronized void unregister(Channel channel) {
+        if (leader == channel) {
+            leader = null;
+        }
+        channels = Arrays.stream(channels).filter(c -> c != channel).toArray(Channel[]::new);
+        LOG.info("Unregistered: {}", channel);
+    }
+
+    /**
+     * The leading channel decides the block length, null to always mix the frames requested.
+     */
+    public void setLeader(Channel channel) {
+        this.leader = channel;
+    }
+
+    /**
+     * Frames the leading channel has ready at the output rate.
+     */
+    public int availableFrames() {
+        Channel l = leader;
+        return l == null ? Integer.MAX_VALUE : l.source.availableFrames();
+    }
+
+    /**
+     * Frames queued inside the mixer (resampler queues), worst case across channels.
+     */
+    public int getQueuedFrames() {
+        int res = 0;
+        for (Channel c : channels) {
+            if (c.queue != null) {
+                res = Math.max(res, (int) ((c.queue.size() >> 1) / c.resampler.getNominalStep()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Frames queued by the leading channel and inside the mixer, ie. the latency added before the output.
+     */
+    public int getLatencyFrames() {
+        int res = availableFrames();
+        return (res == Integer.MAX_VALUE ? 0 : res) + getQueuedFrames();
+    }
+
+    /**
+     * Mixes up to frames stereo frames into out, 16 bit signed little endian.
+     *
+     * @return the number of frames written
+     */
+    public int mix(byte[] out, int frames) {
+        if (resetRequested) {
+            resetRequested = false;
+            resetChannels();
+        }
+        ensureCapacity(frames);
+        final Channel[] cs = channels;
+        final Channel l = leader;
+        final int[] mix = mixBuf;
+        int len = frames;
+        if (l != null) {
+            len = render(l, frames);
+            copy(l, channelBuf, mix, len);
+        } else {
+            Arrays.fill(mix, 0, len << 1, 0);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        for (Channel c : cs) {
+            if (c != l) {
+                int n = render(c, len);
+                accumulate(c, channelBuf, mix, n);
+            }
+        }
+        for (int i = 0, k = 0; i < len << 1; i++, k += 2) {
+            int s = Math.min(Math.max(mix[i], Short.MIN_VALUE), Short.MAX_VALUE);
+            out[k] = (byte) (s & 0xFF);
+            out[k + 1] = (byte) ((s >> 8) & 0xFF);
+        }
+        return len;
+    }
+
+    /**
+     * Resets the resampling state of every channel, ie. when the sources are reset.
+     * Applied by the audio thread before mixing the next block.
+     */
+    public void reset() {
+        resetRequested = true;
+    }
+
+    private void resetChannels() {
+        for (Channel c : channels) {
+            if (c.resampler != null) {
+                c.queue.clear();
+                c.resampler.reset();
+            }
+        }
+    }
+
+    //renders len output frames to channelBuf, always stereo
+    private int render(Channel c, int len) {
+        final int[] buf = channelBuf;
+        if (c.resampler == null) {
+            int n = c.source.render(buf, 0, len);
+            if (!c.stereo) {
+                monoToStereo(buf, n);
+            }
+            return n;
+        }
+        int produced = 0;
+        while (produced < len) {
+            topUp(c, len - produced);
+            int n = c.resampler.resample(c.queue, buf, produced, len - produced);
+            if (n == 0) {
+                break;
+            }
+            produced += n;
+        }
+        return produced;
+    }
+
+    //keeps the resampler queue topped up with native frames
+    private void topUp(Channel c, int len) {
+        int queued = c.queue.size() >> 1;
+        int need = Math.min((c.queue.capacity() >> 1) - queued,
+                (int) Math.ceil(len * c.resampler.getNominalStep()) + RENDER_FRAMES - queued);
+        while (need > 0) {
+            int n = c.source.render(renderBuf, 0, Math.min(need, RENDER_FRAMES));
+            if (n == 0) {
+                break;
+            }
+            if (!c.stereo) {
+                monoToStereo(renderBuf, n);
+            }
+            c.queue.offer(renderBuf, 0, n << 1);
+            need -= n;
+        }
+    }
+
+    private static void copy(Channel c, int[] src, int[] mix, int len) {
+        final int gl = c.gainL, gr = c.gainR;
+        for (int i = 0; i < len << 1; i += 2) {
+            mix[i] = (src[i] * gl) >> GAIN_BITS;
+            mix[i + 1] = (src[i + 1] * gr) >> GAIN_BITS;
+        }
+    }
+
+    private static void accumulate(Channel c, int[] src, int[] mix, int len) {
+        final int gl = c.gainL, gr = c.gainR;
+        for (int i = 0; i < len << 1; i += 2) {
+            mix[i] += (src[i] * gl) >> GAIN_BITS;
+            mix[i + 1] += (src[i + 1] * gr) >> GAIN_BITS;
+        }
+    }
+
+    //in place, back to front
+    private static void monoToStereo(int[] buf, int len) {
+        for (int i = len - 1; i >= 0; i--) {
+            buf[(i << 1) + 1] = buf[i];
+            buf[i << 1] = buf[i];
+        }
+    }
+
+    private void ensureCapacity(int frames) {
+        if (mixBuf.length < frames << 1) {
+            mixBuf = new int[frames << 1];
+            channelBuf = new int[frames << 1];
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * FrameReadySignal
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+/**
+ * Lets the audio thread sleep until the producer has queued a block of frames.
+ * <p>
+ * The consumer publishes the number of frames it is waiting for and parks,
+ * the producer checks the threshold after adding samples and unparks the consumer once it is reached.
+ * The producer side costs a single volatile read when nobody is waiting.
+ * The wait has a timeout, producers that never signal degrade to polling once per timeout.
+ */
+public final class FrameReadySignal {
+
+    private static final int NOT_WAITING = Integer.MAX_VALUE;
+
+    private volatile Thread waiter;
+    private volatile int threshold = NOT_WAITING;
+
+    /**
+     * Producer side.
+     *
+     * @param available frames currently queued, only evaluated when the consumer is waiting
+     */
+    public void onFrames(IntSupplier available) {
+        int t = threshold;
+        if (t != NOT_WAITING && available.getAsInt() >= t) {
+            threshold = NOT_WAITING;
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Consumer side, parks until at least frames are available or the timeout expires.
+     *
+     * @return the frames available, might be less than frames on timeout
+     */
+    public int await(IntSupplier available, int frames, long timeoutNs) {
+        int res = available.getAsInt();
+        if (res >= frames) {
+            return res;
+        }
+        waiter = Thread.currentThread();
+        threshold = frames;
+        //the producer might have added the frames before seeing the threshold
+        res = available.getAsInt();
+        long deadline = System.nanoTime() + timeoutNs;
+        long remaining = timeoutNs;
+        while (res < frames && remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, remaining);
+            res = available.getAsInt();
+            remaining = deadline - System.nanoTime();
+        }
+        threshold = NOT_WAITING;
+        waiter = null;
+        return res;
+    }
+}
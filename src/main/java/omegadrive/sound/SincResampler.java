@@ -0,0 +1,195 @@
+/*
+ * SincResampler
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound;
+
+import omegadrive.util.IntRingBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Band-limited, variable ratio resampler for interleaved stereo samples.
+ * <p>
+ * Polyphase windowed-sinc (Kaiser window): the kernel is tabulated for PHASES sub-sample offsets
+ * and linearly interpolated between phases, so the ratio can change continuously, ie. for rate control.
+ * When downsampling the cutoff follows the output rate, anything above the output nyquist is filtered out
+ * instead of aliasing.
+ * <p>
+ * Not thread safe, setStep and getPendingFrames excepted: meant to be owned by the consumer (audio) thread.
+ */
+public class SincResampler {
+
+    private static final int HALF_TAPS = 16;
+    private static final int TAPS = HALF_TAPS << 1;
+    private static final int PHASES = 128;
+    private static final double KAISER_BETA = 7.0;
+    //cutoff as a fraction of the lower nyquist, leaves room for the transition band
+    private static final double CUTOFF = 0.85;
+    //input frames drained from the source at once
+    private static final int BLOCK_FRAMES = 1024;
+
+    private final float[] kernel = new float[(PHASES + 1) * TAPS];
+    private final int[] history = new int[(BLOCK_FRAMES + TAPS) << 1];
+    private final double nominalStep;
+    private volatile double step;
+    //read position in history, in frames
+    private double position;
+    private int frames;
+    //input frames drained from the source and not consumed yet, published for rate control
+    private volatile int pendingFrames;
+
+    /**
+     * @param maxStep the highest input/output ratio expected, sets the cutoff
+     */
+    public SincResampler(double inputRate, double outputRate, double maxStep) {
+        this.nominalStep = inputRate / outputRate;
+        this.step = nominalStep;
+        double cutoff = CUTOFF * Math.min(1, 1 / maxStep);
+        double norm = 1 / bessel0(KAISER_BETA);
+        for (int p = 0; p <= PHASES; p++) {
+            double frac = (double) p / PHASES;
+            double sum = 0;
+            for (int j = 0; j < TAPS; j++) {
+                double x = j - (HALF_TAPS - 1) - frac;
+                double w = x / HALF_TAPS;
+                double window = Math.abs(w) >= 1 ? 0 : bessel0(KAISER_BETA * Math.sqrt(1 - w * w)) * norm;
+                double h = cutoff * sinc(cutoff * x) * window;
+                kernel[p * TAPS + j] = (float) h;
+                sum += h;
+            }
+            //unity gain at DC for every phase
+            for (int j = 0; j < TAPS; j++) {
+                kernel[p * TAPS + j] /= sum;
+            }
+        }
+        reset();
+    }
+
+    public SincResampler(double inputRate, double outputRate) {
+        this(inputRate, outputRate, inputRate / outputRate);
+    }
+
+    /**
+     * Input frames consumed per output frame.
+     */
+    public void setStep(double step) {
+        this.step = step;
+    }
+
+    public double getNominalStep() {
+        return nominalStep;
+    }
+
+    public void reset() {
+        //the first input frame lines up with the first output frame
+        frames = HALF_TAPS - 1;
+        position = HALF_TAPS - 1;
+        pendingFrames = 0;
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Input frames held in the history that have not been resampled yet.
+     */
+    public int getPendingFrames() {
+        return pendingFrames;
+    }
+
+    /**
+     * Drains the source and writes up to count stereo frames to out[offset << 1...].
+     *
+     * @return the number of stereo frames written
+     */
+    public int resample(IntRingBuffer source, int[] out, int offset, int count) {
+        final double step = this.step;
+        int produced = 0;
+        int outIndex = offset << 1;
+        while (produced < count) {
+            produced += resampleHistory(out, outIndex + (produced << 1), count - produced, step);
+            if (produced < count && !fill(source)) {
+                break;
+            }
+        }
+        pendingFrames = Math.max(0, frames - (int) position);
+        return produced;
+    }
+
+    private int resampleHistory(int[] out, int outIndex, int count, double step) {
+        final float[] kernel = this.kernel;
+        final int[] history = this.history;
+        double pos = position;
+        int produced = 0;
+        while (produced < count) {
+            int frame = (int) pos;
+            if (frame + HALF_TAPS >= frames) {
+                break;
+            }
+            double phase = (pos - frame) * PHASES;
+            int p = (int) phase;
+            float t = (float) (phase - p);
+            int k0 = p * TAPS;
+            int k1 = k0 + TAPS;
+            int h = (frame - (HALF_TAPS - 1)) << 1;
+            float l = 0, r = 0;
+            for (int j = 0; j < TAPS; j++, h += 2) {
+                float c = kernel[k0 + j];
+                c += t * (kernel[k1 + j] - c);
+                l += c * history[h];
+                r += c * history[h + 1];
+            }
+            out[outIndex++] = Math.round(l);
+            out[outIndex++] = Math.round(r);
+            pos += step;
+            produced++;
+        }
+        position = pos;
+        return produced;
+    }
+
+    //drops the frames no longer needed and appends new ones, false when nothing has been added
+    private boolean fill(IntRingBuffer source) {
+        int keepFrom = Math.min(frames, Math.max(0, (int) position - (HALF_TAPS - 1)));
+        if (keepFrom > 0) {
+            System.arraycopy(history, keepFrom << 1, history, 0, (frames - keepFrom) << 1);
+            frames -= keepFrom;
+            position -= keepFrom;
+        }
+        int free = history.length - (frames << 1);
+        int len = source.drain(history, frames << 1, free);
+        frames += len >> 1;
+        return len > 0;
+    }
+
+    private static double sinc(double x) {
+        if (x == 0) {
+            return 1;
+        }
+        double px = Math.PI * x;
+        return Math.sin(px) / px;
+    }
+
+    //zeroth order modified bessel function of the first kind
+    private static double bessel0(double x) {
+        double sum = 1, term = 1, halfX = x / 2;
+        for (int k = 1; k < 50 && term > 1e-12 * sum; k++) {
+            term *= (halfX / k) * (halfX / k);
+            sum += term;
+        }
+        return sum;
+    }
+}
@@ -45,17 +45,35 @@ public interface SoundProvider extends Device, BaseVdpProvider.VdpEventListener
     int AUDIO_BUFFER_LEN_MS = Integer.parseInt(System.getProperty("audio.buffer.length.ms",
             String.valueOf(DEFAULT_BUFFER_SIZE_MS)));
 
+    //the audio thread writes blocks of AUDIO_BLOCK_MS, the line holds AUDIO_BLOCK_COUNT blocks
+    int AUDIO_BLOCK_MS = Math.max(1, Integer.parseInt(System.getProperty("audio.block.ms", "5")));
+    int AUDIO_BLOCK_COUNT = Math.max(2, Integer.parseInt(System.getProperty("audio.block.count",
+            String.valueOf(AUDIO_BUFFER_LEN_MS / AUDIO_BLOCK_MS))));
+
     boolean ENABLE_SOUND = Boolean.parseBoolean(System.getProperty("helios.enable.sound", "true"));
 
+    //generate the samples and discard them, ie. headless runs
+    boolean DRAIN_SOUND = Boolean.parseBoolean(System.getProperty("helios.sound.drain", "false"));
+
     boolean MD_NUKE_AUDIO = Boolean.parseBoolean(System.getProperty("md.nuke.audio", "true"));
 
+    //run the fm synthesis on a worker thread
+    boolean MD_FM_ASYNC = Boolean.parseBoolean(System.getProperty("md.fm.async", "false"));
+
     int[] EMPTY_FM = new int[0];
-    byte[] EMPTY_PSG = new byte[0];
+    int[] EMPTY_PSG = new int[0];
 
     PsgProvider getPsg();
 
     FmProvider getFm();
 
+    /**
+     * Other audio sources, ie. MSU-MD, register with the mixer.
+     */
+    default AudioMixer getMixer() {
+        return AudioMixer.NO_MIXER;
+    }
+
     static int getPsgBufferByteSize(AudioFormat audioFormat) {
         return getFmBufferIntSize(audioFormat) >> 1;
     }
@@ -0,0 +1,273 @@
+/*
+ * AsyncFmProvider
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.fm;
+
+import omegadrive.LogManager;
+import omegadrive.Logger;
+import omegadrive.sound.FrameReadySignal;
+import omegadrive.sound.fm.ym2612.Ym2612Timers;
+import omegadrive.sound.fm.ym2612.nukeykt.Ym2612Nuke;
+import omegadrive.util.IntRingBuffer;
+import omegadrive.util.PriorityThreadFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the fm synthesis on a worker thread.
+ * <p>
+ * The emulation thread appends clock, register writes, reset and frame events to a lock-free log,
+ * the worker replays the log through the wrapped chip, in order, and produces the samples.
+ * Status reads are answered on the emulation thread by a timer/busy model, see {@link Ym2612Timers}.
+ * <p>
+ * Log records are one int: the top 3 bits are the record type, the rest is the payload;
+ * a rate record is followed by the two halves of the new microsPerTick.
+ * Clock records carry the ticks elapsed since the previous record, ie. the timestamp of the next write.
+ */
+public class AsyncFmProvider implements MdFmProvider {
+
+    private static final Logger LOG = LogManager.getLogger(AsyncFmProvider.class.getSimpleName());
+
+    private static final int TYPE_SHIFT = 29;
+    private static final int PAYLOAD_MASK = (1 << TYPE_SHIFT) - 1;
+    private static final int CLOCK = 0;
+    private static final int WRITE = 1 << TYPE_SHIFT;
+    private static final int RESET = 2 << TYPE_SHIFT;
+    private static final int FRAME = 3 << TYPE_SHIFT;
+    private static final int RATE = 4 << TYPE_SHIFT;
+
+    //pending ticks are sent to the worker in chunks
+    private static final int CLOCK_CHUNK_TICKS = Ym2612Timers.TICKS_PER_SAMPLE * 64;
+    private static final int LOG_SIZE = 1 << 16;
+    private static final int WORKER_BATCH = 1024;
+    private static final long IDLE_PARK_NS = 200_000;
+    private static final long AWAIT_TIMEOUT_NS = 1_000_000_000L;
+
+    private final MdFmProvider fm;
+    private final IntRingBuffer log = new IntRingBuffer(LOG_SIZE);
+    private final Ym2612Timers timers = new Ym2612Timers();
+    private final Thread worker;
+
+    private volatile boolean running = true;
+    private volatile long processed;
+    private long appended;
+    private int pendingTicks;
+    private double microsPerTick;
+
+    //worker thread only
+    private double workerMicrosPerTick;
+    private long rateBits;
+    private int rateWords;
+
+    public AsyncFmProvider(MdFmProvider fm) {
+        this.fm = fm;
+        worker = new PriorityThreadFactory(Thread.MAX_PRIORITY, "fmWorker").newThread(this::runWorker);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Waits for the worker to catch up and returns the wrapped chip, ie. to access its state.
+     */
+    public static FmProvider unwrap(FmProvider fm) {
+        return fm instanceof AsyncFmProvider ? ((AsyncFmProvider) fm).awaitIdle() : fm;
+    }
+
+    /**
+     * The status model follows the chip state again, needs to happen after the chip state has been replaced.
+     */
+    public static void onStateLoaded(FmProvider fm) {
+        if (fm instanceof AsyncFmProvider) {
+            ((AsyncFmProvider) fm).syncTimers();
+        }
+    }
+
+    private synchronized void syncTimers() {
+        MdFmProvider chip = awaitIdle();
+        if (chip instanceof Ym2612Nuke) {
+            ((Ym2612Nuke) chip).copyTimerState(timers);
+        } else {
+            LOG.warn("Unable to restore the timer state from: {}", chip.getClass().getSimpleName());
+        }
+    }
+
+    public synchronized MdFmProvider awaitIdle() {
+        flushClock();
+        long start = System.nanoTime();
+        while (running && processed < appended) {
+            if (System.nanoTime() - start > AWAIT_TIMEOUT_NS) {
+                LOG.warn("Timeout waiting for the fm worker, pending records: {}", appended - processed);
+                break;
+            }
+            Thread.yield();
+        }
+        return fm;
+    }
+
+    @Override
+    public void tick(double microsPerTick) {
+        tick(microsPerTick, 1);
+    }
+
+    @Override
+    public void tick(double microsPerTick, int ticks) {
+        if (microsPerTick != this.microsPerTick) {
+            setRate(microsPerTick);
+        }
+        timers.tick(ticks);
+        pendingTicks += ticks;
+        if (pendingTicks >= CLOCK_CHUNK_TICKS) {
+            flushClock();
+        }
+    }
+
+    @Override
+    public synchronized void write(int addr, int data) {
+        flushClock();
+        timers.write(addr, data);
+        append(WRITE | (addr & 3) << 8 | (data & 0xFF));
+    }
+
+    @Override
+    public int read() {
+        return timers.readStatus();
+    }
+
+    //racy, debug only
+    @Override
+    public int readRegister(int type, int regNumber) {
+        return fm.readRegister(type, regNumber);
+    }
+
+    @Override
+    public int update(int[] buf_lr, int offset, int count) {
+        return fm.update(buf_lr, offset, count);
+    }
+
+    @Override
+    public int availableFrames() {
+        return fm.availableFrames();
+    }
+
+    @Override
+    public void setFrameReadySignal(FrameReadySignal signal) {
+        fm.setFrameReadySignal(signal);
+    }
+
+    @Override
+    public synchronized void onNewFrame() {
+        flushClock();
+        append(FRAME);
+    }
+
+    @Override
+    public synchronized void reset() {
+        flushClock();
+        timers.reset();
+        append(RESET);
+    }
+
+    @Override
+    public void init(int clock, int rate) {
+        fm.init(clock, rate);
+    }
+
+    @Override
+    public void init() {
+        fm.init();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private synchronized void flushClock() {
+        if (pendingTicks > 0) {
+            append(CLOCK | pendingTicks);
+            pendingTicks = 0;
+        }
+    }
+
+    private synchronized void setRate(double microsPerTick) {
+        flushClock();
+        this.microsPerTick = microsPerTick;
+        long bits = Double.doubleToRawLongBits(microsPerTick);
+        append(RATE);
+        append((int) (bits >>> 32));
+        append((int) bits);
+    }
+
+    //never drops a record, waits for the worker when the log is full
+    private void append(int record) {
+        while (!log.offer(record)) {
+            if (!running) {
+                return;
+            }
+            LockSupport.unpark(worker);
+            Thread.yield();
+        }
+        appended++;
+    }
+
+    private void runWorker() {
+        LOG.info("Starting fm worker");
+        int[] records = new int[WORKER_BATCH];
+        while (running) {
+            int len = log.drain(records, 0, records.length);
+            if (len == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NS);
+                continue;
+            }
+            for (int i = 0; i < len; i++) {
+                replay(records[i]);
+            }
+            processed += len;
+        }
+        LOG.info("Stopping fm worker");
+    }
+
+    private void replay(int record) {
+        if (rateWords > 0) {
+            rateBits = rateBits << 32 | (record & 0xFFFF_FFFFL);
+            if (--rateWords == 0) {
+                workerMicrosPerTick = Double.longBitsToDouble(rateBits);
+            }
+            return;
+        }
+        int payload = record & PAYLOAD_MASK;
+        switch (record & ~PAYLOAD_MASK) {
+            case CLOCK:
+                fm.tick(workerMicrosPerTick, payload);
+                break;
+            case WRITE:
+                fm.write(payload >> 8, payload & 0xFF);
+                break;
+            case RESET:
+                fm.reset();
+                break;
+            case FRAME:
+                fm.onNewFrame();
+                break;
+            case RATE:
+                rateWords = 2;
+                break;
+        }
+    }
+}
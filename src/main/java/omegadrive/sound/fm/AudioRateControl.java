@@ -21,6 +21,7 @@ package omegadrive.sound.fm;
 
 import com.google.common.collect.Maps;
 import omegadrive.sound.SoundProvider;
+import omegadrive.system.perf.Gauge;
 import omegadrive.system.perf.Telemetry;
 //import org.apache.logging.log4j.LogManager;
 //import org.apache.logging.log4j.Logger;
@@ -38,7 +39,7 @@ public class AudioRateControl {
     public static final double FM_CALCS_PER_MICROS = (1_000_000.0 / SoundProvider.SAMPLE_RATE_HZ);
     //private static final Logger LOG = LogManager.getLogger(AudioRateControl.class.getSimpleName());
     private static final boolean DEBUG = false;
-    private static final double HALF_LIMIT = 0.025;
+    static final double HALF_LIMIT = 0.025;
     private static final double LOWER_LIMIT = FM_CALCS_PER_MICROS * (1 - HALF_LIMIT);
     private static final double UPPER_LIMIT = FM_CALCS_PER_MICROS * (1 + HALF_LIMIT);
     static double fastPace = 0.005; //max distortion ~60hz/frame
@@ -96,17 +97,20 @@ public class AudioRateControl {
         public long audioDelayMs = 0;
         public String sourceName;
         public String infoString;
+        private final Gauge audioDelayMsGauge, audioQueueLenGauge;
 
         protected StatsHolder(String sourceName) {
             this.sourceName = sourceName;
+            this.audioDelayMsGauge = Telemetry.getInstance().gauge(sourceName + ".audioDelayMs");
+            this.audioQueueLenGauge = Telemetry.getInstance().gauge(sourceName + ".audioQueueLen");
             statsHolderMap.clear();
             statsHolderMap.put(sourceName, this);
         }
 
         protected void computeTelemetryStats() {
             audioDelayMs = (long) (1000.0 * latestLen / SoundProvider.SAMPLE_RATE_HZ);
-            Telemetry.getInstance().addSample(sourceName + ".audioDelayMs", audioDelayMs);
-            Telemetry.getInstance().addSample(sourceName + ".audioQueueLen", latestLen);
+            audioDelayMsGauge.set(audioDelayMs);
+            audioQueueLenGauge.set(latestLen);
         }
 
         protected String computeStringStats() {
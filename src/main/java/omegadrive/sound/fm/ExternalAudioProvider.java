@@ -1,5 +1,6 @@
 package omegadrive.sound.fm;
 
+import omegadrive.sound.FrameReadySignal;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
 import org.jctools.queues.atomic.SpscAtomicArrayQueue;
@@ -7,6 +8,7 @@ import org.jctools.queues.atomic.SpscAtomicArrayQueue;
 import javax.sound.sampled.AudioFormat;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
 
 /**
  * ExternalAudioProvider
@@ -21,6 +23,8 @@ public class ExternalAudioProvider implements FmProvider {
     protected AtomicInteger queueLen = new AtomicInteger();
     private Queue<Integer> sampleQueue;
     private volatile boolean running = false;
+    private final IntSupplier availableFrames = this::availableFrames;
+    private volatile FrameReadySignal frameReadySignal = new FrameReadySignal();
 
     public ExternalAudioProvider(RegionDetector.Region region, AudioFormat audioFormat) {
         sampleQueue = new SpscAtomicArrayQueue<>(((int) audioFormat.getSampleRate()) << 1);
@@ -59,6 +63,7 @@ public class ExternalAudioProvider implements FmProvider {
         boolean res = sampleQueue.offer(Util.getFromIntegerCache(mono8 << 8)); //16 bit
         if (res) {
             queueLen.getAndIncrement();
+            frameReadySignal.onFrames(availableFrames);
         } else {
             //LOG.info("Sample dropped");
         }
@@ -71,11 +76,22 @@ public class ExternalAudioProvider implements FmProvider {
         boolean res = sampleQueue.offer(Util.getFromIntegerCache(sample));
         if (res) {
             queueLen.getAndIncrement();
+            frameReadySignal.onFrames(availableFrames);
         } else {
             //LOG.info("Sample dropped");
         }
     }
 
+    @Override
+    public int availableFrames() {
+        return running ? queueLen.get() : 0;
+    }
+
+    @Override
+    public void setFrameReadySignal(FrameReadySignal signal) {
+        this.frameReadySignal = signal;
+    }
+
     public void start() {
         running = true;
         //LOG.debug("Running: {}", running);
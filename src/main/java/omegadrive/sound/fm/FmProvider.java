@@ -20,6 +20,7 @@
 package omegadrive.sound.fm;
 
 import omegadrive.Device;
+import omegadrive.sound.FrameReadySignal;
 import omegadrive.vdp.model.BaseVdpProvider;
 
 public interface FmProvider extends Device, BaseVdpProvider.VdpEventListener {
@@ -81,6 +82,15 @@ public interface FmProvider extends Device, BaseVdpProvider.VdpEventListener {
 
     void tick(double microsPerTick);
 
+    /**
+     * Runs a batch of ticks, ie. when the fm is clocked in catch-up batches.
+     */
+    default void tick(double microsPerTick, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick(microsPerTick);
+        }
+    }
+
     default void write(int addr, int data) {
         throw new RuntimeException("Invalid");
     }
@@ -96,4 +106,26 @@ public interface FmProvider extends Device, BaseVdpProvider.VdpEventListener {
     default void init() {
         throw new RuntimeException("Invalid");
     }
+
+    /**
+     * Stereo frames at the output rate that update() can return without blocking,
+     * providers that generate the samples on demand are never short of frames.
+     */
+    default int availableFrames() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Providers that queue samples use the signal to wake up the audio thread once a block is ready.
+     */
+    default void setFrameReadySignal(FrameReadySignal signal) {
+        //DO NOTHING
+    }
+
+    /**
+     * Releases any resource held by the provider, ie. worker threads.
+     */
+    default void close() {
+        //DO NOTHING
+    }
 }
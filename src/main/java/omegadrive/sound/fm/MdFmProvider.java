@@ -59,7 +59,7 @@ public interface MdFmProvider extends FmProvider {
                 : new YM2612();
         fmProvider.init((int) clock, (int) audioFormat.getSampleRate());
         LOG.info("FM instance, clock: " + clock + ", sampleRate: " + audioFormat.getSampleRate());
-        return fmProvider;
+        return MD_FM_ASYNC ? new AsyncFmProvider(fmProvider) : fmProvider;
     }
 
 }
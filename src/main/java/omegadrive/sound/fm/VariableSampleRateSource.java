@@ -21,14 +21,13 @@ package omegadrive.sound.fm;
 
 import omegadrive.LogManager;
 import omegadrive.Logger;
-import omegadrive.sound.SoundProvider;
+import omegadrive.sound.FrameReadySignal;
+import omegadrive.sound.SincResampler;
+import omegadrive.util.IntRingBuffer;
 import omegadrive.util.SoundUtil;
-import omegadrive.util.Util;
-import org.jctools.queues.atomic.SpscAtomicArrayQueue;
 
 import javax.sound.sampled.AudioFormat;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
 
 public abstract class VariableSampleRateSource implements FmProvider {
 
@@ -39,12 +38,16 @@ public abstract class VariableSampleRateSource implements FmProvider {
     protected double sourceSampleRate;
     protected volatile double fmCalcsPerMicros;
     private double outputSampleRate;
-    private Queue<Integer> sampleQueue =
-            new SpscAtomicArrayQueue<>(SoundProvider.SAMPLE_RATE_HZ);
-    protected AtomicInteger queueLen = new AtomicInteger();
+    //stereo pairs at the source rate, produced by the emulation thread, drained by the audio thread
+    private final IntRingBuffer sampleBuffer;
+    private final SincResampler resampler;
     private AudioRateControl audioRateControl;
     private int sampleRatePerFrame = 0;
     private final int audioScaleBits;
+    private final IntSupplier availableFrames = this::availableFrames;
+    private volatile FrameReadySignal frameReadySignal = new FrameReadySignal();
+    //the resampler belongs to the audio thread, it resets it on the next update
+    private volatile boolean resetResampler;
 
     protected VariableSampleRateSource(double sourceSampleRate, AudioFormat audioFormat, String sourceName) {
         this(sourceSampleRate, audioFormat, sourceName, DEFAULT_AUDIO_SCALE_BITS);
@@ -59,16 +62,21 @@ public abstract class VariableSampleRateSource implements FmProvider {
         this.fmCalcsPerMicros = microsPerOutputSample;
         this.audioRateControl = new AudioRateControl(sourceName, SoundUtil.getMonoSamplesBufferSize(audioFormat));
         this.audioScaleBits = audioScaleBits;
+        this.sampleBuffer = new IntRingBuffer((int) sourceSampleRate);
+        this.resampler = new SincResampler(sourceSampleRate, outputSampleRate,
+                sourceSampleRate / outputSampleRate * (1 + AudioRateControl.HALF_LIMIT));
     }
 
     protected abstract void spinOnce();
 
+    /**
+     * Adds a sample at the source rate, the audio thread resamples to the output rate.
+     */
     protected void addStereoSamples(int sampleL, int sampleR) {
-        //TODO check results
-        sampleQueue.offer(Util.getFromIntegerCache(sampleL));
-        sampleQueue.offer(Util.getFromIntegerCache(sampleR));
-        queueLen.addAndGet(2);
+        //int -> short -> int, dropped when the audio thread is not keeping up
+        sampleBuffer.offer(((short) sampleL) << audioScaleBits, ((short) sampleR) << audioScaleBits);
         sampleRatePerFrame += 2;
+        frameReadySignal.onFrames(availableFrames);
     }
 
     protected void addMonoSample(int sample) {
@@ -77,40 +85,46 @@ public abstract class VariableSampleRateSource implements FmProvider {
 
     @Override
     public int update(int[] buf_lr, int offset, int count) {
-        offset <<= 1;
-        int end = (count << 1) + offset;
-        Integer ilsample, irsample;
-        final int initialQueueSize = queueLen.get();
-        int queueIndicativeLen = initialQueueSize;
-        int i = offset;
-        for (; i < end && queueIndicativeLen > 0; i += 2) {
-            //when using mono we process two samples
-            ilsample = sampleQueue.peek();
-            irsample = sampleQueue.peek();
-            if (irsample == null) {
-                LOG.debug("Null sample QL{} P{}", queueIndicativeLen, i);
-                break;
-            }
-            sampleQueue.poll();
-            sampleQueue.poll();
-            queueIndicativeLen = queueLen.addAndGet(-2);
-            //Integer -> short -> int
-            buf_lr[i] = ((short) (ilsample & 0xFFFF)) << audioScaleBits;
-            buf_lr[i + 1] = ((short) (irsample & 0xFFFF)) << audioScaleBits;
+        if (resetResampler) {
+            resetResampler = false;
+            resampler.reset();
         }
-        return i >> 1;
+        return resampler.resample(sampleBuffer, buf_lr, offset, count);
+    }
+
+    /**
+     * Frames queued at the source rate, converted to the output rate.
+     */
+    @Override
+    public int availableFrames() {
+        return (int) (queuedFrames() * outputSampleRate / sourceSampleRate);
+    }
+
+    //frames at the source rate: in the buffer plus the ones the resampler has drained but not consumed
+    private int queuedFrames() {
+        return (sampleBuffer.size() >> 1) + (resetResampler ? 0 : resampler.getPendingFrames());
+    }
+
+    @Override
+    public void setFrameReadySignal(FrameReadySignal signal) {
+        this.frameReadySignal = signal;
     }
 
     @Override
     public void reset() {
-        sampleQueue.clear();
-        queueLen.set(0);
+        sampleBuffer.discard();
+        resetResampler = true;
         sampleRatePerFrame = 0;
     }
 
+    /**
+     * Rate control: steers the resampling ratio to keep the queue, in output samples, around the target.
+     */
     @Override
     public void onNewFrame() {
-        fmCalcsPerMicros = audioRateControl.adaptiveRateControl(queueLen.get(), fmCalcsPerMicros, sampleRatePerFrame);
+        long queueLen = (long) ((queuedFrames() << 1) * outputSampleRate / sourceSampleRate);
+        fmCalcsPerMicros = audioRateControl.adaptiveRateControl(queueLen, fmCalcsPerMicros, sampleRatePerFrame);
+        resampler.setStep(fmCalcsPerMicros / microsPerInputSample);
         sampleRatePerFrame = 0;
     }
 }
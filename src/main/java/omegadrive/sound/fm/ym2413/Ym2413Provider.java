@@ -34,14 +34,12 @@ public class Ym2413Provider extends VariableSampleRateSource {
     public static final double FM_RATE = 49716.0;
     // Input clock
     private static final int CLOCK_HZ = 3579545;
-    double ratio, rateAccum, adjustedRatio;
 
     private OPLL opll;
     private int sample;
 
     protected Ym2413Provider(AudioFormat audioFormat) {
         super(FM_RATE, audioFormat, "fmDsa");
-        ratio = microsPerOutputSample / microsPerInputSample;
     }
 
     public static FmProvider createInstance(AudioFormat audioFormat) {
@@ -60,15 +58,11 @@ public class Ym2413Provider extends VariableSampleRateSource {
         Emu2413.OPLL_reset(opll);
     }
 
-    //this should be called 49716 times per second
+    //this should be called 49716 times per second, one sample per call
     @Override
     public void tick(double microsPerTick) {
-        rateAccum += adjustedRatio;
         spinOnce();
-        if (rateAccum > 1) {
-            addMonoSample(sample);
-            rateAccum -= 1;
-        }
+        addMonoSample(sample);
     }
 
     @Override
@@ -99,11 +93,5 @@ public class Ym2413Provider extends VariableSampleRateSource {
         sample = Emu2413.OPLL_calc(opll);
     }
 
-    @Override
-    public void onNewFrame() {
-        super.onNewFrame();
-        adjustedRatio = microsPerInputSample / fmCalcsPerMicros;
-    }
-
     public enum FmReg {ADDR_LATCH_REG, DATA_REG}
 }
\ No newline at end of file
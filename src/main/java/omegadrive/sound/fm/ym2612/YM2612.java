@@ -23,11 +23,11 @@ import omegadrive.LogManager;
 import omegadrive.Level;
 import omegadrive.Logger;
 import js.Console;
+import omegadrive.sound.SoundProvider;
 import omegadrive.sound.fm.MdFmProvider;
+import omegadrive.util.IntRingBuffer;
 import omegadrive.util.LogHelper;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Test port of Gens YM2612 core.
@@ -264,7 +264,8 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
     volatile int YM2612_Status;
 
     //DAC
-    private Queue<Integer> dacQueue;
+    private IntRingBuffer dacQueue;
+    private int[] dacSamples = new int[0];
     private static int DAC_SILENCE = 0x80;
     private volatile int dacValue;
     private long lastEvent = 0;
@@ -274,7 +275,7 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
      */
     public YM2612() {
         for (int i = 0; i < 6; i++) YM2612_CHANNEL[i] = new cChannel();
-        dacQueue = new ConcurrentLinkedQueue<>();
+        dacQueue = new IntRingBuffer(SoundProvider.SAMPLE_RATE_HZ);
     }
 
     // YM2612 Emulation Methods
@@ -355,7 +356,7 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
         }
 
         writeReg(FM_ADDRESS_PORT0, 0x2A, 0x80);
-        dacQueue.clear();
+        dacQueue.discard();
         dacValue = DAC_SILENCE;
 
         isResetting = false;
@@ -661,7 +662,7 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
         updateChannel((YM2612_CHANNEL[3].ALGO + algo_type), (YM2612_CHANNEL[3]), buf_lr, offset, end);
         updateChannel((YM2612_CHANNEL[4].ALGO + algo_type), (YM2612_CHANNEL[4]), buf_lr, offset, end);
 
-        boolean dacSampleToProcess = dacQueue.peek() != null;
+        boolean dacSampleToProcess = !dacQueue.isEmpty();
         if (YM2612_DAC == 0 && !dacSampleToProcess) {
             updateChannel(YM2612_CHANNEL[5].ALGO + algo_type, YM2612_CHANNEL[5], buf_lr, offset, end);
             drainDacQueue();
@@ -673,10 +674,15 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
     }
 
     private void updateDac(int[] buf_lr, int offset, int end, boolean dacSampleToProcess) {
-        Integer val;
         int i = offset;
         if (dacSampleToProcess) {
-            while ((val = dacQueue.poll()) != null && i < end) {
+            int len = (end - offset) >> 1;
+            if (dacSamples.length < len) {
+                dacSamples = new int[len];
+            }
+            len = dacQueue.drain(dacSamples, 0, len);
+            for (int k = 0; k < len; k++) {
+                int val = dacSamples[k];
                 if (val == DAC_SILENCE) {
                     i += 2;
                     continue;
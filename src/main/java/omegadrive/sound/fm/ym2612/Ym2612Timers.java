@@ -0,0 +1,173 @@
+/*
+ * Ym2612Timers
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.fm.ym2612;
+
+import static omegadrive.sound.fm.MdFmProvider.*;
+
+/**
+ * Timers and busy flag of the YM2612, enough to answer status reads without running the chip.
+ * <p>
+ * Time is counted in fm ticks since reset (one tick = 6 master clock cycles), matching the nuke core timing:
+ * a sample takes 24 ticks, a timer starts counting at the first sample boundary after the load,
+ * timer A increments every sample, timer B every 16 samples (free running prescaler)
+ * and the overflow flag is visible 3 ticks after the overflow.
+ * The chip is busy for 32 ticks after a data write.
+ * <p>
+ * Overflows are computed lazily when the status is read or the timer registers change.
+ */
+public class Ym2612Timers {
+
+    public static final int TICKS_PER_SAMPLE = 24;
+    public static final int BUSY_TICKS = 32;
+    private static final int TIMER_B_DIVIDER = 16;
+    //timer B increments on the last sample of the prescaler period
+    private static final int TIMER_B_PHASE = TIMER_B_DIVIDER - 1;
+    private static final int FLAG_DELAY_TICKS = 3;
+    private static final long STOPPED = Long.MAX_VALUE;
+
+    private long tick;
+    private long busyUntil;
+    private int addressLatch;
+    private int timerA, timerB, mode, status;
+    private long nextOverflowA = STOPPED, nextOverflowB = STOPPED;
+
+    public void tick(int ticks) {
+        tick += ticks;
+    }
+
+    public void write(int addr, int data) {
+        switch (addr & 3) {
+            case FM_ADDRESS_PORT0:
+                addressLatch = data;
+                break;
+            case FM_ADDRESS_PORT1:
+                addressLatch = data | 0x100;
+                break;
+            default:
+                busyUntil = tick + BUSY_TICKS;
+                //timer registers only live in part I
+                if (addressLatch < 0x100 && (addr & 3) == FM_DATA_PORT0) {
+                    writeRegister(addressLatch, data);
+                }
+                break;
+        }
+    }
+
+    public int readStatus() {
+        updateOverflows();
+        return status | (tick < busyUntil ? FM_STATUS_BUSY_BIT_MASK : 0);
+    }
+
+    public void reset() {
+        tick = busyUntil = 0;
+        addressLatch = timerA = timerB = mode = status = 0;
+        nextOverflowA = nextOverflowB = STOPPED;
+    }
+
+    /**
+     * Restores the timers from the chip state, ie. after loading a savestate.
+     *
+     * @param mode     register 0x27
+     * @param status   timer overflow flags
+     * @param samplesA samples until timer A overflows, when loaded
+     * @param samplesB samples until timer B overflows, when loaded
+     * @param cycle    ticks elapsed in the current sample
+     */
+    public void setState(int timerA, int timerB, int mode, int status, int samplesA, int samplesB, int cycle) {
+        this.timerA = timerA;
+        this.timerB = timerB;
+        this.mode = mode;
+        this.status = status & (FM_STATUS_TIMER_A_BIT_MASK | FM_STATUS_TIMER_B_BIT_MASK);
+        busyUntil = tick;
+        long sampleStart = tick - cycle;
+        nextOverflowA = (mode & FM_MODE_LOAD_A_MASK) > 0 ?
+                sampleStart + (long) samplesA * TICKS_PER_SAMPLE + FLAG_DELAY_TICKS : STOPPED;
+        nextOverflowB = (mode & FM_MODE_LOAD_B_MASK) > 0 ?
+                sampleStart + (long) samplesB * TICKS_PER_SAMPLE + FLAG_DELAY_TICKS : STOPPED;
+    }
+
+    private void writeRegister(int reg, int data) {
+        updateOverflows();
+        switch (reg) {
+            case 0x24:
+                timerA = (timerA & 3) | (data << 2);
+                break;
+            case 0x25:
+                timerA = (timerA & 0x3FC) | (data & 3);
+                break;
+            case 0x26:
+                timerB = data;
+                break;
+            case 0x27:
+                writeMode(data);
+                break;
+        }
+    }
+
+    private void writeMode(int data) {
+        boolean loadA = (data & FM_MODE_LOAD_A_MASK) > 0;
+        boolean loadB = (data & FM_MODE_LOAD_B_MASK) > 0;
+        //the chip latches the load one sample later when the write lands past the first tick of a sample
+        long loadSample = (tick + TICKS_PER_SAMPLE - 2) / TICKS_PER_SAMPLE;
+        if (!loadA) {
+            nextOverflowA = STOPPED;
+        } else if ((mode & FM_MODE_LOAD_A_MASK) == 0) {
+            nextOverflowA = (loadSample + 1024 - timerA) * TICKS_PER_SAMPLE + FLAG_DELAY_TICKS;
+        }
+        if (!loadB) {
+            nextOverflowB = STOPPED;
+        } else if ((mode & FM_MODE_LOAD_B_MASK) == 0) {
+            long firstSample = loadSample + 1;
+            firstSample += (TIMER_B_PHASE - firstSample) & (TIMER_B_DIVIDER - 1);
+            nextOverflowB = (firstSample + (255 - timerB) * TIMER_B_DIVIDER) * TICKS_PER_SAMPLE + FLAG_DELAY_TICKS;
+        }
+        if ((data & FM_MODE_RESET_A_MASK) > 0) {
+            status &= ~FM_STATUS_TIMER_A_BIT_MASK;
+        }
+        if ((data & FM_MODE_RESET_B_MASK) > 0) {
+            status &= ~FM_STATUS_TIMER_B_BIT_MASK;
+        }
+        mode = data;
+    }
+
+    private void updateOverflows() {
+        if (tick >= nextOverflowA) {
+            if ((mode & FM_MODE_ENABLE_A_MASK) > 0) {
+                status |= FM_STATUS_TIMER_A_BIT_MASK;
+            }
+            long period = periodA();
+            nextOverflowA += ((tick - nextOverflowA) / period + 1) * period;
+        }
+        if (tick >= nextOverflowB) {
+            if ((mode & FM_MODE_ENABLE_B_MASK) > 0) {
+                status |= FM_STATUS_TIMER_B_BIT_MASK;
+            }
+            long period = periodB();
+            nextOverflowB += ((tick - nextOverflowB) / period + 1) * period;
+        }
+    }
+
+    private long periodA() {
+        return (1024L - timerA) * TICKS_PER_SAMPLE;
+    }
+
+    private long periodB() {
+        return (256L - timerB) * TIMER_B_DIVIDER * TICKS_PER_SAMPLE;
+    }
+}
@@ -24,6 +24,7 @@ import omegadrive.Logger;
 import omegadrive.sound.fm.MdFmProvider;
 import omegadrive.sound.fm.VariableSampleRateSource;
 import omegadrive.sound.fm.ym2612.Ym2612RegSupport;
+import omegadrive.sound.fm.ym2612.Ym2612Timers;
 
 import javax.sound.sampled.AudioFormat;
 import java.io.Serializable;
@@ -45,22 +46,22 @@ public class Ym2612Nuke extends VariableSampleRateSource implements MdFmProvider
 
     private final static int AUDIO_SCALE_BITS = 3;
 
-    private IYm3438 ym3438;
+    private static final int CHIP_CYCLES_PER_SAMPLE = 24;
+
+    private Ym3438 ym3438;
     private IYm3438.IYm3438_Type chip;
     private Ym3438Context state;
     private Ym2612RegSupport regSupport;
 
     private int prevL, prevR;
 
-    private double cycleAccum = 0;
-
     public Ym2612Nuke(AudioFormat audioFormat, double sourceSampleRate) {
         this(new IYm3438.IYm3438_Type(), audioFormat, sourceSampleRate);
     }
 
     // sourceSampleRate ~= 7.6 mhz
     private Ym2612Nuke(IYm3438.IYm3438_Type chip, AudioFormat audioFormat, double sourceSampleRate) {
-        super(sourceSampleRate / 6, audioFormat, "fmNuke", AUDIO_SCALE_BITS);
+        super(sourceSampleRate / 6 / CHIP_CYCLES_PER_SAMPLE, audioFormat, "fmNuke", AUDIO_SCALE_BITS);
         this.ym3438 = new Ym3438();
         this.chip = chip;
         this.ym3438.OPN2_SetChipType(IYm3438.ym3438_mode_readmode);
@@ -97,35 +98,49 @@ public class Ym2612Nuke extends VariableSampleRateSource implements MdFmProvider
         return ym3438.OPN2_Read(chip, 0x4000);
     }
 
-    private void addSample() {
-        if (cycleAccum > fmCalcsPerMicros) {
-            super.addStereoSamples(prevL, prevR);
-            cycleAccum -= fmCalcsPerMicros;
-        }
-    }
-
     //Output frequency: 53.267 kHz (NTSC), 52.781 kHz (PAL)
     @Override
     public void tick(double microsPerTick) {
-        cycleAccum += microsPerTick;
-        spinOnce();
-        addSample();
+        tick(microsPerTick, 1);
+    }
+
+    /**
+     * Runs the chip up to the next output sample boundary in one go,
+     * the chip output is queued at its native rate and resampled by the audio thread.
+     */
+    @Override
+    public void tick(double microsPerTick, int ticks) {
+        while (ticks > 0) {
+            int cycle = state.ym3438_cycles;
+            int n = Math.min(ticks, CHIP_CYCLES_PER_SAMPLE - cycle);
+            ym3438.clock(chip, n, state.ym3438_accm, cycle);
+            ticks -= n;
+            cycle += n;
+            if (cycle == CHIP_CYCLES_PER_SAMPLE) {
+                cycle = 0;
+                sumAndFilter();
+            }
+            state.ym3438_cycles = cycle;
+        }
     }
 
     @Override
     protected void spinOnce() {
         ym3438.OPN2_Clock(chip, state.ym3438_accm[state.ym3438_cycles]);
-        state.ym3438_cycles = (state.ym3438_cycles + 1) % 24;
+        state.ym3438_cycles = (state.ym3438_cycles + 1) % CHIP_CYCLES_PER_SAMPLE;
         if (state.ym3438_cycles == 0) {
-//            chipRate++;
-            int sampleL = 0;
-            int sampleR = 0;
-            for (int j = 0; j < 24; j++) {
-                sampleL += state.ym3438_accm[j][0];
-                sampleR += state.ym3438_accm[j][1];
-            }
-            filterAndSet(sampleL, sampleR);
+            sumAndFilter();
+        }
+    }
+
+    private void sumAndFilter() {
+        int sampleL = 0;
+        int sampleR = 0;
+        for (int j = 0; j < CHIP_CYCLES_PER_SAMPLE; j++) {
+            sampleL += state.ym3438_accm[j][0];
+            sampleR += state.ym3438_accm[j][1];
         }
+        filterAndSet(sampleL, sampleR);
     }
 
     //1st order lpf: p[n]=αp[n−1]+(1−α)pi[n] with α = 0.5
@@ -137,6 +152,7 @@ public class Ym2612Nuke extends VariableSampleRateSource implements MdFmProvider
         state.ym3438_diffLR_sampleL = (((sampleL - sampleR) & 0xFFFF) << 16) | (sampleL & 0xFFFF);
         prevL = sampleL;
         prevR = sampleR;
+        addStereoSamples(sampleL, sampleR);
     }
 
     public void setState(Ym3438Context state) {
@@ -154,6 +170,19 @@ public class Ym2612Nuke extends VariableSampleRateSource implements MdFmProvider
         return state;
     }
 
+    /**
+     * Copies the timer registers, flags and counters to the status model, ie. after loading a savestate.
+     */
+    public void copyTimerState(Ym2612Timers timers) {
+        int mode = (chip.timer_a_load ? FM_MODE_LOAD_A_MASK : 0) | (chip.timer_b_load ? FM_MODE_LOAD_B_MASK : 0) |
+                (chip.timer_a_enable ? FM_MODE_ENABLE_A_MASK : 0) | (chip.timer_b_enable ? FM_MODE_ENABLE_B_MASK : 0);
+        int status = (chip.timer_a_overflow_flag ? FM_STATUS_TIMER_A_BIT_MASK : 0) |
+                (chip.timer_b_overflow_flag ? FM_STATUS_TIMER_B_BIT_MASK : 0);
+        int samplesA = 1024 - chip.timer_a_cnt;
+        int samplesB = ((256 - chip.timer_b_cnt) << 4) - chip.timer_b_subcnt;
+        timers.setState(chip.timer_a_reg, chip.timer_b_reg, mode, status, samplesA, samplesB, chip.cycles);
+    }
+
     public static class Ym3438Context implements Serializable {
 
         private static final long serialVersionUID = -2921159132727518547L;
@@ -1110,6 +1110,16 @@ public class Ym3438 implements IYm3438 {
         chip_type = type;
     }
 
+    /**
+     * Runs n chip cycles in one call, the output of cycle i goes to buffer[start + i].
+     */
+    public void clock(IYm3438.IYm3438_Type chip, int n, /* 16 bit signed */ int[][] buffer, int start) {
+        final int end = start + n;
+        for (int i = start; i < end; i++) {
+            OPN2_Clock(chip, buffer[i]);
+        }
+    }
+
     @Override
     public void OPN2_Clock(IYm3438.IYm3438_Type chip, /* 16 bit signed */ int[] buffer) {
         /* 32 bit unsigned */
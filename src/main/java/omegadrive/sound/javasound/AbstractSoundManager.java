@@ -21,6 +21,7 @@ package omegadrive.sound.javasound;
 
 import omegadrive.Device;
 import omegadrive.SystemLoader;
+import omegadrive.sound.AudioMixer;
 import omegadrive.sound.SoundProvider;
 import omegadrive.sound.fm.FmProvider;
 import omegadrive.sound.fm.MdFmProvider;
@@ -66,12 +67,15 @@ public abstract class AbstractSoundManager implements SoundProvider {
     protected volatile boolean hasFm;
     protected volatile boolean hasPsg;
 
+    protected final AudioMixer mixer = new AudioMixer(audioFormat.getSampleRate());
+    protected AudioMixer.Channel fmChannel, psgChannel;
+
     public static SoundProvider createSoundProvider(SystemLoader.SystemType systemType, RegionDetector.Region region) {
         if (!ENABLE_SOUND) {
             LOG.warn("Sound disabled");
             return NO_SOUND;
         }
-        AbstractSoundManager jsm = new JavaSoundManager();
+        AbstractSoundManager jsm = DRAIN_SOUND ? new DrainSoundManager() : new JavaSoundManager();
         jsm.setFm(jsm.getFmProvider(systemType, region));
         jsm.setPsg(jsm.getPsgProvider(systemType, region));
         jsm.setSystemType(systemType);
@@ -119,6 +123,7 @@ public abstract class AbstractSoundManager implements SoundProvider {
 
     protected void init(RegionDetector.Region region) {
         this.region = region;
+        initMixer();
         dataLine = SoundUtil.createDataLine(audioFormat);
         soundPersister = new FileSoundPersister();
         fmSize = SoundProvider.getFmBufferIntSize(audioFormat);
@@ -128,6 +133,40 @@ public abstract class AbstractSoundManager implements SoundProvider {
         LOG.info("Output audioFormat: " + audioFormat + ", bufferSize: " + fmSize);
     }
 
+    /**
+     * Registers the fm and the psg, the fm (when present) leads as it is rate controlled.
+     * The fm and psg providers can be swapped at runtime, the channels always render the current ones.
+     */
+    protected void initMixer() {
+        hasFm = getFm() != FmProvider.NO_SOUND;
+        hasPsg = getPsg() != PsgProvider.NO_SOUND;
+        double rate = audioFormat.getSampleRate();
+        fmChannel = mixer.register("FM", new AudioMixer.Source() {
+            @Override
+            public int render(int[] buf, int offset, int count) {
+                return fm.update(buf, offset, count);
+            }
+
+            @Override
+            public int availableFrames() {
+                return fm.availableFrames();
+            }
+        }, rate, true);
+        psgChannel = mixer.register("PSG", (buf, offset, count) -> {
+            psg.output(buf, offset, offset + count);
+            return count;
+        }, rate, false);
+        //same levels as the former fixed fm + psg mix
+        fmChannel.setGain(hasPsg ? 1.5 : 1);
+        psgChannel.setGain(hasFm ? 1.5 * SoundUtil.getPsgGain() : 2);
+        mixer.setLeader(hasFm ? fmChannel : null);
+    }
+
+    @Override
+    public AudioMixer getMixer() {
+        return mixer;
+    }
+
     public void setSystemType(SystemLoader.SystemType type) {
         this.type = type;
     }
@@ -156,6 +195,8 @@ public abstract class AbstractSoundManager implements SoundProvider {
         close = true;
         List<Runnable> list = executorService.shutdownNow();
         SoundUtil.close(dataLine);
+        fm.close();
+        mixer.reset();
         setRecording(false);
         LOG.info("Closing sound, stopping background tasks: #" + list.size());
     }
@@ -195,7 +236,9 @@ public abstract class AbstractSoundManager implements SoundProvider {
         if (fm == device) {
             boolean isEnabled = fm != FmProvider.NO_SOUND;
             if (isEnabled != enabled) {
+                fm.close();
                 this.fm = enabled ? getFmProvider(type, region) : FmProvider.NO_SOUND;
+                mixer.setLeader(enabled ? fmChannel : null);
                 LOG.info("FM enabled: {}", enabled);
             }
         } else if (psg == device) {
@@ -0,0 +1,92 @@
+/*
+ * DrainSoundManager
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.javasound;
+
+import omegadrive.LogManager;
+import omegadrive.Logger;
+import omegadrive.sound.SoundProvider;
+import omegadrive.sound.persist.FileSoundPersister;
+import omegadrive.util.RegionDetector;
+
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Sound sink for headless runs: no audio line and no audio thread, the samples
+ * are pulled on every frame, on the emulation thread, and discarded.
+ */
+public class DrainSoundManager extends AbstractSoundManager {
+
+    private static final Logger LOG = LogManager.getLogger(DrainSoundManager.class.getSimpleName());
+
+    private byte[] mixBuffer;
+    private int blockFrames;
+    private int psgSamplesPerFrame;
+
+    @Override
+    protected void init(RegionDetector.Region region) {
+        this.region = region;
+        soundPersister = new FileSoundPersister();
+        fmSize = SoundProvider.getFmBufferIntSize(audioFormat);
+        psgSize = SoundProvider.getPsgBufferByteSize(audioFormat);
+        blockFrames = fmSize >> 1;
+        mixBuffer = new byte[blockFrames << 2];
+        psgSamplesPerFrame = SAMPLE_RATE_HZ / region.getFps();
+        initMixer();
+        LOG.info("Discarding audio output, audioFormat: " + audioFormat + ", bufferSize: " + fmSize);
+    }
+
+    //never started, see init
+    @Override
+    protected Runnable getRunnable(SourceDataLine dataLine, RegionDetector.Region region) {
+        return () -> {
+        };
+    }
+
+    @Override
+    public void onNewFrame() {
+        fm.onNewFrame();
+        drain();
+    }
+
+    private void drain() {
+        int frames;
+        if (hasFm) {
+            //the fm leads the mixer, until its queue is empty
+            do {
+                frames = mixer.mix(mixBuffer, blockFrames);
+            } while (frames > 0);
+            return;
+        }
+        frames = psgSamplesPerFrame;
+        while (frames > 0) {
+            frames -= mixer.mix(mixBuffer, Math.min(frames, blockFrames));
+        }
+    }
+
+    @Override
+    public void reset() {
+        LOG.info("Resetting sound");
+        close = true;
+        setRecording(false);
+        psg.reset();
+        fm.reset();
+        fm.close();
+        mixer.reset();
+    }
+}
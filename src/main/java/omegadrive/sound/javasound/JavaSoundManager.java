@@ -19,15 +19,16 @@
 
 package omegadrive.sound.javasound;
 
+import omegadrive.sound.FrameReadySignal;
 import omegadrive.sound.fm.FmProvider;
-import omegadrive.sound.psg.PsgProvider;
+import omegadrive.system.perf.Counter;
+import omegadrive.system.perf.Gauge;
 import omegadrive.system.perf.Telemetry;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.SoundUtil;
 
 import javax.sound.sampled.SourceDataLine;
-import java.util.Arrays;
-import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
 import omegadrive.LogManager;
 import omegadrive.Logger;
 
@@ -35,58 +36,51 @@ public class JavaSoundManager extends AbstractSoundManager {
 
     private static final Logger LOG = LogManager.getLogger(JavaSoundManager.class.getSimpleName());
 
-    public static int sleepTotal = 0;
-    public static final long EMPTY_QUEUE_SLEEP_NS = 500_000;
-
-    volatile int[] fm_buf_ints;
     volatile byte[] mix_buf_bytes16Stereo;
-    volatile byte[] psg_buf_bytes;
-    volatile int fmSizeMono;
+    volatile int blockFrames;
+
+    //the fm producer wakes up the audio thread when a block is ready
+    private final FrameReadySignal frameReadySignal = new FrameReadySignal();
+    private final IntSupplier mixerAvailableFrames = mixer::availableFrames;
 
     //stats
-    private Telemetry telemetry;
-    private volatile int samplesProducedCount, samplesConsumedCount, audioThreadLoops, audioThreadEmptyLoops;
+    private final Telemetry telemetry = Telemetry.getInstance();
+    private final Counter samplesProduced = telemetry.counter("audioSamplesProduced");
+    private final Counter samplesConsumed = telemetry.counter("audioSamplesConsumed");
+    private final Counter audioThreadLoops = telemetry.counter("audioThreadLoops");
+    private final Counter audioThreadEmptyLoops = telemetry.counter("audioThreadEmptyLoops");
+    private final Gauge latencyMs = telemetry.gauge("audioLatencyMs");
 
     @Override
     public void init() {
-        fm_buf_ints = new int[fmSize];
-        mix_buf_bytes16Stereo = new byte[fm_buf_ints.length << 1];
-        psg_buf_bytes = new byte[psgSize];
-        fmSizeMono = (int) Math.round(fmSize / 2d);
-        hasFm = getFm() != FmProvider.NO_SOUND;
-        hasPsg = getPsg() != PsgProvider.NO_SOUND;
-        fm_buf_ints = hasFm ? fm_buf_ints : EMPTY_FM;
-        psg_buf_bytes = hasPsg ? psg_buf_bytes : EMPTY_PSG;
-        telemetry = Telemetry.getInstance();
+        blockFrames = SoundUtil.getAudioBlockSize(audioFormat) / audioFormat.getFrameSize();
+        mix_buf_bytes16Stereo = new byte[blockFrames << 2];
     }
 
-    private int playOnceStereo(int fmBufferLenMono) {
-        int fmMonoActual = fm.update(fm_buf_ints, 0, fmBufferLenMono);
-        //if FM is present load a matching number of psg samples
-        fmBufferLenMono = hasFm ? fmMonoActual : fmBufferLenMono;
-        psg.output(psg_buf_bytes, 0, fmBufferLenMono);
-        int fmBufferLenStereo = fmBufferLenMono << 1;
-        int bufferBytesMono = fmBufferLenMono << 1;
-        int bufferBytesStereo = bufferBytesMono << 1;
-        samplesProducedCount += fmBufferLenStereo;
+    private int playOnceStereo(int frames) {
+        //FM, PSG and any other registered source: only the frames produced
+        frames = mixer.mix(mix_buf_bytes16Stereo, frames);
+        if (frames == 0) {
+            return 0;
+        }
+        int bufferBytesStereo = frames << 2;
+        samplesProduced.add(frames << 1);
 
         try {
-            Arrays.fill(mix_buf_bytes16Stereo, SoundUtil.ZERO_BYTE);
-            //FM: stereo 16 bit, PSG: mono 8 bit, OUT: stereo 16 bit
-            SoundUtil.mixFmPsgStereo(fm_buf_ints, mix_buf_bytes16Stereo, psg_buf_bytes, fmBufferLenStereo);
             if (!isMute()) {
                 SoundUtil.writeBufferInternal(dataLine, mix_buf_bytes16Stereo, bufferBytesStereo);
             }
             if (isRecording()) {
-                soundPersister.persistSound(DEFAULT_SOUND_TYPE, mix_buf_bytes16Stereo);
+                soundPersister.persistSound(DEFAULT_SOUND_TYPE, mix_buf_bytes16Stereo, bufferBytesStereo);
             }
-
+            //end to end: queued by the sources, inside the mixer and in the line
+            int latencyFrames = mixer.getLatencyFrames() +
+                    (dataLine.getBufferSize() - dataLine.available()) / audioFormat.getFrameSize();
+            latencyMs.set(latencyFrames * 1000d / audioFormat.getSampleRate());
         } catch (Exception e) {
             LOG.error("Unexpected sound error", e);
         }
-        Arrays.fill(fm_buf_ints, 0);
-        Arrays.fill(psg_buf_bytes, SoundUtil.ZERO_BYTE);
-        return fmBufferLenStereo;
+        return frames << 1;
     }
 
     @Override
@@ -95,17 +89,25 @@ public class JavaSoundManager extends AbstractSoundManager {
             @Override
             public void run() {
                 init();
-                //this needs to be less than one frame worth (ie. < 16.67 ms)
-                final int monoSize = Math.min(fmSizeMono, SoundUtil.getMonoSamplesBufferSize(audioFormat, 25));
+                //a block needs to be less than one frame worth (ie. < 16.67 ms)
+                final int frames = blockFrames;
+                final long blockNs = AUDIO_BLOCK_MS * 1_000_000L;
+                FmProvider signalled = null;
                 try {
                     do {
-                        int actualStereo = playOnceStereo(monoSize);
-                        samplesConsumedCount += actualStereo;
-                        if (actualStereo <= 10) {
-                            audioThreadEmptyLoops++;
-                            LockSupport.parkNanos(EMPTY_QUEUE_SLEEP_NS);
+                        FmProvider current = fm;
+                        if (current != signalled) {
+                            current.setFrameReadySignal(frameReadySignal);
+                            signalled = current;
+                        }
+                        //queued sources wake us up when a block is ready, on demand sources are
+                        //paced by the blocking write to the line
+                        if (frameReadySignal.await(mixerAvailableFrames, frames, blockNs) < frames) {
+                            audioThreadEmptyLoops.inc();
+                        } else {
+                            samplesConsumed.add(playOnceStereo(frames));
                         }
-                        audioThreadLoops++;
+                        audioThreadLoops.inc();
                     } while (!close);
                 } catch (Exception | Error e) {
                     LOG.error("Unexpected sound error, stopping", e);
@@ -119,18 +121,6 @@ public class JavaSoundManager extends AbstractSoundManager {
 
     @Override
     public void onNewFrame() {
-        doStats();
         fm.onNewFrame();
     }
-
-    private void doStats() {
-        if (Telemetry.enable) {
-            telemetry.addSample("audioThreadLoops", audioThreadLoops);
-            telemetry.addSample("audioThreadEmptyLoops", audioThreadEmptyLoops);
-            telemetry.addSample("audioSamplesConsumed", samplesConsumedCount);
-            telemetry.addSample("audioSamplesProduced", samplesProducedCount);
-        }
-        audioThreadLoops = audioThreadEmptyLoops = samplesConsumedCount = samplesProducedCount = 0;
-    }
 }
-
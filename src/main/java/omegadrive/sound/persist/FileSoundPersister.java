@@ -42,18 +42,18 @@ public class FileSoundPersister implements SoundPersister {
     private boolean recording;
 
     @Override
-    public void persistSound(SoundType type, byte[] output) {
+    public void persistSound(SoundType type, byte[] output, int len) {
         if (!isRecording()) {
             startRecording(type);
         }
-        recordSound(output);
+        recordSound(output, len);
     }
 
-    private void recordSound(byte[] buffer) {
+    private void recordSound(byte[] buffer, int len) {
         if (isRecording()) {
                 try {
                     //16 bit signed mono (little endian)
-                    fileStream.write(buffer);
+                    fileStream.write(buffer, 0, len);
                 } catch (IOException ioe) {
                     LOG.error("An error occurred while writing the"
                             + " sound file.");
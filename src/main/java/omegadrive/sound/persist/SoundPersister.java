@@ -27,7 +27,11 @@ public interface SoundPersister {
         BOTH;
     }
 
-    void persistSound(SoundType type, byte[] output);
+    void persistSound(SoundType type, byte[] output, int len);
+
+    default void persistSound(SoundType type, byte[] output) {
+        persistSound(type, output, output.length);
+    }
 
     boolean isRecording();
 
@@ -45,7 +45,10 @@ public interface PsgProvider extends Device {
     //SN style PSG
     void write(int data);
 
-    void output(byte[] output, int offset, int end);
+    /**
+     * Renders 16 bit signed mono samples to output[offset, end)
+     */
+    void output(int[] output, int offset, int end);
 
     //AY style psg
     default void write(int register, int data) {
@@ -57,7 +60,7 @@ public interface PsgProvider extends Device {
         return 0xFF;
     }
 
-    default void output(byte[] output) {
+    default void output(int[] output) {
         output(output, 0, output.length);
     }
 
@@ -69,7 +72,7 @@ public interface PsgProvider extends Device {
         }
 
         @Override
-        public void output(byte[] output, int offset, int end) {
+        public void output(int[] output, int offset, int end) {
 
         }
     };
@@ -1,5 +1,7 @@
 package omegadrive.sound.psg.msx;
 
+import java.util.Arrays;
+
 /**
  * The AY-3-8912 sound chip emulator.
  * http://www.howell1964.freeserve.co.uk/parts/ay3891x_datasheet.htm
@@ -29,6 +31,16 @@ public class Ay38910 {
 
     private static int MAX_CHANNEL_VOLUME = 0x0f;
 
+    /**
+     * Output level per amplitude step, 16 bit scale.
+     */
+    private static final int LEVEL_SCALE = 3 << 6;
+
+    /**
+     * No counter running.
+     */
+    private static final int NO_EVENT = Integer.MAX_VALUE;
+
     /*
      The frequency of each square wave generated by the three tone
      generators (channels A, B, C) is obtained by combining the contents
@@ -194,6 +206,16 @@ public class Ay38910 {
      */
     private int _envelopeState = 0;
 
+    /**
+     * Envelope amplitude, updated on every envelope tick
+     */
+    private int _amplitudeE = 0;
+
+    /**
+     * Noise 17 bit LFSR
+     */
+    private int _noiseShift = 1;
+
     /**
      * The sampling frequency for playing sounds with the speaker or AY chip.
      */
@@ -213,6 +235,8 @@ public class Ay38910 {
         m_pitchA = m_pitchB = m_pitchC = 0;
         m_periodE = m_periodN = 0;
         m_useEnvelopeA = m_useEnvelopeB = m_useEnvelopeC = false;
+        _envelopeState = _amplitudeE = 0;
+        _noiseShift = 1;
     }
 
     /**
@@ -325,6 +349,61 @@ public class Ay38910 {
     }
 
     public int getSound() {
+        step();
+        return mix();
+    }
+
+    /**
+     * Renders len 16 bit samples to output[offset...].
+     * The state only changes when a counter expires: the samples up to the next event share the same level
+     * and are filled in one go, the counters are advanced in bulk.
+     */
+    public void render(int[] output, int offset, int len) {
+        final int end = offset + len;
+        int i = offset;
+        while (i < end) {
+            int run = Math.min(samplesToNextEvent() - 1, end - i);
+            if (run > 0) {
+                Arrays.fill(output, i, i + run, mix() * LEVEL_SCALE);
+                advance(run);
+                i += run;
+            }
+            if (i < end) {
+                step();
+                output[i++] = mix() * LEVEL_SCALE;
+            }
+        }
+    }
+
+    //samples until (and including) the next counter expiring
+    private int samplesToNextEvent() {
+        int next = NO_EVENT;
+        next = Math.min(next, samplesTo(m_pitchA, _counterA));
+        next = Math.min(next, samplesTo(m_pitchB, _counterB));
+        next = Math.min(next, samplesTo(m_pitchC, _counterC));
+        next = Math.min(next, samplesTo(m_periodN << 1, _counterN));
+        next = Math.min(next, samplesTo(m_periodE << 1, _counterE));
+        return next;
+    }
+
+    private int samplesTo(int period, int counter) {
+        if (period <= 0) {
+            return NO_EVENT;
+        }
+        return Math.max(1, (period - counter + freqScale - 1) / freqScale);
+    }
+
+    //no counter expires in the next n samples
+    private void advance(int n) {
+        int delta = n * freqScale;
+        _counterA += m_pitchA > 0 ? delta : 0;
+        _counterB += m_pitchB > 0 ? delta : 0;
+        _counterC += m_pitchC > 0 ? delta : 0;
+        _counterN += m_periodN > 0 ? delta : 0;
+        _counterE += m_periodE > 0 ? delta : 0;
+    }
+
+    private void step() {
 
         int samples = 1;
 
@@ -358,15 +437,15 @@ public class Ay38910 {
             // tone counter, so double the noise period
             if (_counterN >= (m_periodN << 1)) {
                 _counterN -= (m_periodN << 1);
-                _generatorN = (Math.random() >= 0.5);
+                //bit0 ^ bit3 fed back into bit16
+                _noiseShift = (_noiseShift >> 1) | (((_noiseShift ^ (_noiseShift >> 3)) & 1) << 16);
+                _generatorN = (_noiseShift & 1) != 0;
             }
         }
 
         // Envelope shape (from the ENVELOPES array)
         int[] envelopeShape = ENVELOPES[m_envelopeType];
 
-        int amplitudeE = 0;
-
         if (m_periodE > 0) {
             _counterE += samples * freqScale;
             // The envelope counter runs at half the speed of the
@@ -398,16 +477,16 @@ public class Ay38910 {
 
                 switch (envelopeShape[_envelopeState]) {
                     case ENV_ATTACK:
-                        amplitudeE = _tickE;
+                        _amplitudeE = _tickE;
                         break;
                     case ENV_DECAY:
-                        amplitudeE = MAX_CHANNEL_VOLUME - _tickE;
+                        _amplitudeE = MAX_CHANNEL_VOLUME - _tickE;
                         break;
                     case ENV_SUSTAIN_LOW:
-                        amplitudeE = 0;
+                        _amplitudeE = 0;
                         break;
                     case ENV_SUSTAIN_HIGH:
-                        amplitudeE = MAX_CHANNEL_VOLUME;
+                        _amplitudeE = MAX_CHANNEL_VOLUME;
                         break;
                     default:
                         //m_logger.log(ILogger.C_ERROR, "Illegal envelope state reached: " +
@@ -416,10 +495,12 @@ public class Ay38910 {
                 }
             }
         }
+    }
 
-        int amplitudeA = (m_useEnvelopeA ? amplitudeE : m_amplitudeA);
-        int amplitudeB = (m_useEnvelopeB ? amplitudeE : m_amplitudeB);
-        int amplitudeC = (m_useEnvelopeC ? amplitudeE : m_amplitudeC);
+    private int mix() {
+        int amplitudeA = (m_useEnvelopeA ? _amplitudeE : m_amplitudeA);
+        int amplitudeB = (m_useEnvelopeB ? _amplitudeE : m_amplitudeB);
+        int amplitudeC = (m_useEnvelopeC ? _amplitudeE : m_amplitudeC);
 
         int val = 0;
 
@@ -437,17 +518,4 @@ public class Ay38910 {
         return val;
     }
 
-    public int getSoundUnsigned() {
-        int val = getSound();
-        // Scale val up close to a byte
-        val = (val * 0xff) / (3 * MAX_CHANNEL_VOLUME);
-        return val;
-    }
-
-    private static final int MAX_VOL_FACTOR = 3 ;
-
-    public int getSoundSigned() {
-        int sound = getSound();
-        return Math.min(sound * MAX_VOL_FACTOR, Byte.MAX_VALUE); //[0;127]
-    }
 }
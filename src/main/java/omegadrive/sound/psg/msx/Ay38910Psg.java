@@ -49,10 +49,8 @@ public class Ay38910Psg implements PsgProvider {
     }
 
     @Override
-    public void output(byte[] output, int offset, int end) {
-        for (int i = offset; i < end; i++) {
-            output[i] = (byte) psg.getSoundSigned();
-        }
+    public void output(int[] output, int offset, int end) {
+        psg.render(output, offset, end - offset);
     }
 
     @Override
@@ -19,6 +19,8 @@
 
 package omegadrive.sound.psg.white;
 
+import java.util.Arrays;
+
 /**
  * SN76489 PSG
  *
@@ -44,6 +46,11 @@ package omegadrive.sound.psg.white;
  * <p>
  * - To use with other systems other than Sega Master System / GameGear, update the feedback
  * pattern appropriately.
+ * <p>
+ * - Block rendering: the output only changes when a tone or noise generator toggles,
+ * update() computes the run length to the next toggle and fills the whole span with a constant level.
+ * Samples containing a toggle are box filtered, ie. the level is averaged over the sample.
+ * The output is 16 bit signed, mono.
  * @version 17th June 2008
  */ 
 
@@ -54,19 +61,19 @@ public class SN76489 {
     private final static int SCALE = 8;
 
     /**
-     * SN76489 Internal Clock Speed (Hz) [SCALED]
+     * SN76489 Internal Clock Speed per output sample [SCALED]
      */
     private int clock;
 
     /**
-     * Stores fractional part of clock for various precise updates [SCALED]
+     * The counter never expires
      */
-    private int clockFrac;
+    private final static int NO_EVENT = Integer.MAX_VALUE;
 
     /**
-     * Value to denote that antialiasing should not be used on sample
+     * Tone periods up to this value are inaudible, the output is held at +1 (sample playback)
      */
-    private final static int NO_ANTIALIAS = Integer.MIN_VALUE;
+    private final static int MAX_INAUDIBLE_TONE = 6;
 
     // --------------------------------------------------------------------------------------------
     // The SN76489 has 8 "registers": 
@@ -86,24 +93,26 @@ public class SN76489 {
     private int regLatch;
 
     /**
-     * Channel Counters (10-bits on original hardware)
+     * Tone Channel Counters, time to the next toggle [SCALED]
      */
-    private final int[] freqCounter;
+    private final int[] toneCounter;
 
     /**
-     * Polarity of Tone Channel Counters
+     * Polarity of Tone Channels
      */
-    private final int[] freqPolarity;
+    private final int[] tonePolarity;
 
     /**
-     * Position of Tone Amplitude Changes
+     * Noise Generator Frequency
      */
-    private final int[] freqPos;
+    private int noiseFreq;
 
     /**
-     * Noise Generator Frequency
+     * Noise Counter, time to the next toggle [SCALED]
      */
-    private int noiseFreq;
+    private int noiseCounter;
+
+    private int noisePolarity;
 
     /**
      * The Linear Feedback Shift Register (16-bits on original hardware)
@@ -125,29 +134,25 @@ public class SN76489 {
     // --------------------------------------------------------------------------------------------
 
     /**
-     * Output channels
+     * 2dB per step, 16 bit scale.
+     * Tests with an SMS and a TV card found the highest three volume levels to be clipped
      */
-    private final int[] outputChannel;
-
-    // Tests with an SMS and a TV card found the highest three volume levels to be clipped    
-    private final static int[] PSG_VOLUME =
-            {
-                    //1516,1205,957,760,603,479,381,303,240,191,152,120,96,76,60,0
-                    25, 20, 16, 13, 10, 8, 6, 5, 4, 3, 3, 2, 2, 1, 1, 0
-            };
+    private final static int[] PSG_VOLUME = new int[16];
 
+    static {
+        for (int i = 0; i < PSG_VOLUME.length - 1; i++) {
+            PSG_VOLUME[i] = (int) Math.round(1600 * Math.pow(10, -i / 10.0));
+        }
+    }
 
     /**
      * SN76489 Constructor.
      */
 
     public SN76489() {
-        // Create various arrays
-        outputChannel = new int[4];
         reg = new int[8];
-        freqCounter = new int[4];
-        freqPolarity = new int[4];
-        freqPos = new int[3];
+        toneCounter = new int[3];
+        tonePolarity = new int[3];
     }
 
 
@@ -167,9 +172,10 @@ public class SN76489 {
 
     public void reset(){
         regLatch = 0;
-        clockFrac = 0;
         noiseShiftReg = SHIFT_RESET;
         noiseFreq = 0x10;
+        noisePolarity = 1;
+        noiseCounter = 0;
 
         for (int i = 0; i < 4; i++) {
             // Set Tone Frequency (Don't want this to be zero)
@@ -178,14 +184,10 @@ public class SN76489 {
             // Set Volume Off
             reg[(i << 1) + 1] = 0x0F;
 
-            // Set Frequency Counters
-            freqCounter[i] = 0;
-
-            // Set Amplitudes Positive
-            freqPolarity[i] = 1;
-
-            // Do not use intermediate positions
-            if (i != 3) freqPos[i] = NO_ANTIALIAS;
+            if (i != 3) {
+                tonePolarity[i] = 1;
+                updateToneCounter(i);
+            }
         }
     }
 
@@ -248,6 +250,7 @@ public class SN76489 {
             case 4:
                 if (reg[regLatch] == 0)
                     reg[regLatch] = 1;
+                updateToneCounter(regLatch >> 1);
                 break;
 
             // ------------------------------------------------------------------------------------
@@ -263,140 +266,113 @@ public class SN76489 {
             case 6:
                 noiseFreq = 0x10 << (reg[6] & 3);
                 noiseShiftReg = SHIFT_RESET;
+                noiseCounter = Math.min(noiseCounter, noisePeriod() << SCALE);
                 break;
         }
     }
 
-    public final void update(byte[] buffer, int offset, int samplesToGenerate) {
-        for (int sample = 0; sample < samplesToGenerate; sample++) {
-            // ------------------------------------------------------------------------------------
-            // Generate Sound from Tone Channels
-            // ------------------------------------------------------------------------------------
-            for (int i = 0; i < 3; i++) {
-                if (freqPos[i] != NO_ANTIALIAS)
-                    outputChannel[i] = (PSG_VOLUME[reg[(i << 1) + 1]] * freqPos[i]) >> SCALE;
-                else
-                    outputChannel[i] = PSG_VOLUME[reg[(i << 1) + 1]] * freqPolarity[i];
+    /**
+     * Renders samplesToGenerate 16 bit samples to buffer[offset...]
+     */
+    public final void update(int[] buffer, int offset, int samplesToGenerate) {
+        final int end = offset + samplesToGenerate;
+        int level = level();
+        int i = offset;
+        while (i < end) {
+            int next = nextEvent();
+            int run = next / clock;
+            if (run > 0) {
+                //no toggle in the next run samples
+                run = Math.min(run, end - i);
+                Arrays.fill(buffer, i, i + run, level);
+                advance(run * clock);
+                i += run;
+                continue;
             }
+            //toggles within the sample, average the level over the sample
+            int remaining = clock;
+            int acc = 0;
+            while (next < remaining) {
+                acc += level * next;
+                advance(next);
+                remaining -= next;
+                toggle();
+                level = level();
+                next = nextEvent();
+            }
+            acc += level * remaining;
+            advance(remaining);
+            buffer[i++] = acc / clock;
+        }
+    }
 
-            // ------------------------------------------------------------------------------------
-            // Generate Sound from Noise Channel
-            // ------------------------------------------------------------------------------------
-
-            outputChannel[3] = PSG_VOLUME[reg[7]] * (noiseShiftReg & 1) << 1; // Double output
-
-            // ------------------------------------------------------------------------------------
-            // Output sound to buffer
-            // ------------------------------------------------------------------------------------
-
-            int output = outputChannel[0] + outputChannel[1] + outputChannel[2] + outputChannel[3];
-
-            // Check boundaries
-            if (output > 0x7F) output = 0x7F;
-            else if (output < -0x80) output = -0x80;
-
-            buffer[offset + sample] = (byte) output;
-
-            // ------------------------------------------------------------------------------------
-            // Update Clock
-            // ------------------------------------------------------------------------------------
-            clockFrac += clock;
-
-            // Contains Main Integer Part (For General Counter Decrements)
-            //int clockCyclesPerUpdate = clockFrac &~ ((1 << SCALE) - 1);
-            int clockCycles = clockFrac >> SCALE;
-            int clockCyclesScaled = clockCycles << SCALE;
-
-            // Clock Counter Updated with Fractional Part Only (For Accurate Stuff Later)
-            clockFrac -= clockCyclesScaled;
-
-            // ------------------------------------------------------------------------------------
-            // Decrement Counters
-            // ------------------------------------------------------------------------------------
-
-            // Decrement Tone Counters
-            freqCounter[0] -= clockCycles;
-            freqCounter[1] -= clockCycles;
-            freqCounter[2] -= clockCycles;
+    private int level() {
+        return PSG_VOLUME[reg[1]] * tonePolarity[0] + PSG_VOLUME[reg[3]] * tonePolarity[1] +
+                PSG_VOLUME[reg[5]] * tonePolarity[2] +
+                (PSG_VOLUME[reg[7]] * (noiseShiftReg & 1) << 1); // Double output
+    }
 
-            // Decrement Noise Counter OR Match to Tone 2
-            if (noiseFreq == 0x80)
-                freqCounter[3] = freqCounter[2];
-            else
-                freqCounter[3] -= clockCycles;
+    private int nextEvent() {
+        return Math.min(Math.min(toneCounter[0], toneCounter[1]), Math.min(toneCounter[2], noiseCounter));
+    }
 
-            // ------------------------------------------------------------------------------------
-            // Update 3 x Tone Generators
-            // ------------------------------------------------------------------------------------
-            for (int i = 0; i < 3; i++) {
-                int counter = freqCounter[i];
-
-                // The counter is reset to the value currently in the corresponding register 
-                // (eg. Tone0 for channel 0). 
-                // The polarity of the output is changed, 
-                // ie. if it is currently outputting -1 then it outputs +1, and vice versa.
-                if (counter <= 0) {
-                    int tone = reg[i << 1];
-                    //NOTE: avoid java.lang.ArithmeticException: / by zero at line 378
-                    if (tone == 0) {
-                        continue;
-                    }
-
-                    // In tests on an SMS2, the highest note that gave any audible output was 
-                    // register value $006, giving frequency 18643Hz (MIDI note A12 -12 cents). 
-                    if (tone > 6) {
-                        // Calculate what fraction of the way through the sample the flip-flop 
-                        // changes state and render it as that fraction of the way through the transition.
-
-                        // Note we divide a scaled number by a scaled number here
-                        // So to maintain accuracy we shift the top part of the fraction again
-                        freqPos[i] = ((clockCyclesScaled - clockFrac + (2 << SCALE) * counter) << SCALE) *
-                                freqPolarity[i] / (clockCyclesScaled + clockFrac);
-
-                        // Flip Polarity
-                        freqPolarity[i] = -freqPolarity[i];
-                    } else {
-                        freqPolarity[i] = 1;
-                        freqPos[i] = NO_ANTIALIAS;
-                    }
-                    // Reset to 10-bit value in corresponding tone register
-                    freqCounter[i] += tone * (clockCycles / tone + 1);
-                } else {
-                    freqPos[i] = NO_ANTIALIAS;
-                }
+    private void advance(int time) {
+        for (int i = 0; i < 3; i++) {
+            if (toneCounter[i] != NO_EVENT) {
+                toneCounter[i] -= time;
             }
+        }
+        noiseCounter -= time;
+    }
 
-            // ------------------------------------------------------------------------------------
-            // Update Noise Generators
-            // ------------------------------------------------------------------------------------
-            if (freqCounter[3] <= 0) {
-                // Flip Polarity
-                freqPolarity[3] = -freqPolarity[3];
-
-                // Not matching Tone 2 Value, so reload counter
-                if (noiseFreq != 0x80)
-                    freqCounter[3] += noiseFreq * (clockCycles / noiseFreq + 1);
-
-                // Positive Amplitude i.e. We only want to do this once per cycle
-                if (freqPolarity[3] == 1) {
-                    int feedback;
-
-                    // White Noise Selected
-                    if ((reg[6] & 0x04) != 0) {
-                        // If two bits fed back, I can do Feedback=(nsr & fb) && (nsr & fb ^ fb)
-                        // since that's (one or more bits set) && (not all bits set)
-                        feedback = (noiseShiftReg & FEEDBACK_PATTERN) != 0 &&
-                                ((noiseShiftReg & FEEDBACK_PATTERN) ^ FEEDBACK_PATTERN) != 0
-                                ? 1 : 0;
-                    }
-                    // Periodic Noise Selected
-                    else {
-                        feedback = noiseShiftReg & 1;
-                    }
-
-                    noiseShiftReg = (noiseShiftReg >> 1) | (feedback << 15);
+    private void toggle() {
+        for (int i = 0; i < 3; i++) {
+            // The counter is reset to the value currently in the corresponding register
+            // (eg. Tone0 for channel 0).
+            // The polarity of the output is changed,
+            // ie. if it is currently outputting -1 then it outputs +1, and vice versa.
+            if (toneCounter[i] <= 0) {
+                toneCounter[i] += reg[i << 1] << SCALE;
+                tonePolarity[i] = -tonePolarity[i];
+            }
+        }
+        if (noiseCounter <= 0) {
+            noiseCounter += noisePeriod() << SCALE;
+            noisePolarity = -noisePolarity;
+            // Positive Amplitude i.e. We only want to do this once per cycle
+            if (noisePolarity == 1) {
+                int feedback;
+                // White Noise Selected
+                if ((reg[6] & 0x04) != 0) {
+                    // If two bits fed back, I can do Feedback=(nsr & fb) && (nsr & fb ^ fb)
+                    // since that's (one or more bits set) && (not all bits set)
+                    feedback = (noiseShiftReg & FEEDBACK_PATTERN) != 0 &&
+                            ((noiseShiftReg & FEEDBACK_PATTERN) ^ FEEDBACK_PATTERN) != 0
+                            ? 1 : 0;
                 }
+                // Periodic Noise Selected
+                else {
+                    feedback = noiseShiftReg & 1;
+                }
+                noiseShiftReg = (noiseShiftReg >> 1) | (feedback << 15);
             }
-        } // end for loop
+        }
+    }
+
+    // Noise clocked by Tone 2 when noiseFreq == 0x80
+    private int noisePeriod() {
+        return noiseFreq == 0x80 ? reg[4] : noiseFreq;
+    }
+
+    private void updateToneCounter(int channel) {
+        int tone = reg[channel << 1];
+        // In tests on an SMS2, the highest note that gave any audible output was
+        // register value $006, giving frequency 18643Hz (MIDI note A12 -12 cents).
+        if (tone <= MAX_INAUDIBLE_TONE) {
+            tonePolarity[channel] = 1;
+            toneCounter[channel] = NO_EVENT;
+        } else if (toneCounter[channel] > tone << SCALE) {
+            toneCounter[channel] = tone << SCALE;
+        }
     }
-}
\ No newline at end of file
+}
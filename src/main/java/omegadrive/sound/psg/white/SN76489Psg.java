@@ -43,7 +43,7 @@ public class SN76489Psg implements PsgProvider {
     }
 
     @Override
-    public void output(byte[] output, int offset, int end) {
+    public void output(int[] output, int offset, int end) {
         psg.update(output, offset, end - offset);
     }
 
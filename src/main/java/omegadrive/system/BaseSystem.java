@@ -30,6 +30,7 @@ import omegadrive.joypad.JoypadProvider;
 import omegadrive.memory.IMemoryProvider;
 import omegadrive.savestate.BaseStateHandler;
 import omegadrive.sound.SoundProvider;
+import omegadrive.system.perf.SystemMetrics;
 import omegadrive.system.perf.Telemetry;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.ui.PrefStore;
@@ -38,6 +39,7 @@ import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
 import omegadrive.util.VideoMode;
 import omegadrive.vdp.model.BaseVdpProvider;
+import omegadrive.vdp.model.IndexedFrame;
 
 import java.nio.file.Path;
 import java.time.Duration;
@@ -78,12 +80,15 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
     protected volatile STH stateHandler;
 
     private boolean vdpDumpScreenData = false;
+    //the vdp keeps rendering into its own frame, the window gets a copy
+    private IndexedFrame frameCopy;
     private volatile boolean pauseFlag = false;
     protected volatile boolean futureDoneFlag = false;
     protected volatile boolean softReset = false;
 
     //frame pacing stuff
     protected Telemetry telemetry = Telemetry.getInstance();
+    protected volatile SystemMetrics metrics = SystemMetrics.NO_METRICS;
     private static final boolean fullThrottle;
     protected long elapsedWaitNs, frameProcessingDelayNs, startCycle;
     protected long targetNs, startNs = 0;
@@ -258,6 +263,8 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
                 emuFrame.setTitle(romName);
                 region = getRegionInternal(memory, emuFrame.getRegionOverride());
                 LOG.info("Running rom: " + romName + ", region: " + region);
+                metrics = new SystemMetrics(getSystemType().name(), romName);
+                metrics.register();
                 initAfterRomLoad();
                 loop();
             } catch (Exception | Error e) {
@@ -317,6 +324,9 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
             sound.reset();
             bus.closeRom();
             telemetry.reset();
+            metrics.unregister();
+            metrics = SystemMetrics.NO_METRICS;
+            startCycle = 0;
             Optional.ofNullable(vdp).ifPresent(Device::reset);
         }
     }
@@ -333,16 +343,21 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
     protected void newFrame() {
         long tstamp = System.nanoTime();
         updateVideoMode(false);
-        renderScreenLinearInternal(vdp.getScreenDataLinear(), getStats(startCycle));
+        //the frame is handed over to the window next, dump it first
         handleVdpDumpScreenData();
+        renderScreenInternal(getStats(startCycle));
         long startWaitNs = System.nanoTime();
         elapsedWaitNs = syncCycle(startCycle) - startWaitNs;
         processSaveState();
         pauseAndWait();
         resetCycleCounters(counter);
         counter = 0;
+        long prevStartCycle = startCycle;
         startCycle = System.nanoTime();
         frameProcessingDelayNs = startCycle - tstamp - elapsedWaitNs;
+        if (prevStartCycle > 0) {
+            metrics.newFrame(startCycle - prevStartCycle - elapsedWaitNs, elapsedWaitNs, driftNs, targetNs);
+        }
         futureDoneFlag = runningRomFuture.isDone();
         handleSoftReset();
 //        LOG.info("{}, {}", elapsedWaitNs, frameProcessingDelayNs);
@@ -368,6 +383,27 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
         }
     }
 
+    protected void renderScreenInternal(Optional<String> label) {
+        IndexedFrame frame = DisplayWindow.RENDER_INDEXED ? vdp.getScreenDataIndexed() : null;
+        if (frame == null) {
+            renderScreenLinearInternal(vdp.getScreenDataLinear(), label);
+            return;
+        }
+        if (frameCopy != null) {
+            //the window might hand back the vdp frame it kept before the first copy
+            frameCopy = frameCopy == frame ? new IndexedFrame() : frameCopy;
+            frame.copyTo(frameCopy);
+            frameCopy = emuFrame.renderScreenIndexed(frameCopy, label, videoMode);
+            return;
+        }
+        IndexedFrame next = emuFrame.renderScreenIndexed(frame, label, videoMode);
+        if (next != frame) {
+            vdp.setScreenDataIndexed(next);
+            //swapping is optional
+            frameCopy = vdp.getScreenDataIndexed() == next ? null : next;
+        }
+    }
+
     protected void renderScreenLinearInternal(int[] data, Optional<String> label) {
         emuFrame.renderScreenLinear(data, label, videoMode);
     }
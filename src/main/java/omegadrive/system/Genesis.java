@@ -36,6 +36,7 @@ import omegadrive.savestate.GenesisStateHandler;
 import omegadrive.sound.SoundProvider;
 import omegadrive.sound.javasound.AbstractSoundManager;
 import omegadrive.system.perf.GenesisPerf;
+import omegadrive.system.perf.SystemMetrics.Device;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
@@ -63,6 +64,12 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
     final static double[] vdpVals = {VDP_RATIO * BaseVdpProvider.MCLK_DIVIDER_FAST_VDP, VDP_RATIO * BaseVdpProvider.MCLK_DIVIDER_SLOW_VDP};
     protected final static int Z80_DIVIDER = 14 / MCLK_DIVIDER;
     protected final static int FM_DIVIDER = 42 / MCLK_DIVIDER;
+    /**
+     * The fm is not scheduled by the main loop, it is clocked in batches when a cpu accesses a device
+     * and at the end of the frame, see {@link #syncFm(int)}.
+     */
+    protected final static boolean FM_CATCH_UP =
+            Boolean.parseBoolean(System.getProperty("md.fm.catch.up", "true"));
     private final static Logger LOG = LogManager.getLogger(Genesis.class.getSimpleName());
 
     protected Z80Provider z80;
@@ -70,8 +77,16 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
     protected double nextVdpCycle = vdpVals[0];
     private int next68kCycle = M68K_DIVIDER;
     private int nextZ80Cycle = Z80_DIVIDER;
+    private int nextFmCycle = FM_DIVIDER;
+    private int nextSvpCycle = SVP_CYCLES;
+    //a cpu is running a batch of instructions ahead of the other devices
+    private boolean m68kBatch, z80Batch;
+    //the other devices are catching up with the cpu
+    private boolean syncing;
     //fm emulation
     private double microsPerTick = 1;
+    //run in the current frame, see resetCycleCounters
+    protected int m68kCycles, z80Cycles, fmTicks, vdpSlots;
 
     protected Genesis(DisplayWindow emuFrame) {
         super(emuFrame);
@@ -101,6 +116,8 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
 
         bus.attachDevice(this).attachDevice(memory).attachDevice(joypad).attachDevice(vdp).
                 attachDevice(cpu).attachDevice(z80);
+        bus.setDeviceSyncHandler(this::syncDevices);
+        z80.getZ80BusProvider().setDeviceSyncHandler(this::syncDevices);
         reloadWindowState();
         createAndAddVdpEventListener();
     }
@@ -112,19 +129,11 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
     protected void loop() {
         LOG.info("Starting game loop");
         updateVideoMode(true);
-        int cnt;
 
         try {
             do {
-                cnt = counter;
-                run68k(cnt);
-                runZ80(cnt);
-                runFM(cnt);
-                runVdp(cnt);
-                if (cnt % SVP_CYCLES == 0) {
-                    SvpMapper.ssp16.ssp1601_run(SVP_RUN_CYCLES);
-                }
-                counter++;
+                runDevices();
+                counter = nextDeadline();
             } while (!futureDoneFlag);
         } catch (Exception e) {
             LOG.error("Error main cycle", e);
@@ -132,10 +141,50 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
         LOG.info("Exiting rom thread loop");
     }
 
+    /**
+     * Runs every device that is due on this master clock cycle, the order matters.
+     * NOTE: runVdp can trigger a new frame and a 68k batch can let the other devices catch up,
+     * both move the counter: always read the current value.
+     */
+    protected final void runDevices() {
+        run68k(counter);
+        runZ80(counter);
+        runFM(counter);
+        runSvp(counter);
+        runVdp(counter);
+    }
+
+    /**
+     * Devices only do some work when their deadline is due, the master clock cycles
+     * in between can be skipped.
+     * With a handful of devices a plain min() is cheaper than a priority queue.
+     */
+    protected final int nextDeadline() {
+        return Math.min(next68kCycle, nextDeadlineNo68k());
+    }
+
+    private int nextDeadlineNo68k() {
+        return Math.min(nextZ80Cycle, nextDeadlineNoCpu());
+    }
+
+    private int nextDeadlineNoCpu() {
+        int next = FM_CATCH_UP ? nextSvpCycle : Math.min(nextFmCycle, nextSvpCycle);
+        return Math.min(next, (int) Math.ceil(nextVdpCycle));
+    }
+
+    /**
+     * Lower bound of the master clock cycle of the next vdp slot that can raise an interrupt
+     * or start a new line/frame, assumes that all the slots in between are fast slots.
+     */
+    private int nextVdpEventCycle() {
+        return (int) (nextVdpCycle + (vdp.getSlotsToNextEvent() - 1) * vdpVals[0]);
+    }
+
     protected final void runVdp(int counter) {
         if (counter >= nextVdpCycle) {
             int vdpMclk = vdp.runSlot();
             nextVdpCycle += vdpVals[vdpMclk - 4];
+            vdpSlots++;
         }
     }
 
@@ -143,9 +192,15 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
         if (counter == next68kCycle) {
             boolean isRunning = bus.is68kRunning();
             boolean canRun = !cpu.isStopped() && isRunning;
+            //only a vdp event can interrupt or halt the 68k
+            boolean stable = isRunning && bus.is68kStateStable();
             int cycleDelay = 1;
             if (canRun) {
-                cycleDelay = cpu.runInstruction();
+                cycleDelay = stable ? run68kBatch(counter) : cpu.runInstruction();
+                m68kCycles += cycleDelay;
+            } else if (stable) {
+                //stopped, nothing to do until the next vdp event
+                cycleDelay = (nextVdpEventCycle() - counter) / M68K_DIVIDER + 1;
             }
             //interrupts are processed after the current instruction
             //TODO check: interrupt shouldnt be processed when 68k is frozen but are
@@ -158,12 +213,79 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
         }
     }
 
+    /**
+     * The 68k runs ahead of the other devices up to the next vdp event, they catch up
+     * when the 68k accesses a device, see {@link #syncDevices()}.
+     */
+    private int run68kBatch(int counter) {
+        int limit = nextVdpEventCycle();
+        if (bus.isSvp()) {
+            limit = Math.min(limit, nextSvpCycle);
+        }
+        m68kBatch = true;
+        int cycles = cpu.runCycles((limit - counter) / M68K_DIVIDER + 1);
+        m68kBatch = false;
+        return cycles;
+    }
+
+    /**
+     * Runs the other devices up to the start of the current cpu instruction,
+     * as if the cpu had been running one instruction at a time.
+     * The batch stops before the next vdp event so there is no new frame and no interrupt here.
+     */
+    private void syncDevices() {
+        if (FM_CATCH_UP) {
+            syncFm(getCpuCycle());
+        }
+        //no nested catch up, ie. the z80 accessing the vdp while the 68k batch is catching up
+        if (syncing) {
+            return;
+        }
+        syncing = true;
+        if (m68kBatch) {
+            int target = next68kCycle + cpu.getBatchCycles() * M68K_DIVIDER;
+            int next = nextDeadlineNo68k();
+            while (next < target) {
+                counter = next;
+                runZ80(counter);
+                runFM(counter);
+                runSvp(counter);
+                runVdp(counter);
+                next = nextDeadlineNo68k();
+            }
+        } else if (z80Batch) {
+            int target = nextZ80Cycle + z80.getBatchTstates() * Z80_DIVIDER;
+            int next = nextDeadlineNoCpu();
+            while (next < target) {
+                counter = next;
+                runFM(counter);
+                runSvp(counter);
+                runVdp(counter);
+                next = nextDeadlineNoCpu();
+            }
+        }
+        syncing = false;
+    }
+
+    /**
+     * Master clock cycle of the instruction the cpu is running.
+     */
+    private int getCpuCycle() {
+        if (z80Batch) {
+            return nextZ80Cycle + z80.getBatchTstates() * Z80_DIVIDER;
+        } else if (m68kBatch) {
+            return next68kCycle + cpu.getBatchCycles() * M68K_DIVIDER;
+        }
+        return counter;
+    }
+
     protected final void runZ80(int counter) {
         if (counter == nextZ80Cycle) {
             int cycleDelay = 0;
             boolean running = bus.isZ80Running();
             if (running) {
-                cycleDelay = z80.executeInstruction();
+                cycleDelay = runZ80Batch(counter);
+                z80Cycles += cycleDelay;
                 bus.handleVdpInterruptsZ80();
             }
             cycleDelay = Math.max(1, cycleDelay);
@@ -171,9 +293,52 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
         }
     }
 
+    /**
+     * The z80 runs ahead of the fm, svp and vdp up to the next vdp event, every instruction starts
+     * before the 68k deadline: on the same cycle the 68k goes first.
+     * While a 68k batch is catching up the 68k deadline is in the past and the z80 runs one instruction.
+     */
+    private int runZ80Batch(int counter) {
+        int limit = Math.min(next68kCycle - 1, nextVdpEventCycle());
+        z80Batch = true;
+        int cycles = z80.run((limit - counter) / Z80_DIVIDER + 1);
+        z80Batch = false;
+        return cycles;
+    }
+
     protected final void runFM(int counter) {
-        if (counter % FM_DIVIDER == 0) {
+        if (!FM_CATCH_UP && counter == nextFmCycle) {
             bus.getFm().tick(microsPerTick);
+            nextFmCycle += FM_DIVIDER;
+            fmTicks++;
+        }
+    }
+
+    /**
+     * Runs the fm ticks due before the given cycle: on the same cycle the cpus go first.
+     */
+    private void syncFm(int cycle) {
+        if (cycle > nextFmCycle) {
+            int ticks = (cycle - 1 - nextFmCycle) / FM_DIVIDER + 1;
+            bus.getFm().tick(microsPerTick, ticks);
+            nextFmCycle += ticks * FM_DIVIDER;
+            fmTicks += ticks;
+        }
+    }
+
+    @Override
+    protected void newFrame() {
+        if (FM_CATCH_UP) {
+            //including the current cycle, the fm runs before the vdp
+            syncFm(counter + 1);
+        }
+        super.newFrame();
+    }
+
+    protected final void runSvp(int counter) {
+        if (counter == nextSvpCycle) {
+            SvpMapper.ssp16.ssp1601_run(SVP_RUN_CYCLES);
+            nextSvpCycle += SVP_CYCLES;
         }
     }
 
@@ -227,9 +392,17 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
 
     @Override
     protected void resetCycleCounters(int counter) {
+        metrics.addCycles(Device.M68K, m68kCycles);
+        metrics.addCycles(Device.Z80, z80Cycles);
+        metrics.addCycles(Device.FM, fmTicks);
+        metrics.addCycles(Device.VDP, vdpSlots);
+        m68kCycles = z80Cycles = fmTicks = vdpSlots = 0;
         nextZ80Cycle -= counter;
         next68kCycle -= counter;
         nextVdpCycle -= counter;
+        //fm and svp are aligned to the start of the frame
+        nextFmCycle = FM_DIVIDER;
+        nextSvpCycle = SVP_CYCLES;
     }
 
     @Override
@@ -33,6 +33,7 @@ import omegadrive.savestate.MekaStateHandler;
 import omegadrive.savestate.SmsStateHandler;
 import omegadrive.sound.javasound.AbstractSoundManager;
 import omegadrive.system.perf.SmsPerf;
+import omegadrive.system.perf.SystemMetrics.Device;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
@@ -65,6 +66,10 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
     protected Z80Provider z80;
     int nextZ80Cycle = Z80_DIVIDER;
     int nextVdpCycle = VDP_DIVIDER;
+    //the z80 is running a batch of instructions ahead of the vdp and fm
+    private boolean z80Batch;
+    //run in the current frame, see resetCycleCounters
+    private int z80Cycles, fmTicks, vdpSlots;
     private SystemLoader.SystemType systemType;
 
     protected Sms(SystemLoader.SystemType systemType, DisplayWindow emuFrame) {
@@ -85,6 +90,7 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
         vdp = new SmsVdp(this);
         //z80, sound attached later
         bus.attachDevice(this).attachDevice(memory).attachDevice(joypad).attachDevice(vdp);
+        bus.setDeviceSyncHandler(this::syncDevices);
         reloadWindowState();
         createAndAddVdpEventListener();
     }
@@ -174,6 +180,10 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
 
     @Override
     protected void resetCycleCounters(int counter) {
+        metrics.addCycles(Device.Z80, z80Cycles);
+        metrics.addCycles(Device.VDP, vdpSlots);
+        metrics.addCycles(Device.FM, fmTicks);
+        z80Cycles = fmTicks = vdpSlots = 0;
         nextZ80Cycle -= counter;
         nextVdpCycle -= counter;
     }
@@ -182,21 +192,48 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
         if (counter == nextVdpCycle) {
             vdp.runSlot();
             nextVdpCycle += VDP_DIVIDER;
+            vdpSlots++;
         }
     }
 
+    /**
+     * The z80 runs until the vdp can raise an interrupt, the last instruction starts
+     * on the vdp event cycle at the latest, an IO access lets the vdp and fm catch up first.
+     */
     protected void runZ80(long counter) {
         if (counter == nextZ80Cycle) {
-            int cycleDelay = z80.executeInstruction();
+            int budget = (int) ((nextVdpEventCycle() - counter) / Z80_DIVIDER) + 1;
+            z80Batch = true;
+            int cycleDelay = z80.run(budget);
+            z80Batch = false;
+            z80Cycles += cycleDelay;
             handleMaskableInterrupts();
-            cycleDelay = Math.max(1, cycleDelay);
             nextZ80Cycle += Z80_DIVIDER * cycleDelay;
         }
     }
 
+    private int nextVdpEventCycle() {
+        return nextVdpCycle + (vdp.getSlotsToNextEvent() - 1) * VDP_DIVIDER;
+    }
+
+    private void syncDevices() {
+        if (!z80Batch) {
+            return;
+        }
+        z80Batch = false;
+        //nextZ80Cycle is the start of the batch, counters might be reset by a new frame
+        while (counter < nextZ80Cycle + z80.getBatchTstates() * Z80_DIVIDER) {
+            runVdp(counter);
+            runFM(counter);
+            counter++;
+        }
+        z80Batch = true;
+    }
+
     protected void runFM(int counter) {
         if ((counter + 1) % FM_DIVIDER == 0) {
             sound.getFm().tick(0);
+            fmTicks++;
         }
     }
 
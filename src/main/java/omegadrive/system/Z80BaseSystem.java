@@ -33,7 +33,9 @@ import omegadrive.joypad.TwoButtonsJoypad;
 import omegadrive.memory.IMemoryProvider;
 import omegadrive.memory.MemoryProvider;
 import omegadrive.savestate.BaseStateHandler;
+import omegadrive.sound.SoundProvider;
 import omegadrive.sound.javasound.AbstractSoundManager;
+import omegadrive.system.perf.SystemMetrics.Device;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
@@ -92,6 +94,7 @@ public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler>
         //z80, sound attached later
         bus.attachDevice(this).attachDevice(memory).attachDevice(joypad).attachDevice(vdp).
                 attachDevice(vdp);
+        bus.setDeviceSyncHandler(this::syncDevices);
         reloadWindowState();
         createAndAddVdpEventListener();
     }
@@ -112,6 +115,10 @@ public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler>
 
     private int nextZ80Cycle = Z80_DIVIDER;
     private int nextVdpCycle = VDP_DIVIDER;
+    //the z80 is running a batch of instructions ahead of the vdp
+    private boolean z80Batch;
+    //run in the current frame, see resetCycleCounters
+    private int z80Cycles, vdpSlots;
 
     @Override
     protected void loop() {
@@ -137,7 +144,10 @@ public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler>
         sound = AbstractSoundManager.createSoundProvider(systemType, region);
         z80 = Z80CoreWrapper.createInstance(bus);
         bus.attachDevice(sound).attachDevice(z80);
-
+        if (SoundProvider.DRAIN_SOUND) {
+            //headless runs, the drain sink pulls the samples at the end of every frame
+            vdp.addVdpEventListener(sound);
+        }
         resetAfterRomLoad();
     }
 
@@ -153,6 +163,9 @@ public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler>
 
     @Override
     protected void resetCycleCounters(int counter) {
+        metrics.addCycles(Device.Z80, z80Cycles);
+        metrics.addCycles(Device.VDP, vdpSlots);
+        z80Cycles = vdpSlots = 0;
         nextZ80Cycle -= counter;
         nextVdpCycle -= counter;
     }
@@ -190,19 +203,45 @@ public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler>
     private void runVdp(long counter) {
         if (counter % 2 == 1) {
             vdp.runSlot();
+            vdpSlots++;
         }
     }
 
 
+    /**
+     * The z80 runs until the vdp can raise an interrupt, the last instruction starts
+     * on the vdp event cycle at the latest, an IO access lets the vdp catch up first.
+     */
     private void runZ80(long counter) {
         if (counter == nextZ80Cycle) {
-            int cycleDelay = z80.executeInstruction();
+            int budget = (int) ((nextVdpEventCycle(counter) - counter) / Z80_DIVIDER) + 1;
+            z80Batch = true;
+            int cycleDelay = z80.run(budget);
+            z80Batch = false;
+            z80Cycles += cycleDelay;
             handleInterrupt();
-            cycleDelay = Math.max(1, cycleDelay);
             nextZ80Cycle += Z80_DIVIDER * cycleDelay;
         }
     }
 
+    //the vdp runs on odd cycles
+    private long nextVdpEventCycle(long counter) {
+        return (counter | 1) + (vdp.getSlotsToNextEvent() - 1) * 2;
+    }
+
+    private void syncDevices() {
+        if (!z80Batch) {
+            return;
+        }
+        z80Batch = false;
+        //nextZ80Cycle is the start of the batch, counters might be reset by a new frame
+        while (counter < nextZ80Cycle + z80.getBatchTstates() * Z80_DIVIDER) {
+            runVdp(counter);
+            counter++;
+        }
+        z80Batch = true;
+    }
+
     private void handleInterrupt(){
         bus.handleInterrupts(vdpInterruptType);
     }
@@ -0,0 +1,62 @@
+/*
+ * Counter
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system.perf;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Monotonic count, the per frame sample is the increment since the previous frame.
+ */
+public final class Counter extends Metric {
+
+    private static final AtomicLongFieldUpdater<Counter> VALUE =
+            AtomicLongFieldUpdater.newUpdater(Counter.class, "value");
+
+    private volatile long value;
+    private long lastSampled;
+
+    Counter(String name) {
+        super(name);
+    }
+
+    public void inc() {
+        VALUE.incrementAndGet(this);
+    }
+
+    public void add(long delta) {
+        VALUE.addAndGet(this, delta);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    @Override
+    protected double sample() {
+        long v = value;
+        long res = v - lastSampled;
+        lastSampled = v;
+        return res;
+    }
+
+    @Override
+    protected void toJson(StringBuilder sb) {
+        sb.append('"').append(getName()).append("\": ").append(value);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Gauge
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system.perf;
+
+/**
+ * Latest value set.
+ */
+public final class Gauge extends Metric {
+
+    private volatile long bits;
+
+    Gauge(String name) {
+        super(name);
+    }
+
+    public void set(double value) {
+        bits = Double.doubleToRawLongBits(value);
+    }
+
+    public double get() {
+        return Double.longBitsToDouble(bits);
+    }
+
+    @Override
+    protected double sample() {
+        return get();
+    }
+
+    @Override
+    protected void toJson(StringBuilder sb) {
+        sb.append('"').append(getName()).append("\": ").append(Telemetry.jsonNumber(get()));
+    }
+}
@@ -26,6 +26,7 @@ import omegadrive.ui.DisplayWindow;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
 import omegadrive.util.VideoMode;
+import omegadrive.vdp.model.VdpCounterMode;
 
 import java.time.Duration;
 import java.util.Optional;
@@ -38,15 +39,21 @@ import java.util.stream.IntStream;
  */
 public class GenesisPerf extends Genesis {
 
+    /**
+     * Visit every master clock cycle, as opposed to jumping to the next device deadline,
+     * useful to compare the two loops.
+     */
+    private static final boolean TICK_LOOP =
+            Boolean.parseBoolean(System.getProperty("md.perf.tick.loop", "false"));
+
     static int mclkHz, m68kRef, vdpRef, z80Ref, fmRef;
     private static Logger LOG = LogManager.getLogger(GenesisPerf.class.getSimpleName());
     int[] cycleVdpFrame = new int[RegionDetector.Region.USA.getFps()];
     int[] cycle68kFrame = new int[RegionDetector.Region.USA.getFps()];
     int[] cycleZ80Frame = new int[RegionDetector.Region.USA.getFps()];
     int[] cycleFmFrame = new int[RegionDetector.Region.USA.getFps()];
-    int cycleVdpCnt, cycle68kCnt, cycleZ80cnt, cycleFmCnt;
     long frameWaitNs, lastSecTimeNs, frameProcessingNs;
-    int totalCycles, frameCnt;
+    int totalCycles, frameCnt, loopCnt, totalLoops;
     long samplesAudioProd, samplesAudioCons;
 
     public GenesisPerf(DisplayWindow emuFrame) {
@@ -54,15 +61,17 @@ public class GenesisPerf extends Genesis {
     }
 
     private void stats() {
-        cycle68kFrame[frameCnt] = cycle68kCnt;
-        cycleVdpFrame[frameCnt] = cycleVdpCnt;
-        cycleZ80Frame[frameCnt] = cycleZ80cnt;
-        cycleFmFrame[frameCnt] = cycleFmCnt;
+        //run in this frame, cleared by resetCycleCounters
+        cycle68kFrame[frameCnt] = m68kCycles;
+        cycleVdpFrame[frameCnt] = vdpSlots;
+        cycleZ80Frame[frameCnt] = z80Cycles;
+        cycleFmFrame[frameCnt] = fmTicks;
 
         frameWaitNs += elapsedWaitNs;
         frameProcessingNs += frameProcessingDelayNs;
         frameCnt++;
         totalCycles += counter;
+        totalLoops += loopCnt;
 
         if (frameCnt == videoMode.getRegion().getFps()) {
             long nowNs = System.nanoTime();
@@ -77,21 +86,28 @@ public class GenesisPerf extends Genesis {
             long prevC = samplesAudioCons;
             samplesAudioProd = 0;//JavaSoundManager.samplesProducedCount;
             samplesAudioCons = 0; //JavaSoundManager.samplesConsumedCount;
+            long busyMs = Math.max(1, lastSecLenMs - waitMs);
+            //emulated master clock cycles per second of host time spent emulating
+            double mclkPerHostSec = 1000.0 * totalCycles * MCLK_DIVIDER / busyMs;
             StringBuilder sb = new StringBuilder();
             sb.append(String.format("Last 1s duration in ms %d, errorPerc %f%n", lastSecLenMs, 100 - (100 * lastSecLenMs / 1000.0)));
             sb.append(String.format("helios cycles: %d, frameProcMs: %d, sleepMs %d%n", totalCycles, frameProcMs, waitMs));
+            sb.append(String.format("loop iterations: %d, cycles per iteration: %f, tickLoop: %s%n",
+                    totalLoops, 1.0 * totalCycles / Math.max(1, totalLoops), TICK_LOOP));
+            sb.append(String.format("emulated MCLK per host second: %.0f, realtime ratio: %f%n",
+                    mclkPerHostSec, mclkPerHostSec / mclkHz));
             sb.append(String.format("68k cycles: %f, ref %d, errorPerc %f%n", m68kAvg, m68kRef, 100 - (100 * m68kRef / m68kAvg)));
             sb.append(String.format("Z80 cycles: %f, ref: %d, errorPerc: %f%n", z80Avg, z80Ref, 100 - (100 * z80Ref / z80Avg)));
             sb.append(String.format("FM cycles: %f, ref: %d, errorPerc: %f%n", fmAvg, fmRef, 100 - (100 * fmRef / fmAvg)));
-            sb.append(String.format("VDP cycles: %f%n", vdpAvg));
+            sb.append(String.format("VDP cycles: %f, ref: %d, errorPerc: %f%n", vdpAvg, vdpRef, 100 - (100 * vdpRef / vdpAvg)));
             sb.append(String.format("Sound samples, produced: %d, consumed %d%n",
                     (samplesAudioProd - prevP) >> 1, (samplesAudioCons - prevC) >> 1));
-//            sb.append(String.format("VDP cycles: %f, ref: %d, errorPerc: %f%n", vdpAvg,vdpRef, 100 - (100*vdpRef/vdpAvg)));
 
             LOG.info(sb.toString());
             frameCnt = 0;
             frameWaitNs = 0;
             totalCycles = 0;
+            totalLoops = 0;
             frameProcessingNs = 0;
             lastSecTimeNs = nowNs;
         }
@@ -99,18 +115,13 @@ public class GenesisPerf extends Genesis {
 
     @Override
     protected void loop() {
-        LOG.info("Starting game loop");
+        LOG.info("Starting game loop, tickLoop: {}", TICK_LOOP);
         updateVideoMode(true);
-        double prevVdpCycle = 0;
         do {
             try {
-                prevVdpCycle = nextVdpCycle;
-                run68k(counter);
-                runZ80(counter);
-                runFM(counter);
-                runVdp(counter);
-                doCounting(prevVdpCycle);
-                counter++;
+                runDevices();
+                loopCnt++;
+                counter = TICK_LOOP ? counter + 1 : nextDeadline();
             } catch (Exception e) {
                 LOG.error("Error main cycle", e);
                 break;
@@ -119,19 +130,6 @@ public class GenesisPerf extends Genesis {
         LOG.info("Exiting rom thread loop");
     }
 
-    private void doCounting(double prevVdpCycle) {
-        cycleVdpCnt += nextVdpCycle > prevVdpCycle ? 1 : 0;
-        if (counter % M68K_DIVIDER == 0) {
-            cycle68kCnt++;
-        }
-        if (counter % Z80_DIVIDER == 0) {
-            cycleZ80cnt++;
-        }
-        if (counter % FM_DIVIDER == 0) {
-            cycleFmCnt++;
-        }
-    }
-
     @Override
     protected void updateVideoMode(boolean force) {
         VideoMode prev = videoMode;
@@ -141,6 +139,9 @@ public class GenesisPerf extends Genesis {
             m68kRef = mclkHz / (M68K_DIVIDER * MCLK_DIVIDER);
             z80Ref = mclkHz / (Z80_DIVIDER * MCLK_DIVIDER);
             fmRef = mclkHz / (FM_DIVIDER * MCLK_DIVIDER);
+            //the vdp runs every slot of the frame
+            VdpCounterMode vdpCounterMode = VdpCounterMode.getCounterMode(videoMode);
+            vdpRef = vdpCounterMode.slotsPerLine * vdpCounterMode.vTotalCount * videoMode.getRegion().getFps();
         }
     }
 
@@ -153,6 +154,6 @@ public class GenesisPerf extends Genesis {
     @Override
     protected void resetCycleCounters(int counter) {
         super.resetCycleCounters(counter);
-        cycleVdpCnt = cycleFmCnt = cycle68kCnt = cycleZ80cnt = 0;
+        loopCnt = 0;
     }
 }
@@ -0,0 +1,267 @@
+/*
+ * HeadlessRunner
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system.perf;
+
+import omegadrive.LogManager;
+import omegadrive.Logger;
+import omegadrive.SystemLoader;
+import omegadrive.input.InputProvider;
+import omegadrive.input.KeyboardInput;
+import omegadrive.joypad.JoypadProvider;
+import omegadrive.joypad.JoypadProvider.JoypadAction;
+import omegadrive.joypad.JoypadProvider.JoypadButton;
+import omegadrive.sound.SoundProvider;
+import omegadrive.system.SystemProvider;
+import omegadrive.ui.DisplayWindow;
+import omegadrive.util.RegionDetector;
+import omegadrive.util.Util;
+import omegadrive.util.VideoMode;
+import omegadrive.vdp.model.IndexedFrame;
+
+import java.awt.event.KeyListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static omegadrive.system.SystemProvider.SystemEvent.CLOSE_ROM;
+import static omegadrive.system.SystemProvider.SystemEvent.NEW_ROM;
+
+/**
+ * Runs a rom as fast as possible: no frame pacing, frames are dropped, audio samples are discarded.
+ * <p>
+ * Usage: HeadlessRunner romFile [frames] [inputScript]
+ * <p>
+ * Input script, one event per line, applied at the end of the given frame:
+ * <pre>
+ * #frame player button action
+ * 60 P1 S PRESSED
+ * 65 P1 S RELEASED
+ * </pre>
+ */
+public class HeadlessRunner {
+
+    private static final Logger LOG = LogManager.getLogger(HeadlessRunner.class.getSimpleName());
+
+    private static final int DEFAULT_FRAMES = 600;
+
+    static {
+        setHeadlessProperties();
+    }
+
+    private final int frames;
+    private final List<InputEvent> script;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private JoypadProvider joypad;
+    private volatile int frameCount, measuredFrames;
+    private volatile long firstFrameNs, lastFrameNs;
+    private int scriptIndex;
+
+    public HeadlessRunner(int frames, List<InputEvent> script) {
+        this.frames = frames;
+        this.script = script;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: " + HeadlessRunner.class.getSimpleName() + " romFile [frames] [inputScript]");
+            return;
+        }
+        Path rom = Paths.get(args[0]);
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES;
+        List<InputEvent> script = args.length > 2 ? loadScript(Paths.get(args[2])) : new ArrayList<>();
+        new HeadlessRunner(frames, script).run(rom);
+        System.exit(0);
+    }
+
+    public void run(Path rom) throws InterruptedException {
+        SystemProvider system = SystemLoader.createSystemProvider(rom, new FrameCountingWindow(), false);
+        if (system == null) {
+            return;
+        }
+        LOG.info("Running {} for {} frames", rom.getFileName(), frames);
+        system.handleSystemEvent(NEW_ROM, rom);
+        boolean completed = false;
+        //the rom thread might fail
+        while (!completed && system.isRomRunning()) {
+            completed = done.await(1, TimeUnit.SECONDS);
+        }
+        system.handleSystemEvent(CLOSE_ROM, null);
+        printStats(system);
+    }
+
+    private void printStats(SystemProvider system) {
+        int measured = measuredFrames;
+        if (measured < 1) {
+            System.out.println("No frames rendered");
+            return;
+        }
+        double secs = (lastFrameNs - firstFrameNs) / (double) Util.SECOND_IN_NS;
+        double fps = measured / secs;
+        RegionDetector.Region region = system.getRegion();
+        double realtime = fps / region.getFps();
+        double mhz = realtime * getMasterClockHz(system.getSystemType(), region) / 1_000_000d;
+        System.out.println(String.format("%s, %s, frames: %d, time: %.3fs, fps: %.2f, realtime: %.2fx, " +
+                "emulated master clock: %.2f MHz", system.getSystemType(), region, measured, secs, fps, realtime, mhz));
+    }
+
+    private static double getMasterClockHz(SystemLoader.SystemType type, RegionDetector.Region region) {
+        if (type == SystemLoader.SystemType.GENESIS) {
+            return region == RegionDetector.Region.EUROPE ? Util.GEN_PAL_MCLOCK_MHZ : Util.GEN_NTSC_MCLOCK_MHZ;
+        }
+        //z80 based systems, the main loop runs at 3 times the z80 clock
+        return 3 * SoundProvider.getPsgSoundClock(region);
+    }
+
+    //the input is applied when the frame is complete, on the emulation thread
+    private void onFrame() {
+        long now = System.nanoTime();
+        int frame = ++frameCount;
+        if (frame == 1) {
+            firstFrameNs = now;
+        }
+        while (scriptIndex < script.size() && script.get(scriptIndex).frame <= frame) {
+            InputEvent e = script.get(scriptIndex++);
+            if (joypad != null) {
+                joypad.setButtonAction(e.player, e.button, e.action);
+            }
+        }
+        //the first frame includes the rom loading, measure the following ones
+        if (frame > 1 && frame <= frames + 1) {
+            lastFrameNs = now;
+            measuredFrames = frame - 1;
+        }
+        if (frame == frames + 1) {
+            done.countDown();
+        }
+    }
+
+    /**
+     * No frame pacing and audio samples discarded, needs to happen before the system classes are loaded.
+     */
+    public static void setHeadlessProperties() {
+        System.setProperty("helios.headless", "true");
+        System.setProperty("helios.fullSpeed", "true");
+        System.setProperty("helios.sound.drain", "true");
+    }
+
+    public static List<InputEvent> loadScript(Path file) {
+        List<InputEvent> l = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] tk = line.split("\\s+");
+                l.add(new InputEvent(Integer.parseInt(tk[0]), InputProvider.PlayerNumber.valueOf(tk[1]),
+                        JoypadButton.valueOf(tk[2]), JoypadAction.valueOf(tk[3])));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Unable to load input script: " + file, e);
+        }
+        l.sort((e1, e2) -> Integer.compare(e1.frame, e2.frame));
+        return l;
+    }
+
+    public static class InputEvent {
+        final int frame;
+        final InputProvider.PlayerNumber player;
+        final JoypadButton button;
+        final JoypadAction action;
+
+        public InputEvent(int frame, InputProvider.PlayerNumber player, JoypadButton button, JoypadAction action) {
+            this.frame = frame;
+            this.player = player;
+            this.button = button;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Drops every frame, only counts them.
+     */
+    class FrameCountingWindow extends HeadlessWindow {
+
+        @Override
+        public void addKeyListener(KeyListener keyAdapter) {
+            if (keyAdapter instanceof KeyboardInput) {
+                joypad = ((KeyboardInput) keyAdapter).getJoypadProvider();
+            }
+        }
+
+        @Override
+        protected void onFrame() {
+            HeadlessRunner.this.onFrame();
+        }
+    }
+
+    /**
+     * Drops every frame, onFrame is called when a frame is complete, on the emulation thread.
+     */
+    public abstract static class HeadlessWindow implements DisplayWindow {
+
+        protected abstract void onFrame();
+
+        @Override
+        public void renderScreenLinear(int[] data, Optional<String> label, VideoMode videoMode) {
+            onFrame();
+        }
+
+        @Override
+        public IndexedFrame renderScreenIndexed(IndexedFrame frame, Optional<String> label, VideoMode videoMode) {
+            onFrame();
+            return frame;
+        }
+
+        @Override
+        public void addKeyListener(KeyListener keyAdapter) {
+        }
+
+        @Override
+        public void setTitle(String rom) {
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void resetScreen() {
+        }
+
+        @Override
+        public void setFullScreen(boolean value) {
+        }
+
+        @Override
+        public String getRegionOverride() {
+            return null;
+        }
+
+        @Override
+        public void reloadSystem(SystemProvider systemProvider) {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Histogram
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Fixed buckets: bucket i counts the values <= bounds[i], the last bucket the values above the highest bound.
+ * The per frame sample is the mean of the values recorded during the frame.
+ */
+public final class Histogram extends Metric {
+
+    private static final AtomicLongFieldUpdater<Histogram> COUNT =
+            AtomicLongFieldUpdater.newUpdater(Histogram.class, "count");
+    private static final AtomicLongFieldUpdater<Histogram> SUM_BITS =
+            AtomicLongFieldUpdater.newUpdater(Histogram.class, "sumBits");
+    private static final AtomicLongFieldUpdater<Histogram> MAX_BITS =
+            AtomicLongFieldUpdater.newUpdater(Histogram.class, "maxBits");
+
+    private final double[] bounds;
+    private final AtomicLongArray buckets;
+    private volatile long count;
+    private volatile long sumBits;
+    private volatile long maxBits = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+    private long lastCount;
+    private double lastSum;
+
+    Histogram(String name, double[] bounds) {
+        super(name);
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Bucket bounds start, start * factor, ... count values in total.
+     */
+    public static double[] exponentialBounds(double start, double factor, int count) {
+        double[] res = new double[count];
+        for (int i = 0; i < count; i++, start *= factor) {
+            res[i] = start;
+        }
+        return res;
+    }
+
+    /**
+     * Bucket bounds start, start + step, ... count values in total, ie. for values that can be negative.
+     */
+    public static double[] linearBounds(double start, double step, int count) {
+        double[] res = new double[count];
+        for (int i = 0; i < count; i++) {
+            res[i] = start + i * step;
+        }
+        return res;
+    }
+
+    public void record(double value) {
+        int i = Arrays.binarySearch(bounds, value);
+        buckets.incrementAndGet(i >= 0 ? i : -i - 1);
+        long b;
+        do {
+            b = sumBits;
+        } while (!SUM_BITS.compareAndSet(this, b, Double.doubleToRawLongBits(Double.longBitsToDouble(b) + value)));
+        long m;
+        while (value > Double.longBitsToDouble(m = maxBits) &&
+                !MAX_BITS.compareAndSet(this, m, Double.doubleToRawLongBits(value))) {
+        }
+        COUNT.incrementAndGet(this);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        long c = count;
+        return c == 0 ? 0 : Double.longBitsToDouble(sumBits) / c;
+    }
+
+    /**
+     * The highest value recorded, 0 when empty.
+     */
+    public double getMax() {
+        return count == 0 ? 0 : Double.longBitsToDouble(maxBits);
+    }
+
+    /**
+     * Upper bound of the bucket holding the q-th quantile, the highest bound when it falls in the overflow bucket.
+     */
+    public double getQuantile(double q) {
+        long total = 0;
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0 || bounds.length == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(q * total);
+        long acc = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            acc += counts[i];
+            if (acc >= target) {
+                return bounds[i];
+            }
+        }
+        return bounds[bounds.length - 1];
+    }
+
+    public double[] getBounds() {
+        return bounds.clone();
+    }
+
+    public long[] getBuckets() {
+        long[] res = new long[buckets.length()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = buckets.get(i);
+        }
+        return res;
+    }
+
+    @Override
+    protected double sample() {
+        long c = count;
+        double s = Double.longBitsToDouble(sumBits);
+        double res = c == lastCount ? 0 : (s - lastSum) / (c - lastCount);
+        lastCount = c;
+        lastSum = s;
+        return res;
+    }
+
+    @Override
+    protected void toJson(StringBuilder sb) {
+        sb.append('"').append(getName()).append("\": {\"count\": ").append(count).
+                append(", \"mean\": ").append(Telemetry.jsonNumber(getMean())).append(", \"buckets\": [");
+        for (int i = 0; i < buckets.length(); i++) {
+            sb.append(i > 0 ? ", " : "").append("{\"le\": ").
+                    append(i < bounds.length ? Telemetry.jsonNumber(bounds[i]) : "\"inf\"").
+                    append(", \"count\": ").append(buckets.get(i)).append('}');
+        }
+        sb.append("]}");
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Metric
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system.perf;
+
+/**
+ * A named metric, sampled once per frame into a primitive ring of the latest values.
+ * <p>
+ * Updates are lock free and allocation free, from any thread; sampling is done by the emulation thread only.
+ */
+public abstract class Metric {
+
+    static final int ROWS = 1 << 11;
+    static final int ROW_MASK = ROWS - 1;
+
+    private final String name;
+    private final double[] ring = new double[ROWS];
+
+    protected Metric(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The value for the current frame, ie. the latest for a gauge, the delta for a counter.
+     */
+    protected abstract double sample();
+
+    /**
+     * Appends to the JSON object being built, ie. "name": value
+     */
+    protected abstract void toJson(StringBuilder sb);
+
+    final void sampleRow(long row) {
+        ring[(int) row & ROW_MASK] = sample();
+    }
+
+    final double get(long row) {
+        return ring[(int) row & ROW_MASK];
+    }
+}
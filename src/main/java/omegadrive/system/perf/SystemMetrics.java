@@ -0,0 +1,212 @@
+/*
+ * SystemMetrics
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package omegadrive.system.perf;
+
+import omegadrive.util.JmxBridge;
+import omegadrive.util.Util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Frame pacing and device stats of a running rom, exported over JMX as omegadrive:type=System,name=[systemType].
+ * <p>
+ * The emulation thread records once per frame, the handles are lock free and JMX reads them from any thread.
+ * <p>
+ * Frames are shown at the emulated refresh rate: a frame taking longer than 1.5 frame intervals
+ * keeps the previous frame on screen for an extra interval (duplicated), a frame shorter than
+ * half an interval is replaced before being shown (dropped).
+ */
+public class SystemMetrics implements SystemMetricsMXBean {
+
+    private static final String CYCLES_PREFIX = "cycles.";
+    private static final Device[] DEVICES = Device.values();
+    //50us to ~1.2s, each bucket 10% wider than the previous one
+    private static final double[] MS_BOUNDS = Histogram.exponentialBounds(0.05, 1.1, 107);
+    //syncCycle clamps the drift to +/- 10ms
+    private static final double[] DRIFT_US_BOUNDS = Histogram.linearBounds(-10_000, 100, 201);
+    private static final double NS_IN_MS = Util.MILLI_IN_NS;
+
+    public static final SystemMetrics NO_METRICS = new SystemMetrics("NONE", "");
+
+    private final String systemType;
+    private final String romName;
+    private final Telemetry registry = new Telemetry();
+    private final Histogram frameProcessingMs = registry.histogram("frameProcessingMs", MS_BOUNDS);
+    private final Histogram frameWaitMs = registry.histogram("frameWaitMs", MS_BOUNDS);
+    private final Histogram driftUs = registry.histogram("driftUs", DRIFT_US_BOUNDS);
+    private final Counter droppedFrames = registry.counter("droppedFrames");
+    private final Counter duplicatedFrames = registry.counter("duplicatedFrames");
+    private final Gauge audioLatencyMs = Telemetry.getInstance().gauge("audioLatencyMs");
+    private final Counter[] cycles = new Counter[DEVICES.length];
+
+    public enum Device {
+        M68K, Z80, FM, VDP;
+
+        private final String cyclesName = CYCLES_PREFIX + name().toLowerCase();
+    }
+
+    public SystemMetrics(String systemType, String romName) {
+        this.systemType = systemType;
+        this.romName = romName;
+        for (Device d : DEVICES) {
+            cycles[d.ordinal()] = registry.counter(d.cyclesName);
+        }
+    }
+
+    public String getObjectName() {
+        return "omegadrive:type=System,name=" + systemType;
+    }
+
+    public void register() {
+        JmxBridge.registerMBean(this, getObjectName());
+    }
+
+    public void unregister() {
+        JmxBridge.unregisterMBean(getObjectName());
+    }
+
+    /**
+     * @param processingNs time spent emulating and rendering the frame
+     * @param waitNs       time spent waiting for the frame interval to end
+     * @param driftNs      pacing drift carried over to the next frame
+     * @param targetNs     the frame interval
+     */
+    public void newFrame(long processingNs, long waitNs, long driftNs, long targetNs) {
+        frameProcessingMs.record(processingNs / NS_IN_MS);
+        frameWaitMs.record(waitNs / NS_IN_MS);
+        driftUs.record(driftNs / 1000d);
+        long frameNs = processingNs + waitNs;
+        if (targetNs > 0) {
+            if (frameNs > targetNs + (targetNs >> 1)) {
+                duplicatedFrames.add((frameNs + (targetNs >> 1)) / targetNs - 1);
+            } else if (frameNs < targetNs >> 1) {
+                droppedFrames.inc();
+            }
+        }
+    }
+
+    /**
+     * Callers should pass the cycles the device has run in a whole frame.
+     */
+    public void addCycles(Device device, long cycles) {
+        this.cycles[device.ordinal()].add(cycles);
+    }
+
+    @Override
+    public String getSystemType() {
+        return systemType;
+    }
+
+    @Override
+    public String getRomName() {
+        return romName;
+    }
+
+    @Override
+    public long getFrames() {
+        return frameProcessingMs.getCount();
+    }
+
+    @Override
+    public double getFrameProcessingMsMean() {
+        return frameProcessingMs.getMean();
+    }
+
+    @Override
+    public double getFrameProcessingMsP50() {
+        return frameProcessingMs.getQuantile(0.5);
+    }
+
+    @Override
+    public double getFrameProcessingMsP99() {
+        return frameProcessingMs.getQuantile(0.99);
+    }
+
+    @Override
+    public double getFrameProcessingMsP999() {
+        return frameProcessingMs.getQuantile(0.999);
+    }
+
+    @Override
+    public double getFrameProcessingMsMax() {
+        return frameProcessingMs.getMax();
+    }
+
+    @Override
+    public double getFrameWaitMsMean() {
+        return frameWaitMs.getMean();
+    }
+
+    @Override
+    public double getFrameWaitMsP50() {
+        return frameWaitMs.getQuantile(0.5);
+    }
+
+    @Override
+    public double getFrameWaitMsP99() {
+        return frameWaitMs.getQuantile(0.99);
+    }
+
+    @Override
+    public double getFrameWaitMsMax() {
+        return frameWaitMs.getMax();
+    }
+
+    @Override
+    public double getDriftUsP1() {
+        return driftUs.getQuantile(0.01);
+    }
+
+    @Override
+    public double getDriftUsP50() {
+        return driftUs.getQuantile(0.5);
+    }
+
+    @Override
+    public double getDriftUsP99() {
+        return driftUs.getQuantile(0.99);
+    }
+
+    @Override
+    public Map<String, Long> getDeviceCycles() {
+        Map<String, Long> res = new TreeMap<>();
+        //devices the system doesn't have never run
+        Arrays.stream(cycles).filter(c -> c.get() > 0).
+                forEach(c -> res.put(c.getName().substring(CYCLES_PREFIX.length()), c.get()));
+        return res;
+    }
+
+    @Override
+    public double getAudioQueueMs() {
+        return audioLatencyMs.get();
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    @Override
+    public long getDuplicatedFrames() {
+        return duplicatedFrames.get();
+    }
+}
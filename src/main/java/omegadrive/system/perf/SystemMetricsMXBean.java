@@ -0,0 +1,71 @@
+/*
+ * SystemMetricsMXBean
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package omegadrive.system.perf;
+
+import java.util.Map;
+
+/**
+ * JMX view of the running system, see {@link SystemMetrics}.
+ * <p>
+ * Times are cumulative since the rom started: quantiles are bucket upper bounds, within 10% of the actual value.
+ */
+public interface SystemMetricsMXBean {
+
+    String getSystemType();
+
+    String getRomName();
+
+    long getFrames();
+
+    double getFrameProcessingMsMean();
+
+    double getFrameProcessingMsP50();
+
+    double getFrameProcessingMsP99();
+
+    double getFrameProcessingMsP999();
+
+    double getFrameProcessingMsMax();
+
+    double getFrameWaitMsMean();
+
+    double getFrameWaitMsP50();
+
+    double getFrameWaitMsP99();
+
+    double getFrameWaitMsMax();
+
+    double getDriftUsP1();
+
+    double getDriftUsP50();
+
+    double getDriftUsP99();
+
+    /**
+     * Emulated cycles run by each device, ie. m68k, z80, fm ticks, vdp slots, devices that haven't run are omitted
+     */
+    Map<String, Long> getDeviceCycles();
+
+    double getAudioQueueMs();
+
+    long getDroppedFrames();
+
+    long getDuplicatedFrames();
+}
@@ -1,7 +1,5 @@
 package omegadrive.system.perf;
 
-import com.google.common.collect.Table;
-import com.google.common.collect.TreeBasedTable;
 import omegadrive.LogManager;
 import omegadrive.Logger;
 import omegadrive.sound.fm.AudioRateControl;
@@ -17,12 +15,19 @@ import java.text.NumberFormat;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Telemetry
  * <p>
+ * Registry of metric handles (counters, gauges, histograms): components register them once
+ * and update them lock free, the registry samples every metric once per frame into primitive rings.
+ * <p>
+ * When enabled (helios.telemetry=true) a snapshot is written every SNAPSHOT_EVERY_FRAMES frames,
+ * formatted off the emulation thread: either the per frame CSV (default, helios.telemetry.format=csv)
+ * or the JSON summary (helios.telemetry.format=json).
+ * <p>
  * gnuplot> load 'tel.p'
  *
  * <p>
@@ -32,28 +37,67 @@ import java.util.stream.Collectors;
  */
 public class Telemetry {
     private final static Logger LOG = LogManager.getLogger(Telemetry.class.getSimpleName());
-    public static final boolean enable = false;
-    private static final Function<Map<?, Double>, String> toStringFn = map -> {
-        String res = Arrays.toString(map.values().toArray());
-        return res.substring(1, res.length() - 2);
-    };
+    public static final boolean enable = Boolean.parseBoolean(System.getProperty("helios.telemetry", "false"));
+    private static final boolean JSON = "json".equalsIgnoreCase(System.getProperty("helios.telemetry.format", "csv"));
+    private static final int SNAPSHOT_EVERY_FRAMES = 600;
 
     private static Telemetry telemetry = new Telemetry();
     private static NumberFormat fpsFormatter = new DecimalFormat("#0.00");
-    private Table<String, Long, Double> data = TreeBasedTable.create();
+
+    private final Map<String, Metric> metricMap = new ConcurrentHashMap<>();
+    private volatile Metric[] metrics = new Metric[0];
+    private final long[] frames = new long[Metric.ROWS];
+    //columns of the CSV file, fixed when the header is written
+    private Metric[] csvColumns;
     private Path telemetryFile;
     private long frameCounter = 0;
+    private long lastSnapshotFrame = 0;
     private static int STATS_EVERY_FRAMES = 50;
     private double fpsAccum = 0;
+    private final Gauge fps = gauge("fps");
+    private final Gauge driftNs = gauge("driftNs");
 
-
+    /**
+     * The default registry, for components that are not wired to a system.
+     */
     public static Telemetry getInstance() {
         return telemetry;
     }
 
-    private static void writeToFile(Path file, String res) {
+    public Counter counter(String name) {
+        return register(name, Counter::new, Counter.class);
+    }
+
+    public Gauge gauge(String name) {
+        return register(name, Gauge::new, Gauge.class);
+    }
+
+    public Histogram histogram(String name, double[] bounds) {
+        return register(name, n -> new Histogram(n, bounds), Histogram.class);
+    }
+
+    public Metric[] getMetrics() {
+        return metrics;
+    }
+
+    //the same name returns the same handle, ie. when a component is re-created
+    private synchronized <T extends Metric> T register(String name, Function<String, T> factory, Class<T> type) {
+        Metric m = metricMap.get(name);
+        if (m == null) {
+            m = factory.apply(name);
+            metricMap.put(name, m);
+            Metric[] ms = Arrays.copyOf(metrics, metrics.length + 1);
+            ms[ms.length - 1] = m;
+            metrics = ms;
+        } else if (!type.isInstance(m)) {
+            throw new IllegalArgumentException("Metric " + name + " already registered as: " + m.getClass().getSimpleName());
+        }
+        return type.cast(m);
+    }
+
+    private static void writeToFile(Path file, String res, StandardOpenOption... options) {
         try {
-            Files.write(file, res.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Files.write(file, res.getBytes(), options);
         } catch (IOException e) {
             LOG.error("Unable to write to: {}", file.toAbsolutePath());
         }
@@ -61,16 +105,7 @@ public class Telemetry {
 
     public void addFpsSample(double value) {
         fpsAccum += value;
-        addSample("fps", value);
-    }
-
-    public void addSample(String type, double value) {
-        if (!enable) {
-            return;
-        }
-        if (frameCounter > 0) {
-            data.put(type, frameCounter, value);
-        }
+        fps.set(value);
     }
 
     private String getAvgFpsRounded() {
@@ -95,34 +130,87 @@ public class Telemetry {
 
     public void reset() {
         frameCounter = 0;
-        data.clear();
+        lastSnapshotFrame = 0;
         telemetryFile = null;
+        csvColumns = null;
     }
 
     public Optional<String> newFrame(double lastFps, double driftNs) {
         addFpsSample(lastFps);
-        addSample("driftNs", driftNs / 1000d);
+        this.driftNs.set(driftNs / 1000d);
         Optional<String> os = getNewStats();
         newFrame();
         return os;
     }
 
+    /**
+     * Samples every metric, emulation thread only.
+     */
     public void newFrame() {
         frameCounter++;
-        if (!enable) {
+        long row = frameCounter;
+        for (Metric m : metrics) {
+            m.sampleRow(row);
+        }
+        frames[(int) row & Metric.ROW_MASK] = row;
+        if (!enable || frameCounter - lastSnapshotFrame < SNAPSHOT_EVERY_FRAMES) {
             return;
         }
-        if (frameCounter == 2) {
-            telemetryFile = Paths.get(".", "tel_" + System.currentTimeMillis() + ".log");
-            String header = "frame," + data.rowKeySet().stream().collect(Collectors.joining(","));
-            writeToFile(telemetryFile, header);
+        if (telemetryFile == null) {
+            telemetryFile = Paths.get(".", "tel_" + System.currentTimeMillis() + (JSON ? ".json" : ".log"));
             LOG.info("Logging telemetry file to: {}", telemetryFile.toAbsolutePath());
         }
-        if (frameCounter % 600 == 0) {
-            String res = "\n" + data.columnKeySet().stream().map(num -> num + "," + toStringFn.apply(data.column(num))).
-                    collect(Collectors.joining("\n"));
-            data.clear();
-            Util.executorService.submit(() -> writeToFile(telemetryFile, res));
+        final long from = lastSnapshotFrame + 1;
+        final Path file = telemetryFile;
+        lastSnapshotFrame = frameCounter;
+        if (JSON) {
+            Util.executorService.submit(() -> writeToFile(file, toJson(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+            return;
+        }
+        final boolean header = csvColumns == null;
+        if (header) {
+            csvColumns = metrics;
+        }
+        final Metric[] columns = csvColumns;
+        //the rows are formatted before the ring wraps around, ROWS > 2 * SNAPSHOT_EVERY_FRAMES
+        Util.executorService.submit(() -> writeToFile(file, toCsv(columns, from, row, header),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * Per frame samples of the frames [from, to], as recorded in the rings.
+     */
+    public String toCsv(Metric[] columns, long from, long to, boolean header) {
+        StringBuilder sb = new StringBuilder();
+        if (header) {
+            sb.append("frame");
+            for (Metric m : columns) {
+                sb.append(',').append(m.getName());
+            }
+        }
+        for (long row = Math.max(from, to - Metric.ROWS + 1); row <= to; row++) {
+            sb.append('\n').append(frames[(int) row & Metric.ROW_MASK]);
+            for (Metric m : columns) {
+                sb.append(',').append(m.get(row));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Summary of every metric: counter totals, latest gauge values, histogram buckets.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"frame\": ").append(frameCounter);
+        for (Metric m : metrics) {
+            sb.append(",\n  ");
+            m.toJson(sb);
         }
+        return sb.append("\n}\n").toString();
+    }
+
+    static String jsonNumber(double v) {
+        return Double.isNaN(v) || Double.isInfinite(v) ? "null" : String.valueOf(v);
     }
 }
@@ -22,6 +22,7 @@ package omegadrive.ui;
 import omegadrive.system.SystemProvider;
 import omegadrive.util.FileLoader;
 import omegadrive.util.VideoMode;
+import omegadrive.vdp.model.IndexedFrame;
 
 import java.awt.event.KeyListener;
 import java.time.LocalDate;
@@ -36,6 +37,9 @@ public interface DisplayWindow {
 
     int SHOW_INFO_FRAMES_DELAY = 120; //~2sec
 
+    //send the frames as palette indexes, the display converts them to RGB while scaling
+    boolean RENDER_INDEXED = Boolean.parseBoolean(System.getProperty("helios.ui.indexed", "true"));
+
 
     DisplayWindow HEADLESS_INSTANCE = new DisplayWindow() {
         @Override
@@ -58,6 +62,11 @@ public interface DisplayWindow {
 
         }
 
+        @Override
+        public IndexedFrame renderScreenIndexed(IndexedFrame frame, Optional<String> label, VideoMode videoMode) {
+            return frame;
+        }
+
         @Override
         public void resetScreen() {
 
@@ -85,6 +94,16 @@ public interface DisplayWindow {
 
     void renderScreenLinear(int[] data, Optional<String> label, VideoMode videoMode);
 
+    /**
+     * Hands over the frame, the window might keep it and return a different frame.
+     *
+     * @return the frame the vdp renders the next frame into
+     */
+    default IndexedFrame renderScreenIndexed(IndexedFrame frame, Optional<String> label, VideoMode videoMode) {
+        renderScreenLinear(frame.toRgb(), label, videoMode);
+        return frame;
+    }
+
     void resetScreen();
 
     void setFullScreen(boolean value);
@@ -19,11 +19,88 @@
 
 package omegadrive.ui;
 
+import omegadrive.LogManager;
+import omegadrive.Logger;
+import omegadrive.vdp.model.IndexedFrame;
+
 import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+/**
+ * Scales the frames to the output size.
+ * <p>
+ * An instance caches the nearest neighbour transfer functions of the last few (source, destination) size pairs,
+ * replicates rows/columns instead of mapping each pixel when the scale factor allows it,
+ * optionally applies a scale2x/scale3x filter first and splits the output rows across a fork-join pool.
+ * <p>
+ * An instance is not thread safe, use one per output surface.
+ */
 public class RenderingStrategy {
 
-    private static final TransferFnHolder transferFnHolder = new TransferFnHolder();
+    private static final Logger LOG = LogManager.getLogger(RenderingStrategy.class.getSimpleName());
+
+    public enum Filter {
+        NONE(1),
+        SCALE2X(2),
+        SCALE3X(3);
+
+        private final int factor;
+
+        Filter(int factor) {
+            this.factor = factor;
+        }
+
+        public int getFactor() {
+            return factor;
+        }
+
+        public static Filter getFilter(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Unknown filter: {}, using: {}", name, NONE);
+                return NONE;
+            }
+        }
+    }
+
+    //filter applied before scaling to the output size: none, scale2x, scale3x
+    public static final Filter FILTER =
+            Filter.getFilter(System.getProperty("helios.ui.filter", "none"));
+    //threads scaling a frame, 0: one per core
+    public static final int SCALER_THREADS = Integer.parseInt(System.getProperty("helios.ui.scaler.threads", "0"));
+    //smaller frames are scaled on the calling thread
+    private static final int MIN_PIXELS_PER_TASK = 1 << 17;
+    //ie. windowed and full screen, each with and without the filter
+    private static final int TRANSFER_FN_CACHE_SIZE = 4;
+
+    private final Filter filter;
+    private final ForkJoinPool pool;
+    private final Map<Long, TransferFn> transferFnCache =
+            new LinkedHashMap<Long, TransferFn>(TRANSFER_FN_CACHE_SIZE << 1, 0.75f, true) {
+                private static final long serialVersionUID = 0;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, TransferFn> eldest) {
+                    return size() > TRANSFER_FN_CACHE_SIZE;
+                }
+            };
+    private TransferFn transferFn = new TransferFn(0, 0, 0, 0);
+    private int[] rgb = new int[0];
+    private int[] filtered = new int[0];
+
+    public RenderingStrategy() {
+        this(FILTER, SCALER_THREADS);
+    }
+
+    public RenderingStrategy(Filter filter, int threads) {
+        this.filter = filter;
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
 
     public static void subImageWithOffset(int[] src, int[] dest, Dimension srcDim, Dimension destDim,
                                           int xOffset, int yOffset) {
@@ -52,41 +129,267 @@ public class RenderingStrategy {
         }
     }
 
-    protected static final void renderNearestNew(final int[] srcPixels, final int[] outputPixels,
-                                                 Dimension src, Dimension dest) {
-        if (dest != transferFnHolder.dest || src != transferFnHolder.src) {
-            System.out.println("recalc");
-            //recalc
-            transferFnHolder.src = src;
-            transferFnHolder.dest = dest;
-            transferFnHolder.transferFn = new int[dest.height * dest.width];
-            transferFnHolder.computeTransferFn();
+    public void render(int[] srcPixels, int[] outputPixels, Dimension src, Dimension dest) {
+        if (filter != Filter.NONE) {
+            srcPixels = filter(srcPixels, src.width, src.height);
+            src = new Dimension(src.width * filter.factor, src.height * filter.factor);
+        }
+        final int[] source = srcPixels;
+        final TransferFn fn = getTransferFn(src.width, src.height, dest.width, dest.height);
+        runRows(dest.height, dest.width, (from, to) -> nearestRows(source, outputPixels, fn, from, to));
+    }
+
+    /**
+     * The RGB conversion happens while scaling, the source size is the frame size.
+     */
+    public void render(IndexedFrame frame, int[] outputPixels, Dimension dest) {
+        if (filter != Filter.NONE) {
+            if (rgb.length != frame.getPixels().length) {
+                rgb = new int[frame.getPixels().length];
+            }
+            frame.toRgb(rgb);
+            render(rgb, outputPixels, new Dimension(frame.getWidth(), frame.getHeight()), dest);
+            return;
+        }
+        final TransferFn fn = getTransferFn(frame.getWidth(), frame.getHeight(), dest.width, dest.height);
+        runRows(dest.height, dest.width, (from, to) -> nearestRows(frame, outputPixels, fn, from, to));
+    }
+
+    private TransferFn getTransferFn(int srcWidth, int srcHeight, int destWidth, int destHeight) {
+        if (!transferFn.matches(srcWidth, srcHeight, destWidth, destHeight)) {
+            long key = (long) srcWidth << 48 | (long) srcHeight << 32 | (long) destWidth << 16 | destHeight;
+            transferFn = transferFnCache.computeIfAbsent(key,
+                    k -> new TransferFn(srcWidth, srcHeight, destWidth, destHeight));
+        }
+        return transferFn;
+    }
+
+    //a destination row mapping to the same source row as the previous one is a copy of it
+    private static void nearestRows(int[] src, int[] out, TransferFn fn, int from, int to) {
+        final int[] xMap = fn.xMap;
+        final int destWidth = fn.destWidth, srcWidth = fn.srcWidth, xFactor = fn.xFactor;
+        int prevRow = -1;
+        for (int i = from; i < to; i++) {
+            int srcRow = fn.yMap[i];
+            int k = i * destWidth;
+            if (srcRow == prevRow) {
+                System.arraycopy(out, k - destWidth, out, k, destWidth);
+                continue;
+            }
+            prevRow = srcRow;
+            int shiftSrc = srcRow * srcWidth;
+            if (xFactor > 0) {
+                for (int x = shiftSrc; x < shiftSrc + srcWidth; x++) {
+                    final int v = src[x];
+                    for (int f = 0; f < xFactor; f++) {
+                        out[k++] = v;
+                    }
+                }
+            } else {
+                for (int j = 0; j < destWidth; j++) {
+                    out[k + j] = src[shiftSrc + xMap[j]];
+                }
+            }
+        }
+    }
+
+    private static void nearestRows(IndexedFrame frame, int[] out, TransferFn fn, int from, int to) {
+        final byte[] src = frame.getPixels();
+        final int[] palettes = frame.getPalettes();
+        final int[] xMap = fn.xMap;
+        final int destWidth = fn.destWidth, srcWidth = fn.srcWidth, xFactor = fn.xFactor;
+        int prevRow = -1;
+        for (int i = from; i < to; i++) {
+            int srcRow = fn.yMap[i];
+            int k = i * destWidth;
+            if (srcRow == prevRow) {
+                System.arraycopy(out, k - destWidth, out, k, destWidth);
+                continue;
+            }
+            prevRow = srcRow;
+            int shiftSrc = srcRow * srcWidth;
+            final int paletteOffset = frame.getLineOffset(srcRow);
+            if (xFactor > 0) {
+                for (int x = shiftSrc; x < shiftSrc + srcWidth; x++) {
+                    final int v = palettes[paletteOffset + (src[x] & 0xFF)];
+                    for (int f = 0; f < xFactor; f++) {
+                        out[k++] = v;
+                    }
+                }
+            } else {
+                for (int j = 0; j < destWidth; j++) {
+                    out[k + j] = palettes[paletteOffset + (src[shiftSrc + xMap[j]] & 0xFF)];
+                }
+            }
+        }
+    }
+
+    private int[] filter(int[] src, int width, int height) {
+        int len = src.length * filter.factor * filter.factor;
+        if (filtered.length != len) {
+            filtered = new int[len];
         }
-        final int[] tFn = transferFnHolder.transferFn;
-        for (int i = 0; i < tFn.length; i++) {
-            outputPixels[i] = srcPixels[tFn[i]];
+        final int[] out = filtered;
+        switch (filter) {
+            case SCALE2X:
+                runRows(height, width << 2, (from, to) -> scale2x(src, out, width, height, from, to));
+                break;
+            case SCALE3X:
+                runRows(height, width * 9, (from, to) -> scale3x(src, out, width, height, from, to));
+                break;
         }
+        return out;
     }
 
-    static class TransferFnHolder {
-        Dimension src = new Dimension(0, 0);
-        Dimension dest = new Dimension(0, 0);
-        int[] transferFn = new int[0];
+    /**
+     * AdvMAME2x/EPX, a pixel becomes 2x2 pixels following the edges drawn by its neighbours.
+     */
+    static void scale2x(int[] src, int[] out, int width, int height, int fromRow, int toRow) {
+        final int outWidth = width << 1;
+        for (int y = fromRow; y < toRow; y++) {
+            int row = y * width;
+            int up = y > 0 ? row - width : row;
+            int down = y < height - 1 ? row + width : row;
+            int k = (y << 1) * outWidth;
+            for (int x = 0; x < width; x++) {
+                int left = x > 0 ? x - 1 : x;
+                int right = x < width - 1 ? x + 1 : x;
+                int p = src[row + x];
+                int a = src[up + x], b = src[row + right], c = src[row + left], d = src[down + x];
+                if (c == a && c != d && a != b) {
+                    out[k] = a;
+                } else {
+                    out[k] = p;
+                }
+                out[k + 1] = a == b && a != c && b != d ? b : p;
+                out[k + outWidth] = d == c && d != b && c != a ? c : p;
+                out[k + outWidth + 1] = b == d && b != a && d != c ? d : p;
+                k += 2;
+            }
+        }
+    }
+
+    /**
+     * AdvMAME3x, a pixel becomes 3x3 pixels following the edges drawn by its neighbours.
+     */
+    static void scale3x(int[] src, int[] out, int width, int height, int fromRow, int toRow) {
+        final int outWidth = width * 3;
+        for (int y = fromRow; y < toRow; y++) {
+            int row = y * width;
+            int up = y > 0 ? row - width : row;
+            int down = y < height - 1 ? row + width : row;
+            int k = y * 3 * outWidth;
+            for (int x = 0; x < width; x++) {
+                int left = x > 0 ? x - 1 : x;
+                int right = x < width - 1 ? x + 1 : x;
+                //A B C
+                //D E F
+                //G H I
+                int a = src[up + left], b = src[up + x], c = src[up + right];
+                int d = src[row + left], e = src[row + x], f = src[row + right];
+                int g = src[down + left], h = src[down + x], i = src[down + right];
+                boolean db = d == b && b != f && d != h;
+                boolean bf = b == f && b != d && f != h;
+                boolean dh = d == h && d != b && h != f;
+                boolean hf = h == f && d != h && b != f;
+                out[k] = db ? d : e;
+                out[k + 1] = (db && e != c) || (bf && e != a) ? b : e;
+                out[k + 2] = bf ? f : e;
+                out[k + outWidth] = (db && e != g) || (dh && e != a) ? d : e;
+                out[k + outWidth + 1] = e;
+                out[k + outWidth + 2] = (bf && e != i) || (hf && e != c) ? f : e;
+                out[k + 2 * outWidth] = dh ? d : e;
+                out[k + 2 * outWidth + 1] = (dh && e != i) || (hf && e != g) ? h : e;
+                out[k + 2 * outWidth + 2] = hf ? f : e;
+                k += 3;
+            }
+        }
+    }
 
-        protected void computeTransferFn() {
+    private void runRows(int rows, int pixelsPerRow, RowFn fn) {
+        int minRows = Math.max(1, MIN_PIXELS_PER_TASK / Math.max(1, pixelsPerRow));
+        if (pool == null || rows < minRows << 1) {
+            fn.run(0, rows);
+            return;
+        }
+        pool.invoke(new RowTask(fn, 0, rows, minRows));
+    }
+
+    interface RowFn {
+        void run(int fromRow, int toRow);
+    }
+
+    static class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 0;
+        private final RowFn fn;
+        private final int from, to, minRows;
+
+        RowTask(RowFn fn, int from, int to, int minRows) {
+            this.fn = fn;
+            this.from = from;
+            this.to = to;
+            this.minRows = minRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < minRows << 1) {
+                fn.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(fn, from, mid, minRows), new RowTask(fn, mid, to, minRows));
+        }
+    }
+
+    /**
+     * Nearest neighbour mapping, same as renderNearest: source column per destination column,
+     * source row per destination row. xFactor > 0 when each source column maps to xFactor consecutive columns.
+     */
+    static class TransferFn {
+        final int srcWidth, srcHeight, destWidth, destHeight;
+        final int[] xMap, yMap;
+        final int xFactor;
+
+        TransferFn(int srcWidth, int srcHeight, int destWidth, int destHeight) {
+            this.srcWidth = srcWidth;
+            this.srcHeight = srcHeight;
+            this.destWidth = destWidth;
+            this.destHeight = destHeight;
+            xMap = computeMap(srcWidth, destWidth);
+            yMap = computeMap(srcHeight, destHeight);
+            xFactor = getReplicationFactor(xMap, srcWidth, destWidth);
+        }
+
+        private static int[] computeMap(int src, int dest) {
+            int[] map = new int[dest];
+            if (dest == 0) {
+                return map;
+            }
             int factor = 16;
-            int xRatio = ((src.width << factor) / dest.width) + 1;
-            int yRatio = ((src.height << factor) / dest.height) + 1;
-            int px, py, shiftSrc, shiftDest;
-            for (int i = 0; i < dest.height; i++) {
-                py = (i * yRatio) >> factor;
-                shiftDest = i * dest.width;
-                shiftSrc = py * src.width;
-                for (int j = 0; j < dest.width; j++) {
-                    px = (j * xRatio) >> factor;
-                    transferFn[shiftDest + j] = shiftSrc + px;
+            int ratio = ((src << factor) / dest) + 1;
+            for (int i = 0; i < dest; i++) {
+                map[i] = (i * ratio) >> factor;
+            }
+            return map;
+        }
+
+        private static int getReplicationFactor(int[] map, int src, int dest) {
+            if (src == 0 || dest % src != 0) {
+                return 0;
+            }
+            int f = dest / src;
+            for (int i = 0; i < dest; i++) {
+                if (map[i] != i / f) {
+                    return 0;
                 }
             }
+            return f;
+        }
+
+        boolean matches(int srcWidth, int srcHeight, int destWidth, int destHeight) {
+            return this.srcWidth == srcWidth && this.srcHeight == srcHeight &&
+                    this.destWidth == destWidth && this.destHeight == destHeight;
         }
     }
 }
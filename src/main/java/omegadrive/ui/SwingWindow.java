@@ -28,6 +28,7 @@ import omegadrive.input.InputProvider.PlayerNumber;
 import omegadrive.system.SystemProvider;
 import omegadrive.util.*;
 import omegadrive.util.FileLoader.FileResourceType;
+import omegadrive.vdp.model.IndexedFrame;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
@@ -45,6 +46,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.IntStream;
 
 import static omegadrive.system.SystemProvider.SystemEvent.*;
@@ -60,12 +62,21 @@ public class SwingWindow implements DisplayWindow {
     //when scaling is slow set this to FALSE
     private static final boolean UI_SCALE_ON_EDT
             = Boolean.parseBoolean(System.getProperty("ui.scale.on.edt", "true"));
+    //scale the indexed frames on a dedicated thread, the emulation thread hands them over without copying
+    private static final boolean UI_DISPLAY_THREAD
+            = Boolean.parseBoolean(System.getProperty("ui.display.thread", "true"));
     private Dimension outputNonScaledScreenSize = DEFAULT_SCALED_SCREEN_SIZE;
     private Dimension outputScreenSize = DEFAULT_SCALED_SCREEN_SIZE;
 
     private BufferedImage dest;
     private int[] pixelsSrc;
+    private final IndexedFrame frameSrc = new IndexedFrame();
+    //frames handed over to the display thread
+    private final TripleBuffer<IndexedFrame> frames = new TripleBuffer<>(IndexedFrame::new);
+    private Thread displayThread;
     private int[] pixelsDest;
+    //only used by the thread scaling the frames
+    private final RenderingStrategy scaler = new RenderingStrategy();
     private double scale = DEFAULT_SCALE_FACTOR;
 
     private final JLabel screenLabel = new JLabel();
@@ -219,6 +230,40 @@ public class SwingWindow implements DisplayWindow {
         }
     }
 
+    //NOTE: with the display thread the frame is kept and a spare one is returned, otherwise it is copied
+    @Override
+    public IndexedFrame renderScreenIndexed(IndexedFrame frame, Optional<String> label, VideoMode videoMode) {
+        if (displayThread == null) {
+            frame.copyTo(frameSrc);
+            if (UI_SCALE_ON_EDT) {
+                SwingUtilities.invokeLater(() -> renderScreenIndexedInternal(frameSrc, label, videoMode));
+            } else {
+                renderScreenIndexedInternal(frameSrc, label, videoMode);
+            }
+            return frame;
+        }
+        //published with the frame, the display thread never pairs it with another frame's mode
+        frame.setDisplayInfo(videoMode, label);
+        IndexedFrame next = frames.publish(frame);
+        LockSupport.unpark(displayThread);
+        return next;
+    }
+
+    private void runDisplay() {
+        do {
+            try {
+                IndexedFrame frame = frames.acquire();
+                if (frame == null) {
+                    LockSupport.park();
+                    continue;
+                }
+                renderScreenIndexedInternal(frame, frame.getLabel(), frame.getVideoMode());
+            } catch (Exception e) {
+                LOG.error("Display error", e);
+            }
+        } while (true);
+    }
+
     public void init() {
         Util.registerJmx(this);
         GraphicsDevice gd = SwingScreenSupport.setupScreens();
@@ -228,6 +273,11 @@ public class SwingWindow implements DisplayWindow {
         LOG.info("Application size: " + DEFAULT_FRAME_SIZE);
 
         pixelsSrc = new int[0];
+        if (UI_DISPLAY_THREAD) {
+            displayThread = new PriorityThreadFactory(Thread.NORM_PRIORITY + 1, "display").newThread(this::runDisplay);
+            displayThread.setDaemon(true);
+            displayThread.start();
+        }
         dest = createImage(gd, outputNonScaledScreenSize);
         screenLabel.setIcon(new ImageIcon(dest));
 
@@ -388,11 +438,24 @@ public class SwingWindow implements DisplayWindow {
 
     private void renderScreenLinearInternal(int[] data, Optional<String> label, VideoMode videoMode) {
         resizeScreen(videoMode);
-        RenderingStrategy.renderNearest(data, pixelsDest, nativeScreenSize, outputScreenSize);
+        scaler.render(data, pixelsDest, nativeScreenSize, outputScreenSize);
         label.ifPresent(this::showLabel);
         screenLabel.repaint();
     }
 
+    private void renderScreenIndexedInternal(IndexedFrame frame, Optional<String> label, VideoMode videoMode) {
+        resizeScreen(videoMode);
+        scaler.render(frame, pixelsDest, outputScreenSize);
+        if (label.isPresent()) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                showLabel(label.get());
+            } else {
+                SwingUtilities.invokeLater(() -> showLabel(label.get()));
+            }
+        }
+        screenLabel.repaint();
+    }
+
     private void showLabel(String label) {
         showInfoCount--;
         if (actionInfo.isPresent()) {
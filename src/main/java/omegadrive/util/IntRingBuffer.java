@@ -0,0 +1,200 @@
+/*
+ * IntRingBuffer
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Single producer, single consumer ring buffer of ints, no boxing and no locks.
+ * <p>
+ * The producer and consumer indexes are padded to sit on different cache lines,
+ * each side caches the other side index and only reloads it when the cached value says full/empty.
+ * <p>
+ * offer* and discard must only be called by the producer thread, drain/clear only by the consumer thread.
+ */
+public final class IntRingBuffer extends IntRingBufferPad2 {
+
+    private static final AtomicLongFieldUpdater<IntRingBufferProducerIndex> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(IntRingBufferProducerIndex.class, "producerIndex");
+    private static final AtomicLongFieldUpdater<IntRingBufferConsumerIndex> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(IntRingBufferConsumerIndex.class, "consumerIndex");
+    private static final AtomicLongFieldUpdater<IntRingBufferProducerIndex> DISCARD_INDEX =
+            AtomicLongFieldUpdater.newUpdater(IntRingBufferProducerIndex.class, "discardIndex");
+
+    private final int[] buffer;
+    private final int mask;
+
+    /**
+     * @param capacity rounded up to the next power of 2
+     */
+    public IntRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        buffer = new int[size];
+        mask = size - 1;
+    }
+
+    public boolean offer(int value) {
+        long p = producerIndex;
+        if (!hasSpace(p, 1)) {
+            return false;
+        }
+        buffer[(int) p & mask] = value;
+        PRODUCER_INDEX.lazySet(this, p + 1);
+        return true;
+    }
+
+    /**
+     * Either both values are added or none, ie. a stereo sample pair.
+     */
+    public boolean offer(int value1, int value2) {
+        long p = producerIndex;
+        if (!hasSpace(p, 2)) {
+            return false;
+        }
+        buffer[(int) p & mask] = value1;
+        buffer[(int) (p + 1) & mask] = value2;
+        PRODUCER_INDEX.lazySet(this, p + 2);
+        return true;
+    }
+
+    /**
+     * @return the number of values added, might be less than len when the buffer is full
+     */
+    public int offer(int[] src, int offset, int len) {
+        long p = producerIndex;
+        int free = buffer.length - (int) (p - consumerIndexCache);
+        if (free < len) {
+            consumerIndexCache = consumerIndex;
+            free = buffer.length - (int) (p - consumerIndexCache);
+        }
+        len = Math.min(len, free);
+        if (len <= 0) {
+            return 0;
+        }
+        int start = (int) p & mask;
+        int first = Math.min(len, buffer.length - start);
+        System.arraycopy(src, offset, buffer, start, first);
+        System.arraycopy(src, offset + first, buffer, 0, len - first);
+        PRODUCER_INDEX.lazySet(this, p + len);
+        return len;
+    }
+
+    /**
+     * @return the number of values copied to dest, up to len
+     */
+    public int drain(int[] dest, int offset, int len) {
+        long c = applyDiscard();
+        int available = (int) (producerIndexCache - c);
+        if (available < len) {
+            producerIndexCache = producerIndex;
+            available = (int) (producerIndexCache - c);
+        }
+        len = Math.min(len, available);
+        if (len <= 0) {
+            return 0;
+        }
+        int start = (int) c & mask;
+        int first = Math.min(len, buffer.length - start);
+        System.arraycopy(buffer, start, dest, offset, first);
+        System.arraycopy(buffer, 0, dest, offset + first, len - first);
+        CONSUMER_INDEX.lazySet(this, c + len);
+        return len;
+    }
+
+    /**
+     * Producer side clear: the values offered so far are dropped by the consumer on its next drain.
+     * The space is reclaimed once the consumer has done so.
+     */
+    public void discard() {
+        DISCARD_INDEX.lazySet(this, producerIndex);
+    }
+
+    /**
+     * Drops everything currently in the buffer.
+     */
+    public void clear() {
+        long p = producerIndex;
+        producerIndexCache = p;
+        CONSUMER_INDEX.lazySet(this, p);
+    }
+
+    /**
+     * Indicative when called concurrently.
+     */
+    public int size() {
+        long c = Math.max(consumerIndex, discardIndex);
+        return (int) Math.max(0, producerIndex - c);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    //consumer side, moves the consumer index past the values discarded by the producer
+    private long applyDiscard() {
+        long c = consumerIndex;
+        long d = discardIndex;
+        if (d > c) {
+            CONSUMER_INDEX.lazySet(this, d);
+            return d;
+        }
+        return c;
+    }
+
+    private boolean hasSpace(long p, int len) {
+        if (p + len - consumerIndexCache > buffer.length) {
+            consumerIndexCache = consumerIndex;
+            return p + len - consumerIndexCache <= buffer.length;
+        }
+        return true;
+    }
+}
+
+abstract class IntRingBufferPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class IntRingBufferProducerIndex extends IntRingBufferPad0 {
+    protected volatile long producerIndex;
+    //written by the producer, applied by the consumer
+    protected volatile long discardIndex;
+    //only accessed by the producer
+    protected long consumerIndexCache;
+}
+
+abstract class IntRingBufferPad1 extends IntRingBufferProducerIndex {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+    long p30, p31, p32, p33, p34, p35, p36, p37;
+}
+
+abstract class IntRingBufferConsumerIndex extends IntRingBufferPad1 {
+    protected volatile long consumerIndex;
+    //only accessed by the consumer
+    protected long producerIndexCache;
+}
+
+abstract class IntRingBufferPad2 extends IntRingBufferConsumerIndex {
+    long p40, p41, p42, p43, p44, p45, p46, p47;
+    long p50, p51, p52, p53, p54, p55, p56, p57;
+}
@@ -22,6 +22,9 @@ package omegadrive.util;
 import omegadrive.LogManager;
 import omegadrive.Logger;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 
 public class JmxBridge {
@@ -59,4 +62,33 @@ public class JmxBridge {
             }
         }
     }
+
+    /**
+     * Registers a standard MBean/MXBean with the platform MBeanServer, replacing any MBean with the same name.
+     */
+    public static void registerMBean(Object mbean, String objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+            LOG.info("JMX exporting: {}", objectName);
+        } catch (Exception | Error e) {
+            LOG.warn("Unable to export: {}, {}", objectName, e.toString());
+        }
+    }
+
+    public static void unregisterMBean(String objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception | Error e) {
+            LOG.warn("Unable to unregister: {}, {}", objectName, e.toString());
+        }
+    }
 }
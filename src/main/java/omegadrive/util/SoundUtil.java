@@ -39,6 +39,8 @@ public class SoundUtil {
     public static double PSG_ATTENUATION = Double.valueOf(System.getProperty("sound.psg.attenuation", "1.0"));
     private static int USER_PSG_ATT_BITS;
     private static int PSG_SHIFT_BITS;
+    //the psg renders at 16 bit, only the user attenuation applies
+    private static int PSG16_SHIFT_BITS;
 
     static {
         double val = PSG_ATTENUATION;
@@ -50,6 +52,7 @@ public class SoundUtil {
         }
         USER_PSG_ATT_BITS = shift;
         PSG_SHIFT_BITS = DEFAULT_PSG_SHIFT_BITS - USER_PSG_ATT_BITS;
+        PSG16_SHIFT_BITS = PSG_SHIFT_BITS - DEFAULT_PSG_SHIFT_BITS;
         LOG.info("PSG attenuation: {}, in bits: {}", PSG_ATTENUATION, USER_PSG_ATT_BITS);
     }
 
@@ -98,9 +101,14 @@ public class SoundUtil {
         return bytes - (bytes % blockSize);
     }
 
-    //as in bytes for the underlying dataLine
+    //as in bytes for the underlying dataLine, latency is block count x block size
     public static int getAudioLineBufferSize(AudioFormat audioFormat) {
-        return (int) millis2bytes(audioFormat, AbstractSoundManager.AUDIO_BUFFER_LEN_MS);
+        return getAudioBlockSize(audioFormat) * AbstractSoundManager.AUDIO_BLOCK_COUNT;
+    }
+
+    //as in bytes written to the dataLine by each audio thread loop
+    public static int getAudioBlockSize(AudioFormat audioFormat) {
+        return (int) millis2bytes(audioFormat, AbstractSoundManager.AUDIO_BLOCK_MS);
     }
 
     public static int getMonoSamplesBufferSize(AudioFormat audioFormat) {
@@ -150,55 +158,11 @@ public class SoundUtil {
     }
 
 
-    private static void intStereo14ToByteStereo16Mix(int[] input, byte[] output, int inputLen) {
-        for (int i = 0, k = 0; i < inputLen; i += 2, k += 4) {
-            output[k] = (byte) (input[i] & 0xFF); //left lsb
-            output[k + 1] = (byte) ((input[i] >> 8) & 0xFF); //left msb
-            output[k + 2] = (byte) (input[i + 1] & 0xFF); //left lsb
-            output[k + 3] = (byte) ((input[i + 1] >> 8) & 0xFF); //left msb
-        }
-    }
-
-    public static void mixFmPsgStereo(int[] fmStereo16, byte[] outputMono16, byte[] psgMono8, int inputLen) {
-        if (fmStereo16.length == 0) {
-            byteMono8ToByteStereo16Mix(psgMono8, outputMono16);
-        } else if (psgMono8.length == 0) {
-            intStereo14ToByteStereo16Mix(fmStereo16, outputMono16, inputLen);
-        } else {
-            intStereo14ToByteStereo16Mix(fmStereo16, outputMono16, psgMono8, inputLen);
-        }
-    }
-
-    private static void intStereo14ToByteStereo16Mix(int[] input, byte[] output, byte[] psgMono8, int inputLen) {
-        int j = 0; //psg index
-        int k = 0; //output index
-        for (int i = 0; i < inputLen; i += 2, j++, k += 4) {
-            //PSG: 8 bit -> 13 bit (attenuate by 2 bit)
-            int psg = psgMono8[j];
-            psg = PSG_SHIFT_BITS > 0 ? psg << PSG_SHIFT_BITS : psg >> -PSG_SHIFT_BITS;
-            int out16L = (input[i] + psg);
-            int out16R = (input[i + 1] + psg);
-            out16L = (out16L << 1) - out16L; //mult by 1.5
-            out16R = (out16R << 1) - out16R;
-            //avg fm and psg
-            out16L = Math.min(Math.max(out16L, Short.MIN_VALUE), Short.MAX_VALUE);
-            out16R = Math.min(Math.max(out16R, Short.MIN_VALUE), Short.MAX_VALUE);
-            output[k] = (byte) (out16L & 0xFF); //lsb left
-            output[k + 1] = (byte) ((out16L >> 8) & 0xFF); //msb left
-            output[k + 2] = (byte) (out16R & 0xFF); //lsb right
-            output[k + 3] = (byte) ((out16R >> 8) & 0xFF); //msb right
-        }
-    }
-
-    private static void byteMono8ToByteStereo16Mix(byte[] psgMono8, byte[] output) {
-        for (int j = 0, i = 0; j < psgMono8.length; j++, i += 4) {
-            //PSG: 8 bit -> 13 bit (attenuate by 2 bit)
-            int psg16 = ((int) psgMono8[j]) << 7;
-            output[i] = (byte) (psg16 & 0xFF); //lsb
-            output[i + 1] = (byte) ((psg16 >> 8) & 0xFF); //msb
-            output[i + 2] = output[i];
-            output[i + 3] = output[i + 1];
-        }
+    /**
+     * Gain applied to the 16 bit psg output, ie. the user attenuation.
+     */
+    public static double getPsgGain() {
+        return Math.pow(2, PSG16_SHIFT_BITS);
     }
 
     public static void close(DataLine line) {
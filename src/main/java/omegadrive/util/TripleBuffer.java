@@ -0,0 +1,82 @@
+/*
+ * TripleBuffer
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock free triple buffer, one producer and one consumer, neither side ever waits for the other.
+ * <p>
+ * The producer fills the back buffer and publishes it, swapping it with the middle buffer in a single atomic step;
+ * the consumer swaps the middle buffer with its front buffer, only when something new has been published.
+ * Frames published while the consumer is busy replace each other, the consumer always gets the latest one.
+ * <p>
+ * publish must only be called by the producer thread, acquire/getFront only by the consumer thread.
+ */
+public final class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] buffers = new Object[3];
+    //index of the middle buffer | FRESH when published and not yet acquired
+    private final AtomicInteger middle = new AtomicInteger(1);
+    //producer only
+    private int back = 0;
+    //consumer only
+    private int front = 2;
+
+    public TripleBuffer(Supplier<T> supplier) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = supplier.get();
+        }
+    }
+
+    /**
+     * Publishes ready, which replaces the back buffer, ie. a buffer filled somewhere else the first time around.
+     *
+     * @return the buffer to fill next
+     */
+    public T publish(T ready) {
+        buffers[back] = ready;
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+        return get(back);
+    }
+
+    /**
+     * @return the latest buffer published, null when nothing has been published since the previous call
+     */
+    public T acquire() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return get(front);
+    }
+
+    public T getFront() {
+        return get(front);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T get(int index) {
+        return (T) buffers[index];
+    }
+}
@@ -20,11 +20,11 @@ package omegadrive.vdp;
 
 import omegadrive.SystemLoader;
 import omegadrive.system.SystemProvider;
-import omegadrive.ui.RenderingStrategy;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.VideoMode;
 import omegadrive.vdp.gen.VdpInterruptHandler;
 import omegadrive.vdp.model.BaseVdpProvider;
+import omegadrive.vdp.model.IndexedFrame;
 import omegadrive.vdp.model.VdpMemory;
 
 import java.util.ArrayList;
@@ -158,10 +158,14 @@ public final class SmsVdp implements BaseVdpProvider {
      */
     private boolean[] spriteCol;
     /**
-     * Emulated display
+     * Emulated display, CRAM indexes
      */
-    private int[] display;
+    private byte[] display;
     private int[] ggDisplay; //only for GG mode
+    private IndexedFrame frame = new IndexedFrame();
+    private IndexedFrame ggFrame = new IndexedFrame(); //only for GG mode
+    /** Set on CRAM writes, the line palette is only stored when it changes */
+    private boolean paletteDirty = true;
 
     /** SMS Colours converted to Java */
     private static int[] SMS_JAVA;
@@ -351,8 +355,9 @@ public final class SmsVdp implements BaseVdpProvider {
             }
             this.videoMode = newVideoMode;
             palFlag = videoMode.isPal() ? PAL : NTSC;
-            display = new int[videoMode.getDimension().width * videoMode.getDimension().height];
-            screenData = isSms ? display : ggDisplay;
+            frame.resize(videoMode.getDimension().width, videoMode.getDimension().height);
+            display = frame.getPixels();
+            screenData = isSms ? new int[display.length] : ggDisplay;
             forceFullRedraw();
             list.forEach(l -> l.onVdpEvent(VdpEvent.VIDEO_MODE, newVideoMode));
         }
@@ -553,6 +558,7 @@ public final class SmsVdp implements BaseVdpProvider {
                         CRAM[(location & 0x3F)>>1] |= GG_JAVA2[value & 0x0F];
 
                 }
+                paletteDirty = true;
                 break;
         }
         readBuffer = value;
@@ -587,6 +593,10 @@ public final class SmsVdp implements BaseVdpProvider {
      */
 
     public final void drawLine(int lineno) {
+        if (lineno == 0) {
+            frame.newFrame();
+            paletteDirty = true;
+        }
         // ----------------------------------------------------------------------------------------
         // Check we are in the visible drawing region
         // ----------------------------------------------------------------------------------------
@@ -594,6 +604,7 @@ public final class SmsVdp implements BaseVdpProvider {
             if (lineno < GG_Y_OFFSET || lineno >= GG_Y_OFFSET + GG_HEIGHT)
                 return;
         }
+        updateLinePalette(lineno);
 
         // ----------------------------------------------------------------------------------------
         // Clear sprite collision array if enabled
@@ -625,7 +636,7 @@ public final class SmsVdp implements BaseVdpProvider {
             // Blank Leftmost Column (SMS Only)
             // ------------------------------------------------------------------------------------
             if (isSms && (vdpreg[0] & 0x20) != 0) {
-                int colour = CRAM[16 + (vdpreg[7] & 0x0F)];
+                byte colour = (byte) (16 + (vdpreg[7] & 0x0F));
                 int location = lineno << 8;
 
                 // Don't use a loop here for speed purposes
@@ -705,7 +716,7 @@ public final class SmsVdp implements BaseVdpProvider {
 
                     // Set Priority Array (Sprites over/under background tile)
                     bgPriority[sx] = ((secondbyte & 0x10) != 0) && (colour != 0);
-                    display[sx + rowprecal] = CRAM[colour+pal];
+                    display[sx + rowprecal] = (byte) (colour + pal);
                 }
             }
             // -----------------------------------------------------------------------------------
@@ -717,7 +728,7 @@ public final class SmsVdp implements BaseVdpProvider {
 
                     // Set Priority Array (Sprites over/under background tile)
                     bgPriority[sx] = ((secondbyte & 0x10) != 0) && (colour != 0);
-                    display[sx + rowprecal] = CRAM[colour+pal];
+                    display[sx + rowprecal] = (byte) (colour + pal);
                 }
             }
             tile_column++;
@@ -797,7 +808,7 @@ public final class SmsVdp implements BaseVdpProvider {
                     int colour = tile[offset++];
 
                     if (colour != 0 && !bgPriority[x]) {
-                        display[x + row_precal] = CRAM[colour+16];
+                        display[x + row_precal] = (byte) (colour + 16);
 
                         // Emulate sprite collision (when two opaque pixels overlap)
                         if (!spriteCol[x])
@@ -816,7 +827,7 @@ public final class SmsVdp implements BaseVdpProvider {
 
                     // Plot first pixel
                     if (colour != 0 && !bgPriority[x]) {
-                        display[x + row_precal] = CRAM[colour+16];
+                        display[x + row_precal] = (byte) (colour + 16);
                         if (!spriteCol[x])
                             spriteCol[x] = true;
                         else
@@ -825,7 +836,7 @@ public final class SmsVdp implements BaseVdpProvider {
 
                     // Plot second pixel
                     if (colour != 0 && !bgPriority[x+1]) {
-                        display[x + row_precal + 1] = CRAM[colour+16];
+                        display[x + row_precal + 1] = (byte) (colour + 16);
                         if (!spriteCol[x+1])
                             spriteCol[x+1] = true;
                         else
@@ -842,6 +853,21 @@ public final class SmsVdp implements BaseVdpProvider {
     }
 
 
+    /**
+     *  Snapshot of the CRAM for the line, only stored when it changes
+     *
+     *  @param  lineno  Line Number to Render
+     */
+
+    private void updateLinePalette(int lineno) {
+        if (!paletteDirty) {
+            frame.keepPalette(lineno);
+            return;
+        }
+        paletteDirty = false;
+        frame.setPalette(lineno, CRAM, CRAM.length);
+    }
+
     /**
      *  Draw a Line of the current Background Colour
      *
@@ -849,7 +875,7 @@ public final class SmsVdp implements BaseVdpProvider {
      */
 
     private final void drawBGColour(int lineno) {
-        int colour = CRAM[16 + (vdpreg[7]&0x0F)];
+        byte colour = (byte) (16 + (vdpreg[7]&0x0F));
         int row_precal = lineno << 8;
 
         for (int x = SMS_WIDTH; x-- != 0;)
@@ -1121,6 +1147,7 @@ public final class SmsVdp implements BaseVdpProvider {
 
         System.arraycopy(state, 3, vdpreg, 0, vdpreg.length);
         System.arraycopy(state, 3 + vdpreg.length, CRAM, 0, CRAM.length);
+        paletteDirty = true;
 
         // Force redraw of all cached tile data
         forceFullRedraw();
@@ -1161,9 +1188,14 @@ public final class SmsVdp implements BaseVdpProvider {
         if (!doResize) {
             return;
         }
-        RenderingStrategy.subImageWithOffset(display, ggDisplay, videoMode.getDimension(),
-                ggVideoMode.getDimension(), SmsVdp.GG_X_OFFSET,
-                SmsVdp.GG_Y_OFFSET);
+        frame.subImageWithOffset(ggFrame, ggVideoMode.getDimension().width, ggVideoMode.getDimension().height,
+                SmsVdp.GG_X_OFFSET, SmsVdp.GG_Y_OFFSET);
+    }
+
+    //one pixel per runSlot
+    @Override
+    public int getSlotsToNextEvent() {
+        return interruptHandler.getPixelsToNextEvent();
     }
 
     @Override
@@ -1198,6 +1230,23 @@ public final class SmsVdp implements BaseVdpProvider {
 
     @Override
     public int[] getScreenDataLinear() {
+        getScreenDataIndexed().toRgb(screenData);
         return screenData;
     }
+
+    @Override
+    public IndexedFrame getScreenDataIndexed() {
+        return isSms ? frame : ggFrame;
+    }
+
+    @Override
+    public void setScreenDataIndexed(IndexedFrame frame) {
+        if (isSms) {
+            frame.resize(videoMode.getDimension().width, videoMode.getDimension().height);
+            this.frame = frame;
+            display = frame.getPixels();
+        } else {
+            ggFrame = frame;
+        }
+    }
 }
@@ -24,11 +24,11 @@ import omegadrive.Logger;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.VideoMode;
 import omegadrive.vdp.gen.VdpInterruptHandler;
+import omegadrive.vdp.model.IndexedFrame;
 import omegadrive.vdp.model.RenderType;
 import omegadrive.vdp.model.Tms9918a;
 import omegadrive.vdp.model.VdpMemory;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -57,6 +57,10 @@ public class Tms9918aVdp implements Tms9918a {
     private VdpRenderDump renderDump;
     private java.util.List<VdpEventListener> list;
     private int[] screenDataLinear;
+    private IndexedFrame frame;
+    private byte[] pixels;
+    /** 24 bit RGB */
+    private final int[] palette = Arrays.stream(colors).mapToInt(c -> c.getRGB() & 0xFF_FFFF).toArray();
 
     /* VRAM */
     public int[] mem;
@@ -103,6 +107,8 @@ public class Tms9918aVdp implements Tms9918a {
         this.list = new ArrayList<>();
         memory = SimpleVdpMemoryInterface.createInstance(RAM_SIZE);
         screenDataLinear = new int[VDP_WIDTH * VDP_HEIGHT];
+        frame = new IndexedFrame(VDP_WIDTH, VDP_HEIGHT);
+        pixels = frame.getPixels();
         interruptHandler = SmsVdpInterruptHandler.createTmsInstance(getVideoMode());
         mem = memory.getVram();
         renderDump = new VdpRenderDump();
@@ -125,9 +131,22 @@ public class Tms9918aVdp implements Tms9918a {
 
     @Override
     public int[] getScreenDataLinear() {
+        frame.toRgb(screenDataLinear);
         return screenDataLinear;
     }
 
+    @Override
+    public IndexedFrame getScreenDataIndexed() {
+        return frame;
+    }
+
+    @Override
+    public void setScreenDataIndexed(IndexedFrame frame) {
+        frame.resize(VDP_WIDTH, VDP_HEIGHT);
+        this.frame = frame;
+        pixels = frame.getPixels();
+    }
+
     @Override
     public int getRegisterData(int reg) {
         return registers[reg];
@@ -434,7 +453,7 @@ public class Tms9918aVdp implements Tms9918a {
     public void drawBackDrop() {
         for (int x = 0; x < 256; x++) {
             for (int y = 0; y < 192; y++) {
-                setPixel(x, y, colors[1]); //black
+                setPixel(x, y, 1); //black
             }
         }
     }
@@ -463,8 +482,8 @@ public class Tms9918aVdp implements Tms9918a {
                         // Get foreground/background
                         int colorTableAddr = colorTableBase + (patternIdx >> 3);
                         int color = mem[colorTableAddr] & 0xFF;
-                        Color fg = colors[(color & 0xf0) >> 4];
-                        Color bg = colors[(color & 0x0f)];
+                        int fg = (color & 0xf0) >> 4;
+                        int bg = (color & 0x0f);
                         setPixel(px, py, getBit(line, linePos) ? fg : bg);
                     }
                 }
@@ -474,10 +493,10 @@ public class Tms9918aVdp implements Tms9918a {
         }
     }
 
-    private final void setPixel(int px, int py, Color color) {
-        screenDataLinear[py * VDP_WIDTH + px] = color.getRGB() & 0xFF_FFFF; //24 bit RGB
+    private final void setPixel(int px, int py, int colorIndex) {
+        pixels[py * VDP_WIDTH + px] = (byte) colorIndex;
         if (verbose) {
-            LOG.info("{},{}: {}", px, py, screenDataLinear[py * VDP_WIDTH + px]);
+            LOG.info("{},{}: {}", px, py, colorIndex);
         }
     }
 
@@ -487,8 +506,8 @@ public class Tms9918aVdp implements Tms9918a {
     public void drawMode1() {
         int nameTablePtr = getNameTableAddr();
         int patternTableBase = getPatternTableAddr();
-        Color offBit = colors[getOffBitColor()];
-        Color onBit = colors[getOnBitColor()];
+        int offBit = getOffBitColor();
+        int onBit = getOnBitColor();
         // For all x/y positions
         for (int y = 0; y < 24; y++) {
             for (int x = 0; x < 40; x++) {
@@ -539,8 +558,8 @@ public class Tms9918aVdp implements Tms9918a {
                     if (bit0 && (nameTableIdx / 256) == 1) colorTableAddr += 2048;
                     if (bit1 && (nameTableIdx / 256) == 2) colorTableAddr += 4096;
                     int lineColor = mem[colorTableAddr + charLine] & 0xFF;
-                    Color fg = colors[(lineColor & 0xf0) >> 4];
-                    Color bg = colors[(lineColor & 0x0f)];
+                    int fg = (lineColor & 0xf0) >> 4;
+                    int bg = (lineColor & 0x0f);
                     // For all pixels of the line
                     int py = ((y * 8) + charLine);
                     for (int linePos = 0; linePos < 8; linePos++) {
@@ -618,7 +637,7 @@ public class Tms9918aVdp implements Tms9918a {
                             spritePriorityMatrix[xPos][yPos] = true;
 
                             // Draw the pixel
-                            setPixel(xPos, yPos, colors[colour & 0x0f]);
+                            setPixel(xPos, yPos, colour & 0x0f);
                         }
                     }
                 }
@@ -645,8 +664,8 @@ public class Tms9918aVdp implements Tms9918a {
                 //top 2 blocks and bottom 2 blocks
                 for (int i = 0; i < 2; i++) {
                     int byteColor = mem[patternTableAddr] & 0xFF;
-                    Color c1 = colors[(byteColor >> 4) & 0x0F];
-                    Color c2 = colors[byteColor & 0x0F];
+                    int c1 = (byteColor >> 4) & 0x0F;
+                    int c2 = byteColor & 0x0F;
                     int by = py + i * 4;
                     for (int blockIdx = 0; blockIdx < 4; blockIdx++) {
                         int uy = by + blockIdx;
@@ -668,6 +687,13 @@ public class Tms9918aVdp implements Tms9918a {
     }
 
     private void drawScreen() {
+        // Fixed palette
+        frame.newFrame();
+        frame.setPalette(0, palette, palette.length);
+        for (int y = 1; y < VDP_HEIGHT; y++) {
+            frame.keepPalette(y);
+        }
+
         // Draw backdrop
         drawBackDrop();
 
@@ -692,6 +718,12 @@ public class Tms9918aVdp implements Tms9918a {
         }
     }
 
+    //one pixel per runSlot
+    @Override
+    public int getSlotsToNextEvent() {
+        return interruptHandler.getPixelsToNextEvent();
+    }
+
     @Override
     public List<VdpEventListener> getVdpEventListenerList() {
         return list;
@@ -699,6 +731,6 @@ public class Tms9918aVdp implements Tms9918a {
 
     @Override
     public void dumpScreenData() {
-        renderDump.saveRenderToFile(screenDataLinear, getVideoMode(), RenderType.FULL);
+        renderDump.saveRenderToFile(getScreenDataLinear(), getVideoMode(), RenderType.FULL);
     }
 }
\ No newline at end of file
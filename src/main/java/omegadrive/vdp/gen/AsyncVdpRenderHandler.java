@@ -0,0 +1,395 @@
+/*
+ * AsyncVdpRenderHandler
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package omegadrive.vdp.gen;
+
+import omegadrive.LogManager;
+import omegadrive.Logger;
+import omegadrive.util.IntRingBuffer;
+import omegadrive.util.PriorityThreadFactory;
+import omegadrive.util.VideoMode;
+import omegadrive.vdp.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static omegadrive.vdp.model.GenesisVdpProvider.VDP_REGISTERS_SIZE;
+
+/**
+ * Renders the lines on a worker thread.
+ * <p>
+ * The emulation thread appends every VRAM/CRAM/VSRAM write, the register changes and a record per line
+ * to a lock-free log, the worker replays the log on its own copy of the vdp memory and registers and
+ * renders each line from the state the vdp had when the line was due, ie. raster effects still work.
+ * The worker runs a few lines behind the emulation, the frame is complete when the vdp asks for the screen.
+ * <p>
+ * Lines are rendered in order by a single worker: sprite evaluation and shadow/highlight state
+ * carry over from one line to the next.
+ * <p>
+ * Log records are one int: the top 3 bits are the record type, the rest is the payload.
+ */
+public class AsyncVdpRenderHandler implements VdpRenderHandler, BaseVdpProvider.VdpEventListener,
+        GenesisVdpMemoryInterface.WriteListener {
+
+    private static final Logger LOG = LogManager.getLogger(AsyncVdpRenderHandler.class.getSimpleName());
+
+    private static final int TYPE_SHIFT = 29;
+    private static final int PAYLOAD_MASK = (1 << TYPE_SHIFT) - 1;
+    private static final int WRITE = 0;
+    private static final int SAT_BASE = 1 << TYPE_SHIFT;
+    private static final int REGISTER = 2 << TYPE_SHIFT;
+    private static final int LINE = 3 << TYPE_SHIFT;
+    private static final int VIDEO_MODE = 4 << TYPE_SHIFT;
+    private static final int INIT_LINE = 5 << TYPE_SHIFT;
+
+    private static final int DISPLAY_ENABLE = 1 << 16, SHADOW_HIGHLIGHT = 1 << 17, INTERLACE_SHIFT = 18;
+    private static final int LINE_MASK = 0xFFFF;
+    private static final int LOG_SIZE = 1 << 16;
+    private static final int WORKER_BATCH = 1024;
+    private static final long IDLE_PARK_NS = 100_000;
+    private static final long AWAIT_TIMEOUT_NS = 1_000_000_000L;
+
+    private static final GenesisVdpProvider.VdpRamType[] ramTypes = GenesisVdpProvider.VdpRamType.values();
+    private static final InterlaceMode[] interlaceModes = InterlaceMode.values();
+    private static final VideoMode[] videoModes = VideoMode.values();
+
+    private final GenesisVdpProvider vdp;
+    private final GenesisVdpMemoryInterface memory;
+    private final IntRingBuffer log = new IntRingBuffer(LOG_SIZE);
+    private final int[] registers = new int[VDP_REGISTERS_SIZE];
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile long processed;
+    private long appended;
+    //the emulation thread waiting for the worker, see awaitIdle
+    private volatile Thread waiter;
+    //as seen by the emulation thread
+    private volatile VideoMode videoMode;
+
+    //worker thread only
+    private final ShadowVdp shadowVdp = new ShadowVdp();
+    private final GenesisVdpMemoryInterface shadowMemory;
+    private final VdpRenderHandlerImpl renderer;
+
+    private AsyncVdpRenderHandler(GenesisVdpProvider vdp, GenesisVdpMemoryInterface memory) {
+        this.vdp = vdp;
+        this.memory = memory;
+        this.shadowMemory = GenesisVdpMemoryInterface.createInstance(memory.getVram(), memory.getCram(),
+                memory.getVsram());
+        System.arraycopy(memory.getSatCache(), 0, shadowMemory.getSatCache(), 0, memory.getSatCache().length);
+        this.renderer = new VdpRenderHandlerImpl(shadowVdp, shadowMemory);
+        this.videoMode = vdp.getVideoMode();
+        memory.setWriteListener(this);
+        vdp.addVdpEventListener(this);
+        worker = new PriorityThreadFactory(Thread.NORM_PRIORITY + 1, "vdpRender").newThread(this::runWorker);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Falls back to rendering on the emulation thread when the writes to the memory cannot be observed.
+     */
+    public static VdpRenderHandler createInstance(GenesisVdpProvider vdp, VdpMemoryInterface memory) {
+        if (memory instanceof GenesisVdpMemoryInterface) {
+            return new AsyncVdpRenderHandler(vdp, (GenesisVdpMemoryInterface) memory);
+        }
+        LOG.warn("Unable to render asynchronously, memory: {}", memory.getClass().getSimpleName());
+        return VdpRenderHandlerImpl.createInstance(vdp, memory);
+    }
+
+    @Override
+    public void renderLine(int line) {
+        for (int i = 0; i < registers.length; i++) {
+            int data = vdp.getRegisterData(i);
+            if (data != registers[i]) {
+                registers[i] = data;
+                append(REGISTER | i << 8 | data);
+            }
+        }
+        append(LINE | (vdp.isDisplayEnabled() ? DISPLAY_ENABLE : 0) |
+                (vdp.isShadowHighlight() ? SHADOW_HIGHLIGHT : 0) |
+                vdp.getInterlaceMode().ordinal() << INTERLACE_SHIFT | (line & LINE_MASK));
+    }
+
+    /**
+     * Called after a state load, which might write to the memory arrays directly: copies the memory first.
+     */
+    @Override
+    public void initLineData(int line) {
+        if (awaitIdle()) {
+            copyMemory();
+        }
+        append(INIT_LINE | (line & LINE_MASK));
+    }
+
+    //the worker is idle
+    private void copyMemory() {
+        int[] cram = memory.getCram();
+        System.arraycopy(memory.getVram(), 0, shadowMemory.getVram(), 0, memory.getVram().length);
+        System.arraycopy(memory.getVsram(), 0, shadowMemory.getVsram(), 0, memory.getVsram().length);
+        System.arraycopy(memory.getSatCache(), 0, shadowMemory.getSatCache(), 0, memory.getSatCache().length);
+        for (int i = 0; i < cram.length; i++) {
+            shadowMemory.writeCramByte(i, cram[i]);
+        }
+        shadowMemory.getTileCache().invalidateAll();
+    }
+
+    @Override
+    public void onWrite(GenesisVdpProvider.VdpRamType type, int address, int data) {
+        append(WRITE | type.ordinal() << 24 | (address & 0xFFFF) << 8 | data);
+    }
+
+    @Override
+    public void onSatBaseAddress(int address) {
+        append(SAT_BASE | (address & PAYLOAD_MASK));
+    }
+
+    @Override
+    public void onVdpEvent(BaseVdpProvider.VdpEvent event, Object value) {
+        if (event == BaseVdpProvider.VdpEvent.VIDEO_MODE) {
+            videoMode = (VideoMode) value;
+            append(VIDEO_MODE | videoMode.ordinal());
+        }
+    }
+
+    /**
+     * Waits for the worker to render all the lines so far, unless it has stopped.
+     */
+    @Override
+    public int[] getScreenDataLinear() {
+        awaitIdle();
+        return renderer.getScreenDataLinear();
+    }
+
+    @Override
+    public IndexedFrame getScreenDataIndexed() {
+        awaitIdle();
+        return renderer.getScreenDataIndexed();
+    }
+
+    /**
+     * Keeps the current frame when the worker is not idle.
+     */
+    @Override
+    public void setScreenDataIndexed(IndexedFrame frame) {
+        if (awaitIdle()) {
+            renderer.setScreenDataIndexed(frame);
+        }
+    }
+
+    @Override
+    public void dumpScreenData() {
+        awaitIdle();
+        renderer.dumpScreenData();
+    }
+
+    /**
+     * The last video mode set by the vdp, the worker might not have rendered a line in this mode yet.
+     */
+    @Deprecated
+    @Override
+    public VideoMode getVideoMode() {
+        return videoMode;
+    }
+
+    //racy, debug only
+    @Override
+    public int[] getPlaneData(RenderType type) {
+        return renderer.getPlaneData(type);
+    }
+
+    @Override
+    public void updateSatCache(int satLocation, int vramAddress) {
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Waits for the worker to replay the whole log, the worker unparks the waiter after each batch.
+     *
+     * @return false when the worker has stopped before replaying the whole log
+     */
+    private boolean awaitIdle() {
+        if (processed >= appended) {
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean warned = false;
+        waiter = Thread.currentThread();
+        try {
+            LockSupport.unpark(worker);
+            while (processed < appended) {
+                if (!isWorkerRunning()) {
+                    LOG.warn("Render worker stopped, pending records: {}", appended - processed);
+                    return false;
+                }
+                if (!warned && System.nanoTime() - start > AWAIT_TIMEOUT_NS) {
+                    LOG.warn("Slow render worker, pending records: {}", appended - processed);
+                    warned = true;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NS);
+            }
+            return true;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    private boolean isWorkerRunning() {
+        return running && worker.isAlive();
+    }
+
+    //never drops a record while the worker is running
+    private void append(int record) {
+        if (log.offer(record) || awaitOffer(record)) {
+            appended++;
+        }
+    }
+
+    //the log is full, waits for the worker to drain it
+    private boolean awaitOffer(int record) {
+        waiter = Thread.currentThread();
+        try {
+            do {
+                if (!isWorkerRunning()) {
+                    return false;
+                }
+                LockSupport.unpark(worker);
+                LockSupport.parkNanos(this, IDLE_PARK_NS);
+            } while (!log.offer(record));
+            return true;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    private void runWorker() {
+        LOG.info("Starting render worker");
+        int[] records = new int[WORKER_BATCH];
+        while (running) {
+            int len = log.drain(records, 0, records.length);
+            if (len == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NS);
+                continue;
+            }
+            for (int i = 0; i < len; i++) {
+                replay(records[i]);
+            }
+            processed += len;
+            LockSupport.unpark(waiter);
+        }
+        LOG.info("Stopping render worker");
+    }
+
+    private void replay(int record) {
+        int payload = record & PAYLOAD_MASK;
+        switch (record & ~PAYLOAD_MASK) {
+            case WRITE:
+                int address = (payload >> 8) & 0xFFFF;
+                int data = payload & 0xFF;
+                switch (ramTypes[payload >> 24]) {
+                    case VRAM:
+                        shadowMemory.writeVramByte(address, data);
+                        break;
+                    case CRAM:
+                        shadowMemory.writeCramByte(address, data);
+                        break;
+                    case VSRAM:
+                        shadowMemory.writeVsramByte(address, data);
+                        break;
+                }
+                break;
+            case SAT_BASE:
+                shadowMemory.setSatBaseAddress(payload);
+                break;
+            case REGISTER:
+                shadowVdp.registers[payload >> 8] = payload & 0xFF;
+                break;
+            case LINE:
+                shadowVdp.displayEnable = (payload & DISPLAY_ENABLE) > 0;
+                shadowVdp.shadowHighlight = (payload & SHADOW_HIGHLIGHT) > 0;
+                shadowVdp.interlaceMode = interlaceModes[(payload >> INTERLACE_SHIFT) & 3];
+                renderer.renderLine(payload & LINE_MASK);
+                break;
+            case VIDEO_MODE:
+                shadowVdp.videoMode = videoModes[payload];
+                shadowVdp.list.forEach(l -> l.onVdpEvent(BaseVdpProvider.VdpEvent.VIDEO_MODE, shadowVdp.videoMode));
+                break;
+            case INIT_LINE:
+                renderer.initLineData(payload & LINE_MASK);
+                break;
+            default:
+                LOG.error("Unexpected record: {}", Integer.toHexString(record));
+                break;
+        }
+    }
+
+    /**
+     * The vdp state seen by the renderer, as recorded in the log.
+     */
+    private static class ShadowVdp extends BaseVdpAdapter implements GenesisVdpRenderState {
+
+        private final int[] registers = new int[VDP_REGISTERS_SIZE];
+        private final List<VdpEventListener> list = new ArrayList<>();
+        private boolean displayEnable;
+        private boolean shadowHighlight;
+        private InterlaceMode interlaceMode = InterlaceMode.NONE;
+        private VideoMode videoMode;
+
+        @Override
+        public int getRegisterData(int reg) {
+            return registers[reg];
+        }
+
+        @Override
+        public void updateRegisterData(int reg, int data) {
+            registers[reg] = data;
+        }
+
+        @Override
+        public boolean isDisplayEnabled() {
+            return displayEnable;
+        }
+
+        @Override
+        public boolean isShadowHighlight() {
+            return shadowHighlight;
+        }
+
+        @Override
+        public InterlaceMode getInterlaceMode() {
+            return interlaceMode;
+        }
+
+        @Override
+        public VideoMode getVideoMode() {
+            return videoMode;
+        }
+
+        @Override
+        public List<VdpEventListener> getVdpEventListenerList() {
+            return list;
+        }
+    }
+}
@@ -169,7 +169,9 @@ public class GenesisVdp implements GenesisVdpProvider {
     private void setupVdp() {
         this.list = new ArrayList<>();
         this.interruptHandler = VdpInterruptHandler.createInstance(this);
-        this.renderHandler = VdpRenderHandlerImpl.createInstance(this, memoryInterface);
+        this.renderHandler = VdpRenderHandler.RENDER_ASYNC ?
+                AsyncVdpRenderHandler.createInstance(this, memoryInterface) :
+                VdpRenderHandlerImpl.createInstance(this, memoryInterface);
         this.debugViewer = VdpDebugView.createInstance(this, memoryInterface, renderHandler);
         this.fifo = new VdpFifo();
         this.initMode();
@@ -698,6 +700,11 @@ public class GenesisVdp implements GenesisVdpProvider {
         bus.setVdpBusyState(state);
     }
 
+    @Override
+    public int getSlotsToNextEvent() {
+        return interruptHandler.getSlotsToNextEvent();
+    }
+
     @Override
     public int runSlot() {
 //        LogHelper.printLevel(LOG, Level.INFO, "Start slot: {}", interruptHandler.getSlotNumber(), verbose);
@@ -760,6 +767,16 @@ public class GenesisVdp implements GenesisVdpProvider {
         return renderHandler.getScreenDataLinear();
     }
 
+    @Override
+    public IndexedFrame getScreenDataIndexed() {
+        return renderHandler.getScreenDataIndexed();
+    }
+
+    @Override
+    public void setScreenDataIndexed(IndexedFrame frame) {
+        renderHandler.setScreenDataIndexed(frame);
+    }
+
     @Override
     public List<VdpEventListener> getVdpEventListenerList() {
         return list;
@@ -815,6 +832,7 @@ public class GenesisVdp implements GenesisVdpProvider {
 
     @Override
     public void reset() {
+        this.renderHandler.close();
         this.debugViewer.reset();
         this.list.clear();
     }
@@ -39,8 +39,30 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
     private int[] cram;
     private int[] vsram;
     private int[] javaPalette;
+    private int paletteGeneration;
     private int[] satCache = new int[MAX_SPRITES_PER_FRAME_H40 * 8]; //8 bytes per sprite
     private int satBaseAddress = 0, satEndAddress = satBaseAddress + satCache.length;
+    private TileCache tileCache;
+    private WriteListener writeListener = WriteListener.NO_OP;
+
+    /**
+     * Sees every write in order, ie. to replay them on a copy of the memory.
+     */
+    interface WriteListener {
+        WriteListener NO_OP = new WriteListener() {
+            @Override
+            public void onWrite(GenesisVdpProvider.VdpRamType type, int address, int data) {
+            }
+
+            @Override
+            public void onSatBaseAddress(int address) {
+            }
+        };
+
+        void onWrite(GenesisVdpProvider.VdpRamType type, int address, int data);
+
+        void onSatBaseAddress(int address);
+    }
 
     private VdpColorMapper colorMapper;
 
@@ -59,6 +81,7 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         i.vram = Arrays.copyOf(vram, vram.length);
         i.cram = Arrays.copyOf(cram, cram.length);
         i.vsram = Arrays.copyOf(vsram, vsram.length);
+        i.tileCache = new TileCache(i.vram);
         i.initPalette();
         return i;
     }
@@ -67,11 +90,13 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         vram = new int[GenesisVdpProvider.VDP_VRAM_SIZE];
         cram = new int[GenesisVdpProvider.VDP_CRAM_SIZE];
         vsram = new int[GenesisVdpProvider.VDP_VSRAM_SIZE];
+        tileCache = new TileCache(vram);
         initPalette();
     }
 
     private void paletteUpdate(int cramAddress) {
         javaPalette[cramAddress >> 1] = colorMapper.getColor(cram[cramAddress] << 8 | cram[cramAddress + 1]);
+        paletteGeneration++;
     }
 
     private void initPalette() {
@@ -92,6 +117,8 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
     public void writeVramByte(int address, int data) {
         address &= (GenesisVdpProvider.VDP_VRAM_SIZE - 1);
         vram[address] = data & 0xFF;
+        tileCache.invalidate(address);
+        writeListener.onWrite(GenesisVdpProvider.VdpRamType.VRAM, address, data & 0xFF);
         updateSatCache(address, data & 0xFF);
     }
 
@@ -132,6 +159,11 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
     public void setSatBaseAddress(int satBaseAddress) {
         this.satBaseAddress = satBaseAddress;
         this.satEndAddress = satBaseAddress + satCache.length;
+        writeListener.onSatBaseAddress(satBaseAddress);
+    }
+
+    void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
     }
 
     @Override
@@ -144,6 +176,11 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         return cram;
     }
 
+    @Override
+    public TileCache getTileCache() {
+        return tileCache;
+    }
+
     @Override
     public int[] getVram() {
         return vram;
@@ -159,11 +196,17 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         return javaPalette;
     }
 
+    @Override
+    public int getPaletteGeneration() {
+        return paletteGeneration;
+    }
+
     //    Even though there are 40 words of VSRAM, the address register will wrap
 //    when it passes 7Fh. Writes to the addresses beyond 50h are ignored.
     @Override
     public void writeVsramByte(int address, int data) {
         address &= 0x7F;
+        writeListener.onWrite(GenesisVdpProvider.VdpRamType.VSRAM, address, data & 0xFF);
         if (address < GenesisVdpProvider.VDP_VSRAM_SIZE) {
             vsram[address] = data & 0xFF;
         } else {
@@ -178,6 +221,7 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         address &= (GenesisVdpProvider.VDP_CRAM_SIZE - 1);
         cram[address] = data & 0xFF;
         paletteUpdate(address & EVEN_VALUE_MASK);
+        writeListener.onWrite(GenesisVdpProvider.VdpRamType.CRAM, address, data & 0xFF);
     }
 
 
@@ -0,0 +1,97 @@
+/*
+ * TileCache
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package omegadrive.vdp.gen;
+
+import java.util.Arrays;
+
+/**
+ * Decoded 4bpp VRAM tiles, one byte per pixel.
+ * <p>
+ * A tile is decoded the first time one of its rows is read after a VRAM write to it,
+ * the horizontally flipped variant is only decoded when a flipped row is requested.
+ * Rows are addressed by their VRAM address (4 bytes per row), ie. interlace mode 2 tiles
+ * are two consecutive 8x8 tiles.
+ */
+public class TileCache {
+
+    public static final int PIXELS_PER_ROW = 8;
+    private static final int TILE_SHIFT = 5; //32 bytes per 8x8 tile
+    private static final int ROWS_PER_TILE = 8;
+    private static final int VALID = 1, VALID_FLIPPED = 2;
+
+    private final int[] vram;
+    private final int vramMask;
+    private final byte[] pixels;
+    private final byte[] flippedPixels;
+    private final byte[] valid;
+
+    public TileCache(int[] vram) {
+        this.vram = vram;
+        this.vramMask = vram.length - 1;
+        this.pixels = new byte[vram.length << 1];
+        this.flippedPixels = new byte[vram.length << 1];
+        this.valid = new byte[vram.length >> TILE_SHIFT];
+    }
+
+    /**
+     * Marks dirty the tile holding the VRAM byte at address.
+     */
+    public void invalidate(int address) {
+        valid[(address & vramMask) >> TILE_SHIFT] = 0;
+    }
+
+    public void invalidateAll() {
+        Arrays.fill(valid, (byte) 0);
+    }
+
+    /**
+     * @param rowAddress the VRAM address of the row, 4 bytes aligned, wraps around
+     * @return the array holding the 8 pixels of the row from index {@link #rowOffset}, left to right
+     */
+    public byte[] getRow(int rowAddress, boolean horFlip) {
+        int tile = (rowAddress & vramMask) >> TILE_SHIFT;
+        int flag = horFlip ? VALID_FLIPPED : VALID;
+        if ((valid[tile] & flag) == 0) {
+            decodeTile(tile, horFlip);
+            valid[tile] |= flag;
+        }
+        return horFlip ? flippedPixels : pixels;
+    }
+
+    public int rowOffset(int rowAddress) {
+        return (rowAddress & vramMask) << 1;
+    }
+
+    private void decodeTile(int tile, boolean horFlip) {
+        byte[] dest = horFlip ? flippedPixels : pixels;
+        int address = tile << TILE_SHIFT;
+        int k = address << 1;
+        for (int row = 0; row < ROWS_PER_TILE; row++, k += PIXELS_PER_ROW) {
+            for (int i = 0; i < 4; i++, address++) {
+                //the high nibble is the leftmost pixel
+                int twoPixels = vram[address];
+                int left = horFlip ? 7 - (i << 1) : i << 1;
+                int right = horFlip ? left - 1 : left + 1;
+                dest[k + left] = (byte) ((twoPixels >> 4) & 0xF);
+                dest[k + right] = (byte) (twoPixels & 0xF);
+            }
+        }
+    }
+}
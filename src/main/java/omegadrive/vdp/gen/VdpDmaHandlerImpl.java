@@ -21,7 +21,6 @@ package omegadrive.vdp.gen;
 
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.util.LogHelper;
-import omegadrive.util.Size;
 import omegadrive.util.VideoMode;
 import omegadrive.vdp.model.GenesisVdpProvider;
 import omegadrive.vdp.model.IVdpFifo;
@@ -267,7 +266,7 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
     private void dma68kToVram() {
         int sourceAddress = getSourceAddress() << 1; //needs to double it
         int destAddress = getDestAddress();
-        int dataWord = (int) busProvider.read(sourceAddress, Size.WORD);
+        int dataWord = busProvider.read16(sourceAddress);
         vdpProvider.fifoPush(destAddress, dataWord);
         printInfo("IN PROGRESS: ", sourceAddress);
         //increase by 1, becomes 2 (bytes) when doubling
@@ -58,6 +58,8 @@ public class VdpInterruptHandler implements BaseVdpProvider.VdpEventListener {
     private int pixelNumber = 0;
     private int slotNumber = 0;
     private int hLinesCounter = 0;
+    //pixels to the next event, by pixelNumber
+    private int[] pixelsToEvent;
 
     private VideoMode videoMode;
     protected VdpCounterMode vdpCounterMode;
@@ -87,6 +89,7 @@ public class VdpInterruptHandler implements BaseVdpProvider.VdpEventListener {
             this.videoMode = videoMode;
             this.vdpCounterMode = VdpCounterMode.getCounterMode(videoMode);
             this.h40 = videoMode.isH40();
+            this.pixelsToEvent = createPixelsToEvent();
             reset();
         }
     }
@@ -235,6 +238,42 @@ public class VdpInterruptHandler implements BaseVdpProvider.VdpEventListener {
         this.hIntPending = hIntPending;
     }
 
+    public int getSlotsToNextEvent() {
+        //two pixels per slot
+        return (getPixelsToNextEvent() + 1) >> 1;
+    }
+
+    public int getPixelsToNextEvent() {
+        if (pixelsToEvent == null) {
+            return 1;
+        }
+        return pixelsToEvent[pixelNumber];
+    }
+
+    /**
+     * Events happen on a fixed set of hCounter values: a new frame starts on 0 (on {@link #COUNTER_LIMIT} for the TMS),
+     * VINT is raised on {@link #VINT_SET_ON_HCOUNTER_VALUE}, HINT and the vCounter change on vCounterIncrementOn.
+     */
+    private int[] createPixelsToEvent() {
+        int total = vdpCounterMode.hTotalCount;
+        boolean[] isEvent = new boolean[total];
+        int hCounter = 0;
+        for (int i = 0; i < total; i++) {
+            isEvent[i] = hCounter == 0 || hCounter == COUNTER_LIMIT || hCounter == VINT_SET_ON_HCOUNTER_VALUE ||
+                    hCounter == vdpCounterMode.vCounterIncrementOn;
+            hCounter = updateCounterValue(hCounter, vdpCounterMode.hJumpTrigger, total);
+        }
+        int[] res = new int[total];
+        for (int i = 0; i < total; i++) {
+            int dist = 1;
+            while (!isEvent[(i + dist) % total]) {
+                dist++;
+            }
+            res[i] = dist;
+        }
+        return res;
+    }
+
     public boolean isDrawLineSlot() {
         return slotNumber == vdpCounterMode.hBlankSet >> 1;
     }
@@ -39,7 +39,11 @@ import static omegadrive.vdp.model.GenesisVdpProvider.VdpRegisterName.*;
 public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener {
 
     private final static Logger LOG = LogManager.getLogger(VdpRenderHandlerImpl.class.getSimpleName());
-    private GenesisVdpProvider vdpProvider;
+    //indexed palette: ShadowHighlightType.ordinal() << 6 | color, converted from the cram,
+    //NORMAL_PALETTE | color, from the javaPalette, when shadow/highlight is off
+    private final static int SH_PALETTE_SHIFT = 6;
+    private final static int NORMAL_PALETTE = 3 << SH_PALETTE_SHIFT;
+    private GenesisVdpRenderState vdpProvider;
     private VdpMemoryInterface memoryInterface;
     private VdpScrollHandler scrollHandler;
     private VdpRenderDump renderDump;
@@ -67,6 +71,10 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
     private RenderPriority[] pixelPriority = new RenderPriority[COLS];
     private ShadowHighlightType[] shadowHighlight = new ShadowHighlightType[COLS];
     private int[] linearScreen = new int[0];
+    private IndexedFrame indexedScreen = new IndexedFrame();
+    //palette generation of the previous line, see VdpMemoryInterface#getPaletteGeneration
+    private int paletteGeneration;
+    private boolean paletteDirty = true;
     private SpriteDataHolder spriteDataHolder = new SpriteDataHolder();
     private int spriteTableLocation = 0;
     private int spritePixelLineCount;
@@ -75,6 +83,7 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
     private WindowPlaneContext windowPlaneContext;
     private InterlaceMode interlaceMode = InterlaceMode.NONE;
     private int[] vram;
+    private TileCache tileCache;
     private int[] cram;
     private int[] javaPalette;
     private int activeLines = 0;
@@ -108,6 +117,7 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         if (newVideoMode != videoMode) {
             Dimension d = newVideoMode.getDimension();
             linearScreen = new int[d.width * d.height];
+            indexedScreen.resize(d.width, d.height);
             videoMode = newVideoMode;
             activeLines = d.height;
         }
@@ -118,13 +128,14 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
 
     }
 
-    public VdpRenderHandlerImpl(GenesisVdpProvider vdpProvider, VdpMemoryInterface memoryInterface) {
+    public VdpRenderHandlerImpl(GenesisVdpRenderState vdpProvider, VdpMemoryInterface memoryInterface) {
         this.vdpProvider = vdpProvider;
         this.memoryInterface = memoryInterface;
         this.colorMapper = VdpColorMapper.getInstance();
         this.renderDump = new VdpRenderDump();
         this.scrollHandler = VdpScrollHandler.createInstance(memoryInterface);
         this.vram = memoryInterface.getVram();
+        this.tileCache = memoryInterface.getTileCache();
         this.cram = memoryInterface.getCram();
         this.javaPalette = memoryInterface.getJavaColorPalette();
         this.scrollContextA = ScrollContext.createInstance(RenderType.PLANE_A);
@@ -186,6 +197,8 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
             initVideoMode();
             //need to do this here so I can dump data just after rendering the frame
             clearDataFrame();
+            indexedScreen.newFrame();
+            paletteDirty = true;
             phase1(0);
         }
         scrollContextA.hScrollTableLocation = VdpRenderHandler.getHScrollDataLocation(vdpProvider);
@@ -252,13 +265,14 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
 
     private boolean renderSprite(SpriteDataHolder holder, int tileBytePointerBase,
                                  int horOffset, int spritePixelLineLimit) {
-        for (int tileBytePos = 0; tileBytePos < BYTES_PER_TILE &&
-                spritePixelLineCount < spritePixelLineLimit; tileBytePos++, horOffset += 2) {
+        //one row of the tile, flipped if needed
+        byte[] row = tileCache.getRow(tileBytePointerBase, holder.horFlip);
+        int rowOffset = tileCache.rowOffset(tileBytePointerBase);
+        for (int pixel = 0; pixel < CELL_WIDTH &&
+                spritePixelLineCount < spritePixelLineLimit; pixel += 2, horOffset += 2) {
             spritePixelLineCount += 2;
-            int tileShift = tileBytePos ^ (holder.horFlipAmount & 3); //[0,4]
-            int tileBytePointer = tileBytePointerBase + tileShift;
-            storeSpriteData(tileBytePointer, horOffset, holder, 0);
-            storeSpriteData(tileBytePointer, horOffset + 1, holder, 1);
+            storeSpriteData(row[rowOffset + pixel], horOffset, holder);
+            storeSpriteData(row[rowOffset + pixel + 1], horOffset + 1, holder);
         }
         return true;
     }
@@ -269,12 +283,11 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
 //    Sprites earlier in the list show up on top of sprites later in the list (priority flag does nothing here).
 // Whichever sprite ends up on top in a given pixel is what will
 // end up in the sprite layer (and sorted against plane A and B).
-    private void storeSpriteData(int tileBytePointer, int horOffset, SpriteDataHolder holder, int pixelInTile) {
+    private void storeSpriteData(int pixelIndex, int horOffset, SpriteDataHolder holder) {
         if (horOffset < 0 || horOffset >= COLS || //Ayrton Senna
                 pixelPriority[horOffset].getRenderType() == RenderType.SPRITE) { //isSpriteAlreadyShown)
             return;
         }
-        int pixelIndex = getPixelIndexColor(tileBytePointer, pixelInTile, holder.horFlipAmount);
         int cramIndexColor = holder.paletteLineIndex + (pixelIndex << 1);
         cramIndexColor = processShadowHighlightSprite(cramIndexColor, horOffset);
         sprites[horOffset] = cramIndexColor;
@@ -284,10 +297,31 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
     }
 
     protected void composeImageLinearLine(int line) {
+        updateLinePalette(line);
+        byte[] pixels = indexedScreen.getPixels();
         int width = videoMode.getDimension().width;
         int k = width * line;
         for (int col = 0; col < width; col++) {
-            linearScreen[k++] = getPixelFromLayer(pixelPriority[col], col);
+            pixels[k++] = (byte) getPixelFromLayer(pixelPriority[col], col);
+        }
+    }
+
+    private void updateLinePalette(int line) {
+        int generation = memoryInterface.getPaletteGeneration();
+        if (!paletteDirty && generation == paletteGeneration) {
+            indexedScreen.keepPalette(line);
+            return;
+        }
+        paletteDirty = false;
+        paletteGeneration = generation;
+        int offset = indexedScreen.addPalette(line);
+        int[] palette = indexedScreen.getPalettes();
+        for (int i = 0; i < javaPalette.length; i++) {
+            int color = cram[i << 1] << 8 | cram[(i << 1) + 1];
+            palette[offset + i] = colorMapper.getColor(color, ShadowHighlightType.SHADOW);
+            palette[offset + (1 << SH_PALETTE_SHIFT) + i] = colorMapper.getColor(color, ShadowHighlightType.NORMAL);
+            palette[offset + (2 << SH_PALETTE_SHIFT) + i] = colorMapper.getColor(color, ShadowHighlightType.HIGHLIGHT);
+            palette[offset + NORMAL_PALETTE + i] = javaPalette[i];
         }
     }
 
@@ -317,12 +351,11 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
 
     private int processShadowHighlight(boolean shadowHighlightMode, int col, int cramIndex, RenderPriority rp) {
         if (!shadowHighlightMode) {
-            return javaPalette[cramIndex >> 1];
+            return NORMAL_PALETTE | cramIndex >> 1;
         }
         ShadowHighlightType type = shadowHighlight[col];
         shadowHighlight[col] = rp.getPriorityType() == PriorityType.YES ? type.brighter() : type;
-        return colorMapper.getColor(cram[cramIndex] << 8 | cram[cramIndex + 1],
-                shadowHighlight[col].darker());
+        return shadowHighlight[col].darker().ordinal() << SH_PALETTE_SHIFT | cramIndex >> 1;
     }
 
     private int processShadowHighlightSprite(int cramIndexColor, int col) {
@@ -456,6 +489,8 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
             int currentPrio;
             int rowCellBase = planeLine % 8; //cellHeight;
             int latestTileLocatorVram = -1;
+            byte[] row = null;
+            int rowOffset = 0;
             for (int pixel = startPixel; pixel < startPixel + 16; pixel++) {
                 currentPrio = pixelPriority[pixel].ordinal();
                 if (currentPrio >= RenderPriority.PLANE_A_PRIO.ordinal()) {
@@ -469,21 +504,20 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
                     int tileNameTable = vram[tileLocatorVram] << 8 | vram[tileLocatorVram + 1];
                     tileDataHolder = getTileData(tileNameTable, tileDataHolder);
                     latestTileLocatorVram = tileLocatorVram;
+                    int rowCell = rowCellBase ^ (tileDataHolder.vertFlipAmount & (cellHeight - 1)); //[0,7] or [0,15] IM2
+                    //4 bytes per row
+                    //TODO
+                    int rowCellShift = interlaceMode == InterlaceMode.MODE_2 ? rowCell << 3 : rowCell << 2;
+                    int rowAddress = tileDataHolder.tileIndex + rowCellShift;
+                    row = tileCache.getRow(rowAddress, tileDataHolder.horFlip);
+                    rowOffset = tileCache.rowOffset(rowAddress);
                 }
                 RenderPriority rp = tileDataHolder.priority ? highPrio : lowPrio;
                 if (currentPrio >= rp.ordinal()) {
                     continue;
                 }
                 int xPosCell = (pixel + hScrollPixelOffset) % CELL_WIDTH;
-
-                int colCell = xPosCell ^ (spriteDataHolder.horFlipAmount & 7); //[0,7]
-                int rowCell = rowCellBase ^ (spriteDataHolder.vertFlipAmount & (cellHeight - 1)); //[0,7] or [0,15] IM2
-
-                //two pixels per byte, 4 bytes per row
-                //TODO
-                int rowCellShift = interlaceMode == InterlaceMode.MODE_2 ? rowCell << 3 : rowCell << 2;
-                int tileBytePointer = tileDataHolder.tileIndex + (colCell >> 1) + rowCellShift;
-                int onePixelData = getPixelIndexColor(tileBytePointer, xPosCell, tileDataHolder.horFlipAmount);
+                int onePixelData = row[rowOffset + xPosCell];
 
                 plane[pixel] = tileDataHolder.paletteLineIndex + (onePixelData << 1);
                 if (onePixelData > 0) {
@@ -514,41 +548,21 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
             RenderPriority rp = tileDataHolder.priority ? RenderPriority.WINDOW_PLANE_PRIO :
                     RenderPriority.WINDOW_PLANE_NO_PRIO;
 
-            //two pixels at a time as they share a tile
-            for (int k = 0; k < 4; k++) {
-                int pixelHPosTile = k ^ (tileDataHolder.horFlipAmount & 3); //[0,4]
-                int pos = (hCell << 3) + (k << 1);
-
-                int tileBytePointer = (tileDataHolder.tileIndex + pixelHPosTile) + (pixelVPosTile << 2);
-
-                int pixelIndexColor1 = getPixelIndexColor(tileBytePointer, 0, tileDataHolder.horFlipAmount);
-                int pixelIndexColor2 = getPixelIndexColor(tileBytePointer, 1, tileDataHolder.horFlipAmount);
-
-                int val1 = tileDataHolder.paletteLineIndex + (pixelIndexColor1 << 1);
-                int val2 = tileDataHolder.paletteLineIndex + (pixelIndexColor2 << 1);
-
-//                System.out.printf("OLD PixelPos %d-%d, nameTableLocation: %x, tileLocatorVram: %x, tileBytePointer: %x, " +
-//                                    "cramIdx: %d\n", line, po,
-//                            nameTableLocation, tileLocatorVram, tileBytePointer, val1);
-                window[pos] = val1;
-                window[pos + 1] = val2;
-                if (pixelIndexColor1 > 0) {
+            int rowAddress = tileDataHolder.tileIndex + (pixelVPosTile << 2);
+            byte[] row = tileCache.getRow(rowAddress, tileDataHolder.horFlip);
+            int rowOffset = tileCache.rowOffset(rowAddress);
+            int pos = hCell << 3;
+            //the whole row of the tile
+            for (int k = 0; k < CELL_WIDTH; k++, pos++) {
+                int pixelIndexColor = row[rowOffset + k];
+                window[pos] = tileDataHolder.paletteLineIndex + (pixelIndexColor << 1);
+                if (pixelIndexColor > 0) {
                     updatePriority(pos, rp);
                 }
-                if (pixelIndexColor2 > 0) {
-                    updatePriority(pos + 1, rp);
-                }
             }
         }
     }
 
-    private int getPixelIndexColor(int tileBytePointer, int pixelInTile, int horFlipAmount) {
-        //1 byte represents 2 pixels, 1 pixel = 4 bit = 16 color gamut
-        int twoPixelsData = vram[tileBytePointer & 0xFFFF];
-        boolean isFirstPixel = (pixelInTile % 2) == (~horFlipAmount & 1);
-        return isFirstPixel ? twoPixelsData & 0x0F : (twoPixelsData & 0xF0) >> 4;
-    }
-
     // This value is effectively the address divided by $400; however, the low
     // bit is ignored, so the Window nametable has to be located at a VRAM
     // address that's a multiple of $800. For example, if the Window nametable
@@ -685,7 +699,7 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
                 res = sprites;
                 break;
             case FULL:
-                res = linearScreen;
+                res = getScreenDataLinear();
                 break;
         }
         return res;
@@ -693,9 +707,23 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
 
     @Override
     public int[] getScreenDataLinear() {
+        indexedScreen.toRgb(linearScreen);
         return linearScreen;
     }
 
+    @Override
+    public IndexedFrame getScreenDataIndexed() {
+        return indexedScreen;
+    }
+
+    @Override
+    public void setScreenDataIndexed(IndexedFrame frame) {
+        if (videoMode != null) {
+            frame.resize(videoMode.getDimension().width, videoMode.getDimension().height);
+        }
+        indexedScreen = frame;
+    }
+
     @Override
     public void dumpScreenData() {
         Arrays.stream(RenderType.values()).forEach(r -> renderDump.saveRenderToFile(getPlaneData(r), videoMode, r));
@@ -86,6 +86,20 @@ public interface BaseVdpProvider extends Device {
 
     int[] getScreenDataLinear();
 
+    /**
+     * The frame as palette indexes, null when not supported.
+     */
+    default IndexedFrame getScreenDataIndexed() {
+        return null;
+    }
+
+    /**
+     * The frame to render the next frames into, replaces the one returned by getScreenDataIndexed.
+     * Optional: by default the frame is ignored and the vdp keeps rendering into its own frame.
+     */
+    default void setScreenDataIndexed(IndexedFrame frame) {
+    }
+
     void setRegion(RegionDetector.Region region);
 
     //after loading a state
@@ -101,6 +115,14 @@ public interface BaseVdpProvider extends Device {
         return "vdpState: unsupported";
     }
 
+    /**
+     * @return the number of runSlot calls until the vdp can raise an interrupt or start a new line/frame,
+     * the slot raising the event included
+     */
+    default int getSlotsToNextEvent() {
+        return 1;
+    }
+
     default void resetVideoMode(boolean force) {
         throw new UnsupportedOperationException("Not supported");
     }
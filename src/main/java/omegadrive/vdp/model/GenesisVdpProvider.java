@@ -29,7 +29,7 @@ import omegadrive.vdp.gen.GenesisVdp;
 import java.util.EnumSet;
 import java.util.Map;
 
-public interface GenesisVdpProvider extends BaseVdpProvider {
+public interface GenesisVdpProvider extends GenesisVdpRenderState {
 
     Logger LOG = LogManager.getLogger(GenesisVdpProvider.class.getSimpleName());
 
@@ -232,20 +232,10 @@ public interface GenesisVdpProvider extends BaseVdpProvider {
      */
     void setHip(boolean value);
 
-    boolean isShadowHighlight();
-
     IVdpFifo getFifo();
 
     VramMode getVramMode();
 
-    InterlaceMode getInterlaceMode();
-
-    boolean isDisplayEnabled();
-
-    default int getRegisterData(VdpRegisterName registerName) {
-        return getRegisterData(registerName.ordinal());
-    }
-
     default void updateRegisterData(VdpRegisterName registerName, int data) {
         updateRegisterData(registerName.ordinal(), data);
     }
@@ -0,0 +1,35 @@
+/*
+ * GenesisVdpRenderState
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.model;
+
+/**
+ * The vdp state a line renderer reads, see {@link omegadrive.vdp.gen.VdpRenderHandlerImpl}.
+ */
+public interface GenesisVdpRenderState extends BaseVdpProvider {
+
+    boolean isShadowHighlight();
+
+    InterlaceMode getInterlaceMode();
+
+    boolean isDisplayEnabled();
+
+    default int getRegisterData(GenesisVdpProvider.VdpRegisterName registerName) {
+        return getRegisterData(registerName.ordinal());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * IndexedFrame
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.model;
+
+import omegadrive.util.VideoMode;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A frame of palette indexes, one byte per pixel, plus the RGB palettes the indexes refer to.
+ * <p>
+ * Each line points to a palette of {@link #PALETTE_SIZE} colors; a new palette is only stored when it changes
+ * between lines (ie. raster effects), the other lines share the previous one.
+ * Lines without a palette are black, as an int frame that has not been written to.
+ * The RGB conversion happens when the frame is consumed, see {@link #toRgb(int[])}.
+ * <p>
+ * Producer usage, once per line: {@link #addPalette(int)} and fill the palette when the colors have changed,
+ * {@link #keepPalette(int)} otherwise; {@link #newFrame()} before the first line.
+ * <p>
+ * The video mode and the label travel with the frame when it is handed over to another thread.
+ */
+public class IndexedFrame {
+
+    public static final int PALETTE_SIZE = 256;
+
+    private int width, height;
+    private byte[] pixels = new byte[0];
+    //the first palette is all black
+    private int[] palettes = new int[PALETTE_SIZE << 1];
+    private int[] lineOffset = new int[0];
+    private int paletteCount = 1;
+    private int lastOffset;
+    private VideoMode videoMode;
+    private Optional<String> label = Optional.empty();
+
+    public IndexedFrame() {
+    }
+
+    public IndexedFrame(int width, int height) {
+        resize(width, height);
+    }
+
+    public void resize(int width, int height) {
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        pixels = new byte[width * height];
+        lineOffset = new int[height];
+        newFrame();
+    }
+
+    public void newFrame() {
+        paletteCount = 1;
+        lastOffset = 0;
+    }
+
+    /**
+     * @return the offset in {@link #getPalettes()} of the new palette for the line, to be filled by the caller
+     */
+    public int addPalette(int line) {
+        int offset = paletteCount * PALETTE_SIZE;
+        if (offset + PALETTE_SIZE > palettes.length) {
+            palettes = Arrays.copyOf(palettes, palettes.length << 1);
+        }
+        paletteCount++;
+        lastOffset = offset;
+        lineOffset[line] = offset;
+        return offset;
+    }
+
+    /**
+     * The line uses the last palette added.
+     */
+    public void keepPalette(int line) {
+        lineOffset[line] = lastOffset;
+    }
+
+    /**
+     * Copies len colors to a new palette for the line.
+     */
+    public void setPalette(int line, int[] rgb, int len) {
+        int offset = addPalette(line);
+        System.arraycopy(rgb, 0, palettes, offset, len);
+    }
+
+    public void toRgb(int[] dest) {
+        int k = 0;
+        for (int line = 0; line < height; line++) {
+            final int offset = lineOffset[line];
+            for (int limit = k + width; k < limit; k++) {
+                dest[k] = palettes[offset + (pixels[k] & 0xFF)];
+            }
+        }
+    }
+
+    public int[] toRgb() {
+        int[] dest = new int[pixels.length];
+        toRgb(dest);
+        return dest;
+    }
+
+    /**
+     * Copies the pixels and the palettes in use to dest, resizing dest if needed.
+     */
+    public void copyTo(IndexedFrame dest) {
+        dest.resize(width, height);
+        System.arraycopy(pixels, 0, dest.pixels, 0, pixels.length);
+        System.arraycopy(lineOffset, 0, dest.lineOffset, 0, height);
+        int len = paletteCount * PALETTE_SIZE;
+        if (dest.palettes.length < len) {
+            dest.palettes = new int[palettes.length];
+        }
+        System.arraycopy(palettes, 0, dest.palettes, 0, len);
+        dest.paletteCount = paletteCount;
+        dest.lastOffset = lastOffset;
+        dest.videoMode = videoMode;
+        dest.label = label;
+    }
+
+    /**
+     * Copies a destWidth x destHeight area to dest, see {@link omegadrive.ui.RenderingStrategy#subImageWithOffset}.
+     */
+    public void subImageWithOffset(IndexedFrame dest, int destWidth, int destHeight, int xOffset, int yOffset) {
+        dest.resize(destWidth, destHeight);
+        int len = paletteCount * PALETTE_SIZE;
+        if (dest.palettes.length < len) {
+            dest.palettes = new int[palettes.length];
+        }
+        System.arraycopy(palettes, 0, dest.palettes, 0, len);
+        dest.paletteCount = paletteCount;
+        dest.lastOffset = lastOffset;
+        int start = ((yOffset + 1) * width) + xOffset + 1;
+        for (int line = 0, k = 0; line < destHeight; line++, start += width, k += destWidth) {
+            System.arraycopy(pixels, start, dest.pixels, k, destWidth);
+            dest.lineOffset[line] = lineOffset[Math.min(height - 1, yOffset + 1 + line)];
+        }
+    }
+
+    public byte[] getPixels() {
+        return pixels;
+    }
+
+    public int[] getPalettes() {
+        return palettes;
+    }
+
+    public int getLineOffset(int line) {
+        return lineOffset[line];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public VideoMode getVideoMode() {
+        return videoMode;
+    }
+
+    public Optional<String> getLabel() {
+        return label;
+    }
+
+    public void setDisplayInfo(VideoMode videoMode, Optional<String> label) {
+        this.videoMode = videoMode;
+        this.label = label;
+    }
+}
@@ -22,6 +22,7 @@ package omegadrive.vdp.model;
 import omegadrive.LogManager;
 import omegadrive.Logger;
 import omegadrive.util.Size;
+import omegadrive.vdp.gen.TileCache;
 
 public interface VdpMemoryInterface extends VdpMemory {
 
@@ -49,6 +50,16 @@ public interface VdpMemoryInterface extends VdpMemory {
 
     int[] getJavaColorPalette();
 
+    /**
+     * Bumped on every CRAM write, lets the renderer skip unchanged palettes.
+     */
+    int getPaletteGeneration();
+
+    /**
+     * Decoded VRAM tiles, kept in sync by writeVramByte.
+     */
+    TileCache getTileCache();
+
     default int[] getSatCache() {
         return new int[0];
     }
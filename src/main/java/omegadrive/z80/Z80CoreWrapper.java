@@ -25,7 +25,6 @@ import omegadrive.bus.BaseBusProvider;
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.bus.gen.GenesisZ80BusProvider;
 import omegadrive.bus.gen.GenesisZ80BusProviderImpl;
-import omegadrive.util.Size;
 import omegadrive.util.Util;
 import z80core.Z80;
 import z80core.Z80State;
@@ -51,6 +50,8 @@ public class Z80CoreWrapper implements Z80Provider {
     protected BaseBusProvider z80BusProvider;
     protected Z80MemIoOps memIoOps;
     protected int instCyclesPenalty = 0;
+    private int batchTstates;
+    private boolean yieldRequested;
 
     public static Z80CoreWrapper createInstance(BaseBusProvider busProvider) {
         Z80CoreWrapper w = new Z80CoreWrapper();
@@ -104,6 +105,27 @@ public class Z80CoreWrapper implements Z80Provider {
         return (int) (memIoOps.getTstates()) + instCyclesPenalty;
     }
 
+    //an IO access can change the interrupt lines, the caller needs to handle them before the next instruction
+    @Override
+    public int run(int tstatesBudget) {
+        yieldRequested = false;
+        batchTstates = 0;
+        do {
+            batchTstates += Math.max(1, executeInstruction());
+        } while (batchTstates < tstatesBudget && !yieldRequested && !memIoOps.isIoAccess());
+        return batchTstates;
+    }
+
+    @Override
+    public void requestYield() {
+        yieldRequested = true;
+    }
+
+    @Override
+    public int getBatchTstates() {
+        return batchTstates;
+    }
+
     //From the Z80UM.PDF document, a reset clears the interrupt enable, PC and
     //registers I and R, then sets interrupt status to mode 0.
     @Override
@@ -142,12 +164,12 @@ public class Z80CoreWrapper implements Z80Provider {
 
     @Override
     public int readMemory(int address) {
-        return (int) z80BusProvider.read(address, Size.BYTE);
+        return z80BusProvider.read8(address);
     }
 
     @Override
     public void writeMemory(int address, int data) {
-        z80BusProvider.write(address, data, Size.BYTE);
+        z80BusProvider.write8(address, data);
     }
 
     @Override
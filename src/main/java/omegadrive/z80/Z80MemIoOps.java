@@ -30,6 +30,7 @@ public class Z80MemIoOps implements IMemIoOps {
     private BaseBusProvider z80BusProvider;
     private long tstatesCount = 0;
     private boolean activeInterrupt;
+    private boolean ioAccess;
     private int[] ram;
     private int ramSizeMask;
 
@@ -64,7 +65,7 @@ public class Z80MemIoOps implements IMemIoOps {
 
     protected final int fetchOpcodeBus(int address) {
         tstatesCount += 4;
-        return (int) z80BusProvider.read(address, Size.BYTE) & 0xFF;
+        return z80BusProvider.read8(address) & 0xFF;
     }
 
     @Override
@@ -77,24 +78,26 @@ public class Z80MemIoOps implements IMemIoOps {
     @Override
     public int peek8(int address) {
         tstatesCount += 3;
-        return (int) z80BusProvider.read(address, Size.BYTE) & 0xFF;
+        return z80BusProvider.read8(address) & 0xFF;
     }
 
     @Override
     public void poke8(int address, int value) {
         tstatesCount += 3;
-        z80BusProvider.write(address, value, Size.BYTE);
+        z80BusProvider.write8(address, value);
     }
 
     @Override
     public int inPort(int port) {
         tstatesCount += 4;
+        ioAccess = true;
         return z80BusProvider.readIoPort(port) & 0xFF;
     }
 
     @Override
     public void outPort(int port, int value) {
         tstatesCount += 4;
+        ioAccess = true;
         z80BusProvider.writeIoPort(port, value);
     }
 
@@ -124,9 +127,14 @@ public class Z80MemIoOps implements IMemIoOps {
         return tstatesCount;
     }
 
+    public boolean isIoAccess() {
+        return ioAccess;
+    }
+
     @Override
     public void reset() {
         tstatesCount = 0;
+        ioAccess = false;
     }
 
     public static Z80MemIoOpsDbg createDbgMemIoOps(StringBuilder sb, int logAddressAccess) {
@@ -29,6 +29,24 @@ public interface Z80Provider extends Device {
 
     int executeInstruction();
 
+    /**
+     * Runs instructions until the budget (in tstates) has been consumed, a yield has been
+     * requested or an instruction has accessed an IO port.
+     *
+     * @return the tstates consumed, can exceed the budget
+     */
+    int run(int tstatesBudget);
+
+    /**
+     * Ends the current run batch after the current instruction.
+     */
+    void requestYield();
+
+    /**
+     * @return the tstates consumed by the current run batch, the current instruction is not included
+     */
+    int getBatchTstates();
+
     boolean interrupt(boolean value);
 
     void triggerNMI();
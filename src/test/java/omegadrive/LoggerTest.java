@@ -0,0 +1,83 @@
+/*
+ * LoggerTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+public class LoggerTest {
+
+    private static final Logger LOG = LogManager.getLogger(LoggerTest.class.getSimpleName());
+
+    private PrintStream out;
+    private ByteArrayOutputStream buffer;
+    private int level;
+
+    @Before
+    public void setup() {
+        LogManager.flush();
+        level = LogManager.getLevel();
+        out = System.out;
+        buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true));
+    }
+
+    @After
+    public void tearDown() {
+        LogManager.flush();
+        System.setOut(out);
+        LogManager.setLevel(level);
+    }
+
+    @Test
+    public void testFormat() {
+        LogManager.setLevel(Level.INFO);
+        LOG.info("a: {}, b: {}", 1, "x");
+        LOG.info("{}{}{}{}", 1, 2, 3, 4);
+        LOG.warn("no args {}");
+        LOG.log(Level.INFO, "c", 2);
+        LOG.printf(Level.INFO, "%02x", 10);
+        LogManager.flush();
+        Assert.assertArrayEquals(new String[]{"[LoggerTest]a: 1, b: x", "[LoggerTest]1234",
+                "[LoggerTest]no args {}", "[LoggerTest]c2", "[LoggerTest]0a"}, lines());
+    }
+
+    @Test
+    public void testLevel() {
+        LogManager.setLevel(Level.WARNING);
+        Assert.assertFalse(LOG.isInfoEnabled());
+        LOG.debug("debug {}", 1);
+        LOG.info("info");
+        LOG.warn("warn");
+        LogManager.flush();
+        Assert.assertArrayEquals(new String[]{"[LoggerTest]warn"}, lines());
+    }
+
+    //other threads might be logging too
+    private String[] lines() {
+        return Arrays.stream(buffer.toString().split("\\R")).filter(l -> l.startsWith("[LoggerTest]")).
+                toArray(String[]::new);
+    }
+}
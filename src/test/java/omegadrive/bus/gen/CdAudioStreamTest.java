@@ -0,0 +1,111 @@
+/*
+ * CdAudioStreamTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.bus.gen;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+public class CdAudioStreamTest {
+
+    private static final int FRAMES = 1000;
+
+    @Test
+    public void testBinLoop() throws Exception {
+        File bin = File.createTempFile("track", ".bin");
+        bin.deleteOnExit();
+        //one junk sector, then the track
+        byte[] junk = new byte[CueFileParser.SECTOR_SIZE_BYTES];
+        byte[] pcm = pcm();
+        byte[] data = new byte[junk.length + pcm.length];
+        System.arraycopy(pcm, 0, data, junk.length, pcm.length);
+        Files.write(bin.toPath(), data);
+
+        try (RandomAccessFile raf = new RandomAccessFile(bin, "r")) {
+            CdAudioStream s = CdAudioStream.map(raf, junk.length, pcm.length);
+            Assert.assertEquals(FRAMES, s.getFrames());
+            s.play(true, 3);
+            int[] buf = new int[(FRAMES + 10) << 1];
+            Assert.assertEquals(FRAMES + 10, s.read(buf, 0, FRAMES + 10));
+            checkFrame(buf, 0, 0);
+            checkFrame(buf, FRAMES - 1, FRAMES - 1);
+            //looped, from the loop offset
+            checkFrame(buf, FRAMES + 5, 8);
+
+            s.play(false, 0);
+            Assert.assertEquals(FRAMES - 13, s.read(buf, 0, FRAMES));
+            checkFrame(buf, FRAMES - 14, FRAMES - 1);
+            Assert.assertFalse(s.isPlaying());
+        }
+    }
+
+    @Test
+    public void testWaveVolumeAndFade() throws Exception {
+        File wav = File.createTempFile("track", ".wav");
+        wav.deleteOnExit();
+        byte[] pcm = pcm();
+        AudioInputStream ais = new AudioInputStream(new ByteArrayInputStream(pcm), MsuMdHandler.CDDA_FORMAT, FRAMES);
+        AudioSystem.write(ais, AudioFileFormat.Type.WAVE, wav);
+
+        CdAudioStream s = CdAudioStream.open(wav);
+        Assert.assertEquals(FRAMES, s.getFrames());
+        s.play(false, 0);
+        s.setVolume(0);
+        int[] buf = new int[FRAMES << 1];
+        Assert.assertEquals(10, s.read(buf, 0, 10));
+        Assert.assertEquals(0, buf[18]);
+
+        s.setVolume(0xFF);
+        s.fadeOutAndPause(100);
+        Assert.assertEquals(FRAMES - 10, s.read(buf, 0, FRAMES));
+        //fading
+        Assert.assertTrue(Math.abs(buf[100]) < 50 * 2);
+        Assert.assertEquals(0, buf[300]);
+        Assert.assertFalse(s.isPlaying());
+        Assert.assertEquals(0, s.read(buf, 0, FRAMES));
+
+        s.resume();
+        Assert.assertTrue(s.isPlaying());
+    }
+
+    private static void checkFrame(int[] buf, int frame, int expected) {
+        Assert.assertEquals(expected, buf[frame << 1]);
+        Assert.assertEquals(-expected, buf[(frame << 1) + 1]);
+    }
+
+    //frame i: left i, right -i
+    private static byte[] pcm() {
+        byte[] b = new byte[FRAMES << 2];
+        for (int i = 0; i < FRAMES; i++) {
+            int l = i, r = -i;
+            b[i << 2] = (byte) l;
+            b[(i << 2) + 1] = (byte) (l >> 8);
+            b[(i << 2) + 2] = (byte) r;
+            b[(i << 2) + 3] = (byte) (r >> 8);
+        }
+        return b;
+    }
+}
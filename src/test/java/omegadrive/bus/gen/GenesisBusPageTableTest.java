@@ -0,0 +1,96 @@
+/*
+ * GenesisBusPageTableTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.bus.gen;
+
+import omegadrive.memory.IMemoryProvider;
+import omegadrive.memory.MemoryProvider;
+import omegadrive.system.SystemProvider;
+import omegadrive.util.Size;
+import omegadrive.util.Util;
+import omegadrive.vdp.MdVdpTestUtil;
+import omegadrive.vdp.model.GenesisVdpProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GenesisBusPageTableTest {
+
+    private static final int ROM_SIZE = 0x50_0000;
+
+    private GenesisBusProvider bus;
+    private IMemoryProvider memory;
+
+    @Before
+    public void setup() {
+        bus = GenesisBusProvider.createBus();
+        memory = MemoryProvider.createGenesisInstance();
+        int[] rom = new int[ROM_SIZE];
+        for (int i = 0; i < rom.length; i++) {
+            rom[i] = ((i >> 16) + i) & 0xFF;
+        }
+        memory.setRomData(rom);
+        GenesisVdpProvider vdp = GenesisVdpProvider.createVdp(bus);
+        SystemProvider systemProvider = MdVdpTestUtil.createTestGenesisProvider();
+        bus.attachDevice(memory).attachDevice(systemProvider).attachDevice(vdp);
+        bus.init();
+    }
+
+    @Test
+    public void testRomRead() {
+        int[] addresses = {0, 0x100, 0x1FFFC, 0x1FFFE, 0x1FFFF, 0x12345, 0x3FFFFE, 0x4F_FFFC};
+        for (int address : addresses) {
+            for (Size size : Size.values()) {
+                if (size != Size.BYTE && (address & 1) == 1) {
+                    continue;
+                }
+                Assert.assertEquals(Long.toHexString(address) + "," + size,
+                        Util.readRom(memory, size, address), bus.read(address, size));
+            }
+        }
+    }
+
+    @Test
+    public void testRamMirror() {
+        bus.write(0xFF0000, 0x1234, Size.WORD);
+        Assert.assertEquals(0x1234, bus.read(0xE00000, Size.WORD));
+        bus.write(0xE0FFFC, 0x89ABCDEFL, Size.LONG);
+        Assert.assertEquals(0x89ABCDEFL, bus.read(0xFFFFFC, Size.LONG) & 0xFFFF_FFFFL);
+        Assert.assertEquals(0xEF, bus.read(0xF3FFFF, Size.BYTE));
+    }
+
+    @Test
+    public void testSsf2BankSwitch() {
+        int address = 0x80000;
+        Assert.assertEquals(Util.readRom(memory, Size.WORD, address), bus.read(address, Size.WORD));
+        //enables the Ssf2Mapper
+        bus.write(0xA130F3, 8, Size.BYTE);
+        Assert.assertEquals(Util.readRom(memory, Size.WORD, 0x400000 + 2), bus.read(address + 2, Size.WORD));
+        //handled by the Ssf2Mapper
+        bus.write(0xA130F3, 9, Size.BYTE);
+        Assert.assertEquals(Util.readRom(memory, Size.LONG, 0x480000 + 4), bus.read(address + 4, Size.LONG));
+        //fixed bank
+        Assert.assertEquals(Util.readRom(memory, Size.WORD, 0x1000), bus.read(0x1000, Size.WORD));
+
+        //sram mode then rom mode
+        bus.write(0xA130F1, 3, Size.BYTE);
+        Assert.assertEquals(Util.readRom(memory, Size.WORD, 0x100000), bus.read(0x100000, Size.WORD));
+        bus.write(0xA130F1, 0, Size.BYTE);
+        Assert.assertEquals(Util.readRom(memory, Size.WORD, 0x480000), bus.read(address, Size.WORD));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Z80PageTableTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.bus.z80;
+
+import omegadrive.cart.mapper.RomMapper;
+import omegadrive.cart.mapper.sms.SmsMapper;
+import omegadrive.memory.IMemoryProvider;
+import omegadrive.memory.MemoryProvider;
+import omegadrive.util.Size;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Z80PageTableTest {
+
+    private static final int ROM_SIZE = 0x20000;
+
+    private Z80PageTable pageTable;
+    private int[] rom;
+
+    @Before
+    public void setup() {
+        pageTable = new Z80PageTable();
+        rom = new int[ROM_SIZE];
+        for (int i = 0; i < rom.length; i++) {
+            rom[i] = (i ^ (i >> 14)) & 0xFF;
+        }
+    }
+
+    @Test
+    public void testMapping() {
+        int[] ram = new int[0x400];
+        pageTable.mapRead(0, 0xBFFF, rom, 0x4000);
+        pageTable.mapReadMirror(0xC000, 0xFFFF, ram, ram.length - 1);
+        pageTable.mapWriteMirror(0xC000, 0xFFFF, ram, ram.length - 1);
+
+        Assert.assertEquals(rom[0x4123], pageTable.read(0x123));
+        Assert.assertTrue(pageTable.write(0xE401, 0x1AB));
+        Assert.assertEquals(0xAB, ram[1]);
+        Assert.assertEquals(0xAB, pageTable.read(0xC001));
+        Assert.assertFalse(pageTable.write(0x100, 1));
+
+        //does not fit in the array
+        pageTable.mapRead(0, 0xBFFF, rom, ROM_SIZE - 0x4000);
+        Assert.assertEquals(rom[ROM_SIZE - 1], pageTable.read(0x3FFF));
+        Assert.assertEquals(Z80PageTable.UNMAPPED, pageTable.read(0x4000));
+
+        pageTable.reset();
+        Assert.assertEquals(Z80PageTable.UNMAPPED, pageTable.read(0xC001));
+    }
+
+    @Test
+    public void testSmsSegaMapperBanking() {
+        IMemoryProvider memory = MemoryProvider.createInstance(rom, MemoryProvider.SMS_Z80_RAM_SIZE);
+        SmsMapper smsMapper = SmsMapper.createInstance("test", memory, pageTable);
+        RomMapper mapper = smsMapper.setupRomMapper(SmsMapper.Type.SEGA, RomMapper.NO_OP_MAPPER);
+        checkSmsBanking(mapper);
+
+        for (int i = 1; i < 4; i++) {
+            mapper.writeData(SmsBus.SEGA_MAPPING_CONTROL_ADDRESS + i, 4 + i, Size.BYTE);
+        }
+        Assert.assertEquals(7, smsMapper.getFrameReg()[2]);
+        checkSmsBanking(mapper);
+
+        //bank registers are not mapped
+        Assert.assertFalse(pageTable.write(0xFFFF, 1));
+        Assert.assertTrue(pageTable.write(0xDFFF, 1));
+        Assert.assertEquals(1, memory.getRamData()[SmsBus.RAM_MASK]);
+    }
+
+    private void checkSmsBanking(RomMapper mapper) {
+        for (int address = 0; address < 0x10000; address += 0xFF) {
+            int res = pageTable.read(address);
+            if (res != Z80PageTable.UNMAPPED) {
+                Assert.assertEquals(Integer.toHexString(address), mapper.readData(address, Size.BYTE), res);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package omegadrive.m68k;
 
+import m68k.cpu.MC68000;
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.memory.IMemoryProvider;
 import omegadrive.memory.MemoryProvider;
@@ -20,11 +21,12 @@ import org.junit.Test;
 public class M68Test {
 
     private M68kProvider provider;
+    private IMemoryProvider memoryProvider;
 
     @Before
     public void setup() {
         GenesisBusProvider bus = GenesisBusProvider.createBus();
-        IMemoryProvider memoryProvider = MemoryProvider.createGenesisInstance();
+        memoryProvider = MemoryProvider.createGenesisInstance();
         GenesisVdpProvider vdpProvider = GenesisVdpProvider.createVdp(bus);
         memoryProvider.setRomData(new int[1024]);
         memoryProvider.getRomData()[0x3c] = 1;
@@ -43,4 +45,46 @@ public class M68Test {
         Assert.assertTrue(provider.raiseInterrupt(6));
         Assert.assertFalse(provider.raiseInterrupt(4));
     }
+
+    @Test
+    public void testRunCycles() {
+        int[] rom = memoryProvider.getRomData();
+        for (int i = 0x100; i < 0x110; i += 2) {
+            rom[i] = 0x4E; //NOP, 4 cycles
+            rom[i + 1] = 0x71;
+        }
+        rom[0x110] = 0x4E; //STOP #$2700
+        rom[0x111] = 0x72;
+        rom[0x112] = 0x27;
+        rom[0x113] = 0;
+        MC68000 m68k = ((MC68000Wrapper) provider).getM68k();
+        m68k.setSR(0x2700);
+        m68k.setPC(0x100);
+
+        //the last instruction starts within the budget
+        Assert.assertEquals(12, provider.runCycles(10));
+        Assert.assertEquals(0x106, provider.getPC());
+        Assert.assertEquals(4, provider.runCycles(1));
+
+        //STOP ends the batch
+        int cycles = provider.runCycles(1000);
+        Assert.assertTrue(cycles < 1000);
+        Assert.assertTrue(provider.isStopped());
+        Assert.assertEquals(0x114, provider.getPC());
+    }
+
+    @Test
+    public void testRunCyclesYield() {
+        int[] rom = memoryProvider.getRomData();
+        for (int i = 0x100; i < 0x200; i += 2) {
+            rom[i] = 0x4E; //NOP
+            rom[i + 1] = 0x71;
+        }
+        MC68000 m68k = ((MC68000Wrapper) provider).getM68k();
+        m68k.setPC(0x100);
+        //a yield requested before the batch starts is ignored
+        provider.requestYield();
+        Assert.assertEquals(8, provider.runCycles(8));
+        Assert.assertEquals(8, provider.getBatchCycles());
+    }
 }
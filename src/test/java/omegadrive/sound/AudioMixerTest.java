@@ -0,0 +1,104 @@
+/*
+ * AudioMixerTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class AudioMixerTest {
+
+    private static final double RATE = 44100;
+
+    @Test
+    public void testGainPanAndLeader() {
+        AudioMixer mixer = new AudioMixer(RATE);
+        //leader has 10 frames queued
+        AudioMixer.Channel lead = mixer.register("lead", constant(1000, 10), RATE, true);
+        mixer.register("mono", constant(2000, Integer.MAX_VALUE), RATE, false).setGain(0.5).setPan(-1);
+        mixer.setLeader(lead);
+
+        byte[] out = new byte[100 << 2];
+        Assert.assertEquals(10, mixer.mix(out, 100));
+        //left: 1000 + 2000 * 0.5, right: 1000
+        Assert.assertEquals(2000, sample(out, 0));
+        Assert.assertEquals(1000, sample(out, 1));
+        Assert.assertEquals(0, mixer.mix(out, 100));
+
+        //no leader, the frames requested, clamped to 16 bit
+        mixer.setLeader(null);
+        mixer.register("loud", constant(Short.MAX_VALUE, Integer.MAX_VALUE), RATE, true);
+        Assert.assertEquals(100, mixer.mix(out, 100));
+        Assert.assertEquals(Short.MAX_VALUE, sample(out, 198));
+        Assert.assertEquals(Short.MAX_VALUE, sample(out, 199));
+    }
+
+    @Test
+    public void testResampleShortSource() {
+        AudioMixer mixer = new AudioMixer(RATE);
+        //half the output rate, runs out after 1000 native frames
+        mixer.register("half", constant(3000, 1000), RATE / 2, true);
+        byte[] out = new byte[4000 << 2];
+        Assert.assertEquals(4000, mixer.mix(out, 4000));
+        //DC goes through unchanged, then silence padding
+        Assert.assertEquals(3000, sample(out, 1000), 1);
+        Assert.assertEquals(3000, sample(out, 1001), 1);
+        Assert.assertEquals(0, sample(out, 7000));
+    }
+
+    /**
+     * After a reset the resampled channels start over, nothing queued before the reset comes out.
+     */
+    @Test
+    public void testReset() {
+        AudioMixer mixer = new AudioMixer(RATE);
+        mixer.register("half", constant(3000, 100), RATE / 2, true);
+        byte[] out = new byte[100 << 2];
+        //the whole source is drained, 20 of the 200 output frames are mixed
+        Assert.assertEquals(20, mixer.mix(out, 20));
+
+        mixer.reset();
+        Assert.assertEquals(100, mixer.mix(out, 100));
+        //the source is exhausted, the queued frames have been dropped
+        for (int i = 0; i < 200; i++) {
+            Assert.assertEquals(0, sample(out, i));
+        }
+    }
+
+    //16 bit little endian, index in samples
+    private static int sample(byte[] out, int index) {
+        return (short) ((out[(index << 1) + 1] << 8) | (out[index << 1] & 0xFF));
+    }
+
+    private static AudioMixer.Source constant(int value, int frames) {
+        return new AudioMixer.Source() {
+            int left = frames;
+
+            @Override
+            public int render(int[] buf, int offset, int count) {
+                //mono or stereo, fill both
+                int n = Math.min(left, count);
+                Arrays.fill(buf, offset, offset + (n << 1), value);
+                left -= n;
+                return n;
+            }
+        };
+    }
+}
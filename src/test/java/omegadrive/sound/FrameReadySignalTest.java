@@ -0,0 +1,60 @@
+/*
+ * FrameReadySignalTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FrameReadySignalTest {
+
+    private static final long LONG_TIMEOUT_NS = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    public void testProducerWakesConsumer() throws InterruptedException {
+        FrameReadySignal signal = new FrameReadySignal();
+        AtomicInteger queued = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                queued.incrementAndGet();
+                signal.onFrames(queued::get);
+                Thread.yield();
+            }
+        });
+        long start = System.nanoTime();
+        producer.start();
+        int res = signal.await(queued::get, 100, LONG_TIMEOUT_NS);
+        Assert.assertEquals(100, res);
+        Assert.assertTrue(System.nanoTime() - start < LONG_TIMEOUT_NS);
+        producer.join();
+    }
+
+    @Test
+    public void testTimeout() {
+        FrameReadySignal signal = new FrameReadySignal();
+        long timeoutNs = TimeUnit.MILLISECONDS.toNanos(20);
+        long start = System.nanoTime();
+        Assert.assertEquals(3, signal.await(() -> 3, 10, timeoutNs));
+        Assert.assertTrue(System.nanoTime() - start >= timeoutNs);
+        //already available, no wait
+        Assert.assertEquals(10, signal.await(() -> 10, 10, LONG_TIMEOUT_NS));
+    }
+}
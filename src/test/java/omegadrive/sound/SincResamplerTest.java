@@ -0,0 +1,122 @@
+/*
+ * SincResamplerTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound;
+
+import omegadrive.util.IntRingBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+public class SincResamplerTest {
+
+    private static final double IN_RATE = 53267;
+    private static final double OUT_RATE = 44100;
+    private static final int AMPLITUDE = 10_000;
+
+    @Test
+    public void testDcGain() {
+        SincResampler r = new SincResampler(IN_RATE, OUT_RATE);
+        int[] out = resample(r, i -> AMPLITUDE, 10_000);
+        //skip the filter warm up
+        for (int i = 100; i < out.length; i++) {
+            Assert.assertEquals(AMPLITUDE, out[i], 2);
+        }
+    }
+
+    @Test
+    public void testOutputLength() {
+        SincResampler r = new SincResampler(IN_RATE, OUT_RATE);
+        int frames = 53267;
+        int[] out = resample(r, i -> 0, frames);
+        Assert.assertEquals(OUT_RATE, out.length / 2, 32);
+
+        r = new SincResampler(IN_RATE, OUT_RATE);
+        r.setStep(r.getNominalStep() * 1.02);
+        out = resample(r, i -> 0, frames);
+        Assert.assertEquals(OUT_RATE / 1.02, out.length / 2, 32);
+    }
+
+    @Test
+    public void testPassband() {
+        SincResampler r = new SincResampler(IN_RATE, OUT_RATE);
+        double amplitude = peak(resample(r, sine(1000), 20_000));
+        Assert.assertEquals(AMPLITUDE, amplitude, AMPLITUDE * 0.01);
+    }
+
+    /**
+     * A tone above the output nyquist would alias to ~19khz when dropping samples, it should be filtered out.
+     */
+    @Test
+    public void testAliasRejection() {
+        SincResampler r = new SincResampler(IN_RATE, OUT_RATE);
+        double amplitude = peak(resample(r, sine(25_000), 20_000));
+        Assert.assertTrue("Peak: " + amplitude, amplitude < AMPLITUDE * 0.01);
+    }
+
+    /**
+     * The frames drained into the history and not resampled yet are reported, ie. for rate control.
+     */
+    @Test
+    public void testPendingFrames() {
+        SincResampler r = new SincResampler(IN_RATE, OUT_RATE);
+        IntRingBuffer source = new IntRingBuffer(4096);
+        for (int i = 0; i < 2000; i++) {
+            source.offer(0, 0);
+        }
+        int[] out = new int[64];
+        Assert.assertEquals(32, r.resample(source, out, 0, 32));
+        int consumed = (int) (32 * r.getNominalStep());
+        Assert.assertEquals(2000 - consumed, (source.size() >> 1) + r.getPendingFrames(), 1);
+        Assert.assertTrue(r.getPendingFrames() > 1000);
+        r.reset();
+        Assert.assertEquals(0, r.getPendingFrames());
+    }
+
+    private static IntUnaryOperator sine(double hz) {
+        return i -> (int) (AMPLITUDE * Math.sin(2 * Math.PI * hz * i / IN_RATE));
+    }
+
+    private static double peak(int[] stereo) {
+        int peak = 0;
+        for (int i = 200; i < stereo.length; i++) {
+            peak = Math.max(peak, Math.abs(stereo[i]));
+        }
+        return peak;
+    }
+
+    private static int[] resample(SincResampler r, IntUnaryOperator input, int frames) {
+        IntRingBuffer source = new IntRingBuffer(4096);
+        int[] out = new int[frames * 4];
+        int produced = 0;
+        for (int i = 0; i < frames; ) {
+            if (source.offer(input.applyAsInt(i), input.applyAsInt(i))) {
+                i++;
+            } else {
+                produced += r.resample(source, out, produced, 256);
+            }
+        }
+        int len;
+        while ((len = r.resample(source, out, produced, 256)) > 0) {
+            produced += len;
+        }
+        return Arrays.copyOf(out, produced << 1);
+    }
+}
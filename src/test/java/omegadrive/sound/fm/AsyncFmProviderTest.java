@@ -0,0 +1,175 @@
+/*
+ * AsyncFmProviderTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.fm;
+
+import omegadrive.sound.fm.ym2612.nukeykt.Ym2612Nuke;
+import omegadrive.sound.javasound.AbstractSoundManager;
+import omegadrive.util.Util;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static omegadrive.sound.fm.MdFmProvider.*;
+
+public class AsyncFmProviderTest {
+
+    private static final int TICKS = 100_000;
+    private static final double MICROS_PER_TICK = 1_000_000.0 / (Util.GEN_NTSC_MCLOCK_MHZ / 42.0);
+    private static final int TIMER_MASK = FM_STATUS_TIMER_A_BIT_MASK | FM_STATUS_TIMER_B_BIT_MASK;
+
+    /**
+     * The worker replays the log and produces the same samples as the chip clocked on the calling thread.
+     */
+    @Test
+    public void testSameOutput() {
+        Ym2612Nuke sync = createFm();
+        AsyncFmProvider async = new AsyncFmProvider(createFm());
+        keyOn(sync);
+        keyOn(async);
+        try {
+            for (int i = 0; i < TICKS; i += 10) {
+                sync.tick(MICROS_PER_TICK, 10);
+                async.tick(MICROS_PER_TICK, 10);
+                if (i % 20_000 == 0) {
+                    //key off/on
+                    int data = (i / 20_000) % 2 == 0 ? 0 : 0xF0;
+                    writeReg(sync, 0x28, data);
+                    writeReg(async, 0x28, data);
+                }
+            }
+            async.awaitIdle();
+            int[] expected = new int[TICKS];
+            int[] actual = new int[TICKS];
+            int len = sync.update(expected, 0, TICKS >> 1);
+            Assert.assertTrue(Arrays.stream(expected).anyMatch(v -> v != 0));
+            Assert.assertEquals(len, async.update(actual, 0, TICKS >> 1));
+            Assert.assertArrayEquals(expected, actual);
+        } finally {
+            async.close();
+        }
+    }
+
+    /**
+     * The timer model on the calling thread raises the overflow flags when the chip does.
+     */
+    @Test
+    public void testTimerStatus() {
+        Ym2612Nuke sync = createFm();
+        AsyncFmProvider async = new AsyncFmProvider(createFm());
+        keyOn(sync);
+        keyOn(async);
+        try {
+            //timer A = 1000, timer B = 250, load and enable both
+            writeTimers(sync);
+            writeTimers(async);
+            int overflows = 0;
+            int prev = 0;
+            for (int i = 0; i < TICKS; i++) {
+                sync.tick(MICROS_PER_TICK);
+                async.tick(MICROS_PER_TICK);
+                int expected = sync.read() & TIMER_MASK;
+                Assert.assertEquals("tick " + i, expected, async.read() & TIMER_MASK);
+                if (expected != prev) {
+                    overflows++;
+                    prev = expected;
+                }
+                if (expected == TIMER_MASK) {
+                    //reset both flags, keep the timers running
+                    writeReg(sync, 0x27, 0x3F);
+                    writeReg(async, 0x27, 0x3F);
+                    prev = sync.read() & TIMER_MASK;
+                }
+            }
+            Assert.assertTrue(overflows > 2);
+        } finally {
+            async.close();
+        }
+    }
+
+    /**
+     * After loading a state into the wrapped chip, the timer model follows the loaded timers.
+     */
+    @Test
+    public void testTimerStatusAfterStateLoad() {
+        Ym2612Nuke sync = createFm();
+        AsyncFmProvider async = new AsyncFmProvider(createFm());
+        try {
+            writeTimers(sync);
+            for (int i = 0; i < TICKS / 3; i++) {
+                sync.tick(MICROS_PER_TICK);
+            }
+            //reset the flags, the timers keep counting
+            writeReg(sync, 0x27, 0x3F);
+            Ym2612Nuke chip = (Ym2612Nuke) AsyncFmProvider.unwrap(async);
+            byte[] state = Util.serializeObject(sync.getState());
+            chip.setState((Ym2612Nuke.Ym3438Context) Util.deserializeObject(state, 0, state.length));
+            AsyncFmProvider.onStateLoaded(async);
+            int overflows = 0;
+            for (int i = 0; i < TICKS; i++) {
+                sync.tick(MICROS_PER_TICK);
+                async.tick(MICROS_PER_TICK);
+                int expected = sync.read() & TIMER_MASK;
+                Assert.assertEquals("tick " + i, expected, async.read() & TIMER_MASK);
+                if (expected != 0) {
+                    overflows++;
+                    writeReg(sync, 0x27, 0x3F);
+                    writeReg(async, 0x27, 0x3F);
+                }
+            }
+            Assert.assertTrue(overflows > 2);
+        } finally {
+            async.close();
+        }
+    }
+
+    private static void writeTimers(FmProvider fm) {
+        writeReg(fm, 0x24, 1000 >> 2);
+        writeReg(fm, 0x25, 1000 & 3);
+        writeReg(fm, 0x26, 250);
+        writeReg(fm, 0x27, 0xF);
+    }
+
+    private static Ym2612Nuke createFm() {
+        Ym2612Nuke fm = new Ym2612Nuke(AbstractSoundManager.audioFormat, Util.GEN_NTSC_MCLOCK_MHZ / 7.0);
+        fm.reset();
+        return fm;
+    }
+
+    private static void keyOn(FmProvider fm) {
+        //ch1: algo 7, all operators max level, fast attack, key on
+        writeReg(fm, 0xB0, 7);
+        writeReg(fm, 0xB4, 0xC0);
+        for (int op = 0; op < 4; op++) {
+            writeReg(fm, 0x30 + op * 4, 1);
+            writeReg(fm, 0x40 + op * 4, 0);
+            writeReg(fm, 0x50 + op * 4, 0x1F);
+        }
+        writeReg(fm, 0xA4, 0x22);
+        writeReg(fm, 0xA0, 0x69);
+        writeReg(fm, 0x28, 0xF0);
+    }
+
+    private static void writeReg(FmProvider fm, int reg, int data) {
+        fm.write(FM_ADDRESS_PORT0, reg);
+        fm.tick(0, 48);
+        fm.write(FM_DATA_PORT0, data);
+        fm.tick(0, 48);
+    }
+}
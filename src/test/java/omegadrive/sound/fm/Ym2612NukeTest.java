@@ -0,0 +1,92 @@
+/*
+ * Ym2612NukeTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.fm;
+
+import omegadrive.sound.fm.ym2612.nukeykt.Ym2612Nuke;
+import omegadrive.sound.javasound.AbstractSoundManager;
+import omegadrive.util.Util;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class Ym2612NukeTest {
+
+    private static final int TICKS = 100_000;
+
+    /**
+     * Clocking the chip in batches of random length produces the same samples as one tick at a time.
+     */
+    @Test
+    public void testBatchTick() {
+        double microsPerTick = 1_000_000.0 / (Util.GEN_NTSC_MCLOCK_MHZ / 42.0);
+        Ym2612Nuke single = createFm();
+        Ym2612Nuke batch = createFm();
+
+        for (int i = 0; i < TICKS; i++) {
+            single.tick(microsPerTick);
+        }
+        Random r = new Random(1);
+        int ticks = 0;
+        while (ticks < TICKS) {
+            int n = Math.min(TICKS - ticks, 1 + r.nextInt(100));
+            batch.tick(microsPerTick, n);
+            ticks += n;
+        }
+        int[] expected = new int[TICKS];
+        int[] actual = new int[TICKS];
+        int len = single.update(expected, 0, TICKS >> 1);
+        Assert.assertTrue(len > 0);
+        Assert.assertTrue(Arrays.stream(expected).anyMatch(v -> v != 0));
+        Assert.assertEquals(len, batch.update(actual, 0, TICKS >> 1));
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    private static Ym2612Nuke createFm() {
+        Ym2612Nuke fm = new Ym2612Nuke(AbstractSoundManager.audioFormat, Util.GEN_NTSC_MCLOCK_MHZ / 7.0);
+        fm.reset();
+        //ch1: algo 7, all operators max level, fast attack, key on
+        writeReg(fm, 0xB0, 7);
+        writeReg(fm, 0xB4, 0xC0);
+        for (int op = 0; op < 4; op++) {
+            writeReg(fm, 0x30 + op * 4, 1);
+            writeReg(fm, 0x40 + op * 4, 0);
+            writeReg(fm, 0x50 + op * 4, 0x1F);
+        }
+        writeReg(fm, 0xA4, 0x22);
+        writeReg(fm, 0xA0, 0x69);
+        writeReg(fm, 0x28, 0xF0);
+        return fm;
+    }
+
+    private static void writeReg(Ym2612Nuke fm, int reg, int data) {
+        fm.write(0, reg);
+        latch(fm);
+        fm.write(1, data);
+        latch(fm);
+    }
+
+    //let the chip process the write
+    private static void latch(Ym2612Nuke fm) {
+        for (int i = 0; i < 48; i++) {
+            fm.tick(0);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * PsgBlockRenderTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.psg;
+
+import omegadrive.sound.psg.msx.Ay38910;
+import omegadrive.sound.psg.white.SN76489;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PsgBlockRenderTest {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int NTSC_PSG_CLOCK = 3579545;
+
+    /**
+     * 440hz square wave at max volume
+     */
+    @Test
+    public void testSnTone() {
+        SN76489 psg = new SN76489();
+        psg.init(NTSC_PSG_CLOCK, SAMPLE_RATE);
+        //tone0 = 254 -> 3579545 / 32 / 254 = 440.4hz, volume0 = 0 (max)
+        psg.write(0x80 | (254 & 0xF));
+        psg.write(254 >> 4);
+        psg.write(0x90);
+        int[] out = new int[SAMPLE_RATE];
+        psg.update(out, 0, out.length);
+
+        int max = 0, min = 0, signChanges = 0;
+        for (int i = 1; i < out.length; i++) {
+            max = Math.max(max, out[i]);
+            min = Math.min(min, out[i]);
+            signChanges += Integer.signum(out[i]) != Integer.signum(out[i - 1]) && out[i] != 0 ? 1 : 0;
+        }
+        Assert.assertEquals(1600, max);
+        Assert.assertEquals(-1600, min);
+        Assert.assertEquals(2 * 440, signChanges, 4);
+    }
+
+    /**
+     * Filling the spans between events gives the same output as stepping one sample at a time.
+     */
+    @Test
+    public void testAyBlockMatchesStep() {
+        Ay38910 block = new Ay38910(SAMPLE_RATE);
+        Ay38910 step = new Ay38910(SAMPLE_RATE);
+        setupAy(block);
+        setupAy(step);
+        int[] out = new int[10_000];
+        int pos = 0;
+        int len = 1;
+        while (pos < out.length) {
+            int n = Math.min(len, out.length - pos);
+            block.render(out, pos, n);
+            pos += n;
+            len = len * 3 % 997;
+        }
+        boolean nonZero = false;
+        for (int i = 0; i < out.length; i++) {
+            int expected = step.getSound() * (3 << 6);
+            Assert.assertEquals("Sample " + i, expected, out[i]);
+            nonZero |= expected != 0;
+        }
+        Assert.assertTrue(nonZero);
+    }
+
+    private static void setupAy(Ay38910 psg) {
+        psg.reset();
+        psg.out(0, 250); //A ~441hz
+        psg.out(2, 123); //B
+        psg.out(4, 77); //C
+        psg.out(6, 9); //noise
+        psg.out(7, 0x30); //tone A,B,C + noise A
+        psg.out(8, 0xF);
+        psg.out(9, 0x8);
+        psg.out(10, 0x10); //C: envelope
+        psg.out(11, 40); //envelope period
+        psg.out(13, 0xE); //triangle
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * FrameStepper
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+import omegadrive.SystemLoader;
+import omegadrive.system.perf.HeadlessRunner;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static omegadrive.system.SystemProvider.SystemEvent.CLOSE_ROM;
+import static omegadrive.system.SystemProvider.SystemEvent.NEW_ROM;
+
+/**
+ * Runs a system a given number of frames at a time: the emulation thread is parked at the end of every frame
+ * until more frames are requested. Frames are dropped, no pacing, audio samples are discarded.
+ */
+public class FrameStepper extends HeadlessRunner.HeadlessWindow {
+
+    static {
+        HeadlessRunner.setHeadlessProperties();
+    }
+
+    private static final int TIMEOUT_SEC = 30;
+
+    private final Semaphore framesRequested = new Semaphore(0);
+    private final Semaphore framesDone = new Semaphore(0);
+    private volatile boolean closed;
+    private SystemProvider system;
+    private int frameCount;
+
+    /**
+     * Loads the rom and waits for the first frame.
+     */
+    public static FrameStepper start(Path rom) {
+        FrameStepper stepper = new FrameStepper();
+        stepper.system = Objects.requireNonNull(SystemLoader.createSystemProvider(rom, stepper, false));
+        stepper.system.handleSystemEvent(NEW_ROM, rom);
+        stepper.waitFrames(1);
+        return stepper;
+    }
+
+    public void runFrames(int frames) {
+        framesRequested.release(frames);
+        waitFrames(frames);
+    }
+
+    //the rom thread might fail
+    private void waitFrames(int frames) {
+        try {
+            if (!framesDone.tryAcquire(frames, TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timeout waiting for " + frames + " frames, rom running: " +
+                        system.isRomRunning());
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void close() {
+        closed = true;
+        framesRequested.release(Integer.MAX_VALUE >> 1);
+        system.handleSystemEvent(CLOSE_ROM, null);
+    }
+
+    public SystemProvider getSystem() {
+        return system;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    protected void onFrame() {
+        frameCount++;
+        framesDone.release();
+        if (!closed) {
+            framesRequested.acquireUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * FrameStepperTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+import omegadrive.SystemLoader.SystemType;
+import omegadrive.util.TestRomUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+public class FrameStepperTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FrameStepper stepper;
+
+    @After
+    public void after() {
+        if (stepper != null) {
+            stepper.close();
+        }
+    }
+
+    @Test
+    public void testGenesis() throws Exception {
+        testRunFrames(SystemType.GENESIS);
+    }
+
+    @Test
+    public void testSms() throws Exception {
+        testRunFrames(SystemType.SMS);
+    }
+
+    @Test
+    public void testMsx() throws Exception {
+        testRunFrames(SystemType.MSX);
+    }
+
+    private void testRunFrames(SystemType systemType) throws Exception {
+        Path rom = TestRomUtil.writeRom(systemType, folder.getRoot().toPath());
+        stepper = FrameStepper.start(rom);
+        Assert.assertEquals(systemType, stepper.getSystem().getSystemType());
+        Assert.assertEquals(1, stepper.getFrameCount());
+        stepper.runFrames(5);
+        Assert.assertEquals(6, stepper.getFrameCount());
+        Assert.assertTrue(stepper.getSystem().isRomRunning());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * SystemMetricsTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system.perf;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+public class SystemMetricsTest {
+
+    private static final long MS = 1_000_000;
+    private static final long TARGET_NS = 16 * MS;
+
+    @Test
+    public void testPacing() {
+        SystemMetrics m = new SystemMetrics("TEST", "test.bin");
+        for (int i = 0; i < 98; i++) {
+            m.newFrame(10 * MS, 6 * MS, 50_000, TARGET_NS);
+        }
+        m.newFrame(40 * MS, 0, 10 * MS, TARGET_NS); //2 extra intervals
+        m.newFrame(4 * MS, 0, -10 * MS, TARGET_NS);
+
+        Assert.assertEquals(100, m.getFrames());
+        Assert.assertEquals(1, m.getDroppedFrames());
+        Assert.assertEquals(2, m.getDuplicatedFrames());
+        //within one bucket
+        Assert.assertEquals(10, m.getFrameProcessingMsP50(), 1);
+        Assert.assertEquals(40, m.getFrameProcessingMsMax(), 0);
+        Assert.assertEquals(6, m.getFrameWaitMsP50(), 0.6);
+        Assert.assertEquals(100, m.getDriftUsP50(), 0);
+        Assert.assertEquals(-10_000, m.getDriftUsP1(), 0);
+
+        m.addCycles(SystemMetrics.Device.Z80, 100);
+        m.addCycles(SystemMetrics.Device.Z80, 20);
+        m.addCycles(SystemMetrics.Device.VDP, 5);
+        Assert.assertEquals(120L, (long) m.getDeviceCycles().get("z80"));
+        Assert.assertEquals(5L, (long) m.getDeviceCycles().get("vdp"));
+        Assert.assertFalse(m.getDeviceCycles().containsKey("m68k"));
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        SystemMetrics m = new SystemMetrics("TEST", "test.bin");
+        m.newFrame(10 * MS, 6 * MS, 0, TARGET_NS);
+        m.addCycles(SystemMetrics.Device.M68K, 1000);
+        m.register();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(m.getObjectName());
+            Assert.assertEquals(1L, server.getAttribute(name, "Frames"));
+            Assert.assertEquals("test.bin", server.getAttribute(name, "RomName"));
+            TabularData cycles = (TabularData) server.getAttribute(name, "DeviceCycles");
+            Assert.assertEquals(1000L, cycles.get(new Object[]{"m68k"}).get("value"));
+
+            //replaces the previous one
+            SystemMetrics m2 = new SystemMetrics("TEST", "test2.bin");
+            m2.register();
+            Assert.assertEquals("test2.bin", server.getAttribute(name, "RomName"));
+        } finally {
+            m.unregister();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(m.getObjectName())));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * TelemetryTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system.perf;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TelemetryTest {
+
+    @Test
+    public void testSampling() {
+        Telemetry t = new Telemetry();
+        Counter c = t.counter("count");
+        Gauge g = t.gauge("gauge");
+        Histogram h = t.histogram("histo", new double[]{1, 10, 100});
+        Assert.assertSame(c, t.counter("count"));
+
+        c.add(3);
+        g.set(1.5);
+        h.record(5);
+        h.record(7);
+        t.newFrame();
+        c.inc();
+        h.record(1000);
+        t.newFrame();
+
+        Metric[] columns = {c, g, h};
+        String csv = t.toCsv(columns, 1, 2, true);
+        Assert.assertEquals("frame,count,gauge,histo\n1,3.0,1.5,6.0\n2,1.0,1.5,1000.0", csv);
+
+        Assert.assertArrayEquals(new long[]{0, 2, 0, 1}, h.getBuckets());
+        Assert.assertEquals(10, h.getQuantile(0.5), 0);
+        Assert.assertEquals(100, h.getQuantile(1), 0);
+        String json = t.toJson();
+        Assert.assertTrue(json, json.contains("\"count\": 4"));
+        Assert.assertTrue(json, json.contains("{\"le\": \"inf\", \"count\": 1}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        Telemetry t = new Telemetry();
+        t.counter("x");
+        t.gauge("x");
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * RenderingStrategyScalerTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.ui;
+
+import omegadrive.ui.RenderingStrategy.Filter;
+import omegadrive.vdp.model.IndexedFrame;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Random;
+
+public class RenderingStrategyScalerTest {
+
+    private static final Dimension SRC = new Dimension(320, 224);
+    //integer factors, integer vertical only, non integer and shrinking
+    private static final Dimension[] DEST = {
+            new Dimension(640, 448), new Dimension(1280, 896), new Dimension(1000, 896),
+            new Dimension(3840, 2160), new Dimension(1366, 768), new Dimension(256, 192)
+    };
+
+    /**
+     * Same output as renderNearest, with and without worker threads.
+     */
+    @Test
+    public void testSameAsRenderNearest() {
+        int[] src = randomPixels(SRC.width * SRC.height, 1);
+        RenderingStrategy[] scalers = {new RenderingStrategy(Filter.NONE, 1), new RenderingStrategy(Filter.NONE, 4)};
+        for (Dimension dest : DEST) {
+            int[] expected = new int[dest.width * dest.height];
+            RenderingStrategy.renderNearest(src, expected, SRC, dest);
+            for (RenderingStrategy scaler : scalers) {
+                int[] actual = new int[expected.length];
+                //the second time uses the cached transfer function, evicted by the following sizes
+                for (int i = 0; i < 2; i++) {
+                    scaler.render(src, actual, SRC, dest);
+                    Assert.assertArrayEquals(dest.toString(), expected, actual);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scaling an indexed frame is the same as converting it to RGB and then scaling it.
+     */
+    @Test
+    public void testIndexedFrame() {
+        IndexedFrame frame = new IndexedFrame(SRC.width, SRC.height);
+        Random r = new Random(2);
+        int[] palette = randomPixels(16, 3);
+        frame.newFrame();
+        for (int line = 0; line < SRC.height; line++) {
+            if (line % 7 == 0) {
+                palette[r.nextInt(palette.length)] = r.nextInt(0x100_0000);
+                frame.setPalette(line, palette, palette.length);
+            } else {
+                frame.keepPalette(line);
+            }
+            for (int x = 0; x < SRC.width; x++) {
+                frame.getPixels()[line * SRC.width + x] = (byte) r.nextInt(palette.length);
+            }
+        }
+        int[] rgb = frame.toRgb();
+        RenderingStrategy scaler = new RenderingStrategy(Filter.NONE, 4);
+        for (Dimension dest : DEST) {
+            int[] expected = new int[dest.width * dest.height];
+            int[] actual = new int[expected.length];
+            RenderingStrategy.renderNearest(rgb, expected, SRC, dest);
+            scaler.render(frame, actual, dest);
+            Assert.assertArrayEquals(dest.toString(), expected, actual);
+        }
+    }
+
+    @Test
+    public void testScale2x() {
+        //diagonal edge
+        int[] src = {
+                0, 0, 1,
+                0, 1, 1,
+                1, 1, 1
+        };
+        int[] expected = {
+                0, 0, 0, 0, 1, 1,
+                0, 0, 0, 1, 1, 1,
+                0, 0, 0, 1, 1, 1,
+                0, 1, 1, 1, 1, 1,
+                1, 1, 1, 1, 1, 1,
+                1, 1, 1, 1, 1, 1
+        };
+        int[] actual = new int[expected.length];
+        RenderingStrategy.scale2x(src, actual, 3, 3, 0, 3);
+        Assert.assertArrayEquals(expected, actual);
+
+        //without edges it is plain pixel doubling: vertical stripes, 2 pixels wide
+        int[] flat = randomPixels(SRC.width * SRC.height, 4);
+        for (int i = 1; i < SRC.width; i += 2) {
+            flat[i] = flat[i - 1];
+        }
+        for (int y = 1; y < SRC.height; y++) {
+            System.arraycopy(flat, 0, flat, y * SRC.width, SRC.width);
+        }
+        Dimension dest = new Dimension(SRC.width * 2, SRC.height * 2);
+        int[] doubled = new int[dest.width * dest.height];
+        int[] filtered = new int[doubled.length];
+        RenderingStrategy.renderNearest(flat, doubled, SRC, dest);
+        new RenderingStrategy(Filter.SCALE2X, 4).render(flat, filtered, SRC, dest);
+        Assert.assertArrayEquals(doubled, filtered);
+    }
+
+    @Test
+    public void testGetFilter() {
+        Assert.assertEquals(Filter.SCALE2X, Filter.getFilter("scale2x"));
+        Assert.assertEquals(Filter.NONE, Filter.getFilter("scale4x"));
+    }
+
+    private static int[] randomPixels(int len, long seed) {
+        Random r = new Random(seed);
+        int[] res = new int[len];
+        for (int i = 0; i < len; i++) {
+            res[i] = r.nextInt(0x100_0000);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * IntRingBufferTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class IntRingBufferTest {
+
+    @Test
+    public void testOfferDrain() {
+        IntRingBuffer b = new IntRingBuffer(6);
+        Assert.assertEquals(8, b.capacity());
+        Assert.assertTrue(b.isEmpty());
+
+        Assert.assertTrue(b.offer(1));
+        Assert.assertTrue(b.offer(2, 3));
+        Assert.assertEquals(5, b.offer(new int[]{4, 5, 6, 7, 8, 9}, 0, 6));
+        Assert.assertEquals(8, b.size());
+        Assert.assertFalse(b.offer(10));
+        Assert.assertFalse(b.offer(10, 11));
+
+        int[] out = new int[10];
+        Assert.assertEquals(3, b.drain(out, 1, 3));
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3, 0, 0, 0, 0, 0, 0}, out);
+
+        //wraps around
+        Assert.assertEquals(3, b.offer(new int[]{9, 10, 11, 12}, 0, 4));
+        Assert.assertEquals(8, b.drain(out, 0, 10));
+        Assert.assertArrayEquals(new int[]{4, 5, 6, 7, 8, 9, 10, 11, 0, 0}, out);
+        Assert.assertEquals(0, b.drain(out, 0, 10));
+
+        b.offer(1, 2);
+        b.clear();
+        Assert.assertTrue(b.isEmpty());
+    }
+
+    @Test
+    public void testDiscard() {
+        IntRingBuffer b = new IntRingBuffer(8);
+        Assert.assertTrue(b.offer(1, 2));
+        b.discard();
+        Assert.assertTrue(b.isEmpty());
+        Assert.assertTrue(b.offer(3, 4));
+        Assert.assertEquals(2, b.size());
+
+        int[] out = new int[4];
+        Assert.assertEquals(2, b.drain(out, 0, 4));
+        Assert.assertArrayEquals(new int[]{3, 4, 0, 0}, out);
+        //the space is back once the consumer has applied the discard
+        Assert.assertEquals(8, b.offer(new int[8], 0, 8));
+    }
+
+    @Test
+    public void testProducerConsumer() throws InterruptedException {
+        final int total = 1_000_000;
+        IntRingBuffer b = new IntRingBuffer(64);
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            int[] out = new int[16];
+            int expected = 0;
+            while (expected < total) {
+                int len = b.drain(out, 0, out.length);
+                for (int i = 0; i < len; i++, expected++) {
+                    if (out[i] != expected) {
+                        error.set("Expected " + expected + ", got " + out[i]);
+                        return;
+                    }
+                }
+                if (len == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < total; ) {
+            if (b.offer(i, i + 1)) {
+                i += 2;
+            } else {
+                Thread.yield();
+            }
+        }
+        consumer.join(10_000);
+        Assert.assertFalse(consumer.isAlive());
+        Assert.assertNull(error.get());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * TestRomUtil
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import omegadrive.SystemLoader.SystemType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Small programs that keep the devices busy, they loop forever writing VRAM, CRAM and sound registers.
+ */
+public class TestRomUtil {
+
+    private static final int MD_ROM_SIZE = 0x20000;
+    private static final int MD_RTE_ADDRESS = 0x1FE;
+    private static final int MD_CODE_START = 0x200;
+    private static final int MD_VRAM_WORDS = 0x400;
+
+    private static final int SMS_ROM_SIZE = 0x8000;
+
+    private static final int MSX_ROM_SIZE = 0x4000;
+    private static final int MSX_ROM_START = 0x4000;
+    private static final int MSX_CODE_START = 0x10;
+
+    public static Path writeRom(SystemType systemType, Path folder) throws IOException {
+        byte[] data;
+        String name;
+        switch (systemType) {
+            case GENESIS:
+                data = createMdRom();
+                name = "test.md";
+                break;
+            case SMS:
+                data = createSmsRom();
+                name = "test.sms";
+                break;
+            case MSX:
+                data = createMsxRom();
+                name = "test.rom";
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported system: " + systemType);
+        }
+        Path file = folder.resolve(name);
+        Files.write(file, data);
+        return file;
+    }
+
+    /**
+     * Loops: VRAM fill, CRAM fill, FM key on and frequency write.
+     * The Z80 is kept on hold, the 68k owns its bus.
+     */
+    public static byte[] createMdRom() {
+        ByteBuffer b = ByteBuffer.allocate(MD_ROM_SIZE);
+        b.putInt(0, 0xFFFE00); //SP
+        b.putInt(4, MD_CODE_START); //PC
+        for (int i = 2; i < 64; i++) {
+            b.putInt(i << 2, MD_RTE_ADDRESS);
+        }
+        putAscii(b, 0x100, "SEGA MEGA DRIVE ");
+        putAscii(b, 0x1F0, "JUE");
+        b.putShort(MD_RTE_ADDRESS, (short) 0x4E73); //rte
+
+        b.position(MD_CODE_START);
+        putWords(b, 0x43F9, 0x00C0, 0x0004); //lea $C00004,a1
+        putWords(b, 0x41F9, 0x00C0, 0x0000); //lea $C00000,a0
+        putWords(b, 0x45F9, 0x00A0, 0x4000); //lea $A04000,a2
+        putWords(b, 0x33FC, 0x0100, 0x00A1, 0x1100); //move.w #$100,$A11100, z80 busReq
+        putWords(b, 0x33FC, 0x0100, 0x00A1, 0x1200); //move.w #$100,$A11200, z80 reset off
+        putWords(b, 0x32BC, 0x8004); //move.w #$8004,(a1)
+        putWords(b, 0x32BC, 0x8144); //move.w #$8144,(a1), display on, mode5
+        putWords(b, 0x32BC, 0x8F02); //move.w #$8F02,(a1), autoinc 2
+        int loop = b.position();
+        putWords(b, 0x22BC, 0x4000, 0x0000); //move.l #$40000000,(a1), vram write 0
+        putWords(b, 0x303C, MD_VRAM_WORDS - 1); //move.w #n,d0
+        int vram = b.position();
+        putWords(b, 0x3081); //move.w d1,(a0)
+        putWords(b, 0x5241); //addq.w #1,d1
+        putWords(b, 0x51C8, vram - (b.position() + 2)); //dbra d0,vram
+        putWords(b, 0x22BC, 0xC000, 0x0000); //move.l #$C0000000,(a1), cram write 0
+        putWords(b, 0x703F); //moveq #63,d0
+        int cram = b.position();
+        putWords(b, 0x3081); //move.w d1,(a0)
+        putWords(b, 0x51C8, cram - (b.position() + 2)); //dbra d0,cram
+        putWords(b, 0x14BC, 0x0028); //move.b #$28,(a2), key on/off
+        putWords(b, 0x157C, 0x00F0, 0x0001); //move.b #$F0,1(a2)
+        putWords(b, 0x14BC, 0x00A0); //move.b #$A0,(a2), frequency
+        putWords(b, 0x1541, 0x0001); //move.b d1,1(a2)
+        putWords(b, 0x6000, loop - (b.position() + 2)); //bra.w loop
+        return b.array();
+    }
+
+    /**
+     * Loops: VRAM fill, CRAM fill, PSG write and YM2413 write (ignored unless sms.enable.fm=true).
+     */
+    public static byte[] createSmsRom() {
+        ByteBuffer b = ByteBuffer.allocate(SMS_ROM_SIZE);
+        putBytes(b, 0xF3); //di
+        putBytes(b, 0x31, 0xF0, 0xDF); //ld sp,$DFF0
+        putBytes(b, 0x3E, 0x04, 0xD3, 0xBF, 0x3E, 0x80, 0xD3, 0xBF); //reg0: mode4
+        putBytes(b, 0x3E, 0x40, 0xD3, 0xBF, 0x3E, 0x81, 0xD3, 0xBF); //reg1: display on
+        int loop = b.position();
+        putBytes(b, 0xAF, 0xD3, 0xBF, 0x3E, 0x40, 0xD3, 0xBF); //vram write 0
+        putZ80Fill(b, 0xBE, 0);
+        putBytes(b, 0xAF, 0xD3, 0xBF, 0x3E, 0xC0, 0xD3, 0xBF); //cram write 0
+        putZ80Fill(b, 0xBE, 32);
+        putBytes(b, 0x79, 0xD3, 0x7F); //ld a,c; out ($7F),a psg
+        putBytes(b, 0x3E, 0x10, 0xD3, 0xF0, 0x79, 0xD3, 0xF1); //fm register $10
+        putBytes(b, 0xC3, loop & 0xFF, loop >> 8); //jp loop
+        return b.array();
+    }
+
+    /**
+     * Cartridge started by the bios: loops on VRAM fill and PSG writes.
+     */
+    public static byte[] createMsxRom() {
+        ByteBuffer b = ByteBuffer.allocate(MSX_ROM_SIZE);
+        int start = MSX_ROM_START + MSX_CODE_START;
+        putBytes(b, 'A', 'B', start & 0xFF, start >> 8); //header, init address
+        b.position(MSX_CODE_START);
+        putBytes(b, 0xF3); //di
+        putBytes(b, 0x3E, 0xC0, 0xD3, 0x99, 0x3E, 0x81, 0xD3, 0x99); //reg1: 16k, display on
+        int loop = MSX_ROM_START + b.position();
+        putBytes(b, 0xAF, 0xD3, 0x99, 0x3E, 0x40, 0xD3, 0x99); //vram write 0
+        putZ80Fill(b, 0x98, 0);
+        putBytes(b, 0x3E, 0x08, 0xD3, 0xA0, 0x79, 0xD3, 0xA1); //psg reg8, volume A
+        putBytes(b, 0xAF, 0xD3, 0xA0, 0x79, 0xD3, 0xA1); //psg reg0, tone A
+        putBytes(b, 0xC3, loop & 0xFF, loop >> 8); //jp loop
+        return b.array();
+    }
+
+    //count = 0 -> 256 writes
+    private static void putZ80Fill(ByteBuffer b, int port, int count) {
+        putBytes(b, 0x06, count); //ld b,count
+        putBytes(b, 0x79, 0xD3, port, 0x0C); //ld a,c; out (port),a; inc c
+        putBytes(b, 0x10, 0xFA); //djnz -6
+    }
+
+    private static void putWords(ByteBuffer b, int... words) {
+        for (int w : words) {
+            b.putShort((short) w);
+        }
+    }
+
+    private static void putBytes(ByteBuffer b, int... bytes) {
+        for (int v : bytes) {
+            b.put((byte) v);
+        }
+    }
+
+    private static void putAscii(ByteBuffer b, int pos, String s) {
+        byte[] a = s.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < a.length; i++) {
+            b.put(pos + i, a[i]);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * TripleBufferTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TripleBufferTest {
+
+    @Test
+    public void testPublishAcquire() {
+        TripleBuffer<int[]> b = new TripleBuffer<>(() -> new int[1]);
+        Assert.assertNull(b.acquire());
+
+        int[] first = new int[]{1};
+        int[] next = b.publish(first);
+        Assert.assertNotSame(first, next);
+        Assert.assertSame(first, b.acquire());
+        Assert.assertNull(b.acquire());
+        Assert.assertSame(first, b.getFront());
+
+        //the consumer only gets the latest frame
+        next[0] = 2;
+        next = b.publish(next);
+        next[0] = 3;
+        int[] last = next;
+        next = b.publish(next);
+        Assert.assertSame(last, b.acquire());
+        Assert.assertNotSame(last, next);
+        Assert.assertNotSame(first, next);
+
+        //only three buffers in use
+        Map<int[], Boolean> seen = new IdentityHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            seen.put(next, true);
+            next = b.publish(next);
+            seen.put(b.acquire(), true);
+        }
+        Assert.assertEquals(3, seen.size());
+    }
+
+    @Test
+    public void testProducerConsumer() throws InterruptedException {
+        final int total = 200_000;
+        TripleBuffer<int[]> b = new TripleBuffer<>(() -> new int[16]);
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            int prev = 0;
+            while (prev < total) {
+                int[] f = b.acquire();
+                if (f == null) {
+                    Thread.yield();
+                    continue;
+                }
+                //a frame is never written while the consumer holds it
+                for (int v : f) {
+                    if (v != f[0] || v <= prev) {
+                        error.set("Unexpected frame: " + v + ", previous: " + prev);
+                        return;
+                    }
+                }
+                prev = f[0];
+            }
+        });
+        consumer.start();
+        int[] frame = new int[16];
+        for (int i = 1; i <= total; i++) {
+            Arrays.fill(frame, i);
+            frame = b.publish(frame);
+        }
+        consumer.join(10_000);
+        Assert.assertFalse(consumer.isAlive());
+        Assert.assertNull(error.get());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * AsyncVdpRenderHandlerTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.gen;
+
+import omegadrive.bus.gen.GenesisBusProvider;
+import omegadrive.save.SavestateTest;
+import omegadrive.vdp.model.GenesisVdpProvider;
+import omegadrive.vdp.model.IndexedFrame;
+import omegadrive.vdp.model.VdpRenderHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Path;
+
+public class AsyncVdpRenderHandlerTest {
+
+    private static final String[] SAVESTATES = {"sor2.gs0", "sh1_00.gs0", "dan_window01.gsh"};
+
+    /**
+     * Rendering on the worker thread produces the same screen, including mid frame palette,
+     * background color and vscroll changes.
+     */
+    @Test
+    public void testSameAsSync() {
+        for (String name : SAVESTATES) {
+            Path file = SavestateTest.saveStateFolder.resolve(name);
+            GenesisBusProvider bus = SavestateTest.loadSaveState(file);
+            GenesisVdp vdp = (GenesisVdp) bus.getVdp();
+            GenesisVdpMemoryInterface memory = (GenesisVdpMemoryInterface) vdp.getVdpMemory();
+            VdpRenderHandler sync = VdpRenderHandlerImpl.createInstance(vdp, memory);
+            VdpRenderHandler async = AsyncVdpRenderHandler.createInstance(vdp, memory);
+            Assert.assertTrue(async instanceof AsyncVdpRenderHandler);
+            vdp.resetVideoMode(true);
+            try {
+                for (int frame = 0; frame < 2; frame++) {
+                    sync.initLineData(0);
+                    async.initLineData(0);
+                    int lines = vdp.getVideoMode().getDimension().height;
+                    for (int line = 0; line < lines; line++) {
+                        //raster effects
+                        memory.writeCramByte((line & 0x3F) << 1, line);
+                        memory.writeVsramByte(1, line + frame);
+                        vdp.updateRegisterData(7, line & 0x3F);
+                        sync.renderLine(line);
+                        async.renderLine(line);
+                    }
+                    Assert.assertArrayEquals(name, sync.getScreenDataLinear(), async.getScreenDataLinear());
+                }
+            } finally {
+                async.close();
+            }
+        }
+    }
+
+    /**
+     * Once the worker has stopped the frame is not replaced, the worker might still be writing it.
+     */
+    @Test(timeout = 10_000)
+    public void testStoppedWorker() {
+        GenesisBusProvider bus = SavestateTest.loadSaveState(SavestateTest.saveStateFolder.resolve(SAVESTATES[0]));
+        GenesisVdp vdp = (GenesisVdp) bus.getVdp();
+        VdpRenderHandler async = AsyncVdpRenderHandler.createInstance(vdp, (GenesisVdpMemoryInterface) vdp.getVdpMemory());
+        vdp.resetVideoMode(true);
+        async.initLineData(0);
+        IndexedFrame frame = async.getScreenDataIndexed();
+        async.close();
+        for (int line = 0; line < 100_000; line++) {
+            async.renderLine(line & 0xFF);
+        }
+        async.setScreenDataIndexed(new IndexedFrame());
+        Assert.assertSame(frame, async.getScreenDataIndexed());
+    }
+}
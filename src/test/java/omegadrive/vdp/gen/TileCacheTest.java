@@ -0,0 +1,54 @@
+/*
+ * TileCacheTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.gen;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TileCacheTest {
+
+    @Test
+    public void testDecodeAndInvalidate() {
+        GenesisVdpMemoryInterface mem = GenesisVdpMemoryInterface.createInstance();
+        TileCache cache = mem.getTileCache();
+        int rowAddress = 0x20 + 4; //tile 1, row 1
+        int[] rowData = {0x12, 0x34, 0x56, 0x78};
+        for (int i = 0; i < rowData.length; i++) {
+            mem.writeVramByte(rowAddress + i, rowData[i]);
+        }
+        checkRow(cache, rowAddress, false, 1, 2, 3, 4, 5, 6, 7, 8);
+        checkRow(cache, rowAddress, true, 8, 7, 6, 5, 4, 3, 2, 1);
+
+        //only the tile being written is decoded again
+        mem.writeVramByte(rowAddress + 3, 0xF0);
+        checkRow(cache, rowAddress, false, 1, 2, 3, 4, 5, 6, 0xF, 0);
+        checkRow(cache, rowAddress, true, 0, 0xF, 6, 5, 4, 3, 2, 1);
+
+        //wraps around
+        checkRow(cache, rowAddress + 0x10000, false, 1, 2, 3, 4, 5, 6, 0xF, 0);
+    }
+
+    private static void checkRow(TileCache cache, int rowAddress, boolean horFlip, int... expected) {
+        byte[] row = cache.getRow(rowAddress, horFlip);
+        int offset = cache.rowOffset(rowAddress);
+        for (int i = 0; i < TileCache.PIXELS_PER_ROW; i++) {
+            Assert.assertEquals("Pixel " + i, expected[i], row[offset + i]);
+        }
+    }
+}
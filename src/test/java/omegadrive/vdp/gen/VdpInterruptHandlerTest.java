@@ -211,6 +211,40 @@ public class VdpInterruptHandlerTest {
     }
 
 
+    /**
+     * No interrupt, new line or new frame before the number of slots returned by getSlotsToNextEvent
+     */
+    @Test
+    public void testSlotsToNextEvent() {
+        VideoMode[] modes = {VideoMode.PAL_H40_V30, VideoMode.PAL_H32_V28, VideoMode.NTSCU_H40_V28,
+                VideoMode.NTSCJ_H32_V28};
+        for (VideoMode mode : modes) {
+            BaseVdpProvider vdp = MdVdpTestUtil.createBaseTestVdp();
+            VdpInterruptHandler h = VdpInterruptHandler.createInstance(vdp);
+            MdVdpTestUtil.updateHCounter(vdp, 0); //hint on every line
+            MdVdpTestUtil.updateVideoMode(vdp, mode);
+            VdpCounterMode counterMode = VdpCounterMode.getCounterMode(mode);
+            int totalSlots = 2 * counterMode.slotsPerLine * counterMode.vTotalCount;
+            int[] slotsToEvent = new int[totalSlots];
+            boolean[] isEvent = new boolean[totalSlots];
+            for (int i = 0; i < totalSlots; i++) {
+                slotsToEvent[i] = h.getSlotsToNextEvent();
+                int vCounter = h.getvCounterInternal();
+                h.increaseHCounterSlot();
+                isEvent[i] = h.isvIntPending() || h.isHIntPending() || h.isDrawFrameSlot() ||
+                        vCounter != h.getvCounterInternal();
+                h.setvIntPending(false);
+                h.setHIntPending(false);
+            }
+            for (int i = 0; i < totalSlots; i++) {
+                Assert.assertTrue(mode + ", slot " + i, slotsToEvent[i] > 0);
+                for (int j = i; j < Math.min(totalSlots, i + slotsToEvent[i] - 1); j++) {
+                    Assert.assertFalse(mode + ", slot " + i + ", event on slot " + j, isEvent[j]);
+                }
+            }
+        }
+    }
+
     private static void printMsg(String msg) {
         if (verbose) {
             System.out.println(msg);
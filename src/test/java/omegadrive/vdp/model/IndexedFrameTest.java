@@ -0,0 +1,89 @@
+/*
+ * IndexedFrameTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.model;
+
+import omegadrive.ui.RenderingStrategy;
+import omegadrive.util.VideoMode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Optional;
+import java.util.Random;
+
+public class IndexedFrameTest {
+
+    private static final int W = 16, H = 12;
+
+    @Test
+    public void testLinePalettes() {
+        IndexedFrame frame = new IndexedFrame(W, H);
+        int[] expected = new int[W * H];
+        Random r = new Random(1);
+        int[] palette = new int[4];
+        frame.newFrame();
+        for (int line = 0; line < H; line++) {
+            //raster effect every 3 lines
+            if (line % 3 == 0) {
+                for (int i = 0; i < palette.length; i++) {
+                    palette[i] = r.nextInt(0x100_0000);
+                }
+                frame.setPalette(line, palette, palette.length);
+            } else {
+                frame.keepPalette(line);
+            }
+            for (int x = 0; x < W; x++) {
+                int index = r.nextInt(palette.length);
+                frame.getPixels()[line * W + x] = (byte) index;
+                expected[line * W + x] = palette[index];
+            }
+        }
+        Assert.assertArrayEquals(expected, frame.toRgb());
+
+        frame.setDisplayInfo(VideoMode.NTSCU_H40_V28, Optional.of("label"));
+        IndexedFrame copy = new IndexedFrame();
+        frame.copyTo(copy);
+        Assert.assertEquals(W, copy.getWidth());
+        Assert.assertArrayEquals(expected, copy.toRgb());
+        Assert.assertEquals(VideoMode.NTSCU_H40_V28, copy.getVideoMode());
+        Assert.assertEquals("label", copy.getLabel().orElse(null));
+
+        int dw = W / 2, dh = H / 2;
+        int[] expectedSub = new int[dw * dh];
+        RenderingStrategy.subImageWithOffset(expected, expectedSub, new Dimension(W, H), new Dimension(dw, dh), 2, 3);
+        IndexedFrame sub = new IndexedFrame();
+        frame.subImageWithOffset(sub, dw, dh, 2, 3);
+        Assert.assertArrayEquals(expectedSub, sub.toRgb());
+    }
+
+    /**
+     * Lines without a palette are black, ie. lines not rendered in this frame.
+     */
+    @Test
+    public void testNoPalette() {
+        IndexedFrame frame = new IndexedFrame(W, H);
+        frame.newFrame();
+        frame.setPalette(1, new int[]{0xFF, 0xFF00}, 2);
+        frame.getPixels()[0] = 1;
+        frame.getPixels()[W] = 1;
+        int[] rgb = frame.toRgb();
+        Assert.assertEquals(0, rgb[0]);
+        Assert.assertEquals(0xFF00, rgb[W]);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Z80RunTest
+ * Copyright (c) 2018-2019 Federico Berti
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.z80;
+
+import omegadrive.bus.DeviceAwareBus;
+import omegadrive.util.Size;
+import omegadrive.vdp.Tms9918aVdp;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Z80RunTest {
+
+    private static final int OUT_N_A = 0xD3;
+    private static final int LD_NN_A = 0x32;
+
+    private Z80Provider z80;
+    private int[] ram = new int[0x10000];
+    private int ioWrites, syncCalls;
+
+    @Before
+    public void setup() {
+        DeviceAwareBus<Tms9918aVdp> bus = new DeviceAwareBus<Tms9918aVdp>() {
+            @Override
+            public long read(long address, Size size) {
+                return ram[(int) address & 0xFFFF];
+            }
+
+            @Override
+            public void write(long address, long data, Size size) {
+                ram[(int) address & 0xFFFF] = (int) data & 0xFF;
+                if (address == 0x8000) {
+                    z80.requestYield();
+                }
+            }
+
+            @Override
+            public void writeIoPort(int port, int value) {
+                deviceSyncHandler.run();
+                ioWrites++;
+            }
+
+            @Override
+            public int readIoPort(int port) {
+                deviceSyncHandler.run();
+                return 0xFF;
+            }
+        };
+        bus.setDeviceSyncHandler(() -> syncCalls++);
+        z80 = Z80CoreWrapper.createInstance(bus);
+        z80.reset();
+    }
+
+    @Test
+    public void testRunBudget() {
+        //NOPs
+        Assert.assertEquals(12, z80.run(10));
+        Assert.assertEquals(12, z80.getBatchTstates());
+        Assert.assertEquals(3, z80.getZ80State().getRegPC());
+
+        //at least one instruction
+        Assert.assertEquals(4, z80.run(0));
+        Assert.assertEquals(4, z80.getZ80State().getRegPC());
+    }
+
+    @Test
+    public void testRunStopsOnIo() {
+        ram[4] = OUT_N_A;
+        ram[5] = 0x7F;
+        int tstates = z80.run(1000);
+        Assert.assertEquals(1, ioWrites);
+        Assert.assertEquals(1, syncCalls);
+        Assert.assertEquals(6, z80.getZ80State().getRegPC());
+        //4 NOPs + OUT (n),A
+        Assert.assertEquals(4 * 4 + 11, tstates);
+    }
+
+    @Test
+    public void testRunYield() {
+        ram[2] = LD_NN_A;
+        ram[3] = 0x00;
+        ram[4] = 0x80;
+        int tstates = z80.run(1000);
+        Assert.assertEquals(5, z80.getZ80State().getRegPC());
+        //2 NOPs + LD (nn),A
+        Assert.assertEquals(2 * 4 + 13, tstates);
+        Assert.assertEquals(0, syncCalls);
+    }
+}